@@ -18,8 +18,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -122,7 +126,7 @@ public class FilesApplicationFile extends ApplicationFile {
             file.getParentFile().mkdirs();
 
         String status = file.exists() ? ApplicationFile.ContentStatusChanged : ApplicationFile.ContentStatusNew;
-        uncheck(() -> Files.write(file.toPath(), data));
+        uncheck(() -> replaceFile(data));
         uncheck(() -> writeMetaFile(data, status));
         return this;
     }
@@ -134,7 +138,11 @@ public class FilesApplicationFile extends ApplicationFile {
         }
         try {
             String status = file.exists() ? ContentStatusChanged : ContentStatusNew;
-            IOUtils.writeFile(file, value, true);
+            byte[] existing = file.exists() ? Files.readAllBytes(file.toPath()) : new byte[0];
+            byte[] appended = Utf8.toBytes(value);
+            byte[] data = Arrays.copyOf(existing, existing.length + appended.length);
+            System.arraycopy(appended, 0, data, existing.length, appended.length);
+            replaceFile(data);
             writeMetaFile(value, status);
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -142,6 +150,22 @@ public class FilesApplicationFile extends ApplicationFile {
         return this;
     }
 
+    /**
+     * Writes the given data to a new file, which then atomically replaces this file. Files of a session may be
+     * hard links to those of other sessions, so writing to this file in place would change those as well.
+     */
+    private void replaceFile(byte[] data) throws IOException {
+        java.nio.file.Path temporary = file.getAbsoluteFile().toPath()
+                                           .resolveSibling("." + file.getName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(temporary, data, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            Files.move(temporary, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
     @Override
     public List<ApplicationFile> listFiles(final PathFilter filter) {
         List<ApplicationFile> files = new ArrayList<>();
@@ -5,9 +5,15 @@ import com.yahoo.config.application.api.ApplicationFile;
 import com.yahoo.config.application.api.ApplicationFileTest;
 import com.yahoo.path.Path;
 import org.junit.Rule;
+import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
 
 /**
  * @author Ulf Lilleengen
@@ -23,4 +29,25 @@ public class FilesApplicationFileTest extends ApplicationFileTest {
         writeAppTo(tmp);
         return new FilesApplicationFile(path, new File(tmp, path.getRelative()));
     }
+
+    @Test
+    public void testWritesDoNotChangeLinkedFiles() throws IOException {
+        File dir = temporaryFolder.newFolder();
+        java.nio.file.Path original = dir.toPath().resolve("original");
+        java.nio.file.Path linked = dir.toPath().resolve("linked");
+        Files.writeString(original, "foo");
+        Files.createLink(linked, original);
+
+        ApplicationFile file = new FilesApplicationFile(Path.fromString("linked"), linked.toFile());
+        file.writeFile(new StringReader("bar"));
+        assertEquals("bar", Files.readString(linked));
+        assertEquals("foo", Files.readString(original));
+
+        Files.delete(linked);
+        Files.createLink(linked, original);
+        file.appendFile("bar");
+        assertEquals("foobar", Files.readString(linked));
+        assertEquals("foo", Files.readString(original));
+    }
+
 }
@@ -6,6 +6,7 @@ import com.yahoo.searchlib.rankingexpression.Reference;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.model.ml.OnnxModelInfo;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -29,6 +30,8 @@ public class OnnxModel extends DistributableResource implements Cloneable {
 
     // Runtime options
     private OnnxModelOptions onnxModelOptions = OnnxModelOptions.empty();
+    private int batchingMaxSize = 1;
+    private Duration batchingMaxDelay = Duration.ZERO;
 
     public OnnxModel(String name) {
         super(name);
@@ -171,6 +174,19 @@ public class OnnxModel extends DistributableResource implements Cloneable {
         return onnxModelOptions.gpuDevice();
     }
 
+    /**
+     * Sets how concurrent evaluations of this model in a container are merged into batched evaluations.
+     * A max size of 1 or less disables batching.
+     */
+    public void setBatching(int maxSize, Duration maxDelay) {
+        batchingMaxSize = Math.max(1, maxSize);
+        batchingMaxDelay = maxDelay.isNegative() ? Duration.ZERO : maxDelay;
+    }
+
+    public int getBatchingMaxSize() { return batchingMaxSize; }
+
+    public Duration getBatchingMaxDelay() { return batchingMaxDelay; }
+
     public OnnxModelOptions onnxModelOptions() { return onnxModelOptions; }
 
 }
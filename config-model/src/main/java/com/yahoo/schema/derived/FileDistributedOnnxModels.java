@@ -63,6 +63,8 @@ public class FileDistributedOnnxModels {
             builder.gpu_device(model.getGpuDevice().get().deviceNumber());
             builder.gpu_device_required(model.getGpuDevice().get().required());
         }
+        builder.batching_max_size(model.getBatchingMaxSize());
+        builder.batching_max_delay_ms((int) model.getBatchingMaxDelay().toMillis());
         return builder;
     }
 
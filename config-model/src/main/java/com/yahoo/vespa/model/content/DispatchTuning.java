@@ -16,7 +16,8 @@ public class DispatchTuning {
         LATENCY_AMORTIZED_OVER_REQUESTS,
         LATENCY_AMORTIZED_OVER_TIME,
         BEST_OF_RANDOM_2,
-        ADAPTIVE
+        ADAPTIVE,
+        TAIL_LATENCY
     }
 
     private final Integer maxHitsPerPartition;
@@ -74,6 +75,7 @@ public class DispatchTuning {
                 case "latency-amortized-over-requests" -> DispatchPolicy.LATENCY_AMORTIZED_OVER_REQUESTS;
                 case "latency-amortized-over-time" -> DispatchPolicy.LATENCY_AMORTIZED_OVER_TIME;
                 case "best-of-random-2" -> DispatchPolicy.BEST_OF_RANDOM_2;
+                case "tail-latency" -> DispatchPolicy.TAIL_LATENCY;
                 default -> throw new IllegalArgumentException("Unknown dispatch policy '" + policy + "'");
             };
         }
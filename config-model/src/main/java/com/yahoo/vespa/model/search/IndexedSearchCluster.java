@@ -62,6 +62,7 @@ public class IndexedSearchCluster extends SearchCluster
             case BEST_OF_RANDOM_2: yield DistributionPolicy.BEST_OF_RANDOM_2;
             case LATENCY_AMORTIZED_OVER_REQUESTS: yield DistributionPolicy.LATENCY_AMORTIZED_OVER_REQUESTS;
             case LATENCY_AMORTIZED_OVER_TIME: yield DistributionPolicy.LATENCY_AMORTIZED_OVER_TIME;
+            case TAIL_LATENCY: yield DistributionPolicy.TAIL_LATENCY;
         };
     }
     public void getConfig(DispatchNodesConfig.Builder builder) {
@@ -98,6 +98,9 @@ public class ModelEvaluationTest {
             assertEquals(4, c2Model.stateless_intraop_threads());
             assertEquals(0, c1Model.gpu_device());
             assertEquals(1, c2Model.gpu_device());
+            assertEquals(1, c1Model.batching_max_size());
+            assertEquals(8, c2Model.batching_max_size());
+            assertEquals(2, c2Model.batching_max_delay_ms());
         } finally {
             IOUtils.recursiveDeleteDir(appDir.append(ApplicationPackage.MODELS_GENERATED_DIR).toFile());
         }
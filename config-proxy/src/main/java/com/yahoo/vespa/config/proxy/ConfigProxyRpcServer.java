@@ -97,6 +97,11 @@ public class ConfigProxyRpcServer implements Runnable, TargetWatcher {
                 .requireCapabilities(Capability.CONFIGPROXY__CONFIG_API)
                 .methodDesc("list cached configs with cache content)")
                 .returnDesc(0, "data", "string array of configs"));
+        supervisor.addMethod(new Method("getCacheStatistics", "", "S",
+                this::getCacheStatistics)
+                .requireCapabilities(Capability.CONFIGPROXY__CONFIG_API)
+                .methodDesc("get statistics for the config cache")
+                .returnDesc(0, "data", "string array of statistics, as name and value"));
         supervisor.addMethod(new Method("listSourceConnections", "", "S",
                 this::listSourceConnections)
                 .requireCapabilities(Capability.CONFIGPROXY__CONFIG_API)
@@ -165,6 +170,20 @@ public class ConfigProxyRpcServer implements Runnable, TargetWatcher {
         dispatchRpcRequest(req, () -> listCachedConfig(req, true));
     }
 
+    private void getCacheStatistics(Request req) {
+        dispatchRpcRequest(req, () -> {
+            MemoryCache cache = proxyServer.memoryCache();
+            String[] ret = new String[5];
+            ret[0] = "configs " + cache.size();
+            ret[1] = "payloads " + cache.payloadCount();
+            ret[2] = "payloadBytes " + cache.payloadBytes();
+            ret[3] = "hits " + cache.hits();
+            ret[4] = "misses " + cache.misses();
+            req.returnValues().add(new StringArray(ret));
+            req.returnRequest();
+        });
+    }
+
     private void listSourceConnections(Request req) {
         dispatchRpcRequest(req, () -> {
             String[] ret = new String[2];
@@ -1,25 +1,57 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.config.proxy;
 
+import com.yahoo.config.subscription.ConfigSourceSet;
 import com.yahoo.io.IOUtils;
+import com.yahoo.slime.ArrayTraverser;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.ObjectTraverser;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.text.Utf8;
+import com.yahoo.text.Utf8Array;
 import com.yahoo.vespa.config.ConfigCacheKey;
 import com.yahoo.vespa.config.ConfigKey;
+import com.yahoo.vespa.config.PayloadChecksum;
+import com.yahoo.vespa.config.PayloadChecksums;
 import com.yahoo.vespa.config.RawConfig;
+import com.yahoo.vespa.config.protocol.CompressionInfo;
 import com.yahoo.vespa.config.protocol.CompressionType;
 import com.yahoo.vespa.config.protocol.Payload;
+import com.yahoo.vespa.config.protocol.VespaVersion;
 import com.yahoo.vespa.defaults.Defaults;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 /**
+ * Cache of the configs received from config sources, by config key and def md5.
+ *
+ * Only the metadata of each config is kept on heap; payloads are kept off heap, once per distinct content,
+ * see {@link PayloadStore}. When created with a directory, the cache is also kept there, and configs cached
+ * by an earlier proxy process are served from it until the config sources provide new ones. The config sources
+ * are kept with the cache, which is discarded if the sources change, so configs from other sources are never served.
+ *
  * @author hmusum
  */
 public class MemoryCache {
@@ -30,10 +62,41 @@ public class MemoryCache {
     private final static String separator = ":";
     private static final String DEFAULT_DUMP_DIR = Defaults.getDefaults().underVespaHome("var/vespa/cache/config");
 
-    private final ConcurrentHashMap<ConfigCacheKey, RawConfig> cache = new ConcurrentHashMap<>(500, 0.75f);
+    /** Directory where the config proxy keeps its cache, so it survives restarts. */
+    static final String DEFAULT_CACHE_DIR = Defaults.getDefaults().underVespaHome("var/vespa/cache/config-proxy");
+
+    private final ConcurrentHashMap<ConfigCacheKey, CachedConfig> cache = new ConcurrentHashMap<>(500, 0.75f);
+    private final Map<String, List<String>> defContents = new ConcurrentHashMap<>();
+    private final Optional<Path> configDirectory;
+    private final Optional<Path> sourcesFile;
+    private final PayloadStore payloads;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Creates an empty cache which is not kept on disk. */
+    public MemoryCache() {
+        this.configDirectory = Optional.empty();
+        this.sourcesFile = Optional.empty();
+        this.payloads = new PayloadStore(Optional.empty());
+    }
+
+    /**
+     * Creates a cache which is kept in the given directory, with the configs already there,
+     * if these were cached from the given config sources, or empty otherwise.
+     */
+    public MemoryCache(Path directory, ConfigSourceSet sources) {
+        this.configDirectory = Optional.of(directory.resolve("configs"));
+        this.sourcesFile = Optional.of(directory.resolve("sources"));
+        this.payloads = new PayloadStore(Optional.of(directory.resolve("payloads")));
+        setSources(sources);
+        restore(configDirectory.get());
+    }
 
     public Optional<RawConfig> get(ConfigCacheKey key) {
-        return Optional.ofNullable(cache.get(key));
+        Optional<RawConfig> config = Optional.ofNullable(cache.get(key))
+                                             .flatMap(cached -> payloads.get(cached.payloadHash()).map(cached::toRawConfig));
+        (config.isPresent() ? hits : misses).incrementAndGet();
+        return config;
     }
 
     /**
@@ -47,12 +110,52 @@ public class MemoryCache {
 
         // Do not cache empty configs (which have generation 0), remove everything in cache
         if (config.getGeneration() == 0) {
-            cache.clear();
+            clear();
             return;
         }
 
         log.log(Level.FINE, () -> "Putting '" + config + "' into memory cache");
-        cache.put(new ConfigCacheKey(config.getKey(), config.getDefMd5()), config);
+        ConfigCacheKey key = new ConfigCacheKey(config.getKey(), config.getDefMd5());
+        synchronized (this) {
+            OptionalLong payloadHash = payloads.add(config.getPayload().getData().wrap());
+            CachedConfig previous;
+            if (payloadHash.isPresent()) {
+                CachedConfig cached = new CachedConfig(config, defContent(config), payloadHash.getAsLong());
+                configDirectory.ifPresent(directory -> write(directory, key, cached));
+                previous = cache.put(key, cached);
+            }
+            else { // The payload could not be stored, so the config is not cached, and the previous one is stale
+                configDirectory.ifPresent(directory -> delete(directory, key));
+                previous = cache.remove(key);
+            }
+            if (previous != null)
+                payloads.release(previous.payloadHash());
+        }
+    }
+
+    /**
+     * Sets the config sources of the configs in this cache, which is cleared if these are not the sources
+     * of the configs already cached.
+     */
+    public synchronized void setSources(ConfigSourceSet sources) {
+        if (sourcesFile.isEmpty()) return;
+
+        Path file = sourcesFile.get();
+        try {
+            if (Files.exists(file) && new ConfigSourceSet(Files.readAllLines(file)).equals(sources)) return;
+        } catch (IOException | UncheckedIOException e) {
+            log.log(Level.INFO, "Failed reading config sources of cached configs from '" + file + "': " + e.getMessage());
+        }
+        log.log(Level.FINE, () -> "Clearing config cache, which is not from config sources " + sources);
+        clear();
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            Files.write(temporary, sources.getSources());
+            Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) { // Configs cached now are not restored by later processes
+            log.log(Level.WARNING, "Failed writing config sources of cached configs to '" + file + "': " + e.getMessage());
+        }
     }
 
     boolean containsKey(ConfigCacheKey key) {
@@ -60,20 +163,102 @@ public class MemoryCache {
     }
 
     Collection<RawConfig> values() {
-        return cache.values();
+        List<RawConfig> configs = new ArrayList<>(cache.size());
+        cache.values().forEach(cached -> payloads.get(cached.payloadHash()).map(cached::toRawConfig).ifPresent(configs::add));
+        return configs;
     }
 
     public int size() {
         return cache.size();
     }
 
-    public void clear() {
+    /** Clears this cache, and the configs kept in its directory, but keeps its config sources */
+    public synchronized void clear() {
         cache.clear();
+        defContents.clear();
+        payloads.clear();
+        configDirectory.ifPresent(directory -> IOUtils.recursiveDeleteDir(directory.toFile()));
     }
 
+    /** Returns the number of lookups which found a config in this cache. */
+    public long hits() { return hits.get(); }
+
+    /** Returns the number of lookups which did not find a config in this cache. */
+    public long misses() { return misses.get(); }
+
+    /** Returns the number of distinct payloads of the configs in this cache. */
+    public int payloadCount() { return payloads.size(); }
+
+    /** Returns the total size of the distinct payloads of the configs in this cache, which are kept off heap. */
+    public long payloadBytes() { return payloads.bytes(); }
+
     @Override
     public String toString() {
-        return cache.toString();
+        return "config cache with " + size() + " configs, " + payloadCount() + " distinct payloads of " + payloadBytes() +
+               " bytes, " + hits() + " hits and " + misses() + " misses";
+    }
+
+    /** Returns the def content of the given config, shared with other configs with the same def md5. */
+    private List<String> defContent(RawConfig config) {
+        if (config.getDefContent() == null || config.getDefContent().isEmpty()) return List.of();
+        return defContents.computeIfAbsent(config.getDefMd5(), __ -> config.getDefContent());
+    }
+
+    private void restore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.forEach(this::restoreConfig);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed reading cached configs from '" + directory + "'", e);
+        }
+        payloads.deleteUnreferenced();
+        log.log(Level.FINE, () -> "Restored " + cache.size() + " configs from '" + directory + "'");
+    }
+
+    private void restoreConfig(Path file) {
+        try {
+            CachedConfig cached = CachedConfig.fromJson(Files.readAllBytes(file));
+            if (payloads.restore(cached.payloadHash())) {
+                cache.put(new ConfigCacheKey(cached.key(), cached.defMd5()), cached);
+                return;
+            }
+            log.log(Level.INFO, "Payload of cached config '" + file + "' is missing, deleting it");
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.INFO, "Failed reading cached config '" + file + "', deleting it: " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed deleting '" + file + "'", e);
+        }
+    }
+
+    private static Path file(Path directory, ConfigCacheKey key) {
+        return directory.resolve(String.format("%016x", PayloadStore.hash(ByteBuffer.wrap(Utf8.toBytes(createCacheFileName(key))))));
+    }
+
+    /** Writes the given config to the given directory; on failure, the config is cached only by this process. */
+    private static void write(Path directory, ConfigCacheKey key, CachedConfig config) {
+        Path file = file(directory, key);
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.write(temporary, config.toJson());
+            Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException | UncheckedIOException e) {
+            log.log(Level.WARNING, "Failed writing cached config '" + file + "': " + e.getMessage());
+        }
+    }
+
+    private static void delete(Path directory, ConfigCacheKey key) {
+        Path file = file(directory, key);
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed deleting cached config '" + file + "'", e);
+        }
     }
 
     String dumpCacheToDisk(String path, MemoryCache cache) {
@@ -151,4 +336,68 @@ public class MemoryCache {
                 separator + key.getDefMd5();
     }
 
+    /** A cached config, without its payload, which is found in the payload store by its hash. */
+    private record CachedConfig(ConfigKey<?> key, String defMd5, List<String> defContent, PayloadChecksums payloadChecksums,
+                                long generation, boolean applyOnRestart, Optional<VespaVersion> vespaVersion,
+                                CompressionInfo compressionInfo, long payloadHash) {
+
+        CachedConfig(RawConfig config, List<String> defContent, long payloadHash) {
+            this(config.getKey(), config.getDefMd5(), defContent, config.getPayloadChecksums(), config.getGeneration(),
+                 config.applyOnRestart(), config.getVespaVersion(), config.getPayload().getCompressionInfo(), payloadHash);
+        }
+
+        RawConfig toRawConfig(byte[] payload) {
+            return new RawConfig(key, defMd5, Payload.from(new Utf8Array(payload), compressionInfo), payloadChecksums,
+                                 generation, applyOnRestart, defContent, vespaVersion);
+        }
+
+        byte[] toJson() throws IOException {
+            Slime slime = new Slime();
+            Cursor root = slime.setObject();
+            root.setString("name", key.getName());
+            root.setString("namespace", key.getNamespace());
+            root.setString("configId", key.getConfigId());
+            root.setString("defMd5", defMd5);
+            Cursor defContentArray = root.setArray("defContent");
+            defContent.forEach(defContentArray::addString);
+            Cursor checksums = root.setObject("payloadChecksums");
+            for (PayloadChecksum.Type type : PayloadChecksum.Type.values()) {
+                PayloadChecksum checksum = payloadChecksums.getForType(type);
+                if (checksum != null) checksums.setString(type.name(), checksum.asString());
+            }
+            root.setLong("generation", generation);
+            root.setBool("applyOnRestart", applyOnRestart);
+            vespaVersion.ifPresent(version -> root.setString("vespaVersion", version.toString()));
+            root.setString("compressionType", compressionInfo.getCompressionType().name());
+            root.setLong("uncompressedSize", compressionInfo.getUncompressedSize());
+            root.setString("payload", String.format("%016x", payloadHash));
+            return SlimeUtils.toJsonBytes(slime);
+        }
+
+        static CachedConfig fromJson(byte[] json) {
+            Inspector root = SlimeUtils.jsonToSlime(json).get();
+            List<String> defContent = new ArrayList<>();
+            root.field("defContent").traverse((ArrayTraverser) (__, line) -> defContent.add(line.asString()));
+            List<PayloadChecksum> checksums = new ArrayList<>();
+            root.field("payloadChecksums").traverse((ObjectTraverser) (type, checksum) ->
+                    checksums.add(new PayloadChecksum(checksum.asString(), PayloadChecksum.Type.valueOf(type))));
+            Optional<VespaVersion> vespaVersion = root.field("vespaVersion").valid()
+                                                  ? Optional.of(VespaVersion.fromString(root.field("vespaVersion").asString()))
+                                                  : Optional.empty();
+            return new CachedConfig(new ConfigKey<>(root.field("name").asString(),
+                                                    root.field("configId").asString(),
+                                                    root.field("namespace").asString()),
+                                    root.field("defMd5").asString(),
+                                    defContent,
+                                    PayloadChecksums.from(checksums.toArray(PayloadChecksum[]::new)),
+                                    root.field("generation").asLong(),
+                                    root.field("applyOnRestart").asBool(),
+                                    vespaVersion,
+                                    CompressionInfo.create(CompressionType.valueOf(root.field("compressionType").asString()),
+                                                           (int) root.field("uncompressedSize").asLong()),
+                                    Long.parseUnsignedLong(root.field("payload").asString(), 16));
+        }
+
+    }
+
 }
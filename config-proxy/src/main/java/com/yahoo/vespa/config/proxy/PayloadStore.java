@@ -0,0 +1,198 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.proxy;
+
+import com.yahoo.io.IOUtils;
+import com.yahoo.yolean.Exceptions;
+import net.jpountz.xxhash.XXHashFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Config payloads, kept off heap once per distinct content, by the xxhash64 of the content, and reference counted
+ * by the cached configs using them. With a directory, each payload is written to a file named by its hash and
+ * mapped into memory, so payloads survive restarts, and are paged in and out by the operating system as needed.
+ * Without a directory, payloads are kept in direct buffers.
+ *
+ * Payloads are read without locking; a payload released while being read is simply not found.
+ * A payload with the same hash as a different, stored payload is not stored.
+ */
+class PayloadStore {
+
+    private static final Logger log = Logger.getLogger(PayloadStore.class.getName());
+
+    private final Optional<Path> directory;
+    private final Map<Long, Stored> payloads = new ConcurrentHashMap<>();
+    private long bytes = 0;
+
+    PayloadStore(Optional<Path> directory) {
+        this.directory = directory;
+        directory.ifPresent(dir -> Exceptions.uncheck(() -> Files.createDirectories(dir)));
+    }
+
+    /** Returns the xxhash64 of the remaining content of the given buffer, without changing its position. */
+    static long hash(ByteBuffer data) {
+        return XXHashFactory.fastestInstance().hash64().hash(data.duplicate(), 0);
+    }
+
+    /** Returns the content of the payload with the given hash, if stored. */
+    Optional<byte[]> get(long hash) {
+        Stored stored = payloads.get(hash);
+        if (stored == null) return Optional.empty();
+
+        byte[] data = new byte[stored.data.capacity()];
+        stored.data.duplicate().get(data);
+        return Optional.of(data);
+    }
+
+    /**
+     * Stores the given payload, or adds a reference to it if already stored, and returns its hash,
+     * or empty if a different payload with the same hash is stored.
+     */
+    synchronized OptionalLong add(ByteBuffer data) {
+        long hash = hash(data);
+        Stored stored = payloads.get(hash);
+        if (stored != null) {
+            if ( ! stored.data.equals(data)) {
+                log.log(Level.WARNING, "Not storing config payload of " + data.remaining() + " bytes, as a different payload " +
+                                       "with the same hash, " + String.format("%016x", hash) + ", is already stored");
+                return OptionalLong.empty();
+            }
+            stored.references++;
+            return OptionalLong.of(hash);
+        }
+
+        ByteBuffer buffer = directory.flatMap(dir -> write(file(dir, hash), data))
+                                     .orElseGet(() -> ByteBuffer.allocateDirect(data.remaining()).put(data.duplicate()).flip());
+        payloads.put(hash, new Stored(buffer));
+        bytes += buffer.capacity();
+        return OptionalLong.of(hash);
+    }
+
+    /**
+     * Adds a reference to the payload with the given hash, which is read from this store's directory if not already
+     * stored. Returns whether the payload is now stored; payload files with wrong content are deleted.
+     */
+    synchronized boolean restore(long hash) {
+        Stored stored = payloads.get(hash);
+        if (stored != null) {
+            stored.references++;
+            return true;
+        }
+        if (directory.isEmpty()) return false;
+
+        Path file = file(directory.get(), hash);
+        try {
+            ByteBuffer buffer = map(file);
+            if (hash(buffer) != hash) {
+                log.log(Level.INFO, "Deleting config payload '" + file + "', which has unexpected content");
+                Files.deleteIfExists(file);
+                return false;
+            }
+            payloads.put(hash, new Stored(buffer));
+            bytes += buffer.capacity();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Removes a reference to the payload with the given hash, and deletes the payload if it has no references left. */
+    synchronized void release(long hash) {
+        Stored stored = payloads.get(hash);
+        if (stored == null || --stored.references > 0) return;
+
+        payloads.remove(hash);
+        bytes -= stored.data.capacity();
+        directory.ifPresent(dir -> Exceptions.uncheck(() -> Files.deleteIfExists(file(dir, hash))));
+    }
+
+    /** Deletes files in this store's directory which are not referenced, e.g., left behind by an earlier process. */
+    synchronized void deleteUnreferenced() {
+        if (directory.isEmpty()) return;
+
+        try (Stream<Path> files = Files.list(directory.get())) {
+            files.filter(file -> ! isStored(file)).forEach(file -> Exceptions.uncheck(() -> Files.deleteIfExists(file)));
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed deleting unused config payloads in '" + directory.get() + "'", e);
+        }
+    }
+
+    synchronized void clear() {
+        payloads.clear();
+        bytes = 0;
+        directory.ifPresent(dir -> IOUtils.recursiveDeleteDir(dir.toFile()));
+        directory.ifPresent(dir -> Exceptions.uncheck(() -> Files.createDirectories(dir)));
+    }
+
+    /** Returns the number of distinct payloads stored. */
+    int size() {
+        return payloads.size();
+    }
+
+    /** Returns the total size of the payloads stored. */
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    private boolean isStored(Path file) {
+        try {
+            return payloads.containsKey(Long.parseUnsignedLong(file.getFileName().toString(), 16));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static Path file(Path directory, long hash) {
+        return directory.resolve(String.format("%016x", hash));
+    }
+
+    /** Writes the given payload to the given file, and maps it; on failure, the payload is kept only by this process. */
+    private static Optional<ByteBuffer> write(Path file, ByteBuffer data) {
+        try {
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, WRITE)) {
+                for (ByteBuffer remaining = data.duplicate(); remaining.hasRemaining(); )
+                    channel.write(remaining);
+            }
+            Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            return Optional.of(map(file));
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed storing config payload '" + file + "': " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static class Stored {
+
+        private final ByteBuffer data;
+        private int references = 1;
+
+        Stored(ByteBuffer data) {
+            this.data = data;
+        }
+
+    }
+
+}
@@ -13,6 +13,8 @@ import com.yahoo.vespa.config.protocol.JRTServerConfigRequest;
 import com.yahoo.vespa.config.proxy.filedistribution.FileDistributionAndUrlDownload;
 import com.yahoo.yolean.system.CatchSignals;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -59,7 +61,7 @@ public class ProxyServer implements Runnable {
         this.supervisor = new Supervisor(new Transport("proxy-server", JRT_TRANSPORT_THREADS)).setDropEmptyBuffers(true);
         this.rpcServer = createRpcServer(spec);
         this.configClient = Objects.requireNonNull(configClient);
-        this.fileDistributionAndUrlDownload = new FileDistributionAndUrlDownload(supervisor, source);
+        this.fileDistributionAndUrlDownload = new FileDistributionAndUrlDownload(supervisor, source, Optional.ofNullable(spec));
     }
 
     @Override
@@ -100,7 +102,7 @@ public class ProxyServer implements Runnable {
                 break;
             case DEFAULT:
                 flush();
-                configClient = createRpcClient(configSource);
+                configClient = createRpcClient(configSource, memoryCache());
                 this.mode = new Mode(modeName);
                 break;
             default:
@@ -113,8 +115,18 @@ public class ProxyServer implements Runnable {
         return  (spec == null) ? null : new ConfigProxyRpcServer(this, supervisor, spec); // TODO: Try to avoid first argument being 'this'
     }
 
-    private static RpcConfigSourceClient createRpcClient(ConfigSourceSet source) {
-        return new RpcConfigSourceClient(new ResponseHandler(), source);
+    private static RpcConfigSourceClient createRpcClient(ConfigSourceSet source, MemoryCache memoryCache) {
+        return new RpcConfigSourceClient(new ResponseHandler(), source, memoryCache);
+    }
+
+    private static MemoryCache createMemoryCache(ConfigSourceSet source) {
+        try {
+            return new MemoryCache(Path.of(MemoryCache.DEFAULT_CACHE_DIR), source);
+        } catch (UncheckedIOException e) {
+            log.log(Level.WARNING, "Could not use '" + MemoryCache.DEFAULT_CACHE_DIR + "' for caching config, " +
+                                   "config will only be cached in memory: " + e.getMessage());
+            return new MemoryCache();
+        }
     }
 
     private void setupSignalHandler() {
@@ -157,7 +169,7 @@ public class ProxyServer implements Runnable {
         Event.started("configproxy");
 
         ConfigSourceSet configSources = new ConfigSourceSet(properties.configSources);
-        ProxyServer proxyServer = new ProxyServer(new Spec(null, port), configSources, createRpcClient(configSources));
+        ProxyServer proxyServer = new ProxyServer(new Spec(null, port), configSources, createRpcClient(configSources, createMemoryCache(configSources)));
         // catch termination and interrupt signal
         proxyServer.setupSignalHandler();
         Thread proxyserverThread = threadFactory.newThread(proxyServer);
@@ -192,8 +204,7 @@ public class ProxyServer implements Runnable {
         if (rpcServer != null) rpcServer.shutdown();
         Event.stopping("configproxy", "cancel configClient");
         configClient.shutdown();
-        Event.stopping("configproxy", "flush");
-        flush();
+        // The cache is not flushed, so configs can be served from it when the proxy is restarted
         Event.stopping("configproxy", "close fileDistribution");
         fileDistributionAndUrlDownload.close();
         Event.stopping("configproxy", "stop complete");
@@ -214,7 +225,8 @@ public class ProxyServer implements Runnable {
     void updateSourceConnections(List<String> sources) {
         configSource = new ConfigSourceSet(sources);
         flush();
-        configClient = createRpcClient(configSource);
+        memoryCache().setSources(configSource);
+        configClient = createRpcClient(configSource, memoryCache());
     }
 
     DelayedResponses delayedResponses() {
@@ -62,9 +62,13 @@ class RpcConfigSourceClient implements ConfigSourceClient, Runnable {
     private final ScheduledFuture<?> delayedResponsesFuture;
 
     RpcConfigSourceClient(ResponseHandler responseHandler, ConfigSourceSet configSourceSet) {
+        this(responseHandler, configSourceSet, new MemoryCache());
+    }
+
+    RpcConfigSourceClient(ResponseHandler responseHandler, ConfigSourceSet configSourceSet, MemoryCache memoryCache) {
         this.responseHandler = responseHandler;
         this.configSourceSet = configSourceSet;
-        this.memoryCache = new MemoryCache();
+        this.memoryCache = memoryCache;
         this.delayedResponses = new DelayedResponses();
         checkConfigSources();
         nextConfigFuture = nextConfigScheduler.scheduleAtFixedRate(this, 0, SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(10)).toMillis(), MILLISECONDS);
@@ -132,7 +136,8 @@ class RpcConfigSourceClient implements ConfigSourceClient, Runnable {
                     return cachedConfig;
                 }
             }
-            if (!config.isError() && config.getGeneration() > 0) {
+            // Configs restored from disk when the proxy started have no subscriber yet, and must still be subscribed to
+            if (!config.isError() && config.getGeneration() > 0 && subscribers.containsKey(configCacheKey)) {
                 needToGetConfig = false;
             }
         }
@@ -2,10 +2,13 @@
 package com.yahoo.vespa.config.proxy.filedistribution;
 
 import com.yahoo.config.subscription.ConfigSourceSet;
+import com.yahoo.jrt.Spec;
 import com.yahoo.jrt.Supervisor;
+import com.yahoo.net.HostName;
 import com.yahoo.vespa.filedistribution.FileDistributionConnectionPool;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import java.time.Duration;
+import java.util.Optional;
 
 /**
  * Keeps track of file distribution and url download rpc servers.
@@ -18,8 +21,12 @@ public class FileDistributionAndUrlDownload {
     private final UrlDownloadRpcServer urlDownloadRpcServer;
     private final FileReferencesAndDownloadsMaintainer maintainer;
 
-    public FileDistributionAndUrlDownload(Supervisor supervisor, ConfigSourceSet source) {
-        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, createDownloader(supervisor, source));
+    /**
+     * @param spec the spec this listens on, where file references which have been downloaded are served to peers,
+     *             or empty if this does not listen
+     */
+    public FileDistributionAndUrlDownload(Supervisor supervisor, ConfigSourceSet source, Optional<Spec> spec) {
+        fileDistributionRpcServer = new FileDistributionRpcServer(supervisor, createDownloader(supervisor, source, spec));
         urlDownloadRpcServer = new UrlDownloadRpcServer(supervisor);
         maintainer = new FileReferencesAndDownloadsMaintainer();
     }
@@ -30,10 +37,11 @@ public class FileDistributionAndUrlDownload {
         maintainer.close();
     }
 
-    private FileDownloader createDownloader(Supervisor supervisor, ConfigSourceSet source) {
-        return new FileDownloader(new FileDistributionConnectionPool(source, supervisor),
-                                  supervisor,
-                                  Duration.ofSeconds(55)); // Should be lower than the timeout in FileAcquirer
+    private FileDownloader createDownloader(Supervisor supervisor, ConfigSourceSet source, Optional<Spec> spec) {
+        var connectionPool = new FileDistributionConnectionPool(source, supervisor);
+        var timeout = Duration.ofSeconds(55); // Should be lower than the timeout in FileAcquirer
+        return spec.map(s -> new FileDownloader(connectionPool, supervisor, timeout, new Spec(HostName.getLocalhost(), s.port()).toString()))
+                   .orElseGet(() -> new FileDownloader(connectionPool, supervisor, timeout));
     }
 
 }
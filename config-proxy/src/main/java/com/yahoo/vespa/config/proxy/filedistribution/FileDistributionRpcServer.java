@@ -11,6 +11,7 @@ import com.yahoo.jrt.StringValue;
 import com.yahoo.jrt.Supervisor;
 import com.yahoo.net.HostName;
 import com.yahoo.security.tls.Capability;
+import com.yahoo.vespa.filedistribution.FileChunkServer;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import com.yahoo.vespa.filedistribution.FileReferenceDownload;
 
@@ -34,16 +35,19 @@ class FileDistributionRpcServer {
 
     private final Supervisor supervisor;
     private final FileDownloader downloader;
+    private final FileChunkServer chunkServer;
     private final ExecutorService rpcDownloadExecutor = Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
                                                                                      new DaemonThreadFactory("Rpc executor"));
 
     FileDistributionRpcServer(Supervisor supervisor, FileDownloader downloader) {
         this.supervisor = supervisor;
         this.downloader = downloader;
+        this.chunkServer = new FileChunkServer(downloader);
         declareMethods();
     }
 
     void close() {
+        chunkServer.close();
         rpcDownloadExecutor.shutdownNow();
         try {
             rpcDownloadExecutor.awaitTermination(10, TimeUnit.SECONDS);
@@ -69,6 +73,11 @@ class FileDistributionRpcServer {
                                      .methodDesc("download status for file references")
                                      .returnDesc(0, "file references", "array of file references")
                                      .returnDesc(1, "download status", "percentage downloaded of each file reference in above array"));
+        // Serve file references which have been downloaded, or are being downloaded, to peers
+        supervisor.addMethod(FileChunkServer.getFileChunksMethod(this::getFileChunks)
+                                            .requireCapabilities(Capability.CONFIGPROXY__FILEDISTRIBUTION_API));
+        supervisor.addMethod(FileChunkServer.getFileChunkMethod(this::getFileChunk)
+                                            .requireCapabilities(Capability.CONFIGPROXY__FILEDISTRIBUTION_API));
     }
 
 
@@ -84,6 +93,16 @@ class FileDistributionRpcServer {
         rpcDownloadExecutor.execute(() -> downloadFile(req));
     }
 
+    private void getFileChunks(Request req) {
+        req.detach();
+        chunkServer.getFileChunks(req);
+    }
+
+    private void getFileChunk(Request req) {
+        req.detach();
+        chunkServer.getFileChunk(req);
+    }
+
     private void getActiveFileReferencesStatus(Request req) {
         Map<FileReference, Double> downloadStatus = downloader.downloadStatus();
 
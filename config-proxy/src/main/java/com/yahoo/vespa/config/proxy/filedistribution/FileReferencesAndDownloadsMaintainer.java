@@ -4,6 +4,7 @@ package com.yahoo.vespa.config.proxy.filedistribution;
 import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.io.IOUtils;
 import com.yahoo.vespa.config.util.ConfigUtils;
+import com.yahoo.vespa.filedistribution.ChunkStore;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 
 import java.io.File;
@@ -99,7 +100,7 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
 
     private void deleteUnusedFiles(File directory) {
 
-        File[] files = directory.listFiles();
+        File[] files = directory.listFiles((dir, name) -> ! name.equals(ChunkStore.DIRECTORY_NAME));
         if (files == null) return;
 
         List<File> filesToDelete = filesThatCanBeDeleted(files);
@@ -108,6 +109,8 @@ class FileReferencesAndDownloadsMaintainer implements Runnable {
                 log.log(Level.FINE, "Deleted " + fileReference.getAbsolutePath());
             else
                 log.log(Level.WARNING, "Could not delete " + fileReference.getAbsolutePath());
+            // Chunks, and the archive kept for serving to peers, are deleted with the file reference
+            IOUtils.recursiveDeleteDir(ChunkStore.directory(directory, fileReference.getName()));
         });
     }
 
@@ -10,6 +10,7 @@ import com.yahoo.jrt.StringValue;
 import com.yahoo.jrt.Supervisor;
 import com.yahoo.jrt.Target;
 import com.yahoo.jrt.Transport;
+import com.yahoo.vespa.config.ConfigCacheKey;
 import com.yahoo.vespa.config.RawConfig;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -20,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
@@ -128,6 +130,26 @@ public class ConfigProxyRpcServerTest {
                                  ret[0]);
     }
 
+    /**
+     * Tests getCacheStatistics RPC command
+     */
+    @Test
+    void testRpcMethodGetCacheStatistics() throws ListenFailedException {
+        reset();
+
+        final RawConfig config = ProxyServerTest.fooConfig;
+        server.proxyServer().memoryCache().update(config);
+        server.proxyServer().memoryCache().get(new ConfigCacheKey(config.getKey(), config.getDefMd5()));
+        Request req = new Request("getCacheStatistics");
+        client.invoke(req);
+
+        assertFalse(req.isError(), req.errorMessage());
+        assertEquals(1, req.returnValues().size());
+        assertArrayEquals(new String[] { "configs 1", "payloads 1", "payloadBytes " + config.getPayload().getData().getByteLength(),
+                                         "hits 1", "misses 0" },
+                          req.returnValues().get(0).asStringArray());
+    }
+
     /**
      * Tests listSourceConnections RPC command
      */
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.config.proxy;
 
+import com.yahoo.config.subscription.ConfigSourceSet;
 import com.yahoo.slime.Slime;
 import com.yahoo.vespa.config.ConfigCacheKey;
 import com.yahoo.vespa.config.ConfigKey;
@@ -10,8 +11,11 @@ import com.yahoo.vespa.config.RawConfig;
 import com.yahoo.vespa.config.protocol.Payload;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -35,6 +39,7 @@ public class MemoryCacheTest {
     private static final String defMd52 = "a2";
     private static final String differentDefMd5 = "09ef";
     private static final PayloadChecksums checksums = PayloadChecksums.from("b", "");
+    private static final ConfigSourceSet sources = new ConfigSourceSet(List.of("tcp/cfg1:19070", "tcp/cfg2:19070"));
     private final ConfigKey<?> configKey = new ConfigKey<>(defName, configId, namespace);
     private final ConfigKey<?> configKey2 = new ConfigKey<>(defName2, configId2, namespace2);
     private ConfigCacheKey cacheKey;
@@ -93,6 +98,10 @@ public class MemoryCacheTest {
         assertEquals(payload2.toString(), response.getPayload().toString());
         assertEquals(generation, response.getGeneration());
 
+        assertEquals(2, cache.hits());
+        assertTrue(cache.get(cacheKeyDifferentMd5).isEmpty());
+        assertEquals(1, cache.misses());
+
         cache.clear();
     }
 
@@ -118,4 +127,68 @@ public class MemoryCacheTest {
         cache.clear();
         assertEquals(0, cache.size());
     }
+
+    @Test
+    void identicalPayloadsAreStoredOnce() {
+        MemoryCache cache = new MemoryCache();
+
+        cache.update(config);
+        cache.update(new RawConfig(configKey2, defMd52, payload, checksums, generation, false, List.of("bar string"), Optional.empty()));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.payloadCount());
+        assertEquals(payload.getData().getByteLength(), cache.payloadBytes());
+        assertEquals(payload.getData(), cache.get(cacheKey2).orElseThrow().getPayload().getData());
+
+        // The payload is removed when no longer used by any config
+        cache.update(config2);
+        cache.update(configWithNextGeneration(configKey, defMd5, payload2));
+        assertEquals(1, cache.payloadCount());
+        assertEquals(payload2.getData().getByteLength(), cache.payloadBytes());
+    }
+
+    @Test
+    void cacheIsRestoredFromDisk(@TempDir Path directory) {
+        MemoryCache cache = new MemoryCache(directory, sources);
+        cache.update(config);
+        cache.update(config2);
+        cache.update(configWithNextGeneration(configKey, defMd5, payload2));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.payloadCount());
+
+        MemoryCache restored = new MemoryCache(directory, new ConfigSourceSet(List.of("tcp/cfg2:19070", "tcp/cfg1:19070")));
+        assertEquals(2, restored.size());
+        assertEquals(1, restored.payloadCount());
+        RawConfig response = restored.get(cacheKey).orElseThrow();
+        assertEquals(configWithNextGeneration(configKey, defMd5, payload2), response);
+        assertEquals(payload2.toString(), response.getPayload().toString());
+        assertEquals(List.of("bar string"), response.getDefContent());
+        assertEquals(config2, restored.get(cacheKey2).orElseThrow());
+
+        restored.clear();
+        assertEquals(0, new MemoryCache(directory, sources).size());
+    }
+
+    @Test
+    void cacheIsDiscardedWhenConfigSourcesChange(@TempDir Path directory) {
+        MemoryCache cache = new MemoryCache(directory, sources);
+        cache.update(config);
+        cache.update(config2);
+        assertEquals(2, new MemoryCache(directory, sources).size());
+
+        MemoryCache otherSources = new MemoryCache(directory, new ConfigSourceSet("tcp/cfg3:19070"));
+        assertEquals(0, otherSources.size());
+        assertEquals(0, otherSources.payloadCount());
+        otherSources.update(config);
+        assertEquals(1, new MemoryCache(directory, new ConfigSourceSet("tcp/cfg3:19070")).size());
+
+        // Sources may also change while running
+        otherSources.setSources(sources);
+        assertEquals(0, otherSources.size());
+        assertEquals(0, new MemoryCache(directory, sources).size());
+    }
+
+    private static RawConfig configWithNextGeneration(ConfigKey<?> key, String defMd5, Payload payload) {
+        return new RawConfig(key, defMd5, payload, checksums, 2L, false, List.of("bar string"), Optional.empty());
+    }
+
 }
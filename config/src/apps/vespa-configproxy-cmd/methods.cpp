@@ -12,6 +12,7 @@ const Method methods[] = {
     { "getmode", "getMode", 0 },
     { "invalidatecache", "invalidateCache", 0 },
     { "cachefull", "listCachedConfigFull", 0 },
+    { "cachestats", "getCacheStatistics", 0 },
     { "sources", "listSourceConnections", 0 },
     { "setmode", "setMode", 1 }, // { default | memorycache }
     { "updatesources", "updateSources", 1 },
@@ -50,6 +50,7 @@ import com.yahoo.vespa.config.server.application.ActiveTokenFingerprintsClient;
 import com.yahoo.vespa.config.server.application.Application;
 import com.yahoo.vespa.config.server.application.ApplicationCuratorDatabase;
 import com.yahoo.vespa.config.server.application.ApplicationData;
+import com.yahoo.vespa.config.server.application.ApplicationPackageManifest;
 import com.yahoo.vespa.config.server.application.ApplicationReindexing;
 import com.yahoo.vespa.config.server.application.ApplicationVersions;
 import com.yahoo.vespa.config.server.application.ClusterReindexing;
@@ -59,6 +60,7 @@ import com.yahoo.vespa.config.server.application.ConfigConvergenceChecker;
 import com.yahoo.vespa.config.server.application.DefaultClusterReindexingStatusClient;
 import com.yahoo.vespa.config.server.application.FileDistributionStatus;
 import com.yahoo.vespa.config.server.application.HttpProxy;
+import com.yahoo.vespa.config.server.application.MissingApplicationFilesException;
 import com.yahoo.vespa.config.server.application.PendingRestarts;
 import com.yahoo.vespa.config.server.application.TenantApplications;
 import com.yahoo.vespa.config.server.configchange.ConfigChangeActions;
@@ -368,13 +370,34 @@ public class ApplicationRepository implements com.yahoo.config.provision.Deploye
     }
 
     public PrepareAndActivateResult deploy(CompressedApplicationInputStream in, PrepareParams prepareParams) {
+        return deploy(Optional.of(in), Optional.empty(), prepareParams);
+    }
+
+    /**
+     * Deploys the application package with the given manifest, where only files this does not already have,
+     * in the active session of the application, need to be uploaded.
+     *
+     * @param in the uploaded files of the application package, if any
+     * @param manifest all files of the application package, with their hashes
+     * @throws MissingApplicationFilesException if some files are neither uploaded nor available here
+     */
+    public PrepareAndActivateResult deploy(Optional<CompressedApplicationInputStream> in,
+                                           ApplicationPackageManifest manifest,
+                                           PrepareParams prepareParams) {
+        return deploy(in, Optional.of(manifest), prepareParams);
+    }
+
+    private PrepareAndActivateResult deploy(Optional<CompressedApplicationInputStream> in,
+                                            Optional<ApplicationPackageManifest> manifest,
+                                            PrepareParams prepareParams) {
         DeployHandlerLogger logger = DeployHandlerLogger.forPrepareParams(prepareParams);
         File tempDir = uncheck(() -> Files.createTempDirectory("deploy")).toFile();
         ThreadLockStats threadLockStats = LockStats.getForCurrentThread();
         PrepareAndActivateResult result;
         try {
             threadLockStats.startRecording("deploy of " + prepareParams.getApplicationId().serializedForm());
-            result = deploy(decompressApplication(in, tempDir), prepareParams, logger);
+            File applicationDir = in.isPresent() ? decompressApplication(in.get(), tempDir) : tempDir;
+            result = deploy(applicationDir, manifest, prepareParams, logger);
         } finally {
             threadLockStats.stopRecording();
             cleanupTempDirectory(tempDir, logger);
@@ -383,14 +406,14 @@ public class ApplicationRepository implements com.yahoo.config.provision.Deploye
     }
 
     public PrepareResult deploy(File applicationPackage, PrepareParams prepareParams) {
-        return deploy(applicationPackage, prepareParams, DeployHandlerLogger.forPrepareParams(prepareParams)).deployResult();
+        return deploy(applicationPackage, Optional.empty(), prepareParams, DeployHandlerLogger.forPrepareParams(prepareParams)).deployResult();
     }
 
-    private PrepareAndActivateResult deploy(File applicationDir, PrepareParams prepareParams, DeployHandlerLogger logger) {
-        long sessionId = createSession(prepareParams.getApplicationId(),
-                                       prepareParams.getTimeoutBudget(),
-                                       applicationDir,
-                                       logger);
+    private PrepareAndActivateResult deploy(File applicationDir, Optional<ApplicationPackageManifest> manifest,
+                                            PrepareParams prepareParams, DeployHandlerLogger logger) {
+        long sessionId = manifest.isPresent()
+                         ? createSession(prepareParams.getApplicationId(), prepareParams.getTimeoutBudget(), applicationDir, manifest.get(), logger)
+                         : createSession(prepareParams.getApplicationId(), prepareParams.getTimeoutBudget(), applicationDir, logger);
         Deployment deployment = prepare(sessionId, prepareParams, logger);
 
         RuntimeException activationFailure = null;
@@ -961,6 +984,13 @@ public class ApplicationRepository implements com.yahoo.config.provision.Deploye
         return session.getSessionId();
     }
 
+    private long createSession(ApplicationId applicationId, TimeoutBudget timeoutBudget, File applicationDirectory,
+                               ApplicationPackageManifest manifest, DeployLogger deployLogger) {
+        SessionRepository sessionRepository = getTenant(applicationId).getSessionRepository();
+        Session session = sessionRepository.createSessionFromApplicationPackage(applicationDirectory, manifest, applicationId, timeoutBudget, deployLogger);
+        return session.getSessionId();
+    }
+
     public void deleteExpiredSessions(int maxSessionsToDelete) {
         tenantRepository.getAllTenants()
                 .forEach(tenant -> tenant.getSessionRepository().deleteExpiredRemoteAndLocalSessions(session -> sessionIsActiveForItsApplication(tenant, session),
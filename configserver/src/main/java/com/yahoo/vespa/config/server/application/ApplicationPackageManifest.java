@@ -0,0 +1,122 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.application;
+
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.ObjectTraverser;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.slime.Type;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The files of an application package, by path relative to the package root, with the SHA-256 of their content.
+ * A client deploying with a manifest needs only upload the files the config server does not already have;
+ * the rest are reused from the active session of the application, see {@link MissingApplicationFilesException}.
+ *
+ * @param files hex encoded SHA-256 of the content of each file, by path
+ */
+public record ApplicationPackageManifest(Map<String, String> files) {
+
+    private static final Pattern hashPattern = Pattern.compile("[0-9a-f]{64}");
+
+    /** Files written to the application package directory of a session by the config server, which are never reused. */
+    private static final String metaDataFile = ".applicationMetaData";
+    private static final String preprocessedDirectory = ".preprocessed";
+
+    public ApplicationPackageManifest {
+        files.forEach((path, hash) -> {
+            if ( ! hashPattern.matcher(hash).matches())
+                throw new IllegalArgumentException("Expected a hex encoded SHA-256 for '" + path + "', but got '" + hash + "'");
+            if (path.isEmpty() || path.startsWith("/") || ! Path.of(path).normalize().toString().equals(path) || Path.of(path).startsWith(".."))
+                throw new IllegalArgumentException("File path '" + path + "' must be normalized and relative to the application package root");
+        });
+        files = Map.copyOf(files);
+    }
+
+    /** Returns the path of a file for each distinct hash in this. */
+    public Map<String, String> pathsByHash() {
+        Map<String, String> paths = new HashMap<>();
+        files.forEach((path, hash) -> paths.putIfAbsent(hash, path));
+        return paths;
+    }
+
+    public static ApplicationPackageManifest fromJson(byte[] json) {
+        Inspector files = SlimeUtils.jsonToSlime(json).get().field("files");
+        if (files.type() != Type.OBJECT)
+            throw new IllegalArgumentException("Application package manifest must have a 'files' object");
+
+        Map<String, String> hashes = new HashMap<>();
+        files.traverse((ObjectTraverser) (path, hash) -> hashes.put(path, hash.asString()));
+        return new ApplicationPackageManifest(hashes);
+    }
+
+    public byte[] toJson() {
+        Slime slime = new Slime();
+        Cursor files = slime.setObject().setObject("files");
+        new TreeMap<>(this.files).forEach(files::setString);
+        try {
+            return SlimeUtils.toJsonBytes(slime);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the manifest of the application package in the given directory, using the given function to hash each file. */
+    public static ApplicationPackageManifest of(Path directory, Hasher hasher) throws IOException {
+        Map<String, String> files = new HashMap<>();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) paths::iterator) {
+                String path = directory.relativize(file).toString();
+                if (Files.isDirectory(file) || isWrittenByConfigServer(path)) continue;
+                files.put(path, hasher.hash(file));
+            }
+        }
+        return new ApplicationPackageManifest(files);
+    }
+
+    /** Returns the manifest of the application package in the given directory. */
+    public static ApplicationPackageManifest of(Path directory) throws IOException {
+        return of(directory, ApplicationPackageManifest::hash);
+    }
+
+    /** Returns the hex encoded SHA-256 of the content of the given file. */
+    public static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read; (read = in.read(buffer)) > 0; )
+                digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Returns whether the given path, relative to the application package root, is written by the config server, and may not be shared between sessions. */
+    public static boolean isWrittenByConfigServer(String path) {
+        return path.equals(metaDataFile) || path.equals(preprocessedDirectory) || path.startsWith(preprocessedDirectory + "/");
+    }
+
+    @FunctionalInterface
+    public interface Hasher {
+        String hash(Path file) throws IOException;
+    }
+
+}
@@ -0,0 +1,23 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.application;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Thrown when a deployment with an {@link ApplicationPackageManifest} lacks files which are neither uploaded nor
+ * available from the active session of the application. The client should deploy again, uploading these files.
+ */
+public class MissingApplicationFilesException extends RuntimeException {
+
+    private final Set<String> hashes;
+
+    public MissingApplicationFilesException(Set<String> hashes) {
+        super(hashes.size() + " files in the application package manifest must be uploaded");
+        this.hashes = new TreeSet<>(hashes);
+    }
+
+    /** Returns the SHA-256 of the content of the missing files. */
+    public Set<String> hashes() { return hashes; }
+
+}
@@ -13,6 +13,7 @@ import com.yahoo.jrt.Supervisor;
 import com.yahoo.jrt.Transport;
 import com.yahoo.vespa.config.ConnectionPool;
 import com.yahoo.vespa.filedistribution.FileApiErrorCodes;
+import com.yahoo.vespa.filedistribution.FileChunkServer;
 import com.yahoo.vespa.filedistribution.FileDistributionConnectionPool;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import com.yahoo.vespa.filedistribution.FileReferenceCompressor;
@@ -28,9 +29,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.logging.Level;
@@ -57,11 +61,15 @@ public class FileServer {
     private static final List<CompressionType> compressionTypesToServe = List.of(zstd, lz4, gzip); // In preferred order
     private static final String tempFilereferencedataPrefix = "filereferencedata";
     private static final Path tempFilereferencedataDir = Paths.get(System.getProperty("java.io.tmpdir"));
+    private static final int maxArchives = 32;
 
     private final FileDirectory fileDirectory;
     private final ExecutorService executor;
     private final FileDownloader downloader;
     private final List<CompressionType> compressionTypes; // compression types to use, in preferred order
+    private final FileChunkServer chunkServer;
+    // Archives of directories, kept for serving them as chunks, keyed by file reference and compression type
+    private final Map<String, Archive> archives = new LinkedHashMap<>(16, 0.75f, true);
 
     public static class ReplayStatus {
         private final int code;
@@ -97,6 +105,7 @@ public class FileServer {
         this.executor = Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
                                                      new DaemonThreadFactory("file-server-"));
         this.compressionTypes = compressionTypes;
+        this.chunkServer = new FileChunkServer(this::content);
     }
 
     boolean hasFile(String fileReference) {
@@ -187,6 +196,76 @@ public class FileServer {
                                            acceptedCompressionTypes + ", compression types server can use: " + compressionTypes);
     }
 
+    /** Returns the content of the given file reference, as served in chunks, downloading it from another config server if needed and asked to */
+    private Optional<FileChunkServer.Content> content(FileReference reference,
+                                                      boolean downloadFromOtherSourceIfNotFound,
+                                                      Set<CompressionType> acceptedCompressionTypes) {
+        var fileReferenceDownload = new FileReferenceDownload(reference, "chunk server", downloadFromOtherSourceIfNotFound);
+        return getFileDownloadIfNeeded(fileReferenceDownload).map(file -> {
+            if ( ! file.isDirectory())
+                return new FileChunkServer.Content(file.getName(), Type.file, gzip, file);
+
+            CompressionType compressionType = chooseCompressionType(acceptedCompressionTypes);
+            Archive archive = archive(reference, file, compressionType);
+            return new FileChunkServer.Content(file.getName(), compressed, compressionType, archive.file.join(), () -> release(archive));
+        });
+    }
+
+    /**
+     * Returns an archive of the given directory, which is created only once, and then kept, so all chunks served
+     * for the same file reference and compression type are from the same archive, until it is evicted.
+     * The archive is kept until released, also if evicted meanwhile. Archives are deterministic, so one created
+     * again after eviction, or by another config server, has the same chunks.
+     */
+    private Archive archive(FileReference reference, File directory, CompressionType compressionType) {
+        String key = reference.value() + "." + compressionType.name();
+        Archive archive;
+        boolean create = false;
+        synchronized (archives) {
+            archive = archives.get(key);
+            if (archive == null) {
+                archives.put(key, archive = new Archive());
+                create = true;
+            }
+            archive.users++;
+            evictArchives();
+        }
+        if (create) {
+            try {
+                Path tempFile = Files.createTempFile(tempFilereferencedataDir, tempFilereferencedataPrefix, reference.value());
+                archive.file.complete(new FileReferenceCompressor(compressed, compressionType).compress(directory.getParentFile(), tempFile.toFile()));
+            } catch (IOException | RuntimeException e) {
+                synchronized (archives) { archives.remove(key, archive); }
+                archive.file.completeExceptionally(e);
+            }
+        }
+        try {
+            archive.file.join();
+            return archive;
+        } catch (RuntimeException e) {
+            release(archive);
+            throw e;
+        }
+    }
+
+    /** Evicts the least recently used archives, which are deleted when no longer in use */
+    private void evictArchives() {
+        for (var iterator = archives.values().iterator(); archives.size() > maxArchives && iterator.hasNext(); ) {
+            Archive archive = iterator.next();
+            iterator.remove();
+            archive.evicted = true;
+            if (archive.users == 0) archive.delete();
+        }
+    }
+
+    private void release(Archive archive) {
+        synchronized (archives) {
+            if (--archive.users == 0 && archive.evicted) archive.delete();
+        }
+    }
+
+    public FileChunkServer chunkServer() { return chunkServer; }
+
     public Optional<File> getFileDownloadIfNeeded(FileReferenceDownload fileReferenceDownload) {
         FileReference fileReference = fileReferenceDownload.fileReference();
         Optional<File> file = fileDirectory.getFile(fileReference);
@@ -214,7 +293,28 @@ public class FileServer {
 
     public void close() {
         downloader.close();
+        chunkServer.close();
         executor.shutdown();
+        synchronized (archives) {
+            for (Archive archive : archives.values()) {
+                archive.evicted = true;
+                if (archive.users == 0) archive.delete();
+            }
+            archives.clear();
+        }
+    }
+
+    /** An archive of a directory, with the number of users currently serving it, guarded by the archives map */
+    private static class Archive {
+
+        private final CompletableFuture<File> file = new CompletableFuture<>();
+        private int users = 0;
+        private boolean evicted = false;
+
+        private void delete() {
+            file.thenAccept(archive -> uncheck(() -> Files.deleteIfExists(archive.toPath())));
+        }
+
     }
 
     private static FileDownloader createFileDownloader(List<String> configServers) {
@@ -8,6 +8,7 @@ import com.yahoo.slime.Slime;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,7 +56,8 @@ public class HttpErrorResponse extends HttpResponse {
         REINDEXING_STATUS_UNAVAILABLE,
         PRECONDITION_FAILED,
         TESTER_SUSPENDED,
-        QUOTA_EXCEEDED
+        QUOTA_EXCEEDED,
+        MISSING_APPLICATION_FILES
     }
 
     public static HttpErrorResponse notFoundError(String msg) {
@@ -130,6 +132,14 @@ public class HttpErrorResponse extends HttpResponse {
         return new HttpErrorResponse(BAD_REQUEST, ErrorCode.QUOTA_EXCEEDED.name(), msg);
     }
 
+    /** Returns a response listing the hashes of files which must be uploaded to deploy an application package manifest. */
+    public static HttpErrorResponse missingApplicationFiles(String msg, Collection<String> hashes) {
+        HttpErrorResponse response = new HttpErrorResponse(CONFLICT, ErrorCode.MISSING_APPLICATION_FILES.name(), msg);
+        Cursor missing = response.slime.get().setArray("missing");
+        hashes.forEach(missing::addString);
+        return response;
+    }
+
     @Override
     public void render(OutputStream stream) throws IOException {
         new JsonFormat(true).encode(stream, slime);
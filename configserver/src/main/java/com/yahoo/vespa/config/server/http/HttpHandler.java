@@ -11,6 +11,7 @@ import com.yahoo.config.provision.exception.LoadBalancerServiceException;
 import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.vespa.config.server.application.ConfigNotConvergedException;
+import com.yahoo.vespa.config.server.application.MissingApplicationFilesException;
 import com.yahoo.container.jdisc.ThreadedHttpRequestHandler;
 import com.yahoo.yolean.Exceptions;
 
@@ -47,6 +48,8 @@ public class HttpHandler extends ThreadedHttpRequestHandler {
             return HttpErrorResponse.notFoundError(getMessage(e, request));
         } catch (ActivationConflictException e) {
             return HttpErrorResponse.conflictWhenActivating(getMessage(e, request));
+        } catch (MissingApplicationFilesException e) {
+            return HttpErrorResponse.missingApplicationFiles(getMessage(e, request), e.hashes());
         } catch (InvalidApplicationException e) {
             return HttpErrorResponse.invalidApplicationPackage(getMessage(e, request));
         } catch (IllegalArgumentException | UnsupportedOperationException e) {
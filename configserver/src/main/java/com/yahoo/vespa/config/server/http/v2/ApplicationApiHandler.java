@@ -14,6 +14,7 @@ import com.yahoo.jdisc.application.BindingMatch;
 import com.yahoo.jdisc.http.HttpHeaders;
 import com.yahoo.restapi.MessageResponse;
 import com.yahoo.vespa.config.server.ApplicationRepository;
+import com.yahoo.vespa.config.server.application.ApplicationPackageManifest;
 import com.yahoo.vespa.config.server.application.CompressedApplicationInputStream;
 import com.yahoo.vespa.config.server.http.BadRequestException;
 import com.yahoo.vespa.config.server.http.SessionHandler;
@@ -26,7 +27,6 @@ import org.apache.hc.core5.http.ContentType;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
@@ -37,6 +37,7 @@ import static com.yahoo.vespa.config.server.application.CompressedApplicationInp
 import static com.yahoo.vespa.config.server.http.Utils.checkThatTenantExists;
 import static com.yahoo.vespa.config.server.http.v2.SessionCreateHandler.validateDataAndHeader;
 import static com.yahoo.vespa.flags.PermanentFlags.VERBOSE_DEPLOY_PARAMETER;
+import static com.yahoo.yolean.Exceptions.uncheck;
 import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.INFO;
 
@@ -54,6 +55,7 @@ public class ApplicationApiHandler extends SessionHandler {
     public final static String MULTIPART_FORM_DATA = "multipart/form-data";
     public final static String MULTIPART_PARAMS = "prepareParams";
     public final static String MULTIPART_APPLICATION_PACKAGE = "applicationPackage";
+    public final static String MULTIPART_APPLICATION_PACKAGE_MANIFEST = "applicationPackageManifest";
     public final static String contentTypeHeader = "Content-Type";
 
     private final TenantRepository tenantRepository;
@@ -90,7 +92,8 @@ public class ApplicationApiHandler extends SessionHandler {
         TenantName tenantName = validateTenant(request);
 
         PrepareParams prepareParams;
-        CompressedApplicationInputStream compressedStream;
+        Optional<CompressedApplicationInputStream> compressedStream;
+        Optional<ApplicationPackageManifest> manifest = Optional.empty();
         boolean multipartRequest = Optional.ofNullable(request.getHeader(HttpHeaders.Names.CONTENT_TYPE))
                 .map(ContentType::parse)
                 .map(contentType -> contentType.getMimeType().equalsIgnoreCase(MULTIPART_FORM_DATA))
@@ -104,8 +107,18 @@ public class ApplicationApiHandler extends SessionHandler {
                 log.log(FINE, "Deploy parameters: [{0}]", new String(params, StandardCharsets.UTF_8));
                 prepareParams = PrepareParams.fromJson(params, tenantName, zookeeperBarrierTimeout,
                                                        VERBOSE_DEPLOY_PARAMETER.bindTo(applicationRepository.flagSource()).value());
+                // With a manifest, only files the config server does not have are uploaded, and possibly none
+                if (parts.containsKey(MULTIPART_APPLICATION_PACKAGE_MANIFEST)) {
+                    try (InputStream part = parts.get(MULTIPART_APPLICATION_PACKAGE_MANIFEST).data()) {
+                        manifest = Optional.of(ApplicationPackageManifest.fromJson(part.readAllBytes()));
+                    }
+                }
                 PartItem appPackagePart = parts.get(MULTIPART_APPLICATION_PACKAGE);
-                compressedStream = createFromCompressedStream(appPackagePart.data(), appPackagePart.contentType(), maxApplicationPackageSize);
+                if (appPackagePart == null && manifest.isEmpty())
+                    throw new BadRequestException("Deploy request from '" + tenantName.value() + "' has no application package");
+
+                compressedStream = Optional.ofNullable(appPackagePart)
+                                           .map(part -> createFromCompressedStream(part.data(), part.contentType(), maxApplicationPackageSize));
             } catch (IOException e) {
                 var message = "Deploy request from '" + tenantName.value() + "' contains invalid data: " + e.getMessage();
                 if (e instanceof MultiPartFormParser.MultiPartException)
@@ -118,19 +131,21 @@ public class ApplicationApiHandler extends SessionHandler {
             }
         } else {
             prepareParams = PrepareParams.fromHttpRequest(request, tenantName, zookeeperBarrierTimeout);
-            compressedStream = createFromCompressedStream(request.getData(), request.getHeader(contentTypeHeader), maxApplicationPackageSize);
+            compressedStream = Optional.of(createFromCompressedStream(request.getData(), request.getHeader(contentTypeHeader), maxApplicationPackageSize));
         }
 
         // Aid debugging by adding full application id to access log (since only tenant name is part of the request URI path)
         request.getAccessLogEntry()
                 .ifPresent(e -> e.addKeyValue("app.id", prepareParams.getApplicationId().toFullString()));
 
-        try (compressedStream) {
-            PrepareAndActivateResult result = applicationRepository.deploy(compressedStream, prepareParams);
+        try {
+            PrepareAndActivateResult result = manifest.isPresent()
+                                              ? applicationRepository.deploy(compressedStream, manifest.get(), prepareParams)
+                                              : applicationRepository.deploy(compressedStream.get(), prepareParams);
             return new SessionPrepareAndActivateResponse(result, prepareParams.getApplicationId(), request, zone);
         }
-        catch (IOException e) {
-            throw new UncheckedIOException(e);
+        finally {
+            compressedStream.ifPresent(stream -> uncheck(stream::close));
         }
     }
 
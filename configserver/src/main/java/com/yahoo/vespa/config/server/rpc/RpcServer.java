@@ -40,6 +40,7 @@ import com.yahoo.vespa.config.server.rpc.security.RpcAuthorizer;
 import com.yahoo.vespa.config.server.tenant.Tenant;
 import com.yahoo.vespa.config.server.tenant.TenantListener;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
+import com.yahoo.vespa.filedistribution.FileChunkServer;
 import com.yahoo.vespa.filedistribution.FileDownloader;
 import com.yahoo.vespa.filedistribution.FileReceiver;
 import com.yahoo.vespa.filedistribution.FileReferenceData;
@@ -220,6 +221,10 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
                                   .returnDesc(0, "statistics", "Statistics for server"));
         getSupervisor().addMethod(new Method("filedistribution.serveFile", "si*", "is", this::serveFile)
                                   .requireCapabilities(Capability.CONFIGSERVER__FILEDISTRIBUTION_API));
+        getSupervisor().addMethod(FileChunkServer.getFileChunksMethod(this::getFileChunks)
+                                  .requireCapabilities(Capability.CONFIGSERVER__FILEDISTRIBUTION_API));
+        getSupervisor().addMethod(FileChunkServer.getFileChunkMethod(this::getFileChunk)
+                                  .requireCapabilities(Capability.CONFIGSERVER__FILEDISTRIBUTION_API));
         getSupervisor().addMethod(new Method("filedistribution.setFileReferencesToDownload", "S", "i", this::setFileReferencesToDownload)
                                   .requireCapabilities(Capability.CONFIGSERVER__FILEDISTRIBUTION_API)
                                   .methodDesc("set which file references to download")
@@ -561,6 +566,18 @@ public class RpcServer implements Runnable, ConfigActivationListener, TenantList
                 });
     }
 
+    private void getFileChunks(Request request) {
+        request.detach();
+        rpcAuthorizer.authorizeFileRequest(request)
+                .thenRun(() -> fileServer.chunkServer().getFileChunks(request)); // okay to do in authorizer thread as getFileChunks is async
+    }
+
+    private void getFileChunk(Request request) {
+        request.detach();
+        rpcAuthorizer.authorizeFileRequest(request)
+                .thenRun(() -> fileServer.chunkServer().getFileChunk(request)); // okay to do in authorizer thread as getFileChunk is async
+    }
+
     private void setFileReferencesToDownload(Request req) {
         req.detach();
         rpcAuthorizer.authorizeFileRequest(req)
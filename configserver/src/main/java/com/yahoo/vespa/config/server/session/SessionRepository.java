@@ -24,7 +24,9 @@ import com.yahoo.transaction.NestedTransaction;
 import com.yahoo.transaction.Transaction;
 import com.yahoo.vespa.config.server.ConfigServerDB;
 import com.yahoo.vespa.config.server.TimeoutBudget;
+import com.yahoo.vespa.config.server.application.ApplicationPackageManifest;
 import com.yahoo.vespa.config.server.application.ApplicationVersions;
+import com.yahoo.vespa.config.server.application.MissingApplicationFilesException;
 import com.yahoo.vespa.config.server.application.TenantApplications;
 import com.yahoo.vespa.config.server.configchange.ConfigChangeActions;
 import com.yahoo.vespa.config.server.deploy.TenantFileSystemDirs;
@@ -60,8 +62,10 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.nio.file.FileVisitOption;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -71,6 +75,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -85,6 +90,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static com.yahoo.vespa.config.server.session.Session.Status.ACTIVATE;
 import static com.yahoo.vespa.config.server.session.Session.Status.DEACTIVATE;
@@ -110,12 +116,17 @@ public class SessionRepository {
 
     private static final Logger log = Logger.getLogger(SessionRepository.class.getName());
     private static final FilenameFilter sessionApplicationsFilter = (dir, name) -> name.matches("\\d+");
+    private static final int maxCachedFileHashes = 10_000;
     private static final long nonExistingActiveSessionId = 0;
 
     private final Object monitor = new Object();
     private final Map<Long, LocalSession> localSessionCache = Collections.synchronizedMap(new HashMap<>());
     private final Map<Long, RemoteSession> remoteSessionCache = Collections.synchronizedMap(new HashMap<>());
     private final Map<Long, SessionStateWatcher> sessionStateWatchers = Collections.synchronizedMap(new HashMap<>());
+    // Files in session directories are never changed, and are hard linked between sessions, so their hashes are kept by inode
+    private final Map<FileVersion, String> fileHashes = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<FileVersion, String> eldest) { return size() > maxCachedFileHashes; }
+    });
     private final Clock clock;
     private final Curator curator;
     private final Executor zkWatcherExecutor;
@@ -302,6 +313,7 @@ public class SessionRepository {
         File existingApp = getSessionAppDir(existingSession.getSessionId());
         Instant created = clock.instant();
         LocalSession session = createSessionFromApplication(existingApp,
+                                                            Map.of(),
                                                             applicationId,
                                                             internalRedeploy,
                                                             timeoutBudget,
@@ -324,19 +336,97 @@ public class SessionRepository {
                                                             ApplicationId applicationId,
                                                             TimeoutBudget timeoutBudget,
                                                             DeployLogger deployLogger) {
-        LocalSession session = createSessionFromApplication(applicationDirectory, applicationId, false, timeoutBudget,
+        LocalSession session = createSessionFromApplication(applicationDirectory, Map.of(), applicationId, false, timeoutBudget,
                                             deployLogger, clock.instant());
         applicationRepo.createApplication(applicationId);
         return session;
     }
 
+    /**
+     * Creates a new deployment session from an application package with the given manifest, where only the files
+     * in the given directory are uploaded, and the others are reused from the active session of the application.
+     *
+     * @param applicationDirectory a File pointing to the uploaded part of an application.
+     * @param manifest all files of the application package, and their hashes.
+     * @param applicationId application id for this new session.
+     * @param timeoutBudget Timeout for creating session and waiting for other servers.
+     * @return a new session
+     * @throws MissingApplicationFilesException if files in the manifest are neither uploaded nor in the active session
+     */
+    public LocalSession createSessionFromApplicationPackage(File applicationDirectory,
+                                                            ApplicationPackageManifest manifest,
+                                                            ApplicationId applicationId,
+                                                            TimeoutBudget timeoutBudget,
+                                                            DeployLogger deployLogger) {
+        Map<String, java.nio.file.Path> reusedFiles = uncheck(() -> reusableFiles(applicationDirectory, manifest, applicationId));
+        log.log(Level.FINE, () -> TenantRepository.logPre(applicationId) + "Reusing " + reusedFiles.size() + " of " +
+                                  manifest.files().size() + " files from the active session");
+        LocalSession session = createSessionFromApplication(applicationDirectory, reusedFiles, applicationId, false, timeoutBudget,
+                                                            deployLogger, clock.instant());
+        applicationRepo.createApplication(applicationId);
+        return session;
+    }
+
+    /**
+     * Returns the files of the given manifest which are not in the given application directory, by their path in
+     * the application package, mapped to a file with the same content, uploaded or in the active session.
+     *
+     * @throws MissingApplicationFilesException if there is no such file for some of them
+     * @throws IllegalArgumentException if files in the given directory are not as in the manifest
+     */
+    private Map<String, java.nio.file.Path> reusableFiles(File applicationDirectory,
+                                                          ApplicationPackageManifest manifest,
+                                                          ApplicationId applicationId) throws IOException {
+        java.nio.file.Path uploadedDir = applicationDirectory.toPath();
+        ApplicationPackageManifest uploaded = ApplicationPackageManifest.of(uploadedDir);
+        uploaded.files().forEach((path, hash) -> {
+            if ( ! manifest.files().containsKey(path))
+                throw new IllegalArgumentException("Uploaded file '" + path + "' is not in the application package manifest");
+            if ( ! manifest.files().get(path).equals(hash))
+                throw new IllegalArgumentException("Uploaded file '" + path + "' has hash " + hash + ", but " +
+                                                   manifest.files().get(path) + " in the application package manifest");
+        });
+
+        Map<String, java.nio.file.Path> available = new HashMap<>();
+        uploaded.pathsByHash().forEach((hash, path) -> available.put(hash, uploadedDir.resolve(path)));
+        Optional<java.nio.file.Path> activeDir = getActiveSessionId(applicationId).map(id -> getSessionAppDir(id).toPath())
+                                                                                  .filter(Files::isDirectory);
+        if (activeDir.isPresent())
+            ApplicationPackageManifest.of(activeDir.get(), this::hash).pathsByHash()
+                                      .forEach((hash, path) -> available.putIfAbsent(hash, activeDir.get().resolve(path)));
+
+        Map<String, java.nio.file.Path> reusable = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        manifest.files().forEach((path, hash) -> {
+            if (uploaded.files().containsKey(path)) return;
+            java.nio.file.Path file = available.get(hash);
+            if (file == null) missing.add(hash);
+            else reusable.put(path, file);
+        });
+        if ( ! missing.isEmpty()) throw new MissingApplicationFilesException(missing);
+        return reusable;
+    }
+
+    /** Returns the hash of the given file in a session directory, which is computed only once for each version of a file. */
+    private String hash(java.nio.file.Path file) throws IOException {
+        BasicFileAttributes attributes = readAttributes(file, BasicFileAttributes.class);
+        FileVersion version = new FileVersion(attributes.fileKey() == null ? file.toAbsolutePath() : attributes.fileKey(),
+                                              attributes.size(),
+                                              attributes.lastModifiedTime());
+        String hash = fileHashes.get(version);
+        if (hash == null) fileHashes.put(version, hash = ApplicationPackageManifest.hash(file));
+        return hash;
+    }
+
+    private record FileVersion(Object key, long size, FileTime lastModified) { }
+
     /**
      * Creates a local session based on a remote session and the distributed application package.
      * Does not wait for session being created on other servers.
      */
     private void createLocalSession(File applicationFile, ApplicationId applicationId, long sessionId) {
         try {
-            ApplicationPackage applicationPackage = createApplicationPackage(applicationFile, applicationId, sessionId, false, Optional.empty());
+            ApplicationPackage applicationPackage = createApplicationPackage(applicationFile, Map.of(), applicationId, sessionId, false, Optional.empty());
             createLocalSession(sessionId, applicationPackage);
         } catch (Exception e) {
             throw new RuntimeException("Error creating session " + sessionId, e);
@@ -808,6 +898,7 @@ public class SessionRepository {
     }
 
     private LocalSession createSessionFromApplication(File applicationDirectory,
+                                                      Map<String, java.nio.file.Path> reusedFiles,
                                                       ApplicationId applicationId,
                                                       boolean internalRedeploy,
                                                       TimeoutBudget timeoutBudget,
@@ -816,7 +907,7 @@ public class SessionRepository {
         long sessionId = getNextSessionId();
         try {
             ensureSessionPathDoesNotExist(sessionId);
-            ApplicationPackage app = createApplicationPackage(applicationDirectory, applicationId, sessionId, internalRedeploy, Optional.of(deployLogger));
+            ApplicationPackage app = createApplicationPackage(applicationDirectory, reusedFiles, applicationId, sessionId, internalRedeploy, Optional.of(deployLogger));
             log.log(Level.FINE, () -> TenantRepository.logPre(tenantName) + "Creating session " + sessionId + " in ZooKeeper");
             SessionZooKeeperClient sessionZKClient = createSessionZooKeeperClient(sessionId);
             sessionZKClient.createNewSession(created);
@@ -831,6 +922,7 @@ public class SessionRepository {
     }
 
     private ApplicationPackage createApplicationPackage(File applicationDirectory,
+                                                        Map<String, java.nio.file.Path> reusedFiles,
                                                         ApplicationId applicationId,
                                                         long sessionId,
                                                         boolean internalRedeploy,
@@ -840,7 +932,7 @@ public class SessionRepository {
         synchronized (monitor) {
             Optional<Long> activeSessionId = getActiveSessionId(applicationId);
             File userApplicationDir = getSessionAppDir(sessionId);
-            copyApp(applicationDirectory, userApplicationDir);
+            copyApp(applicationDirectory, reusedFiles, userApplicationDir);
             ApplicationPackage applicationPackage = createApplication(userApplicationDir,
                                                                       applicationId,
                                                                       sessionId,
@@ -865,7 +957,7 @@ public class SessionRepository {
         }
     }
 
-    private void copyApp(File sourceDir, File destinationDir) throws IOException {
+    private void copyApp(File sourceDir, Map<String, java.nio.file.Path> reusedFiles, File destinationDir) throws IOException {
         if (destinationDir.exists()) {
             log.log(Level.INFO, "Destination dir " + destinationDir + " already exists, app has already been copied");
             return;
@@ -878,7 +970,12 @@ public class SessionRepository {
         try {
             tempDestinationDir = createTempDirectory(destinationDir.getParentFile().toPath(), "app-package");
             log.log(Level.FINE, "Copying dir " + sourceDir.getAbsolutePath() + " to " + tempDestinationDir.toFile().getAbsolutePath());
-            IOUtils.copyDirectory(sourceDir, tempDestinationDir.toFile());
+            linkOrCopyDirectory(sourceDir.toPath(), tempDestinationDir);
+            for (var file : reusedFiles.entrySet()) {
+                java.nio.file.Path destination = tempDestinationDir.resolve(file.getKey());
+                Files.createDirectories(destination.getParent());
+                linkOrCopy(file.getValue(), destination, file.getKey());
+            }
             moveSearchDefinitionsToSchemasDir(tempDestinationDir);
 
             log.log(Level.FINE, "Moving " + tempDestinationDir + " to " + destinationDir.getAbsolutePath());
@@ -890,6 +987,34 @@ public class SessionRepository {
         }
     }
 
+    private static void linkOrCopyDirectory(java.nio.file.Path sourceDir, java.nio.file.Path destinationDir) throws IOException {
+        try (Stream<java.nio.file.Path> files = Files.walk(sourceDir, FileVisitOption.FOLLOW_LINKS)) {
+            for (java.nio.file.Path file : (Iterable<java.nio.file.Path>) files::iterator) {
+                String path = sourceDir.relativize(file).toString();
+                java.nio.file.Path destination = destinationDir.resolve(path);
+                if (Files.isDirectory(file)) Files.createDirectories(destination);
+                else linkOrCopy(file, destination, path);
+            }
+        }
+    }
+
+    /**
+     * Hard links the given file to the given destination, to avoid copying large files, like models, for each session.
+     * Files written by the config server are copied, as are all files when links can not be made, e.g., across file systems.
+     */
+    private static void linkOrCopy(java.nio.file.Path file, java.nio.file.Path destination, String path) throws IOException {
+        if ( ! ApplicationPackageManifest.isWrittenByConfigServer(path) && ! Files.isSymbolicLink(file)) {
+            try {
+                Files.createLink(destination, file);
+                return;
+            }
+            catch (IOException | UnsupportedOperationException e) {
+                log.log(Level.FINE, () -> "Unable to link " + file + " to " + destination + ", copying instead: " + Exceptions.toMessageString(e));
+            }
+        }
+        Files.copy(file, destination, StandardCopyOption.REPLACE_EXISTING);
+    }
+
     // TODO: Remove on Vespa 9 (when we don't allow files in SEARCH_DEFINITIONS_DIR)
     // Copies schemas from searchdefinitions/ to schemas/ if searchdefinitions/ exists
     private void moveSearchDefinitionsToSchemasDir(java.nio.file.Path applicationDir) throws IOException {
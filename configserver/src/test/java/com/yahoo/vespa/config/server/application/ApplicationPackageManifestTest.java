@@ -0,0 +1,60 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.config.server.application;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ApplicationPackageManifestTest {
+
+    private static final String emptyHash = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void manifestOfDirectoryExcludesFilesWrittenByConfigServer() throws IOException {
+        Path application = temporaryFolder.newFolder().toPath();
+        Files.writeString(application.resolve("services.xml"), "<services />");
+        Files.createDirectories(application.resolve("models"));
+        Files.write(application.resolve("models/empty.bin"), new byte[0]);
+        Files.writeString(application.resolve(".applicationMetaData"), "{}");
+        Files.createDirectories(application.resolve(".preprocessed"));
+        Files.writeString(application.resolve(".preprocessed/services.xml"), "<services />");
+
+        ApplicationPackageManifest manifest = ApplicationPackageManifest.of(application);
+        assertEquals(Map.of("services.xml", "98e46e581454fdf79a87161a2c2b63fc61d2986047837e616fc171cb22239ecc",
+                            "models/empty.bin", emptyHash),
+                     manifest.files());
+        assertEquals(manifest, ApplicationPackageManifest.fromJson(manifest.toJson()));
+    }
+
+    @Test
+    public void invalidManifestsAreRejected() {
+        assertEquals("File path '../services.xml' must be normalized and relative to the application package root",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> new ApplicationPackageManifest(Map.of("../services.xml", emptyHash))).getMessage());
+        assertEquals("File path '/services.xml' must be normalized and relative to the application package root",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> new ApplicationPackageManifest(Map.of("/services.xml", emptyHash))).getMessage());
+        assertEquals("File path 'schemas/../services.xml' must be normalized and relative to the application package root",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> new ApplicationPackageManifest(Map.of("schemas/../services.xml", emptyHash))).getMessage());
+        assertEquals("Expected a hex encoded SHA-256 for 'services.xml', but got 'abc'",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> new ApplicationPackageManifest(Map.of("services.xml", "abc"))).getMessage());
+        assertEquals("Application package manifest must have a 'files' object",
+                     assertThrows(IllegalArgumentException.class,
+                                  () -> ApplicationPackageManifest.fromJson("{\"files\":[]}".getBytes(UTF_8))).getMessage());
+    }
+
+}
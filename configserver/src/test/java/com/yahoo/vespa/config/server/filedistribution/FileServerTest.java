@@ -17,6 +17,7 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,7 @@ import java.util.concurrent.ExecutionException;
 
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.gzip;
 import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.lz4;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -106,6 +108,20 @@ public class FileServerTest {
         assertEquals("dummy-data-2", IOUtils.readFile(new File(downloadedFileUncompressed, "12z/f1")));
     }
 
+    @Test
+    public void requireThatArchivesOfTheSameDirectoryAreIdentical() throws IOException {
+        File dir = getFileServerRootDir();
+        IOUtils.writeFile(dir + "/13a/f1", "dummy-data", false);
+        IOUtils.writeFile(dir + "/13a/sub/f2", "dummy-data-2", false);
+        for (FileReferenceData.CompressionType compressionType : FileReferenceData.CompressionType.values()) {
+            var compressor = new FileReferenceCompressor(FileReferenceData.Type.compressed, compressionType);
+            byte[] first = Files.readAllBytes(compressor.compress(dir, temporaryFolder.newFile()).toPath());
+            assertTrue(new File(dir + "/13a/f1").setLastModified(1234567890000L));
+            byte[] second = Files.readAllBytes(compressor.compress(dir, temporaryFolder.newFile()).toPath());
+            assertArrayEquals(compressionType.name(), first, second);
+        }
+    }
+
     @Test
     public void requireThatDifferentNumberOfConfigServersWork() throws IOException {
         // Empty connection pool in tests etc.
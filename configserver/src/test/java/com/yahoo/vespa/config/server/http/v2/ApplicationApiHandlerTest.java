@@ -14,6 +14,7 @@ import com.yahoo.slime.SlimeUtils;
 import com.yahoo.test.ManualClock;
 import com.yahoo.vespa.config.server.ApplicationRepository;
 import com.yahoo.vespa.config.server.MockProvisioner;
+import com.yahoo.vespa.config.server.application.ApplicationPackageManifest;
 import com.yahoo.vespa.config.server.application.OrchestratorMock;
 import com.yahoo.vespa.config.server.provision.HostProvisionerProvider;
 import com.yahoo.vespa.config.server.tenant.TenantRepository;
@@ -30,16 +31,25 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Clock;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import static com.yahoo.yolean.Exceptions.uncheck;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @author jonmv
@@ -122,10 +132,15 @@ class ApplicationApiHandlerTest {
     }
 
     private HttpResponse post(String json, byte[] appZip, Map<String, String> parameters) throws IOException {
-        HttpEntity entity = MultipartEntityBuilder.create()
-                                                  .addTextBody("prepareParams", json, ContentType.APPLICATION_JSON)
-                                                  .addBinaryBody("applicationPackage", appZip, ContentType.create("application/zip"), "applicationZip")
-                                                  .build();
+        return post(json, Optional.of(appZip), Optional.empty(), parameters);
+    }
+
+    private HttpResponse post(String json, Optional<byte[]> appZip, Optional<ApplicationPackageManifest> manifest, Map<String, String> parameters) throws IOException {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+                                                               .addTextBody("prepareParams", json, ContentType.APPLICATION_JSON);
+        appZip.ifPresent(zip -> builder.addBinaryBody("applicationPackage", zip, ContentType.create("application/zip"), "applicationZip"));
+        manifest.ifPresent(files -> builder.addBinaryBody("applicationPackageManifest", files.toJson(), ContentType.APPLICATION_JSON, "manifest.json"));
+        HttpEntity entity = builder.build();
         var request = com.yahoo.container.jdisc.HttpRequest.createTestRequest("http://host:123/application/v2/tenant/" + tenant + "/prepareandactivate",
                                                                               Method.POST,
                                                                               entity.getContent(),
@@ -145,6 +160,13 @@ class ApplicationApiHandlerTest {
         return buffer.toByteArray();
     }
 
+    private static ApplicationPackageManifest manifest(Map<String, String> files) throws NoSuchAlgorithmException {
+        Map<String, String> hashes = new HashMap<>();
+        for (var file : files.entrySet())
+            hashes.put(file.getKey(), HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file.getValue().getBytes(UTF_8))));
+        return new ApplicationPackageManifest(hashes);
+    }
+
     private static void verifyResponse(HttpResponse response, int expectedStatusCode, String expectedBody) throws IOException {
         String body = new ByteArrayOutputStream() {{ response.render(this); }}.toString(UTF_8);
         assertEquals(expectedStatusCode, response.getStatus(), "Status code should match. Response was:\n" + body);
@@ -173,6 +195,79 @@ class ApplicationApiHandlerTest {
                        """);
     }
 
+    @Test
+    void testDeploymentWithManifest() throws Exception {
+        Map<String, String> files = new HashMap<>(appPackage);
+        files.put("models/model.bin", "large model");
+        ApplicationPackageManifest manifest = manifest(files);
+
+        // Nothing is uploaded, and the config server has none of the files
+        verifyResponse(post(minimalPrepareParams, Optional.empty(), Optional.of(manifest), Map.of()),
+                       409,
+                       """
+                       {
+                         "error-code": "MISSING_APPLICATION_FILES",
+                         "message": "3 files in the application package manifest must be uploaded",
+                         "missing": %s
+                       }
+                       """.formatted(new TreeSet<>(manifest.files().values()).stream()
+                                                                             .map(hash -> "\"" + hash + "\"")
+                                                                             .collect(joining(", ", "[", "]"))));
+
+        // All files are uploaded
+        verifyResponse(post(minimalPrepareParams, Optional.of(zip(files)), Optional.of(manifest), Map.of()),
+                       200,
+                       """
+                       {
+                         "log": [ ],
+                         "message": "Session 2 for tenant 'test' prepared and activated.",
+                         "session-id": "2",
+                         "activated": true,
+                         "tenant": "test",
+                         "url": "http://host:123/application/v2/tenant/test/application/default/environment/prod/region/default/instance/default",
+                         "configChangeActions": {
+                           "restart": [ ],
+                           "refeed": [ ],
+                           "reindex": [ ]
+                         }
+                       }
+                       """);
+
+        // Only the changed file is uploaded, and the others are reused from the active session
+        files.put("services.xml", appPackage.get("services.xml") + "<!-- changed -->\n");
+        verifyResponse(post(minimalPrepareParams, Optional.of(zip(Map.of("services.xml", files.get("services.xml")))), Optional.of(manifest(files)), Map.of()),
+                       200,
+                       """
+                       {
+                         "log": [ ],
+                         "message": "Session 3 for tenant 'test' prepared and activated.",
+                         "session-id": "3",
+                         "activated": true,
+                         "tenant": "test",
+                         "url": "http://host:123/application/v2/tenant/test/application/default/environment/prod/region/default/instance/default",
+                         "configChangeActions": {
+                           "restart": [ ],
+                           "refeed": [ ],
+                           "reindex": [ ]
+                         }
+                       }
+                       """);
+        Path sessions = dbDir.resolve("tenants").resolve(tenant.value()).resolve("sessions");
+        assertEquals(files.get("services.xml"), Files.readString(sessions.resolve("3").resolve("services.xml")));
+        assertTrue(Files.isSameFile(sessions.resolve("2").resolve("models/model.bin"), sessions.resolve("3").resolve("models/model.bin")));
+
+        // Uploaded files must match the manifest
+        verifyResponse(post(minimalPrepareParams, Optional.of(zip(Map.of("services.xml", "<services />"))), Optional.of(manifest(files)), Map.of()),
+                       400,
+                       """
+                       {
+                         "error-code": "BAD_REQUEST",
+                         "message": "Uploaded file 'services.xml' has hash %s, but %s in the application package manifest"
+                       }
+                       """.formatted(manifest(Map.of("services.xml", "<services />")).files().get("services.xml"),
+                                     manifest(files).files().get("services.xml")));
+    }
+
     @Test
     void testBadZipDeployment() throws Exception {
         verifyResponse(post("{ }", Arrays.copyOf(zip(appPackage), 13), Map.of()),
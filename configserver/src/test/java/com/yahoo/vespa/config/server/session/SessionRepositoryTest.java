@@ -11,14 +11,17 @@ import com.yahoo.config.model.api.ModelContext;
 import com.yahoo.config.model.api.ModelCreateResult;
 import com.yahoo.config.model.api.ModelFactory;
 import com.yahoo.config.model.api.ValidationParameters;
+import com.yahoo.config.model.application.provider.BaseDeployLogger;
 import com.yahoo.config.model.deploy.DeployState;
 import com.yahoo.config.model.test.MockApplicationPackage;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.TenantName;
+import com.yahoo.io.IOUtils;
 import com.yahoo.io.reader.NamedReader;
 import com.yahoo.path.Path;
 import com.yahoo.text.Utf8;
 import com.yahoo.vespa.config.server.ApplicationRepository;
+import com.yahoo.vespa.config.server.TimeoutBudget;
 import com.yahoo.vespa.config.server.application.ApplicationVersions;
 import com.yahoo.vespa.config.server.application.OrchestratorMock;
 import com.yahoo.vespa.config.server.filedistribution.MockFileDistributionFactory;
@@ -35,6 +38,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import java.io.File;
+import java.io.StringReader;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
@@ -150,6 +154,27 @@ public class SessionRepositoryTest {
         assertNotNull(sessionRepository2.getLocalSession(sessionId));
     }
 
+    @Test
+    public void require_that_editing_files_of_a_new_session_leaves_the_active_session_unchanged() throws Exception {
+        setup();
+        long activeSessionId = deploy();
+        LocalSession activeSession = sessionRepository.getLocalSession(activeSessionId);
+        String services = IOUtils.readAll(activeSession.getApplicationFile(Path.fromString("services.xml"), Session.Mode.READ).createReader());
+        String hosts = IOUtils.readAll(activeSession.getApplicationFile(Path.fromString("hosts.xml"), Session.Mode.READ).createReader());
+
+        // Files of the new session are linked to those of the active session, but edits must not write through
+        LocalSession session = sessionRepository.createSessionFromExisting(activeSession, false,
+                                                                           new TimeoutBudget(Clock.systemUTC(), Duration.ofSeconds(60)),
+                                                                           new BaseDeployLogger());
+        session.getApplicationFile(Path.fromString("services.xml"), Session.Mode.WRITE).writeFile(new StringReader("<services/>"));
+        session.getApplicationFile(Path.fromString("hosts.xml"), Session.Mode.WRITE).appendFile("<!-- edited -->");
+
+        assertEquals("<services/>", IOUtils.readAll(session.getApplicationFile(Path.fromString("services.xml"), Session.Mode.READ).createReader()));
+        assertEquals(hosts + "<!-- edited -->", IOUtils.readAll(session.getApplicationFile(Path.fromString("hosts.xml"), Session.Mode.READ).createReader()));
+        assertEquals(services, IOUtils.readAll(activeSession.getApplicationFile(Path.fromString("services.xml"), Session.Mode.READ).createReader()));
+        assertEquals(hosts, IOUtils.readAll(activeSession.getApplicationFile(Path.fromString("hosts.xml"), Session.Mode.READ).createReader()));
+    }
+
     @Test
     public void testInitialize() throws Exception {
         setup();
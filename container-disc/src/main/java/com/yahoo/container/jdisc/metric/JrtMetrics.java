@@ -33,6 +33,11 @@ class JrtMetrics {
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_TLS_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.clientTlsConnectionsEstablished());
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.serverUnencryptedConnectionsEstablished());
         increment(ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName(), changesSincePrevious.clientUnencryptedConnectionsEstablished());
+        increment(ContainerMetrics.JRT_TRANSPORT_CONNECTIONS_MOVED.baseName(), changesSincePrevious.connectionsMoved());
+        for (TransportMetrics.ThreadLoad load : transportMetrics.threadLoads()) {
+            metric.set(ContainerMetrics.JRT_TRANSPORT_THREAD_LOAD.baseName(), load.load(), null);
+            metric.set(ContainerMetrics.JRT_TRANSPORT_THREAD_QUEUE_SIZE.baseName(), load.queueSize(), null);
+        }
         previousSnapshot = snapshot;
     }
 
@@ -0,0 +1,68 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
+import com.yahoo.prelude.fastsearch.FastHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks decoding document summaries into hits and accessing their fields,
+ * as done when filling results and rendering them.
+ */
+@State(Scope.Benchmark)
+public class FastHitBenchmark {
+
+    @Param({ "1000" })
+    public int hits;
+
+    private DocsumDefinitionSet definitions;
+    private List<byte[]> summaries;
+
+    @Setup
+    public void setup() {
+        definitions = Fixtures.docsumDefinitions();
+        summaries = Fixtures.summaries(hits);
+    }
+
+    /** Decodes the summaries without accessing any fields, which are decoded lazily */
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (byte[] summary : summaries) {
+            FastHit hit = new FastHit();
+            blackhole.consume(definitions.lazyDecode(Fixtures.summaryClass, summary, hit));
+            blackhole.consume(hit);
+        }
+    }
+
+    /** Decodes the summaries and accesses all fields of each hit */
+    @Benchmark
+    public void decodeAndGetFields(Blackhole blackhole) {
+        for (byte[] summary : summaries) {
+            FastHit hit = new FastHit();
+            definitions.lazyDecode(Fixtures.summaryClass, summary, hit);
+            for (Map.Entry<String, Object> field : hit.fields().entrySet())
+                blackhole.consume(field.getValue());
+        }
+    }
+
+    /** Decodes the summaries and looks up a few fields by name */
+    @Benchmark
+    public void decodeAndGetSomeFields(Blackhole blackhole) {
+        for (byte[] summary : summaries) {
+            FastHit hit = new FastHit();
+            definitions.lazyDecode(Fixtures.summaryClass, summary, hit);
+            blackhole.consume(hit.getField("title"));
+            blackhole.consume(hit.getField("price"));
+            blackhole.consume(hit.features());
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.LeanHit;
+import com.yahoo.search.query.profile.QueryProfile;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.schema.DocumentSummary;
+import com.yahoo.search.schema.Schema;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Realistic, deterministic fixtures shared by the benchmarks.
+ */
+class Fixtures {
+
+    static final String summaryClass = "default";
+
+    static final String[] regions = { "us", "eu", "ap", "sa", "af" };
+    static final String[] devices = { "desktop", "mobile", "tablet", "tv" };
+    static final String[] buckets = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9" };
+
+    private static final String[] words = { "vespa", "search", "engine", "tensor", "ranking", "document", "query",
+                                            "profile", "summary", "latency", "throughput", "cluster", "content",
+                                            "container", "feed", "index", "attribute", "match", "phase", "hit" };
+
+    private static final TensorType embeddingType = TensorType.fromSpec("tensor<float>(x[32])");
+
+    private Fixtures() {}
+
+    /** Returns the summary definitions of the documents returned by {@link #summaries} */
+    static DocsumDefinitionSet docsumDefinitions() {
+        var summary = new DocumentSummary.Builder(summaryClass);
+        summary.add(new DocumentSummary.Field("title", "string"));
+        summary.add(new DocumentSummary.Field("body", "longstring"));
+        summary.add(new DocumentSummary.Field("url", "string"));
+        summary.add(new DocumentSummary.Field("price", "integer"));
+        summary.add(new DocumentSummary.Field("popularity", "double"));
+        summary.add(new DocumentSummary.Field("timestamp", "int64"));
+        summary.add(new DocumentSummary.Field("metadata", "jsonstring"));
+        summary.add(new DocumentSummary.Field("embedding", "tensor"));
+        summary.add(new DocumentSummary.Field("summaryfeatures", "featuredata"));
+        return new DocsumDefinitionSet(new Schema.Builder("music").add(summary.build()).build());
+    }
+
+    /** Returns the given number of summaries in the binary format returned by content nodes */
+    static List<byte[]> summaries(int count) {
+        Random random = new Random(count);
+        List<byte[]> summaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Slime slime = new Slime();
+            Cursor docsum = slime.setObject();
+            docsum.setString("title", text(random, 8));
+            docsum.setString("body", text(random, 120));
+            docsum.setString("url", "https://example.com/documents/" + i);
+            docsum.setLong("price", random.nextInt(100000));
+            docsum.setDouble("popularity", random.nextDouble());
+            docsum.setLong("timestamp", 1700000000000L + i);
+            Cursor metadata = docsum.setObject("metadata");
+            metadata.setString("category", words[random.nextInt(words.length)]);
+            Cursor tags = metadata.setArray("tags");
+            for (int j = 0; j < 5; j++)
+                tags.addString(words[random.nextInt(words.length)]);
+            docsum.setData("embedding", TypedBinaryFormat.encode(embedding(random)));
+            Cursor features = docsum.setObject("summaryfeatures");
+            features.setDouble("bm25(title)", random.nextDouble() * 10);
+            features.setDouble("bm25(body)", random.nextDouble() * 10);
+            features.setDouble("closeness(field,embedding)", random.nextDouble());
+            features.setDouble("attribute(popularity)", random.nextDouble());
+            summaries.add(encode(slime));
+        }
+        return summaries;
+    }
+
+    /** Returns a result with a hit for each of the given summaries, filled by decoding the summary */
+    static Result result(Query query, DocsumDefinitionSet definitions, List<byte[]> summaries) {
+        int count = summaries.size();
+        Result result = new Result(query);
+        for (int i = 0; i < count; i++) {
+            FastHit hit = new FastHit(globalId(i), 1.0 - (double)i / count, 0, i % 16);
+            hit.setSource("music");
+            String error = definitions.lazyDecode(summaryClass, summaries.get(i), hit);
+            if (error != null) throw new IllegalStateException(error);
+            hit.setFilled(summaryClass);
+            result.hits().add(hit);
+        }
+        result.setTotalHitCount(count * 1000L);
+        return result;
+    }
+
+    /**
+     * Returns the hits returned by each of the given number of content nodes,
+     * each list sorted by descending relevance, as the dispatcher receives them.
+     */
+    static List<List<LeanHit>> leanHits(int nodes, int hitsPerNode) {
+        Random random = new Random(nodes * 31L + hitsPerNode);
+        List<List<LeanHit>> hitsByNode = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            List<LeanHit> hits = new ArrayList<>(hitsPerNode);
+            for (int i = 0; i < hitsPerNode; i++)
+                hits.add(new LeanHit(globalId(node * hitsPerNode + i), 0, node, random.nextDouble()));
+            Collections.sort(hits);
+            hitsByNode.add(hits);
+        }
+        return hitsByNode;
+    }
+
+    /**
+     * Returns a registry containing a profile "root" which varies over the dimensions region, device and bucket,
+     * with a value in every variant and nested value sets inherited from other profiles, as in a larger application.
+     */
+    static QueryProfileRegistry queryProfiles() {
+        QueryProfileRegistry registry = new QueryProfileRegistry();
+
+        QueryProfile defaults = new QueryProfile("defaults");
+        defaults.set("hits", "20", registry);
+        defaults.set("timeout", "500ms", registry);
+        defaults.set("ranking.profile", "default", registry);
+        for (int i = 0; i < 50; i++)
+            defaults.set("app.features.f" + i + ".enabled", String.valueOf(i % 2 == 0), registry);
+        registry.register(defaults);
+
+        QueryProfile root = new QueryProfile("root");
+        root.addInherited(defaults);
+        root.setDimensions(new String[] { "region", "device", "bucket" });
+        for (String region : regions) {
+            root.set("app.region.name", region, new String[] { region }, registry);
+            for (String device : devices) {
+                root.set("app.layout.columns", String.valueOf(device.length()), new String[] { region, device }, registry);
+                root.set("ranking.profile", device + "-" + region, new String[] { region, device }, registry);
+                for (String bucket : buckets) {
+                    String[] variant = new String[] { region, device, bucket };
+                    root.set("ranking.features.query(bucket)", bucket, variant, registry);
+                    root.set("app.experiments.e" + bucket + ".model", region + "-" + device + "-" + bucket, variant, registry);
+                }
+            }
+        }
+        registry.register(root);
+        registry.freeze();
+        return registry;
+    }
+
+    private static String text(Random random, int wordCount) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) b.append(' ');
+            b.append(words[random.nextInt(words.length)]);
+        }
+        return b.toString();
+    }
+
+    private static IndexedTensor embedding(Random random) {
+        float[] values = new float[embeddingType.dimensions().get(0).size().get().intValue()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextFloat();
+        return IndexedTensor.Builder.of(embeddingType, values).build();
+    }
+
+    private static byte[] globalId(int i) {
+        return ByteBuffer.allocate(12).putInt(i * 0x9E3779B9).putInt(i).putInt(~i).array();
+    }
+
+    private static byte[] encode(Slime slime) {
+        byte[] data = BinaryFormat.encode(slime);
+        ByteBuffer buffer = ByteBuffer.allocate(data.length + 4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(DocsumDefinitionSet.SLIME_MAGIC_ID);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.put(data);
+        return buffer.array();
+    }
+
+}
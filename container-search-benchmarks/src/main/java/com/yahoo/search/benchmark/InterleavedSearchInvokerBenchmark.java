@@ -0,0 +1,98 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.concurrent.Timer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.InterleavedSearchInvoker;
+import com.yahoo.search.dispatch.InvokerResult;
+import com.yahoo.search.dispatch.LeanHit;
+import com.yahoo.search.dispatch.SearchInvoker;
+import com.yahoo.search.dispatch.TopKEstimator;
+import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.vespa.config.search.DispatchConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Benchmarks merging the results from the nodes of a group in the dispatcher,
+ * with content nodes which respond immediately.
+ */
+@State(Scope.Benchmark)
+public class InterleavedSearchInvokerBenchmark {
+
+    @Param({ "4", "16", "64" })
+    public int nodes;
+
+    @Param({ "10", "400" })
+    public int hits;
+
+    private final DispatchConfig dispatchConfig = new DispatchConfig.Builder().build();
+    private final TopKEstimator estimator = new TopKEstimator(30, dispatchConfig.topKProbability(), 0.05);
+
+    private Group group;
+    private List<List<LeanHit>> hitsByNode;
+
+    @Setup
+    public void setup() {
+        List<Node> groupNodes = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++)
+            groupNodes.add(new Node("benchmark", i, "host" + i, 0));
+        group = new Group(0, groupNodes);
+        hitsByNode = Fixtures.leanHits(nodes, hits);
+    }
+
+    @Benchmark
+    public Result search() throws IOException {
+        List<SearchInvoker> invokers = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++)
+            invokers.add(new RespondingInvoker(group.nodes().get(i), hitsByNode.get(i)));
+        try (var invoker = new InterleavedSearchInvoker(Timer.monotonic, invokers, estimator, dispatchConfig, group, null)) {
+            return invoker.search(new Query("/search/?query=vespa&timeout=10s&hits=" + hits));
+        }
+    }
+
+    /** A search invoker which has its result available as soon as the request is sent */
+    private static class RespondingInvoker extends SearchInvoker {
+
+        private final List<LeanHit> hits;
+        private Query query;
+        private int requestedHits;
+
+        RespondingInvoker(Node node, List<LeanHit> hits) {
+            super(Optional.of(node));
+            this.hits = hits;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            this.requestedHits = query.getHits();
+            responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            InvokerResult result = new InvokerResult(query, hits.size());
+            result.getResult().setCoverage(new Coverage(100000, 100000, 1));
+            result.getLeanHits().addAll(hits.subList(0, Math.min(hits.size(), requestedHits)));
+            return result;
+        }
+
+        @Override
+        protected void release() { }
+
+    }
+
+}
@@ -0,0 +1,75 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.rendering.JsonRenderer;
+import com.yahoo.search.searchchain.Execution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmarks rendering results with filled hits as JSON.
+ */
+@State(Scope.Benchmark)
+public class JsonRendererBenchmark {
+
+    @Param({ "10", "1000" })
+    public int hits;
+
+    private ExecutorService executor;
+    private JsonRenderer blueprint;
+    private DocsumDefinitionSet definitions;
+    private List<byte[]> summaries;
+    private Result result;
+    private Execution execution;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(1);
+        blueprint = new JsonRenderer(executor);
+        definitions = Fixtures.docsumDefinitions();
+        summaries = Fixtures.summaries(hits);
+        execution = new Execution(Execution.Context.createContextStub());
+    }
+
+    /** Rendering releases the result, so a new one is needed for each invocation */
+    @Setup(Level.Invocation)
+    public void createResult() {
+        result = Fixtures.result(new Query("/search/?query=vespa&hits=" + hits), definitions, summaries);
+    }
+
+    @TearDown
+    public void tearDown() {
+        blueprint.deconstruct();
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public int render() throws InterruptedException, ExecutionException {
+        // Renderers are cloned from a blueprint for each response in the container, so do the same here
+        JsonRenderer renderer = (JsonRenderer) blueprint.clone();
+        renderer.init();
+        try {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream(hits * 1024);
+            renderer.renderResponse(stream, result, execution, null).get();
+            return stream.size();
+        }
+        finally {
+            renderer.deconstruct();
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.container.jdisc.HttpRequest;
+import com.yahoo.jdisc.http.HttpRequest.Method;
+import com.yahoo.search.Query;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmarks creating queries from requests, with and without a query profile with variants,
+ * including parsing the YQL of the query into a query tree.
+ */
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    private static final String yql = "select * from sources music where " +
+                                      "(userQuery() or ({targetHits: 100}nearestNeighbor(embedding, q))) " +
+                                      "and price < 50000 and category contains \"rock\" " +
+                                      "order by popularity desc limit 20 offset 0";
+
+    private static final String parameters = "&hits=20&offset=0&timeout=500ms&ranking.profile=hybrid" +
+                                             "&input.query(q)=" + encode("[" + "0.5,".repeat(31) + "0.5]") +
+                                             "&ranking.features.query(boost)=2.5&ranking.matchPhase.maxHits=1000" +
+                                             "&presentation.summary=default&trace.level=0&model.locale=en-US" +
+                                             "&region=eu&device=mobile&bucket=7";
+
+    private CompiledQueryProfile profile;
+    private String uri;
+
+    @Setup
+    public void setup() {
+        profile = Fixtures.queryProfiles().compile().getComponent("root");
+        uri = "/search/?query=" + encode("vespa search engine tensor ranking") + "&type=weakAnd" + parameters;
+    }
+
+    @Benchmark
+    public Query createQuery() {
+        return new Query(HttpRequest.createTestRequest(uri, Method.GET));
+    }
+
+    @Benchmark
+    public Query createQueryWithProfile() {
+        return new Query(HttpRequest.createTestRequest(uri, Method.GET), profile);
+    }
+
+    @Benchmark
+    public Object createQueryAndParseYql() {
+        Query query = new Query(HttpRequest.createTestRequest("/search/?yql=" + encode(yql) +
+                                                              "&query=" + encode("vespa search engine") + parameters,
+                                                              Method.GET),
+                                profile);
+        return query.getModel().getQueryTree();
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,58 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.QueryProfileRegistry;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfile;
+import com.yahoo.search.query.profile.compiled.CompiledQueryProfileRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+
+/**
+ * Benchmarks compiling query profiles with many variants, and looking up values in the compiled profile.
+ */
+@State(Scope.Benchmark)
+public class QueryProfileBenchmark {
+
+    private static final CompoundName rankProfile = CompoundName.from("ranking.profile");
+    private static final CompoundName experimentModel = CompoundName.from("app.experiments.e7.model");
+    private static final CompoundName inheritedValue = CompoundName.from("app.features.f42.enabled");
+    private static final CompoundName missingValue = CompoundName.from("app.features.f42.missing");
+
+    private final Map<String, String> context = Map.of("region", "eu", "device", "mobile", "bucket", "7");
+    private final Map<String, String> partialContext = Map.of("region", "ap");
+
+    private QueryProfileRegistry registry;
+    private CompiledQueryProfile profile;
+
+    @Setup
+    public void setup() {
+        registry = Fixtures.queryProfiles();
+        profile = registry.compile().getComponent("root");
+    }
+
+    @Benchmark
+    public CompiledQueryProfileRegistry compile() {
+        return registry.compile();
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        blackhole.consume(profile.get(rankProfile, context, null));
+        blackhole.consume(profile.get(experimentModel, context, null));
+        blackhole.consume(profile.get(inheritedValue, context, null));
+        blackhole.consume(profile.get(missingValue, context, null));
+        blackhole.consume(profile.get(rankProfile, partialContext, null));
+    }
+
+    @Benchmark
+    public Map<String, Object> listValues() {
+        return profile.listValues(CompoundName.from("app"), context, null);
+    }
+
+}
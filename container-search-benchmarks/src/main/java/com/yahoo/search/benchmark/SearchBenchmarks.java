@@ -0,0 +1,63 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the container search benchmarks. This accepts the regular JMH command line options,
+ * and by default runs all benchmarks in this package and writes the results as JSON to
+ * container-search-benchmarks.json, such that results can be compared between releases.
+ */
+public class SearchBenchmarks {
+
+    static final String defaultResultFile = "container-search-benchmarks.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty())
+            options.include(SearchBenchmarks.class.getPackageName() + ".*");
+        if ( ! commandLine.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        if ( ! commandLine.getResult().hasValue())
+            options.result(defaultResultFile);
+        if (commandLine.getBenchModes().isEmpty())
+            options.mode(Mode.AverageTime);
+        if ( ! commandLine.getTimeUnit().hasValue())
+            options.timeUnit(TimeUnit.MICROSECONDS);
+        if ( ! commandLine.getWarmupIterations().hasValue())
+            options.warmupIterations(3);
+        if ( ! commandLine.getWarmupTime().hasValue())
+            options.warmupTime(TimeValue.seconds(2));
+        if ( ! commandLine.getMeasurementIterations().hasValue())
+            options.measurementIterations(5);
+        if ( ! commandLine.getMeasurementTime().hasValue())
+            options.measurementTime(TimeValue.seconds(2));
+        if ( ! commandLine.getForkCount().hasValue())
+            options.forks(1);
+        if ( ! commandLine.getJvmArgs().hasValue())
+            options.jvmArgs("-Xms2g", "-Xmx2g");
+        new Runner(options.build()).run();
+    }
+
+}
@@ -0,0 +1,41 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.benchmark;
+
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.parser.Parsable;
+import com.yahoo.search.query.parser.ParserEnvironment;
+import com.yahoo.search.yql.YqlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks parsing YQL into query trees, for a simple and a complex query.
+ */
+@State(Scope.Thread)
+public class YqlParserBenchmark {
+
+    private static final String simple = "select * from sources * where title contains \"vespa\"";
+
+    private static final String complex =
+            "select title, url, price from sources music, books where " +
+            "({targetHits: 100, approximate: true}nearestNeighbor(embedding, q) or " +
+            " weakAnd(title contains \"vespa\", body contains \"search\", body contains \"engine\", " +
+            "         title contains phrase(\"tensor\", \"ranking\"), body contains ({stem: false}\"latency\"))) " +
+            "and price >= 100 and price < 50000 and timestamp > 1700000000000 " +
+            "and (category contains \"rock\" or category contains \"jazz\" or category contains \"pop\") " +
+            "and !(tags contains \"hidden\") and weightedSet(tags, {\"new\": 10, \"sale\": 20, \"popular\": 30}) " +
+            "order by popularity desc, price asc limit 20 offset 10 timeout 500";
+
+    @Param({ "simple", "complex" })
+    public String query;
+
+    @Benchmark
+    public QueryTree parse() {
+        // A parser instance is created per query in the container, so do the same here
+        YqlParser parser = new YqlParser(new ParserEnvironment());
+        return parser.parse(new Parsable().setQuery(query.equals("simple") ? simple : complex));
+    }
+
+}
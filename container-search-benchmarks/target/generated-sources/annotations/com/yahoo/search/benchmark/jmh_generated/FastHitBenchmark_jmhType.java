@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class FastHitBenchmark_jmhType extends FastHitBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class InterleavedSearchInvokerBenchmark_jmhType extends InterleavedSearchInvokerBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class JsonRendererBenchmark_jmhType extends JsonRendererBenchmark_jmhType_B3 {
+}
+
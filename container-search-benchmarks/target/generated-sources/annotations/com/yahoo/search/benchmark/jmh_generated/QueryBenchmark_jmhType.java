@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class QueryBenchmark_jmhType extends QueryBenchmark_jmhType_B3 {
+}
+
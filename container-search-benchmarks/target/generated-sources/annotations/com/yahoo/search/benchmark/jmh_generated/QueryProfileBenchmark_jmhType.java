@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class QueryProfileBenchmark_jmhType extends QueryProfileBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package com.yahoo.search.benchmark.jmh_generated;
+public class YqlParserBenchmark_jmhType extends YqlParserBenchmark_jmhType_B3 {
+}
+
@@ -6,6 +6,7 @@ import com.yahoo.component.ComponentId;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.compress.Compressor;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.VespaBackend;
 import com.yahoo.processing.request.CompoundName;
 import com.yahoo.search.Query;
@@ -27,6 +28,7 @@ import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.vespa.config.search.DispatchConfig;
 import com.yahoo.vespa.config.search.DispatchNodesConfig;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Collection;
 import java.util.HashSet;
@@ -65,6 +67,9 @@ public class Dispatcher extends AbstractComponent {
     private final RpcConnectionPool rpcResourcePool;
     private final SearchCluster searchCluster;
     private final ClusterMonitor<Node> clusterMonitor;
+    private final Metric metric;
+    private final Hedging hedging;
+    private final QueryCoalescing coalescing;
     private volatile VolatileItems volatileItems;
 
     private static class VolatileItems {
@@ -116,33 +121,50 @@ public class Dispatcher extends AbstractComponent {
         InvokerFactory create(RpcConnectionPool rpcConnectionPool, SearchGroups searchGroups, DispatchConfig dispatchConfig);
     }
 
-    @Inject
     public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus) {
-        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, RpcInvokerFactory::new);
+        this(clusterId, dispatchConfig, nodesConfig, vipStatus, null);
+    }
+
+    @Inject
+    public Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, DispatchNodesConfig nodesConfig, VipStatus vipStatus, Metric metric) {
+        this(clusterId, dispatchConfig, new RpcResourcePool(dispatchConfig, nodesConfig), nodesConfig, vipStatus, metric, RpcInvokerFactory::new);
         initialWarmup(dispatchConfig.warmuptime());
     }
 
     Dispatcher(ComponentId clusterId, DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
-               DispatchNodesConfig nodesConfig, VipStatus vipStatus, InvokerFactoryFactory invokerFactories) {
+               DispatchNodesConfig nodesConfig, VipStatus vipStatus, Metric metric, InvokerFactoryFactory invokerFactories) {
         this(dispatchConfig, rpcConnectionPool,
              new SearchCluster(clusterId.stringValue(), dispatchConfig.minActivedocsPercentage(),
                                toNodes(clusterId.stringValue(), nodesConfig), vipStatus, new RpcPingFactory(rpcConnectionPool)),
-             invokerFactories);
+             metric, invokerFactories);
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
                SearchCluster searchCluster, InvokerFactoryFactory invokerFactories) {
-        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), invokerFactories);
+        this(dispatchConfig, rpcConnectionPool, searchCluster, null, invokerFactories);
+    }
+
+    private Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
+                       SearchCluster searchCluster, Metric metric, InvokerFactoryFactory invokerFactories) {
+        this(dispatchConfig, rpcConnectionPool, searchCluster, new ClusterMonitor<>(searchCluster, false), metric, invokerFactories);
         this.clusterMonitor.start(); // Populate nodes to monitor before starting it.
     }
 
     Dispatcher(DispatchConfig dispatchConfig, RpcConnectionPool rpcConnectionPool,
-               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, InvokerFactoryFactory invokerFactories) {
+               SearchCluster searchCluster, ClusterMonitor<Node> clusterMonitor, Metric metric,
+               InvokerFactoryFactory invokerFactories) {
         this.dispatchConfig = dispatchConfig;
         this.rpcResourcePool = rpcConnectionPool;
         this.searchCluster = searchCluster;
         this.invokerFactories = invokerFactories;
         this.clusterMonitor = clusterMonitor;
+        this.metric = metric;
+        this.hedging = dispatchConfig.hedging() ? new Hedging(dispatchConfig.hedgingLatencyQuantile(),
+                                                              dispatchConfig.hedgingMaxFraction(),
+                                                              searchCluster.name(),
+                                                              metric)
+                                                : null;
+        this.coalescing = dispatchConfig.coalesceQueries() ? new QueryCoalescing(searchCluster.name(), metric) : null;
         this.volatileItems = update();
         searchCluster.addMonitoring(clusterMonitor);
     }
@@ -150,7 +172,7 @@ public class Dispatcher extends AbstractComponent {
     /* For simple mocking in tests. Beware that searchCluster is shutdown in deconstruct() */
     Dispatcher(ClusterMonitor<Node> clusterMonitor, SearchCluster searchCluster,
                DispatchConfig dispatchConfig, InvokerFactory invokerFactory) {
-        this(dispatchConfig, null, searchCluster, clusterMonitor, (__, ___, ____) -> invokerFactory);
+        this(dispatchConfig, null, searchCluster, clusterMonitor, null, (__, ___, ____) -> invokerFactory);
     }
 
     /** Returns the snapshot of volatile items that need to be kept together, incrementing its reference counter. */
@@ -206,7 +228,11 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private VolatileItems update() {
-        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(), toLoadBalancerPolicy(dispatchConfig.distributionPolicy())),
+        return new VolatileItems(new LoadBalancer(searchCluster.groupList().groups(),
+                                                  toLoadBalancerPolicy(dispatchConfig.distributionPolicy()),
+                                                  dispatchConfig.tailLatencyQuantile(),
+                                                  searchCluster.name(),
+                                                  metric),
                                  invokerFactories.create(rpcResourcePool, searchCluster.groupList(), dispatchConfig));
     }
 
@@ -233,6 +259,7 @@ public class Dispatcher extends AbstractComponent {
             case BEST_OF_RANDOM_2 -> LoadBalancer.Policy.BEST_OF_RANDOM_2;
             case ADAPTIVE,LATENCY_AMORTIZED_OVER_REQUESTS -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_REQUESTS;
             case LATENCY_AMORTIZED_OVER_TIME -> LoadBalancer.Policy.LATENCY_AMORTIZED_OVER_TIME;
+            case TAIL_LATENCY -> LoadBalancer.Policy.TAIL_LATENCY;
         };
     }
     private static List<Node> toNodes(String clusterName, DispatchNodesConfig nodesConfig) {
@@ -269,19 +296,33 @@ public class Dispatcher extends AbstractComponent {
     }
 
     public SearchInvoker getSearchInvoker(Query query, VespaBackend searcher) {
+        Optional<ByteBuffer> coalescingKey = coalescing == null ? Optional.empty() : coalescing.keyOf(query, searcher.getServerId());
+        if (coalescingKey.isPresent()) {
+            Optional<SearchInvoker> invoker = coalescing.follow(coalescingKey.get(), query);
+            if (invoker.isPresent()) {
+                adjustEstimateQuery(query);
+                return invoker.get();
+            }
+        }
         try (var items = volatileItems()) { // Take a snapshot, and release it when we're done.
             int maxHitsPerNode = dispatchConfig.maxHitsPerNode();
             SearchInvoker invoker = getSearchPathInvoker(query, searcher, searchCluster.groupList(), items.get().invokerFactory, maxHitsPerNode)
-                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode));
+                    .orElseGet(() -> getInternalInvoker(query, searcher, searchCluster, items.get().loadBalancer, items.get().invokerFactory, maxHitsPerNode, hedging));
+            if (coalescingKey.isPresent())
+                invoker = coalescing.lead(coalescingKey.get(), query, invoker);
 
-            if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
-                query.setHits(0);
-                query.setOffset(0);
-            }
+            adjustEstimateQuery(query);
             return items.register(invoker);
         }
     }
 
+    private static void adjustEstimateQuery(Query query) {
+        if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
+            query.setHits(0);
+            query.setOffset(0);
+        }
+    }
+
     /** Builds an invoker based on searchpath */
     private static Optional<SearchInvoker> getSearchPathInvoker(Query query, VespaBackend searcher, SearchGroups cluster,
                                                                 InvokerFactory invokerFactory, int maxHitsPerNode) {
@@ -304,7 +345,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     private static SearchInvoker getInternalInvoker(Query query, VespaBackend searcher, SearchCluster cluster,
-                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+                                                    LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode,
+                                                    Hedging hedging) {
         Optional<Node> directNode = cluster.localCorpusDispatchTarget();
         if (directNode.isPresent()) {
             Node node = directNode.get();
@@ -336,6 +378,16 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id(), " after retries = ", i);
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                if (hedging != null && groups > 1) {
+                    Optional<Duration> delay = hedging.delay(group);
+                    if (delay.isPresent()) {
+                        Set<Integer> excluded = rejected == null ? new HashSet<>() : new HashSet<>(rejected);
+                        excluded.add(group.id());
+                        return new HedgedSearchInvoker(invoker.get(), delay.get(),
+                                                       () -> getHedgeInvoker(query, searcher, excluded, loadBalancer, invokerFactory, maxHitsPerNode),
+                                                       hedging);
+                    }
+                }
                 return invoker.get();
             } else {
                 loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
@@ -348,6 +400,25 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /** Returns an invoker of another group than the excluded ones, if one has sufficient coverage */
+    private static Optional<SearchInvoker> getHedgeInvoker(Query query, VespaBackend searcher, Set<Integer> excluded,
+                                                           LoadBalancer loadBalancer, InvokerFactory invokerFactory, int maxHitsPerNode) {
+        Optional<Group> groupInCluster = loadBalancer.takeGroup(excluded);
+        if (groupInCluster.isEmpty()) return Optional.empty();
+
+        Group group = groupInCluster.get();
+        Optional<SearchInvoker> invoker = group.hasSufficientCoverage()
+                                          ? invokerFactory.createSearchInvoker(searcher, query, group.nodes(), false, maxHitsPerNode)
+                                          : Optional.empty();
+        if (invoker.isEmpty()) {
+            loadBalancer.releaseGroup(group, false, RequestDuration.of(Duration.ZERO));
+            return Optional.empty();
+        }
+        query.trace(false, 2, "Hedging to group ", group.id());
+        invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+        return invoker;
+    }
+
     /**
      * We want to avoid groups blocking feed because their data may be out of date.
      * If there is a single group blocking feed, we want to reject it.
@@ -0,0 +1,103 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Sends a query to a group, and if the group has not answered completely within a given delay, sends the query
+ * to another group as well. The result of the group answering completely first is used, and the other
+ * invocation is closed, such that its late responses are ignored.
+ * If neither group answers completely in time, the result of the first group is used.
+ */
+class HedgedSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
+
+    /** Time left to the primary invoker to collect the responses it has, if no invoker completes in time */
+    private static final long collectMillis = 2;
+
+    private final SearchInvoker primary;
+    private final Duration delay;
+    private final Supplier<Optional<SearchInvoker>> hedgeFactory;
+    private final Hedging hedging;
+    private final LinkedBlockingQueue<SearchInvoker> completed = new LinkedBlockingQueue<>();
+
+    private SearchInvoker hedge = null;
+    private Query query;
+
+    /**
+     * Creates a hedged invoker
+     *
+     * @param primary the invoker to send the query to first
+     * @param delay how long to wait for the primary invoker to complete before hedging
+     * @param hedgeFactory creates the invoker to send the query to if it is hedged, or returns empty if none is available
+     * @param hedging the budget of hedged queries
+     */
+    HedgedSearchInvoker(SearchInvoker primary, Duration delay, Supplier<Optional<SearchInvoker>> hedgeFactory, Hedging hedging) {
+        super(Optional.empty());
+        this.primary = primary;
+        this.delay = delay;
+        this.hedgeFactory = hedgeFactory;
+        this.hedging = hedging;
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        primary.setMonitor(this);
+        primary.sendSearchRequest(query, null);
+        return context;
+    }
+
+    @Override
+    protected InvokerResult getSearchResult() throws IOException {
+        SearchInvoker winner = awaitCompletion(Math.min(delay.toMillis(), query.getTimeLeft()));
+        if (winner == null && query.getTimeLeft() > delay.toMillis() && hedging.tryHedge()) {
+            hedge = hedgeFactory.get().orElse(null);
+            if (hedge != null) {
+                query.trace(false, 2, "Hedging query after ", delay.toMillis(), " ms");
+                hedge.setMonitor(this);
+                hedge.sendSearchRequest(query, null);
+                hedging.hedgeSent();
+                winner = awaitCompletion(query.getTimeLeft() - collectMillis);
+            }
+        }
+        if (winner == null)
+            winner = primary;
+        else if (winner == hedge)
+            hedging.hedgeWon();
+
+        InvokerResult result = winner.getSearchResult();
+        winner.setFinalStatus(result.getResult().hits().getError() == null);
+        return result;
+    }
+
+    private SearchInvoker awaitCompletion(long timeoutMillis) {
+        try {
+            return completed.poll(Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+    }
+
+    @Override
+    public void responseAvailable(SearchInvoker from) {
+        completed.add(from);
+    }
+
+    @Override
+    protected void release() {
+        primary.close();
+        if (hedge != null)
+            hedge.close();
+    }
+
+    // For testing
+    SearchInvoker hedge() { return hedge; }
+
+}
@@ -0,0 +1,73 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.dispatch.searchcluster.Group;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides when queries are hedged, i.e. also sent to another group because the group they were sent to is slow
+ * to answer, and keeps the number of hedged queries within a budget.
+ * This class is multithread safe.
+ */
+class Hedging {
+
+    /** Don't hedge earlier than this, as it would only add load without reducing latency noticeably */
+    private static final Duration minDelay = Duration.ofMillis(2);
+
+    /** The max number of hedges which may be saved up during periods with no slow queries */
+    private static final double maxCredit = 10;
+
+    private final double latencyQuantile;
+    private final double maxFraction;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    private double credit = 0;
+
+    Hedging(double latencyQuantile, double maxFraction, String clusterName, Metric metric) {
+        this.latencyQuantile = latencyQuantile;
+        this.maxFraction = maxFraction;
+        this.metric = metric;
+        this.metricContext = metric == null ? null : metric.createContext(Map.of("cluster", clusterName));
+    }
+
+    /**
+     * Returns how long to wait for the given group to answer a query before hedging it,
+     * or empty if the group has no recent latencies to tell from.
+     * Each call to this earns the fraction of a hedge allowed per query.
+     */
+    Optional<Duration> delay(Group group) {
+        synchronized (this) {
+            credit = Math.min(credit + maxFraction, maxCredit);
+        }
+        double latency = group.latencyQuantile(latencyQuantile);
+        if (Double.isNaN(latency)) return Optional.empty();
+        Duration delay = Duration.ofNanos((long)(latency * 1_000_000));
+        return Optional.of(delay.compareTo(minDelay) < 0 ? minDelay : delay);
+    }
+
+    /** Returns whether a query may be hedged now, and if so spends from the budget */
+    synchronized boolean tryHedge() {
+        if (credit < 1) return false;
+        credit--;
+        return true;
+    }
+
+    /** Called when a query is sent to another group */
+    void hedgeSent() {
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_HEDGED_QUERIES.baseName(), 1, metricContext);
+    }
+
+    /** Called when the hedge of a query answered before the group the query was first sent to */
+    void hedgeWon() {
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_HEDGED_QUERIES_WON.baseName(), 1, metricContext);
+    }
+
+}
@@ -12,6 +12,7 @@ import com.yahoo.search.searchchain.Execution;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -21,6 +22,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,7 @@ import java.util.stream.Collectors;
  * InterleavedSearchInvoker uses multiple {@link SearchInvoker} objects to interface with content
  * nodes in parallel. Operationally it first sends requests to all contained invokers and then
  * collects the results. The user of this class is responsible for merging the results if needed.
+ * The monitor of this is notified when all the contained invokers have responded.
  *
  * @author ollivir
  */
@@ -44,6 +47,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final CoverageAggregator coverageAggregator;
     private final TopKEstimator hitEstimator;
     private Query query;
+    private volatile long sendNanos;
+    private final AtomicInteger pendingResponses = new AtomicInteger();
 
     private TimeoutHandler timeoutHandler;
     public InterleavedSearchInvoker(Timer timer, Collection<SearchInvoker> invokers,
@@ -103,6 +108,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         query.setOffset(0);
 
         Object context = null;
+        pendingResponses.set(invokers.size());
+        sendNanos = System.nanoTime();
         for (SearchInvoker invoker : invokers) {
             context = invoker.sendSearchRequest(query, context);
         }
@@ -155,6 +162,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         boolean asErrors = coverageAggregator.hasNoAnswers();
 
         if (!invokers.isEmpty()) {
+            invokers.forEach(this::recordLatency); // Nodes not responding in time are at least this slow
             String keys = invokers.stream().map(SearchInvoker::distributionKey).map(dk -> dk.map(i -> i.toString()).orElse("(unspecified)"))
                     .collect(Collectors.joining(", "));
 
@@ -248,14 +256,17 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
     @Override
     public void responseAvailable(SearchInvoker from) {
+        recordLatency(from);
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
         }
+        if (pendingResponses.decrementAndGet() == 0) {
+            responseAvailable();
+        }
     }
 
-    @Override
-    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
-        // never to be called
+    private void recordLatency(SearchInvoker invoker) {
+        invoker.node().ifPresent(node -> node.recordLatency(Duration.ofNanos(System.nanoTime() - sendNanos)));
     }
 
     // For overriding in tests
@@ -24,6 +24,11 @@ public class InvokerResult {
         this.leanHits = List.of();
     }
 
+    InvokerResult(Result result, List<LeanHit> leanHits) {
+        this.result = result;
+        this.leanHits = leanHits;
+    }
+
     public InvokerResult(Query query, int expectedHits) {
         result = new Result(query);
         leanHits = new ArrayList<>(expectedHits);
@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.search.dispatch.searchcluster.Group;
 
 import java.time.Duration;
@@ -34,9 +36,22 @@ public class LoadBalancer {
     private final Map<Integer, GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
 
-    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2}
+    public enum Policy { ROUNDROBIN, LATENCY_AMORTIZED_OVER_REQUESTS, LATENCY_AMORTIZED_OVER_TIME, BEST_OF_RANDOM_2, TAIL_LATENCY}
 
     public LoadBalancer(Collection<Group> groups, Policy policy) {
+        this(groups, policy, 0.95, null, null);
+    }
+
+    /**
+     * Creates a load balancer
+     *
+     * @param groups the groups to balance load between
+     * @param policy the policy used to select groups
+     * @param tailLatencyQuantile the latency quantile used to score groups by the {@link Policy#TAIL_LATENCY} policy
+     * @param clusterName the name of the cluster of the groups, used as a metric dimension
+     * @param metric the metric to report group scores to, or null to not report metrics
+     */
+    public LoadBalancer(Collection<Group> groups, Policy policy, double tailLatencyQuantile, String clusterName, Metric metric) {
         this.scoreboard = new HashMap<>();
         for (Group group : groups) {
             scoreboard.put(group.id(), new GroupStatus(group));
@@ -49,6 +64,7 @@ public class LoadBalancer {
             case BEST_OF_RANDOM_2: yield new BestOfRandom2(new Random(), scoreboard);
             case LATENCY_AMORTIZED_OVER_REQUESTS: yield new AdaptiveScheduler(AdaptiveScheduler.Type.REQUESTS, new Random(), scoreboard);
             case LATENCY_AMORTIZED_OVER_TIME: yield new AdaptiveScheduler(AdaptiveScheduler.Type.TIME, new Random(), scoreboard);
+            case TAIL_LATENCY: yield new TailLatencyScheduler(tailLatencyQuantile, new Random(), scoreboard, clusterName, metric);
         };
     }
 
@@ -86,6 +102,7 @@ public class LoadBalancer {
         synchronized (this) {
             GroupStatus sched = scoreboard.get(group.id());
             sched.release(success, searchTime);
+            scheduler.released(sched);
         }
     }
 
@@ -125,6 +142,7 @@ public class LoadBalancer {
             }
             if (success) {
                 decayer.decay(searchTime);
+                group.recordLatency(searchTime.duration());
             }
         }
 
@@ -140,6 +158,8 @@ public class LoadBalancer {
 
     private interface GroupScheduler {
         Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups);
+        /** Called after the given group is released */
+        default void released(GroupStatus group) {}
     }
 
     private static class RoundRobinScheduler implements GroupScheduler {
@@ -331,4 +351,87 @@ public class LoadBalancer {
 
     }
 
+    /**
+     * Selects the group with the lowest expected latency, estimated as a high quantile of its recent latencies
+     * scaled by the number of queries it currently has outstanding. Groups with nodes that are currently much
+     * slower than the others are penalized, such that traffic moves away from them while they are slow.
+     * A small fraction of queries is sent to a random group, to keep the latency estimates of all groups current.
+     */
+    static class TailLatencyScheduler implements GroupScheduler {
+
+        static final double explorationProbability = 0.05;
+        static final double slowNodePenalty = 10.0;
+
+        private final double quantile;
+        private final Random random;
+        private final Map<Integer, GroupStatus> scoreboard;
+        private final Metric metric;
+        private final Map<Integer, Metric.Context> metricContexts = new HashMap<>();
+
+        TailLatencyScheduler(double quantile, Random random, Map<Integer, GroupStatus> scoreboard,
+                             String clusterName, Metric metric) {
+            this.quantile = quantile;
+            this.random = random;
+            this.scoreboard = scoreboard;
+            this.metric = metric;
+            if (metric != null) {
+                for (GroupStatus gs : scoreboard.values())
+                    metricContexts.put(gs.groupId(), metric.createContext(Map.of("cluster", String.valueOf(clusterName),
+                                                                                 "group", String.valueOf(gs.groupId()))));
+            }
+        }
+
+        @Override
+        public Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups) {
+            GroupStatus gs = selectGroup(rejectedGroups, true);
+            return (gs != null) ? Optional.of(gs) : Optional.ofNullable(selectGroup(rejectedGroups, false));
+        }
+
+        private GroupStatus selectGroup(Set<Integer> rejectedGroups, boolean requireCoverage) {
+            List<GroupStatus> candidates = new ArrayList<>(scoreboard.size());
+            for (GroupStatus gs : scoreboard.values()) {
+                if (rejectedGroups == null || !rejectedGroups.contains(gs.groupId())) {
+                    if (!requireCoverage || gs.group.hasSufficientCoverage()) {
+                        candidates.add(gs);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) return null;
+            if (random.nextDouble() < explorationProbability)
+                return candidates.get(random.nextInt(candidates.size()));
+
+            GroupStatus best = null;
+            double bestScore = Double.MAX_VALUE;
+            for (GroupStatus candidate : candidates) {
+                double score = score(candidate);
+                if (score < bestScore) {
+                    best = candidate;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        /** Returns the expected latency of a query to the given group, in milliseconds. Lower is better. */
+        double score(GroupStatus gs) {
+            return latency(gs) * (1 + gs.allocations) * (gs.group.slowNodes() > 0 ? slowNodePenalty : 1);
+        }
+
+        private double latency(GroupStatus gs) {
+            double latency = gs.group.latencyQuantile(quantile);
+            if (Double.isNaN(latency)) return MIN_QUERY_TIME * 1000; // No recent queries: Be optimistic
+            return Math.max(latency, MIN_QUERY_TIME * 1000);
+        }
+
+        @Override
+        public void released(GroupStatus gs) {
+            if (metric == null) return;
+            Metric.Context context = metricContexts.get(gs.groupId());
+            metric.set(ContainerMetrics.DISPATCH_GROUP_SCORE.baseName(), score(gs), context);
+            metric.set(ContainerMetrics.DISPATCH_GROUP_LATENCY_QUANTILE.baseName(), latency(gs), context);
+            metric.set(ContainerMetrics.DISPATCH_GROUP_SLOW_NODES.baseName(), gs.group.slowNodes(), context);
+        }
+
+    }
+
 }
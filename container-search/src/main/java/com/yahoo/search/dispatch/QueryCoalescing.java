@@ -0,0 +1,208 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
+import com.yahoo.search.grouping.vespa.GroupingExecutor;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.yahoo.container.handler.Coverage.DEGRADED_BY_ADAPTIVE_TIMEOUT;
+import static com.yahoo.container.handler.Coverage.DEGRADED_BY_MATCH_PHASE;
+import static com.yahoo.container.handler.Coverage.DEGRADED_BY_TIMEOUT;
+
+/**
+ * Coalesces concurrent queries which would send identical requests to the content nodes, such that only
+ * the first of them is sent, and the others are answered by a copy of its result.
+ * Queries are only coalesced with queries in flight which have at least as long timeouts.
+ * <p>
+ * Queries with grouping, tracing, a search path or a query cache (where the content nodes keep state for the
+ * query until it is filled) are never coalesced. Filling is not coalesced.
+ * <p>
+ * This class is multithread safe.
+ */
+class QueryCoalescing {
+
+    private final Map<ByteBuffer, Flight> flights = new ConcurrentHashMap<>();
+    private final Metric metric;
+    private final Metric.Context metricContext;
+
+    QueryCoalescing(String clusterName, Metric metric) {
+        this.metric = metric;
+        this.metricContext = metric == null ? null : metric.createContext(Map.of("cluster", clusterName));
+    }
+
+    /** Returns the key identifying the request of the given query, or empty if it cannot be coalesced */
+    Optional<ByteBuffer> keyOf(Query query, String serverId) {
+        if (query.getModel().getSearchPath() != null) return Optional.empty();
+        if (query.getRanking().getQueryCache()) return Optional.empty();
+        if (GroupingExecutor.hasGroupingList(query)) return Optional.empty();
+        if (ProtobufSerialization.getTraceLevelForBackend(query) > 0) return Optional.empty();
+
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_COALESCABLE_QUERIES.baseName(), 1, metricContext);
+        return Optional.of(ByteBuffer.wrap(ProtobufSerialization.serializeCanonicalSearchRequest(query, serverId)));
+    }
+
+    /**
+     * Returns an invoker which answers the given query by the result of an identical query in flight,
+     * or empty if there is no such query.
+     */
+    Optional<SearchInvoker> follow(ByteBuffer key, Query query) {
+        Flight flight = flights.get(key);
+        if (flight == null || flight.timeout < query.getTimeout()) return Optional.empty();
+
+        if (metric != null)
+            metric.add(ContainerMetrics.DISPATCH_COALESCED_QUERIES.baseName(), 1, metricContext);
+        query.trace(false, 2, "Using the result of an identical query in flight");
+        return Optional.of(new FollowingInvoker(flight));
+    }
+
+    /**
+     * Returns an invoker which invokes the given invoker, and shares its result with identical queries
+     * arriving until it completes.
+     */
+    SearchInvoker lead(ByteBuffer key, Query query, SearchInvoker invoker) {
+        Flight flight = new Flight(key, query.getTimeout());
+        flights.put(key, flight);
+        return new LeadingInvoker(invoker, flight);
+    }
+
+    // For testing
+    int inFlight() { return flights.size(); }
+
+    /** Returns a copy of the given result which may be modified independently of it */
+    private static Result copyOf(Result result, Query query) {
+        Result copy = result.clone();
+        copy.setQuery(query);
+        Coverage coverage = result.getCoverage(false);
+        if (coverage != null) {
+            int degradedReason = (coverage.isDegradedByMatchPhase() ? DEGRADED_BY_MATCH_PHASE : 0) |
+                                 (coverage.isDegradedByTimeout() ? DEGRADED_BY_TIMEOUT : 0) |
+                                 (coverage.isDegradedByAdapativeTimeout() ? DEGRADED_BY_ADAPTIVE_TIMEOUT : 0);
+            copy.setCoverage(new Coverage(coverage.getDocs(), coverage.getActive(), coverage.getNodes(), coverage.getResultSets())
+                                     .setNodesTried(coverage.getNodesTried())
+                                     .setTargetActive(coverage.getTargetActive())
+                                     .setDegradedReason(degradedReason));
+        }
+        return copy;
+    }
+
+    /** A query sent to the content nodes, which identical queries may wait for */
+    private class Flight {
+
+        private final ByteBuffer key;
+        private final long timeout;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        /** The result shared by this, or null if the query failed. Written before completed is counted down. */
+        private volatile InvokerResult result = null;
+
+        Flight(ByteBuffer key, long timeout) {
+            this.key = key;
+            this.timeout = timeout;
+        }
+
+        /** Shares a copy of the given result, or null if the query failed, with the queries following this */
+        void complete(InvokerResult result) {
+            if (completed.getCount() == 0) return;
+            if (result != null)
+                this.result = new InvokerResult(copyOf(result.getResult(), result.getResult().getQuery()),
+                                                List.copyOf(result.getLeanHits()));
+            completed.countDown();
+            flights.remove(key, this);
+        }
+
+        /** Returns whether this completed within the given time */
+        boolean await(long timeoutMillis) {
+            try {
+                return completed.await(Math.max(0, timeoutMillis), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+
+    }
+
+    private static class LeadingInvoker extends SearchInvoker {
+
+        private final SearchInvoker invoker;
+        private final Flight flight;
+
+        LeadingInvoker(SearchInvoker invoker, Flight flight) {
+            super(invoker.node());
+            this.invoker = invoker;
+            this.flight = flight;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) throws IOException {
+            return invoker.sendSearchRequest(query, context);
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() throws IOException {
+            InvokerResult result = null;
+            try {
+                result = invoker.getSearchResult();
+                invoker.setFinalStatus(result.getResult().hits().getError() == null);
+                return result;
+            }
+            finally {
+                flight.complete(result);
+            }
+        }
+
+        @Override
+        protected void release() {
+            flight.complete(null);
+            invoker.close();
+        }
+
+    }
+
+    private static class FollowingInvoker extends SearchInvoker {
+
+        private final Flight flight;
+        private Query query;
+
+        FollowingInvoker(Flight flight) {
+            super(Optional.empty());
+            this.flight = flight;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult() {
+            if ( ! flight.await(query.getTimeLeft()))
+                return errorResult(query, ErrorMessage.createTimeout("Timeout while waiting for the result of an identical query"));
+            InvokerResult shared = flight.result;
+            if (shared == null)
+                return errorResult(query, ErrorMessage.createBackendCommunicationError("The identical query whose result this was waiting for failed"));
+            return new InvokerResult(copyOf(shared.getResult(), query), new ArrayList<>(shared.getLeanHits()));
+        }
+
+        @Override
+        protected void release() { }
+
+    }
+
+}
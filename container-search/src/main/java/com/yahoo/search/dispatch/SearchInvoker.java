@@ -60,6 +60,11 @@ public abstract class SearchInvoker extends CloseableInvoker {
         }
     }
 
+    /** Returns the node this invokes, or empty if it does not invoke a single node */
+    Optional<Node> node() {
+        return node;
+    }
+
     protected Optional<Integer> distributionKey() {
         return node.map(Node::key);
     }
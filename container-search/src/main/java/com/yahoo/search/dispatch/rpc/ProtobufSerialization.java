@@ -54,6 +54,18 @@ public class ProtobufSerialization {
         return convertFromQuery(query, hits, serverId, requestTimeout).toByteArray();
     }
 
+    /**
+     * Returns the search request of the given query without the timeout and session,
+     * such that queries producing equal canonical requests will get the same result from a content node.
+     */
+    public static byte[] serializeCanonicalSearchRequest(Query query, String serverId) {
+        return convertFromQuery(query, query.getHits(), serverId, 0).toBuilder()
+                .clearTimeout()
+                .clearSessionKey()
+                .build()
+                .toByteArray();
+    }
+
     private static void convertSearchReplyErrors(Result target, List<SearchProtocol.Error> errors) {
         for (var error : errors) {
             target.hits().addError(ErrorMessage.createSearchReplyError(error.getMessage()));
@@ -23,7 +23,7 @@ public class RpcClient implements Client {
     private final Supervisor supervisor;
 
     public RpcClient(String name, int transportThreads) {
-        supervisor = new Supervisor(new Transport(name, transportThreads));
+        supervisor = new Supervisor(new Transport(name, transportThreads).setRebalancing(true));
     }
 
     @Override
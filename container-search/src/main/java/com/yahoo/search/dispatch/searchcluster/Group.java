@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.searchcluster;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -17,6 +18,7 @@ public class Group {
 
     private final static double maxContentSkew = 0.10;
     private final static int minDocsPerNodeToRequireLowSkew = 100;
+    private final static Duration latencyHalfLife = Duration.ofSeconds(10);
 
     private final int id;
     private final List<Node> nodes;
@@ -29,6 +31,10 @@ public class Group {
     private volatile long targetActiveDocuments = 0;
     private volatile boolean isBlockingWrites = false;
     private volatile boolean isBalanced = true;
+    private volatile int slowNodes = 0;
+    private volatile long slowUntilNanos = 0;
+
+    private final LatencyHistogram latencies = new LatencyHistogram(latencyHalfLife, System.nanoTime());
 
     public Group(int id, List<Node> nodes) {
         this.id = id;
@@ -109,6 +115,34 @@ public class Group {
         return activeDocuments() / nodes.size() < minDocsPerNodeToRequireLowSkew;
     }
 
+    /** Records the latency of a search request to this group */
+    public void recordLatency(Duration latency) {
+        latencies.add(latency.toNanos() / 1_000_000.0, System.nanoTime());
+    }
+
+    /**
+     * Returns the recent latency in milliseconds of search requests to this group at the given quantile,
+     * or NaN if no latencies are recorded recently.
+     */
+    public double latencyQuantile(double quantile) {
+        return latencies.quantile(quantile, System.nanoTime());
+    }
+
+    /**
+     * Returns the number of nodes in this group which were recently found to be much slower than the typical node
+     * in the cluster, or 0 if none, or the slowness has passed.
+     */
+    public int slowNodes() {
+        return System.nanoTime() - slowUntilNanos < 0 ? slowNodes : 0;
+    }
+
+    /** Sets the number of slow nodes found in this group, which is remembered for the given duration */
+    void setSlowNodes(int slowNodes, Duration duration) {
+        if (slowNodes == 0) return; // Let the current state expire
+        this.slowNodes = slowNodes;
+        this.slowUntilNanos = System.nanoTime() + duration.toNanos();
+    }
+
     public boolean fullCoverageStatusChanged(boolean hasFullCoverageNow) {
         boolean previousState = hasFullCoverage;
         hasFullCoverage = hasFullCoverageNow;
@@ -0,0 +1,72 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.searchcluster;
+
+import java.time.Duration;
+
+/**
+ * A streaming estimate of latency quantiles. Latencies are counted in exponentially sized buckets,
+ * whose counts decay with a given half-life such that the estimate follows changes in latency.
+ * This class is multithread safe.
+ */
+class LatencyHistogram {
+
+    private static final double minMillis = 0.1;
+    private static final double bucketFactor = 1.2;
+    private static final int bucketCount = 72; // Covers up to about 50 seconds
+    private static final double logBucketFactor = Math.log(bucketFactor);
+    private static final long decayIntervalNanos = Duration.ofMillis(100).toNanos();
+
+    private final double halfLifeNanos;
+    private final double[] counts = new double[bucketCount];
+    private double total = 0;
+    private long lastDecayNanos;
+
+    LatencyHistogram(Duration halfLife, long nowNanos) {
+        this.halfLifeNanos = halfLife.toNanos();
+        this.lastDecayNanos = nowNanos;
+    }
+
+    synchronized void add(double millis, long nowNanos) {
+        decay(nowNanos);
+        counts[bucketOf(millis)]++;
+        total++;
+    }
+
+    /**
+     * Returns the estimated latency in milliseconds at the given quantile,
+     * or NaN if there are too few samples to tell.
+     */
+    synchronized double quantile(double quantile, long nowNanos) {
+        decay(nowNanos);
+        if (total < 1) return Double.NaN;
+        double rank = quantile * total;
+        double accumulated = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            accumulated += counts[i];
+            if (accumulated >= rank) return upperBound(i);
+        }
+        return upperBound(bucketCount - 1);
+    }
+
+    private void decay(long nowNanos) {
+        long elapsed = nowNanos - lastDecayNanos;
+        if (elapsed < decayIntervalNanos) return;
+        double factor = Math.pow(0.5, elapsed / halfLifeNanos);
+        total = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            counts[i] *= factor;
+            total += counts[i];
+        }
+        lastDecayNanos = nowNanos;
+    }
+
+    private static int bucketOf(double millis) {
+        if ( ! (millis > minMillis)) return 0;
+        return Math.min(bucketCount - 1, (int) Math.ceil(Math.log(millis / minMillis) / logBucketFactor));
+    }
+
+    private static double upperBound(int bucket) {
+        return minMillis * Math.pow(bucketFactor, bucket);
+    }
+
+}
@@ -1,8 +1,10 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.searchcluster;
 
+import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A node in a search cluster. This class is multithread safe.
@@ -26,6 +28,10 @@ public class Node {
     private volatile boolean working = true;
     private volatile boolean isBlockingWrites = false;
 
+    // Latencies of the search requests this node has responded to since they were last taken
+    private final LongAdder latencyNanos = new LongAdder();
+    private final LongAdder latencyCount = new LongAdder();
+
     public Node(String clusterName, int key, String hostname, int group) {
         this.clusterName = clusterName;
         this.key = key;
@@ -89,6 +95,22 @@ public class Node {
 
     boolean isBlockingWrites() { return isBlockingWrites; }
 
+    /** Records the time this node used to respond to a search request, or the time waited if it did not respond */
+    public void recordLatency(Duration latency) {
+        latencyNanos.add(latency.toNanos());
+        latencyCount.increment();
+    }
+
+    /**
+     * Returns the mean latency in milliseconds of the search requests recorded since the last call to this,
+     * or NaN if none.
+     */
+    double takeMeanLatency() {
+        long count = latencyCount.sumThenReset();
+        long nanos = latencyNanos.sumThenReset();
+        return count == 0 ? Double.NaN : nanos / 1_000_000.0 / count;
+    }
+
     @Override
     public int hashCode() { return Objects.hash(hostname, key, group); }
 
@@ -7,6 +7,7 @@ import com.yahoo.prelude.Pong;
 import com.yahoo.search.cluster.ClusterMonitor;
 import com.yahoo.search.cluster.NodeManager;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -28,6 +29,13 @@ public class SearchCluster implements NodeManager<Node> {
 
     private static final Logger log = Logger.getLogger(SearchCluster.class.getName());
 
+    /** A node is slow if its mean latency is more than this factor times the median node latency in the cluster */
+    private static final double slowNodeFactor = 3.0;
+    /** ... and more than this, to avoid reacting to noise when latencies are low */
+    private static final double minSlowNodeLatencyMillis = 5.0;
+    /** How long a group is considered to have a slow node after it was last observed */
+    private static final Duration slowNodeMemory = Duration.ofSeconds(10);
+
     private final String clusterId;
     private final VipStatus vipStatus;
     private final PingFactory pingFactory;
@@ -259,6 +267,39 @@ public class SearchCluster implements NodeManager<Node> {
         } else {
             pingIterationCompletedMultipleGroups(groups);
         }
+        updateSlowNodes(groups);
+    }
+
+    /**
+     * Finds the nodes which have been much slower than the median node since the last ping iteration,
+     * e.g. due to background merges or compaction, and marks their groups as having slow nodes.
+     */
+    private void updateSlowNodes(SearchGroupsImpl groups) {
+        Map<Node, Double> latencies = new HashMap<>();
+        for (Node node : groups.nodes()) {
+            double latency = node.takeMeanLatency();
+            if ( ! Double.isNaN(latency))
+                latencies.put(node, latency);
+        }
+        if (latencies.size() < 3) return; // Too few nodes to tell what is normal
+
+        double threshold = Math.max(minSlowNodeLatencyMillis, slowNodeFactor * median(latencies.values()));
+        for (Group group : groups.groups()) {
+            int slowNodes = 0;
+            for (Node node : group.nodes()) {
+                Double latency = latencies.get(node);
+                if (latency != null && latency > threshold)
+                    slowNodes++;
+            }
+            if (slowNodes > 0 && group.slowNodes() == 0)
+                log.fine(() -> "Cluster " + clusterId + ": " + group + " has slow nodes, mean latency threshold: " + threshold + " ms");
+            group.setSlowNodes(slowNodes, slowNodeMemory);
+        }
+    }
+
+    private static double median(Collection<Double> values) {
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        return sorted[sorted.length / 2];
     }
 
     /**
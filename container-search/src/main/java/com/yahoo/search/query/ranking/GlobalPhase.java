@@ -18,16 +18,23 @@ public class GlobalPhase implements Cloneable {
     /** The type representing the property arguments consumed by this */
     private static final QueryProfileType argumentType;
 
+    public static final String THREADS = "threads";
+    public static final String BATCH_SIZE = "batchSize";
+
     static {
         argumentType = new QueryProfileType(Ranking.GLOBAL_PHASE);
         argumentType.setStrict(true);
         argumentType.setBuiltin(true);
         argumentType.addField(new FieldDescription(Ranking.RERANKCOUNT, FieldType.integerType));
+        argumentType.addField(new FieldDescription(THREADS, FieldType.integerType));
+        argumentType.addField(new FieldDescription(BATCH_SIZE, FieldType.integerType));
         argumentType.freeze();
     }
     public static QueryProfileType getArgumentType() { return argumentType; }
 
     private Integer rerankCount = null;
+    private Integer threads = null;
+    private Integer batchSize = null;
 
     /**
      * Sets the number of hits for which the global-phase function will be evaluated.
@@ -38,9 +45,27 @@ public class GlobalPhase implements Cloneable {
     /** Returns the rerank-count that will be used, or null if not set */
     public Integer getRerankCount() { return rerankCount; }
 
+    /**
+     * Sets the max number of threads which will be used to evaluate the global-phase function
+     * over the hits of this query. The default is 1, which evaluates all hits in the search thread.
+     */
+    public void setThreads(int threads) { this.threads = threads; }
+
+    /** Returns the max number of threads to use for global-phase evaluation, or null if not set */
+    public Integer getThreads() { return threads; }
+
+    /**
+     * Sets the number of hits which are evaluated together as one task when global-phase evaluation
+     * is spread over multiple threads. By default, the hits are divided evenly between the threads.
+     */
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    /** Returns the number of hits to evaluate per global-phase task, or null if not set */
+    public Integer getBatchSize() { return batchSize; }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.rerankCount);
+        return Objects.hash(rerankCount, threads, batchSize);
     }
 
     @Override
@@ -48,6 +73,8 @@ public class GlobalPhase implements Cloneable {
         if (o == this) return true;
         if (o instanceof GlobalPhase other) {
             if ( ! Objects.equals(this.rerankCount, other.rerankCount)) return false;
+            if ( ! Objects.equals(this.threads, other.threads)) return false;
+            if ( ! Objects.equals(this.batchSize, other.batchSize)) return false;
             return true;
         }
         return false;
@@ -58,6 +85,8 @@ public class GlobalPhase implements Cloneable {
         try {
             GlobalPhase clone = (GlobalPhase)super.clone();
             clone.rerankCount = this.rerankCount;
+            clone.threads = this.threads;
+            clone.batchSize = this.batchSize;
             return clone;
         }
         catch (CloneNotSupportedException e) {
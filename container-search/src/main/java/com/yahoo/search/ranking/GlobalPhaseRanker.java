@@ -14,17 +14,21 @@ import com.yahoo.data.access.helpers.MatchFeatureData;
 import com.yahoo.data.access.helpers.MatchFeatureFilter;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class GlobalPhaseRanker {
 
     private static final Logger logger = Logger.getLogger(GlobalPhaseRanker.class.getName());
+    private static final int maxThreads = Runtime.getRuntime().availableProcessors();
     private final RankProfilesEvaluatorFactory factory;
+    private final Executor executor;
 
     @Inject
-    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory) {
+    public GlobalPhaseRanker(RankProfilesEvaluatorFactory factory, Executor executor) {
         this.factory = factory;
+        this.executor = executor;
         logger.fine(() -> "Using factory: " + factory);
     }
 
@@ -51,6 +55,10 @@ public class GlobalPhaseRanker {
     }
 
     static void rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result) {
+        rerankHitsImpl(setup, query, result, HitBatchRunner.sequential);
+    }
+
+    static void rerankHitsImpl(GlobalPhaseSetup setup, Query query, Result result, HitBatchRunner runner) {
         var mainSpec = setup.globalPhaseEvalSpec;
         var mainSrc = withQueryPrep(mainSpec.evalSource(), mainSpec.fromQuery(), setup.defaultValues, query);
         int rerankCount = resolveRerankCount(setup, query);
@@ -61,7 +69,7 @@ public class GlobalPhaseRanker {
             normalizers.add(new NormalizerContext(nSetup.name(), nSetup.supplier().get(), normEvalSrc, normSpec.fromMF()));
         }
         var rescorer = new HitRescorer(mainSrc, mainSpec.fromMF(), normalizers);
-        var reranker = new ResultReranker(rescorer, rerankCount);
+        var reranker = new ResultReranker(rescorer, rerankCount, runner);
         reranker.rerankHits(result);
         hideImplicitMatchFeatures(result, setup.matchFeaturesToHide);
     }
@@ -69,10 +77,17 @@ public class GlobalPhaseRanker {
     public void rerankHits(Query query, Result result, String schema) {
         var setup = globalPhaseSetupFor(query, schema);
         if (setup.isPresent()) {
-            rerankHitsImpl(setup.get(), query, result);
+            rerankHitsImpl(setup.get(), query, result, resolveRunner(query));
         }
     }
 
+    private HitBatchRunner resolveRunner(Query query) {
+        var globalPhase = query.getRanking().getGlobalPhase();
+        int threads = Math.min(Objects.requireNonNullElse(globalPhase.getThreads(), 1), maxThreads);
+        if (threads <= 1) return HitBatchRunner.sequential;
+        return new HitBatchRunner(executor, threads, Objects.requireNonNullElse(globalPhase.getBatchSize(), 0));
+    }
+
     static Supplier<Evaluator> withQueryPrep(Supplier<Evaluator> evalSource, List<String> queryFeatures, Map<String, Tensor> defaultValues, Query query) {
         var prepared = PreparedInput.findFromQuery(query, queryFeatures, defaultValues);
         Supplier<Evaluator> supplier = () -> {
@@ -0,0 +1,114 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.ranking;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a task for each hit index in a range, in batches of consecutive hits, using up to a given number of threads.
+ * The calling thread takes part in the work and runs any batch not yet picked up by the executor,
+ * so progress never depends on the executor having free threads.
+ */
+class HitBatchRunner {
+
+    static final HitBatchRunner sequential = new HitBatchRunner(Runnable::run, 1, 0);
+
+    private final Executor executor;
+    private final int threads;
+    private final int batchSize;
+
+    /**
+     * @param executor the executor running batches in addition to the calling thread
+     * @param threads the max number of threads, including the calling thread, to use
+     * @param batchSize the number of hits per batch, or 0 to divide the hits evenly between the threads
+     */
+    HitBatchRunner(Executor executor, int threads, int batchSize) {
+        this.executor = executor;
+        this.threads = Math.max(1, threads);
+        this.batchSize = Math.max(0, batchSize);
+    }
+
+    int threads() { return threads; }
+
+    /** Runs the given task for each hit index from 0 to count, and returns when all are done */
+    void forEach(int count, IntConsumer task) {
+        if (count <= 0) return;
+        if (threads == 1) {
+            for (int i = 0; i < count; i++)
+                task.accept(i);
+            return;
+        }
+        new Run(count, task).run();
+    }
+
+    private class Run {
+
+        private final int count;
+        private final IntConsumer task;
+        private final int hitsPerBatch;
+        private final int batches;
+        private final AtomicInteger nextBatch = new AtomicInteger();
+        private final CountDownLatch completed;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Run(int count, IntConsumer task) {
+            this.count = count;
+            this.task = task;
+            this.hitsPerBatch = batchSize > 0 ? batchSize : (count + threads - 1) / threads;
+            this.batches = (count + hitsPerBatch - 1) / hitsPerBatch;
+            this.completed = new CountDownLatch(batches);
+        }
+
+        void run() {
+            int helpers = Math.min(threads, batches) - 1;
+            try {
+                for (int i = 0; i < helpers; i++)
+                    executor.execute(this::runBatches);
+            }
+            catch (RejectedExecutionException e) {
+                // The calling thread will run the remaining batches
+            }
+            runBatches();
+            awaitCompletion();
+            if (failure.get() != null) throw failure.get();
+        }
+
+        private void runBatches() {
+            for (int batch; (batch = nextBatch.getAndIncrement()) < batches; ) {
+                try {
+                    int end = Math.min(count, (batch + 1) * hitsPerBatch);
+                    for (int i = batch * hitsPerBatch; i < end; i++)
+                        task.accept(i);
+                }
+                catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+                finally {
+                    completed.countDown();
+                }
+            }
+        }
+
+        /** Waits for batches run by other threads. These always complete as they are already running. */
+        private void awaitCompletion() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    completed.await();
+                    break;
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+    }
+
+}
@@ -23,11 +23,22 @@ class HitRescorer {
         this.normalizers = normalizers;
     }
 
-    void preprocess(WrappedHit wrapped) {
-        for (var n : normalizers) {
-            var scorer = n.evalSource().get();
-            double val = evalScorer(wrapped, scorer, n.fromMF());
-            wrapped.setIdx(n.normalizer().addInput(val));
+    boolean hasNormalizers() { return ! normalizers.isEmpty(); }
+
+    /** Evaluates the input to each normalizer for the given hit. This is thread safe. */
+    double[] evalNormalizerInputs(WrappedHit wrapped) {
+        double[] inputs = new double[normalizers.size()];
+        for (int i = 0; i < inputs.length; i++) {
+            var n = normalizers.get(i);
+            inputs[i] = evalScorer(wrapped, n.evalSource().get(), n.fromMF());
+        }
+        return inputs;
+    }
+
+    /** Adds the given normalizer inputs of a hit. Hits must be added in the same order to all normalizers. */
+    void addNormalizerInputs(WrappedHit wrapped, double[] inputs) {
+        for (int i = 0; i < inputs.length; i++) {
+            wrapped.setIdx(normalizers.get(i).normalizer().addInput(inputs[i]));
         }
     }
 
@@ -37,6 +48,7 @@ class HitRescorer {
         }
     }
 
+    /** Computes and sets the new score of the given hit. This is thread safe once normalizers have been run. */
     double rescoreHit(WrappedHit wrapped) {
         var scorer = mainEvalSrc.get();
         for (var n : normalizers) {
@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.ranking;
 
+import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.result.Hit;
 import com.yahoo.search.result.HitGroup;
@@ -16,21 +17,35 @@ class ResultReranker {
 
     private final HitRescorer hitRescorer;
     private final int rerankCount;
+    private final HitBatchRunner runner;
     private final List<WrappedHit> hitsToRescore = new ArrayList<>();
     private final RangeAdjuster ranges = new RangeAdjuster();
 
     ResultReranker(HitRescorer hitRescorer, int rerankCount) {
+        this(hitRescorer, rerankCount, HitBatchRunner.sequential);
+    }
+
+    ResultReranker(HitRescorer hitRescorer, int rerankCount, HitBatchRunner runner) {
         this.hitRescorer = hitRescorer;
         this.rerankCount = rerankCount;
+        this.runner = runner;
     }
 
     void rerankHits(Result result) {
+        var timer = new PhaseTimer();
         gatherHits(result);
-        runPreProcessing();
+        timer.phaseDone("gathering");
+        int count = Math.max(0, Math.min(rerankCount, hitsToRescore.size()));
+        runPreProcessing(count);
+        timer.phaseDone("preprocessing");
         hitRescorer.runNormalizers();
-        runProcessing();
+        timer.phaseDone("normalizing");
+        runProcessing(count);
+        timer.phaseDone("rescoring");
         runPostProcessing();
         result.hits().sort();
+        timer.phaseDone("sorting");
+        trace(result.getQuery(), count, timer);
     }
 
     private void gatherHits(Result result) {
@@ -46,28 +61,31 @@ class ResultReranker {
         }
     }
 
-    private void runPreProcessing() {
+    private void runPreProcessing(int count) {
         // we can't be 100% certain that hits were sorted according to relevance:
         hitsToRescore.sort(Comparator.naturalOrder());
-        int count = 0;
-        for (WrappedHit hit : hitsToRescore) {
-            if (count == rerankCount) break;
-            hitRescorer.preprocess(hit);
-            ++count;
+        if ( ! hitRescorer.hasNormalizers()) return;
+        // normalizer inputs are evaluated in parallel, but must be added in rank order:
+        double[][] inputs = new double[count][];
+        runner.forEach(count, i -> inputs[i] = hitRescorer.evalNormalizerInputs(hitsToRescore.get(i)));
+        for (int i = 0; i < count; i++) {
+            hitRescorer.addNormalizerInputs(hitsToRescore.get(i), inputs[i]);
         }
     }
 
-    private void runProcessing() {
-        int count = 0;
-        for (var iterator = hitsToRescore.iterator(); count < rerankCount && iterator.hasNext(); ) {
-            WrappedHit wrapped = iterator.next();
-            double oldScore = wrapped.getScore();
-            double newScore = hitRescorer.rescoreHit(wrapped);
-            ranges.withInitialScore(oldScore);
-            ranges.withFinalScore(newScore);
-            ++count;
-            iterator.remove();
+    private void runProcessing(int count) {
+        var rescored = hitsToRescore.subList(0, count);
+        double[] oldScores = new double[count];
+        for (int i = 0; i < count; i++) {
+            oldScores[i] = rescored.get(i).getScore();
         }
+        double[] newScores = new double[count];
+        runner.forEach(count, i -> newScores[i] = hitRescorer.rescoreHit(rescored.get(i)));
+        for (int i = 0; i < count; i++) {
+            ranges.withInitialScore(oldScores[i]);
+            ranges.withFinalScore(newScores[i]);
+        }
+        rescored.clear();
     }
 
     private void runPostProcessing() {
@@ -82,4 +100,38 @@ class ResultReranker {
         }
     }
 
+    private void trace(Query query, int count, PhaseTimer timer) {
+        if (query == null || ! query.getTrace().isTraceable(2)) return;
+        query.trace("Global-phase reranked " + count + " hits using " + runner.threads() + " threads: " + timer, 2);
+    }
+
+    /** Measures the time spent in each consecutive phase of reranking */
+    private static class PhaseTimer {
+
+        private final List<String> phases = new ArrayList<>(5);
+        private final long[] phaseNanos = new long[5];
+        private final long startNanos = System.nanoTime();
+        private long lastNanos = startNanos;
+
+        void phaseDone(String phase) {
+            long now = System.nanoTime();
+            phaseNanos[phases.size()] = now - lastNanos;
+            phases.add(phase);
+            lastNanos = now;
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3f ms", nanos / 1_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            var b = new StringBuilder();
+            for (int i = 0; i < phases.size(); i++)
+                b.append(phases.get(i)).append(' ').append(millis(phaseNanos[i])).append(", ");
+            return b.append("total ").append(millis(lastNanos - startNanos)).toString();
+        }
+
+    }
+
 }
@@ -49,6 +49,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.serialization.JsonFormat;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
@@ -80,6 +81,10 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
     private static final CompoundName WRAP_WSETS = CompoundName.from("renderer.json.jsonWsets");
     private static final CompoundName DEBUG_RENDERING_KEY = CompoundName.from("renderer.json.debug");
     private static final CompoundName JSON_CALLBACK = CompoundName.from("jsoncallback");
+    private static final CompoundName STREAMING = CompoundName.from("renderer.json.streaming");
+
+    /** When streaming, rendered hits are sent on whenever at least this many bytes are buffered */
+    private static final int STREAMING_FLUSH_BYTES = 64 * 1024;
 
     // if this must be optimized, simply use com.fasterxml.jackson.core.SerializableString
     private static final String BUCKET_LIMITS = "limits";
@@ -134,6 +139,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         volatile boolean jsonWsetsAll = false;
         volatile boolean tensorShortForm = true;
         volatile boolean tensorDirectValues = false;
+        volatile boolean streaming = false;
         boolean convertDeep() { return (jsonDeepMaps || jsonWsets); }
         void init() {
             this.debugRendering = false;
@@ -143,6 +149,7 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             this.jsonWsetsAll = true;
             this.tensorShortForm = true;
             this.tensorDirectValues = false;
+            this.streaming = false;
         }
         void getSettings(Query q) {
             if (q == null) {
@@ -158,12 +165,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             this.jsonWsetsAll = props.getBoolean(WRAP_WSETS, true);
             this.tensorShortForm = q.getPresentation().getTensorShortForm();
             this.tensorDirectValues = q.getPresentation().getTensorDirectValues();
+            this.streaming = props.getBoolean(STREAMING, false);
             }
     }
 
     private volatile FieldConsumerSettings fieldConsumerSettings;
     private volatile LongSupplier timeSource;
     private volatile OutputStream stream;
+    private volatile ByteCountingOutputStream countingStream;
+    private volatile long flushedBytes;
 
     public JsonRenderer() {
         this(null);
@@ -192,13 +202,18 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         renderedChildren = null;
         timeSource = System::currentTimeMillis;
         stream = null;
+        countingStream = null;
+        flushedBytes = 0;
     }
 
     @Override
     public void beginResponse(OutputStream stream) throws IOException {
         beginJsonCallback(stream);
         fieldConsumerSettings.getSettings(getResult().getQuery());
-        setGenerator(generatorFactory.createGenerator(stream, JsonEncoding.UTF8), fieldConsumerSettings);
+        OutputStream target = stream;
+        if (fieldConsumerSettings.streaming)
+            target = countingStream = new ByteCountingOutputStream(stream);
+        setGenerator(generatorFactory.createGenerator(target, JsonEncoding.UTF8), fieldConsumerSettings);
         renderedChildren = new ArrayDeque<>();
         generator.writeStartObject();
         renderTrace(getExecution().trace());
@@ -350,6 +365,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         generator.writeStartObject();
         renderHitContents(hit);
         generator.writeEndObject();
+        flushIfStreaming();
+    }
+
+    /** When streaming, sends what is rendered so far on to the client once enough bytes are buffered */
+    private void flushIfStreaming() throws IOException {
+        if (countingStream == null) return;
+        if (countingStream.count() + generator.getOutputBuffered() - flushedBytes < STREAMING_FLUSH_BYTES) return;
+        generator.flush();
+        flushedBytes = countingStream.count();
     }
 
     protected boolean shouldRender(Hit hit) {
@@ -554,6 +578,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
      */
     public static class FieldConsumer implements Hit.RawUtf8Consumer, TraceRenderer.FieldConsumer {
 
+        private static final char[] hexDigits = "0123456789ABCDEF".toCharArray();
+
         private final JsonGenerator generator;
         private final FieldConsumerSettings settings;
         private MutableBoolean hasFieldsField;
@@ -753,7 +779,51 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
 
         private void renderInspectorDirect(Inspector data) throws IOException {
-            generator().writeRawValue(JsonRender.render(data, new StringBuilder(), true).toString());
+            if (settings.streaming)
+                writeInspector(data);
+            else
+                generator().writeRawValue(JsonRender.render(data, new StringBuilder(), true).toString());
+        }
+
+        /** Writes the same as JsonRender, but directly to the generator rather than through a string */
+        private void writeInspector(Inspector data) throws IOException {
+            switch (data.type()) {
+                case EMPTY -> generator().writeNull();
+                case BOOL -> generator().writeBoolean(data.asBool());
+                case LONG -> generator().writeNumber(data.asLong());
+                case DOUBLE -> {
+                    if (Double.isFinite(data.asDouble()))
+                        generator().writeNumber(data.asDouble());
+                    else
+                        generator().writeNull();
+                }
+                case STRING -> {
+                    byte[] utf8 = data.asUtf8();
+                    generator().writeUTF8String(utf8, 0, utf8.length);
+                }
+                case DATA -> generator().writeString(hexData(data.asData()));
+                case ARRAY -> {
+                    generator().writeStartArray();
+                    for (int i = 0; i < data.entryCount(); i++)
+                        writeInspector(data.entry(i));
+                    generator().writeEndArray();
+                }
+                case OBJECT -> {
+                    generator().writeStartObject();
+                    for (var entry : data.fields()) {
+                        generator().writeFieldName(entry.getKey());
+                        writeInspector(entry.getValue());
+                    }
+                    generator().writeEndObject();
+                }
+            }
+        }
+
+        private static String hexData(byte[] data) {
+            StringBuilder b = new StringBuilder(2 + data.length * 2).append("0x");
+            for (byte value : data)
+                b.append(hexDigits[(value >> 4) & 0xf]).append(hexDigits[value & 0xf]);
+            return b.toString();
         }
 
         protected void renderFieldContents(Object field) throws IOException {
@@ -829,4 +899,29 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     }
 
+    /** An output stream which counts the bytes written through it */
+    private static class ByteCountingOutputStream extends FilterOutputStream {
+
+        private long count = 0;
+
+        ByteCountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() { return count; }
+
+    }
+
 }
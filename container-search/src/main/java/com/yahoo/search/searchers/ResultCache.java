@@ -0,0 +1,127 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of complete query results. The cache is bounded by the estimated memory used by its keys and results,
+ * and evicts the least recently used results first. Results older than their time to live are never returned.
+ *
+ * This is thread safe.
+ */
+class ResultCache {
+
+    /** Estimated overhead of an entry, in addition to the key and the hits */
+    private static final long entryOverheadBytes = 512;
+
+    /** Estimated overhead of a hit, in addition to its fields */
+    private static final long hitOverheadBytes = 256;
+
+    /** Estimated overhead of a field, in addition to its name and value */
+    private static final long fieldOverheadBytes = 48;
+
+    /** Estimated overhead of the query which the hits of a result refer to, in addition to its properties */
+    private static final long queryOverheadBytes = 4096;
+
+    private final long maxSizeInBytes;
+    private final Clock clock;
+
+    /** The cached entries in access order. Guarded by this. */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0;
+
+    ResultCache(long maxSizeInBytes, Clock clock) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.clock = clock;
+    }
+
+    /** Returns the cached result for the given key, or null if it is not present or has expired */
+    synchronized Result get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expires().isAfter(clock.instant())) return entry.result();
+        remove(key, entry);
+        return null;
+    }
+
+    /**
+     * Adds the given result to this, evicting least recently used results to make room for it.
+     * The result must not be modified after it is added.
+     *
+     * @return the number of results evicted
+     */
+    int put(String key, Result result, Duration timeToLive) {
+        long size = sizeOf(key, result); // Outside the lock as this may be costly
+        if (size > maxSizeInBytes) return 0;
+
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(result, size, clock.instant().plus(timeToLive)));
+            if (previous != null)
+                sizeInBytes -= previous.sizeInBytes();
+            sizeInBytes += size;
+
+            int evicted = 0;
+            for (Iterator<Map.Entry<String, Entry>> i = entries.entrySet().iterator(); sizeInBytes > maxSizeInBytes && i.hasNext(); ) {
+                Map.Entry<String, Entry> eldest = i.next();
+                if (eldest.getKey().equals(key)) continue;
+                sizeInBytes -= eldest.getValue().sizeInBytes();
+                i.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+
+    /** Removes all results from this */
+    synchronized void clear() {
+        entries.clear();
+        sizeInBytes = 0;
+    }
+
+    /** Returns the estimated memory used by the entries in this */
+    synchronized long sizeInBytes() { return sizeInBytes; }
+
+    synchronized int entryCount() { return entries.size(); }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        sizeInBytes -= entry.sizeInBytes();
+    }
+
+    /**
+     * Returns the estimated size of the given entry. The hits of a result keep the query which produced them,
+     * whose properties are about the same size as the key, as the key is made from them.
+     */
+    static long sizeOf(String key, Result result) {
+        return entryOverheadBytes + 2L * key.length() + queryOverheadBytes + 2L * key.length() + sizeOf(result.hits());
+    }
+
+    private static long sizeOf(Hit hit) {
+        long[] size = { hitOverheadBytes };
+        hit.forEachField((name, value) -> size[0] += fieldOverheadBytes + 2L * name.length() + sizeOf(value));
+        if (hit instanceof HitGroup group) {
+            for (Hit child : group.asUnorderedHits())
+                size[0] += sizeOf(child);
+        }
+        return size[0];
+    }
+
+    private static long sizeOf(Object value) {
+        if (value == null) return 0;
+        if (value instanceof Number || value instanceof Boolean) return 16;
+        if (value instanceof CharSequence text) return 2L * text.length();
+        return 2L * value.toString().length();
+    }
+
+    private record Entry(Result result, long sizeInBytes, Instant expires) { }
+
+}
@@ -0,0 +1,177 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.component.annotation.Inject;
+import com.yahoo.container.core.ApplicationMetadataConfig;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches complete, filled results, such that repeated equal queries are answered without going to the content nodes.
+ * <p>
+ * Queries are equal if all their properties are equal, including those set in query profiles,
+ * except properties which only control tracing and timeouts. Results are only cached if they have
+ * no errors and full coverage.
+ * <p>
+ * Results are cached for the time to live configured for the schemas they are from, and are removed
+ * earlier if the memory bound of the cache is reached, and (optionally) if the number of content nodes
+ * answering queries changes. This depends on the application metadata, whose generation changes on every
+ * deployment, so a new instance with an empty cache is created whenever the application, including its schemas
+ * and rank profiles, is redeployed.
+ * <p>
+ * The cache is bypassed for queries setting noCache. This should be placed before any searchers which modify
+ * the query, and after any which must observe each query.
+ */
+public class ResultCacheSearcher extends Searcher {
+
+    /** Properties which do not change the result of a query */
+    private static final Set<String> ignoredProperties = Set.of(Query.TIMEOUT.toString(),
+                                                                "traceLevel",
+                                                                Query.NO_CACHE.toString(),
+                                                                "presentation.timing",
+                                                                "tracelevel",
+                                                                "nocache");
+
+    private static final Set<CompoundName> ignoredPrefixes = Set.of(CompoundName.from("trace"));
+
+    private final ResultCache cache;
+    private final Duration timeToLive;
+    private final Map<String, Duration> schemaTimeToLive;
+    private final boolean invalidateOnClusterChange;
+    private final Metric metric;
+
+    /** The number of content nodes which answered the last query to each set of sources */
+    private final Map<String, Integer> nodesAnswering = new ConcurrentHashMap<>();
+
+    /**
+     * @param application the metadata of the deployed application, injected only to get a new instance,
+     *                    and hence an empty cache, on every deployment
+     */
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, ApplicationMetadataConfig application, Metric metric) {
+        this(config, metric, Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a clock to avoid depending on the system clock */
+    public ResultCacheSearcher(ResultCacheConfig config, Metric metric, Clock clock) {
+        this.cache = new ResultCache(config.maxSizeBytes(), clock);
+        this.timeToLive = seconds(config.timeToLive());
+        Map<String, Duration> schemaTimeToLive = new HashMap<>();
+        config.schemaTimeToLive().forEach((schema, seconds) -> schemaTimeToLive.put(schema, seconds(seconds)));
+        this.schemaTimeToLive = Map.copyOf(schemaTimeToLive);
+        this.invalidateOnClusterChange = config.invalidateOnClusterChange();
+        this.metric = metric;
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if (query.getNoCache()) return execution.search(query);
+
+        String key = keyOf(query);
+        Result cached = cache.get(key);
+        if (cached != null) {
+            metric.add(ContainerMetrics.SEARCH_RESULT_CACHE_HITS.baseName(), 1, null);
+            query.trace(false, 2, "Returning cached result");
+            Result result = cached.clone();
+            result.setQuery(query);
+            return result;
+        }
+        metric.add(ContainerMetrics.SEARCH_RESULT_CACHE_MISSES.baseName(), 1, null);
+
+        Result result = execution.search(query);
+        execution.fill(result, query.getPresentation().getSummary());
+        if (invalidateOnClusterChange)
+            invalidateIfClusterChanged(query, result);
+        if (isCacheable(result)) {
+            Duration timeToLive = timeToLive(query, result);
+            if ( ! timeToLive.isNegative() && ! timeToLive.isZero()) {
+                int evicted = cache.put(key, result.clone(), timeToLive);
+                if (evicted > 0)
+                    metric.add(ContainerMetrics.SEARCH_RESULT_CACHE_EVICTIONS.baseName(), evicted, null);
+                metric.set(ContainerMetrics.SEARCH_RESULT_CACHE_SIZE.baseName(), cache.sizeInBytes(), null);
+            }
+        }
+        return result;
+    }
+
+    /** Returns a key which is equal for queries which will produce the same result */
+    static String keyOf(Query query) {
+        Map<String, String> properties = new TreeMap<>();
+        for (Map.Entry<String, Object> property : query.properties().listProperties().entrySet()) {
+            if (property.getValue() == null || isIgnored(property.getKey())) continue;
+            properties.put(property.getKey(), property.getValue().toString());
+        }
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, String> property : properties.entrySet())
+            key.append(property.getKey()).append('=').append(property.getValue()).append('&');
+        return key.toString();
+    }
+
+    private static boolean isIgnored(String property) {
+        if (ignoredProperties.contains(property)) return true;
+        CompoundName name = CompoundName.from(property);
+        for (CompoundName prefix : ignoredPrefixes)
+            if (name.hasPrefix(prefix)) return true;
+        return false;
+    }
+
+    private static boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        Coverage coverage = result.getCoverage(false);
+        return coverage == null || (coverage.getFull() && ! coverage.isDegraded());
+    }
+
+    /** Returns the lowest time to live of the schemas of the given result */
+    private Duration timeToLive(Query query, Result result) {
+        Set<String> schemas = new TreeSet<>(query.getModel().getRestrict());
+        if (schemas.isEmpty()) {
+            for (Hit hit : result.hits().asUnorderedHits())
+                if (hit.getSource() != null)
+                    schemas.add(hit.getSource());
+        }
+        Duration lowest = null;
+        for (String schema : schemas) {
+            Duration schemaTtl = schemaTimeToLive.getOrDefault(schema, timeToLive);
+            if (lowest == null || schemaTtl.compareTo(lowest) < 0)
+                lowest = schemaTtl;
+        }
+        return lowest == null ? timeToLive : lowest;
+    }
+
+    /** Clears the cache if the number of content nodes answering queries to the sources of this query has changed */
+    private void invalidateIfClusterChanged(Query query, Result result) {
+        Coverage coverage = result.getCoverage(false);
+        if (coverage == null) return;
+        String sources = query.getModel().getSources() + ":" + query.getModel().getRestrict();
+        Integer previous = nodesAnswering.put(sources, coverage.getNodes());
+        if (previous != null && previous != coverage.getNodes()) {
+            query.trace(false, 2, "Clearing the result cache as the number of content nodes answering changed from ",
+                        previous, " to ", coverage.getNodes());
+            cache.clear();
+            metric.add(ContainerMetrics.SEARCH_RESULT_CACHE_INVALIDATIONS.baseName(), 1, null);
+            metric.set(ContainerMetrics.SEARCH_RESULT_CACHE_SIZE.baseName(), 0, null);
+        }
+    }
+
+    private static Duration seconds(double seconds) {
+        return Duration.ofNanos((long)(seconds * 1_000_000_000));
+    }
+
+}
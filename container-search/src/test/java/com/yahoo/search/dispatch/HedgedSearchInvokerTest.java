@@ -0,0 +1,112 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Group;
+import com.yahoo.search.result.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgedSearchInvokerTest {
+
+    private final Group group = new Group(0, List.of());
+
+    @Test
+    void fast_primary_is_not_hedged() throws IOException {
+        Hedging hedging = hedgingWithCredit();
+        var primary = new RespondingInvoker(0, "primary", true);
+        var hedge = new RespondingInvoker(1, "hedge", true);
+        try (var invoker = new HedgedSearchInvoker(primary, Duration.ofSeconds(10), () -> Optional.of(hedge), hedging)) {
+            Result result = invoker.search(new Query());
+            assertEquals("primary", result.hits().get(0).getId().toString());
+            assertNull(invoker.hedge());
+        }
+        assertTrue(primary.closed);
+        assertTrue(hedging.tryHedge(), "Budget is not spent");
+    }
+
+    @Test
+    void slow_primary_is_hedged_and_hedge_result_is_used() throws IOException {
+        Hedging hedging = hedgingWithCredit();
+        var primary = new RespondingInvoker(0, "primary", false);
+        var hedge = new RespondingInvoker(1, "hedge", true);
+        try (var invoker = new HedgedSearchInvoker(primary, Duration.ofMillis(1), () -> Optional.of(hedge), hedging)) {
+            Result result = invoker.search(new Query());
+            assertEquals("hedge", result.hits().get(0).getId().toString());
+            assertEquals(hedge, invoker.hedge());
+        }
+        assertTrue(primary.closed);
+        assertTrue(hedge.closed);
+        assertFalse(hedging.tryHedge(), "Budget is spent");
+    }
+
+    @Test
+    void slow_primary_is_not_hedged_without_budget() throws IOException {
+        Hedging hedging = new Hedging(0.95, 0.5, "test", null);
+        hedging.delay(group); // Earns half a hedge, which is not sufficient
+        var primary = new RespondingInvoker(0, "primary", false);
+        var hedge = new RespondingInvoker(1, "hedge", true);
+        try (var invoker = new HedgedSearchInvoker(primary, Duration.ofMillis(1), () -> Optional.of(hedge), hedging)) {
+            Query query = new Query();
+            query.setTimeout(100);
+            Result result = invoker.search(query);
+            assertEquals("primary", result.hits().get(0).getId().toString());
+            assertNull(invoker.hedge());
+        }
+    }
+
+    @Test
+    void primary_result_is_used_when_no_group_is_available_for_hedging() throws IOException {
+        Hedging hedging = hedgingWithCredit();
+        var primary = new RespondingInvoker(0, "primary", false);
+        try (var invoker = new HedgedSearchInvoker(primary, Duration.ofMillis(1), Optional::empty, hedging)) {
+            Query query = new Query();
+            query.setTimeout(100);
+            Result result = invoker.search(query);
+            assertEquals("primary", result.hits().get(0).getId().toString());
+        }
+    }
+
+    private Hedging hedgingWithCredit() {
+        Hedging hedging = new Hedging(0.95, 1.0, "test", null);
+        assertTrue(hedging.delay(group).isEmpty(), "No latencies recorded");
+        return hedging;
+    }
+
+    private static class RespondingInvoker extends MockInvoker {
+
+        private final boolean respondOnSend;
+        boolean closed = false;
+
+        RespondingInvoker(int key, String hitId, boolean respondOnSend) {
+            super(key);
+            this.respondOnSend = respondOnSend;
+            setHits(List.of(new Hit(hitId)));
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            super.sendSearchRequest(query, context);
+            if (respondOnSend)
+                responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected void release() {
+            closed = true;
+        }
+
+    }
+
+}
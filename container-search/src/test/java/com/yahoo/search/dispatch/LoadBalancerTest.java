@@ -4,6 +4,7 @@ package com.yahoo.search.dispatch;
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
 import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
+import com.yahoo.search.dispatch.LoadBalancer.TailLatencyScheduler;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import org.junit.jupiter.api.Test;
@@ -15,6 +16,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
@@ -184,6 +186,37 @@ public class LoadBalancerTest {
         assertEquals(0, allocate(sched.takeNextGroup(null).get()).groupId());
     }
 
+    @Test
+    void requireTailLatencySchedulerPrefersLowTailLatencyAndFewOutstandingQueries() {
+        var scoreboard = createScoreBoard(3);
+        for (int i = 0; i < 20; i++) {
+            updateSearchTime(scoreboard.get(0), RequestDuration.of(Duration.ofMillis(i < 18 ? 2 : 200)));
+            updateSearchTime(scoreboard.get(1), RequestDuration.of(Duration.ofMillis(20)));
+            updateSearchTime(scoreboard.get(2), RequestDuration.of(Duration.ofMillis(50)));
+        }
+        TailLatencyScheduler sched = new TailLatencyScheduler(0.95, sequence(0.9), scoreboard, "test", null);
+
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(2, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(2, allocate(sched.takeNextGroup(Set.of(1)).get()).groupId());
+        assertEquals(0, allocate(sched.takeNextGroup(Set.of(1, 2)).get()).groupId());
+    }
+
+    @Test
+    void requireTailLatencySchedulerAvoidsGroupsWithSlowNodesExceptWhenExploring() {
+        Map<Integer, GroupStatus> scoreboard = new HashMap<>();
+        scoreboard.put(0, newGroupStatus(0, 1));
+        scoreboard.put(1, newGroupStatus(1, 0));
+        TailLatencyScheduler sched = new TailLatencyScheduler(0.95, sequence(0.9, 0.9, 0.9, 0.01, 0.0), scoreboard, "test", null);
+
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(1, allocate(sched.takeNextGroup(null).get()).groupId());
+        assertEquals(0, allocate(sched.takeNextGroup(null).get()).groupId()); // exploring
+        assertEquals(0, allocate(sched.takeNextGroup(Set.of(1)).get()).groupId());
+    }
+
     private static int countRequestsToReach90p(Duration timeBetweenSample, Duration searchTime) {
         double p90 = 0.9*searchTime.toMillis()/1000.0;
         GroupStatus.Decayer decayer = new AdaptiveScheduler.DecayByTime(Duration.ofMillis(1), RequestDuration.of(Instant.EPOCH, Duration.ZERO));
@@ -237,11 +270,19 @@ public class LoadBalancerTest {
     }
 
     private GroupStatus newGroupStatus(int id) {
+        return newGroupStatus(id, 0);
+    }
+
+    private GroupStatus newGroupStatus(int id, int slowNodes) {
         Group dummyGroup = new Group(id, List.of()) {
             @Override
             public boolean hasSufficientCoverage() {
                 return true;
             }
+            @Override
+            public int slowNodes() {
+                return slowNodes;
+            }
         };
         return new GroupStatus(dummyGroup);
     }
@@ -0,0 +1,104 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryCoalescingTest {
+
+    private final MockMetric metric = new MockMetric();
+    private final QueryCoalescing coalescing = new QueryCoalescing("test", metric);
+
+    @Test
+    void queries_with_equal_requests_have_equal_keys() {
+        assertEquals(key("?query=foo&timeout=100ms"), key("?query=foo&timeout=2s"));
+        assertNotEquals(key("?query=foo"), key("?query=bar"));
+        assertNotEquals(key("?query=foo"), key("?query=foo&hits=20"));
+        assertNotEquals(key("?query=foo"), key("?query=foo&ranking=other"));
+        assertTrue(coalescing.keyOf(new Query("?query=foo&trace.level=1"), "test").isEmpty());
+        assertTrue(coalescing.keyOf(new Query("?query=foo&ranking.queryCache=true"), "test").isEmpty());
+        assertTrue(coalescing.keyOf(new Query("?query=foo&model.searchPath=0/0"), "test").isEmpty());
+        assertEquals(8.0, metric(ContainerMetrics.DISPATCH_COALESCABLE_QUERIES));
+    }
+
+    @Test
+    void concurrent_identical_queries_share_the_result_of_the_first() throws IOException {
+        Query leaderQuery = new Query("?query=foo");
+        ByteBuffer key = key(leaderQuery);
+        var invoker = new MockInvoker(0, new Coverage(100, 100, 1)).setHits(List.of(new FastHit(new byte[12], 1.0, 0, 0)));
+        SearchInvoker leader = coalescing.lead(key, leaderQuery, invoker);
+
+        Query followerQuery = new Query("?query=foo");
+        SearchInvoker follower = coalescing.follow(key(followerQuery), followerQuery).get();
+
+        Result leaderResult = leader.search(leaderQuery);
+        leader.close();
+        assertEquals(0, coalescing.inFlight());
+
+        Result followerResult = follower.search(followerQuery);
+        follower.close();
+        assertEquals(1, leaderResult.hits().size());
+        assertEquals(1, followerResult.hits().size());
+        Hit leaderHit = leaderResult.hits().get(0);
+        Hit followerHit = followerResult.hits().get(0);
+        assertEquals(leaderHit.getId(), followerHit.getId());
+        assertNotSame(leaderHit, followerHit);
+        assertEquals(followerQuery, followerResult.getQuery());
+        assertEquals(followerQuery, followerHit.getQuery());
+        assertNotSame(leaderResult.getCoverage(false), followerResult.getCoverage(false));
+        assertEquals(100, followerResult.getCoverage(false).getDocs());
+        assertEquals(1.0, metric(ContainerMetrics.DISPATCH_COALESCED_QUERIES));
+
+        Query laterQuery = new Query("?query=foo");
+        assertTrue(coalescing.follow(key(laterQuery), laterQuery).isEmpty(), "Completed queries are not followed");
+    }
+
+    @Test
+    void queries_with_longer_timeouts_are_not_coalesced() {
+        Query leaderQuery = new Query("?query=foo&timeout=100ms");
+        coalescing.lead(key(leaderQuery), leaderQuery, new MockInvoker(0));
+        Query followerQuery = new Query("?query=foo&timeout=10s");
+        assertTrue(coalescing.follow(key(followerQuery), followerQuery).isEmpty());
+    }
+
+    @Test
+    void queries_following_a_failed_query_fail() throws IOException {
+        Query leaderQuery = new Query("?query=foo");
+        SearchInvoker leader = coalescing.lead(key(leaderQuery), leaderQuery, new MockInvoker(0));
+        Query followerQuery = new Query("?query=foo");
+        SearchInvoker follower = coalescing.follow(key(followerQuery), followerQuery).get();
+        leader.close(); // Without getting a result
+
+        Result result = follower.search(followerQuery);
+        assertEquals("The identical query whose result this was waiting for failed", result.hits().getError().getDetailedMessage());
+    }
+
+    private ByteBuffer key(String request) {
+        return key(new Query(request));
+    }
+
+    private ByteBuffer key(Query query) {
+        return coalescing.keyOf(query, "test").get();
+    }
+
+    private double metric(ContainerMetrics metric) {
+        return this.metric.metrics().get(metric.baseName()).get(Map.of("cluster", "test"));
+    }
+
+}
@@ -0,0 +1,55 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.searchcluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchClusterSlowNodesTest {
+
+    @Test
+    void slow_node_is_detected_and_remembered() {
+        var tester = new SearchClusterTester(2, 3);
+        tester.setDocsPerNode(100, 0);
+        tester.setDocsPerNode(100, 1);
+        recordAll(tester, Duration.ofMillis(10));
+        tester.recordLatency(1, 2, Duration.ofMillis(100));
+        tester.pingIterationCompleted();
+        assertEquals(0, tester.group(0).slowNodes());
+        assertEquals(1, tester.group(1).slowNodes());
+
+        // No new latencies: The group is still considered slow until the state expires
+        tester.pingIterationCompleted();
+        assertEquals(1, tester.group(1).slowNodes());
+    }
+
+    @Test
+    void uniformly_slow_cluster_has_no_slow_nodes() {
+        var tester = new SearchClusterTester(2, 3);
+        recordAll(tester, Duration.ofMillis(200));
+        tester.recordLatency(0, 0, Duration.ofMillis(300));
+        tester.pingIterationCompleted();
+        assertEquals(0, tester.group(0).slowNodes());
+        assertEquals(0, tester.group(1).slowNodes());
+    }
+
+    @Test
+    void latency_quantiles_are_tracked_per_group() {
+        var tester = new SearchClusterTester(1, 1);
+        assertTrue(Double.isNaN(tester.group(0).latencyQuantile(0.95)));
+        for (int i = 0; i < 100; i++)
+            tester.group(0).recordLatency(Duration.ofMillis(i < 90 ? 10 : 1000));
+        assertEquals(10, tester.group(0).latencyQuantile(0.5), 10 * 0.2);
+        assertEquals(1000, tester.group(0).latencyQuantile(0.95), 1000 * 0.2);
+    }
+
+    private static void recordAll(SearchClusterTester tester, Duration latency) {
+        for (int group = 0; group < 2; group++)
+            for (int node = 0; node < 3; node++)
+                tester.recordLatency(group, node, latency);
+    }
+
+}
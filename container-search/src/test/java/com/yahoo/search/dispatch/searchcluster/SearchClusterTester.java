@@ -1,6 +1,8 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.searchcluster;
 
+import java.time.Duration;
+
 public class SearchClusterTester {
 
     private final SearchCluster cluster;
@@ -23,6 +25,10 @@ public class SearchClusterTester {
         cluster.group(group).nodes().get(node).setWorking(working);
     }
 
+    public void recordLatency(int group, int node, Duration latency) {
+        cluster.group(group).nodes().get(node).recordLatency(latency);
+    }
+
     public void setDocsPerNode(int docs, int groupId) {
         for (Node node : cluster.group(groupId).nodes()) {
             node.setWorking(true);
@@ -13,6 +13,8 @@ import com.yahoo.tensor.Tensor;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -249,4 +251,34 @@ public class GlobalPhaseRerankHitsImplTest {
         GlobalPhaseRanker.rerankHitsImpl(setup, query, result);
         expect.verifyScores(result);
     }
+    @Test void parallelRerankWithNormalizer() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            var setup = setup().rerank(4).eval(makeSumSpec(List.of(), List.of("bar")))
+                    .addNormalizer(makeNormalizer("foo", List.of(115.0, 65.0, 55.0, 45.0), makeSumSpec(List.of("x"), List.of("bar")))).build();
+            var query = makeQuery(List.of(value("query(x)", 5)));
+            var factory = new HitFactory(List.of("bar"));
+            var result = makeResult(query, List.of(factory.create("a", 1, List.of(value("bar", 10))),
+                    factory.create("b", 2, List.of(value("bar", 40))),
+                    factory.create("c", 3, List.of(value("bar", 50))),
+                    factory.create("d", 4, List.of(value("bar", 60))),
+                    factory.create("e", 5, List.of(value("bar", 110)))));
+            var expect = Expect.make(List.of(hit("a", 1), hit("b", 44), hit("c", 53), hit("d", 62), hit("e", 111)));
+            GlobalPhaseRanker.rerankHitsImpl(setup, query, result, new HitBatchRunner(executor, 3, 1));
+            expect.verifyScores(result);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+    @Test void rerankTimingIsTraced() {
+        var setup = setup().eval(makeConstSpec(3.0)).build();
+        var query = makeQuery(List.of());
+        query.getTrace().setLevel(2);
+        var result = makeResult(query, List.of(hit("a", 3), hit("b", 4)));
+        GlobalPhaseRanker.rerankHitsImpl(setup, query, result);
+        var trace = query.getContext(false).getTrace().toString();
+        assertTrue(trace.contains("Global-phase reranked 2 hits using 1 threads: gathering"), trace);
+        assertTrue(trace.contains("rescoring"), trace);
+    }
 }
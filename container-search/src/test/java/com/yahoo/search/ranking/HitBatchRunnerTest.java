@@ -0,0 +1,50 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HitBatchRunnerTest {
+
+    @Test void allHitsAreVisitedOnce() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int batchSize : new int[] { 0, 1, 7, 1000 }) {
+                var visits = new AtomicIntegerArray(100);
+                new HitBatchRunner(executor, 4, batchSize).forEach(100, visits::incrementAndGet);
+                for (int i = 0; i < visits.length(); i++)
+                    assertEquals(1, visits.get(i), "hit " + i + " with batch size " + batchSize);
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test void callingThreadRunsAllBatchesWhenExecutorIsBusy() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        new HitBatchRunner(task -> { }, 4, 1).forEach(10, i -> threads.add(Thread.currentThread()));
+        assertEquals(Set.of(Thread.currentThread()), threads);
+    }
+
+    @Test void failuresArePropagatedToCaller() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            var runner = new HitBatchRunner(executor, 2, 1);
+            var e = assertThrows(IllegalStateException.class,
+                                 () -> runner.forEach(10, i -> { if (i == 5) throw new IllegalStateException("hit 5"); }));
+            assertEquals("hit 5", e.getMessage());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+}
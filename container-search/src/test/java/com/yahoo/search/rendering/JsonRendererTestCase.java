@@ -1522,6 +1522,64 @@ public class JsonRendererTestCase {
         assertEqualJson(expected.toString(), summary);
     }
 
+    @Test
+    @Timeout(300)
+    void testStreamingRendersTheSameAsRegularRendering() throws IOException, InterruptedException, ExecutionException {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setString("unicode", "Blåbærsyltetøy \u2603 \"quoted\"\n");
+        root.setData("data", new byte[] { 0, 15, -1, 42 });
+        root.setDouble("nan", Double.NaN);
+        root.setBool("bool", true);
+        root.setNix("nix");
+        root.setArray("emptyArray");
+        Cursor nested = root.setArray("nested");
+        nested.addArray();
+        nested.addObject().setLong("x", 1);
+
+        for (String parameters : List.of("", "&renderer.json.jsonMaps=false", "&renderer.json.jsonWsets=false",
+                                         "&renderer.json.jsonMaps=false&renderer.json.jsonWsets=false")) {
+            Hit h = new Hit("myHitName");
+            h.setField("f1", dataFromSimplified("[ 'v1', [ { key: 'mykey1', value: 'myvalue1' }, { key: 'mykey2', value: [] } ] ]"));
+            h.setField("f2", dataFromSimplified("{ i1: 'v2', i2: [ { key: 'mykey3', value: 'myvalue3' } ], i3: 'v3' }"));
+            h.setField("f3", dataFromSimplified("{ j1: 42, j2: 17.75, j3: [ 'v4', 'v5' ] }"));
+            h.setField("f4", dataFromSimplified("[ { key: 'mykey4', value: 'myvalue4' }, { key: 'mykey5', value: 'myvalue5' } ]"));
+            h.setField("f5", dataFromSimplified("[ { key: 10001, value: 'myvalue6' }, { key: 10002, value: 'myvalue7' } ]"));
+            h.setField("f6", dataFromSimplified("[ { item: 'mykey4', weight: 40 }, { item: 17, weight: 50 } ]"));
+            h.setField("f7", dataFromSimplified("[ [ { item: 'mykey4', weight: 40 } ], { a: [ { key: 'k', value: { b: 1 } } ] } ]"));
+            h.setField("f8", new SlimeAdapter(slime.get()));
+            h.setField("f9", new Value.StringValue("plain"));
+
+            Result regular = new Result(new Query("/?query=a" + parameters));
+            regular.hits().add(h);
+            Result streamed = new Result(new Query("/?query=a&renderer.json.streaming=true" + parameters));
+            streamed.hits().add(h);
+            assertEqualJsonContent(render(regular), render(streamed));
+        }
+    }
+
+    @Test
+    @Timeout(300)
+    void testStreamingFlushesHitsIncrementally() throws InterruptedException, ExecutionException {
+        Result r = new Result(new Query("/?query=a&hits=400&renderer.json.streaming=true"));
+        for (int i = 0; i < 400; i++) {
+            Hit h = new Hit("hit" + i);
+            h.setField("body", "x".repeat(1000));
+            r.hits().add(h);
+        }
+        var stream = new ByteArrayOutputStream() {
+            int flushes = 0;
+            @Override public void flush() { flushes++; }
+        };
+        try {
+            assertTrue(renderer.renderResponse(stream, r, new Execution(Execution.Context.createContextStub()), null).get());
+        } finally {
+            deconstructClone();
+        }
+        assertEquals("", validateJSON(Utf8.toString(stream.toByteArray())));
+        assertTrue(stream.flushes >= 400 * 1000 / (64 * 1024), "Flushed while rendering, got " + stream.flushes + " flushes");
+    }
+
     @Test
     @Timeout(300)
     void testThatTheJsonValidatorCanCatchErrors() {
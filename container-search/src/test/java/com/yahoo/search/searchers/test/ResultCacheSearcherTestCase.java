@@ -0,0 +1,139 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers.test;
+
+import ai.vespa.metrics.ContainerMetrics;
+import com.yahoo.component.chain.Chain;
+import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.searchers.ResultCacheSearcher;
+import com.yahoo.test.ManualClock;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the result cache searcher
+ */
+public class ResultCacheSearcherTestCase {
+
+    private final ManualClock clock = new ManualClock();
+    private final MockMetric metric = new MockMetric();
+    private final Backend backend = new Backend();
+
+    @Test
+    void equal_queries_are_answered_from_the_cache() {
+        var chain = chain(new ResultCacheConfig.Builder());
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 1 for foo", search(chain, "?query=foo&timeout=200ms&trace.level=3"), "Tracing and timeout are ignored");
+        assertEquals("result 2 for bar", search(chain, "?query=bar"));
+        assertEquals("result 3 for foo", search(chain, "?query=foo&hits=5"));
+        assertEquals("result 4 for foo", search(chain, "?query=foo&ranking=other"));
+        assertEquals("result 5 for foo", search(chain, "?query=foo&nocache"), "Bypasses the cache");
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals(3.0, metric(ContainerMetrics.SEARCH_RESULT_CACHE_HITS));
+        assertEquals(4.0, metric(ContainerMetrics.SEARCH_RESULT_CACHE_MISSES));
+    }
+
+    @Test
+    void results_expire_after_the_time_to_live_of_their_schemas() {
+        var chain = chain(new ResultCacheConfig.Builder().timeToLive(10).schemaTimeToLive("volatile", 1.0));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 2 for foo", search(chain, "?query=foo&restrict=volatile"));
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 3 for foo", search(chain, "?query=foo&restrict=volatile"));
+        clock.advance(Duration.ofSeconds(9));
+        assertEquals("result 4 for foo", search(chain, "?query=foo"));
+    }
+
+    @Test
+    void incomplete_results_are_not_cached() {
+        var chain = chain(new ResultCacheConfig.Builder());
+        backend.error = true;
+        assertEquals("error", search(chain, "?query=foo"));
+        backend.error = false;
+        assertEquals("result 2 for foo", search(chain, "?query=foo&hits=5"));
+
+        backend.fullCoverage = false;
+        assertEquals("result 3 for foo", search(chain, "?query=foo"));
+        backend.fullCoverage = true;
+        assertEquals("result 4 for foo", search(chain, "?query=foo"));
+        assertEquals("result 4 for foo", search(chain, "?query=foo"));
+    }
+
+    @Test
+    void cache_is_cleared_when_the_number_of_nodes_answering_changes() {
+        var chain = chain(new ResultCacheConfig.Builder());
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        backend.nodes = 3;
+        assertEquals("result 2 for bar", search(chain, "?query=bar"));
+        assertEquals("result 3 for foo", search(chain, "?query=foo"));
+        assertEquals(1.0, metric(ContainerMetrics.SEARCH_RESULT_CACHE_INVALIDATIONS));
+
+        var notInvalidating = chain(new ResultCacheConfig.Builder().invalidateOnClusterChange(false));
+        assertEquals("result 4 for foo", search(notInvalidating, "?query=foo"));
+        backend.nodes = 4;
+        assertEquals("result 5 for bar", search(notInvalidating, "?query=bar"));
+        assertEquals("result 4 for foo", search(notInvalidating, "?query=foo"));
+    }
+
+    @Test
+    void least_recently_used_results_are_evicted_when_the_cache_is_full() {
+        var chain = chain(new ResultCacheConfig.Builder().maxSizeBytes(18000));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 2 for bar", search(chain, "?query=bar"));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 3 for baz", search(chain, "?query=baz"));
+        assertEquals("result 1 for foo", search(chain, "?query=foo"));
+        assertEquals("result 4 for bar", search(chain, "?query=bar"));
+        assertEquals(2.0, metric(ContainerMetrics.SEARCH_RESULT_CACHE_EVICTIONS));
+    }
+
+    private String search(Chain<Searcher> chain, String request) {
+        Result result = new Execution(chain, Execution.Context.createContextStub()).search(new Query(request));
+        if (result.hits().getError() != null) return "error";
+        return result.hits().get(0).getField("title").toString();
+    }
+
+    private Chain<Searcher> chain(ResultCacheConfig.Builder config) {
+        return new Chain<>(new ResultCacheSearcher(new ResultCacheConfig(config), metric, clock), backend);
+    }
+
+    private double metric(ContainerMetrics metric) {
+        return this.metric.metrics().getOrDefault(metric.baseName(), Map.of()).getOrDefault(Map.of(), 0.0);
+    }
+
+    private static class Backend extends Searcher {
+
+        int invocations = 0;
+        int nodes = 2;
+        boolean fullCoverage = true;
+        boolean error = false;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            invocations++;
+            if (error)
+                return new Result(query, ErrorMessage.createBackendCommunicationError("Failed"));
+            Result result = new Result(query);
+            Hit hit = new Hit("hit:" + invocations);
+            hit.setField("title", "result " + invocations + " for " + query.getModel().getQueryString());
+            result.hits().add(hit);
+            result.setCoverage(new Coverage(100, fullCoverage ? 100 : 200, nodes));
+            return result;
+        }
+
+    }
+
+}
@@ -28,8 +28,11 @@ public class Call implements Cloneable {
     private final DocumentProcessor processor;
     private final String PROC_TIME_METRIC_NAME = ContainerMetrics.DOCPROC_PROC_TIME.baseName();
     private final String PROC_DOC_COUNT_METRIC_NAME = ContainerMetrics.DOCPROC_DOCUMENTS.baseName();
+    private final String PROC_LATENCY_METRIC_NAME = ContainerMetrics.DOCPROC_LATENCY.baseName();
     private final Metric metric;
     private final Metric.Context metricContext;
+    /** When the processor was first called for the processing of this, or -1 if it is not currently processing it */
+    private long firstCallTime = -1;
 
     public Call(DocumentProcessor processor) {
         this(processor, new NullMetric());
@@ -147,9 +150,14 @@ public class Call implements Cloneable {
             int numDocs = processing.getDocumentOperations().size();
             schemaMapProcessing(processing);
             long startTime = SystemTimer.INSTANCE.milliTime();
+            if (firstCallTime < 0) firstCallTime = startTime;
             DocumentProcessor.Progress retval = processor.process(processing);
-            long procTime = SystemTimer.INSTANCE.milliTime() - startTime;
-            updateMetrics(procTime, numDocs);
+            long endTime = SystemTimer.INSTANCE.milliTime();
+            updateMetrics(endTime - startTime, numDocs);
+            if ( ! DocumentProcessor.Progress.LATER.equals(retval)) {
+                metric.set(PROC_LATENCY_METRIC_NAME, endTime - firstCallTime, metricContext);
+                firstCallTime = -1;
+            }
             return retval;
         } finally {
             unwrapSchemaMapping(processing);
@@ -9,6 +9,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Logger;
 
 /**
@@ -39,6 +41,13 @@ import java.util.logging.Logger;
  * access to any mutable, thread-unsafe state held in a field by the processor is
  * synchronized.</p>
  *
+ * <p>A processor which calls a slow, remote service should not block while waiting for it. Instead, it may start the
+ * call, store the pending result in a variable of the processing, and return {@link Progress#later(CompletionStage)}
+ * with the pending result; the framework then calls the processor again for the same processing when this completes,
+ * without holding a thread in the meantime. Since all processings of a request are called before the framework waits,
+ * independent documents have their asynchronous work done concurrently. The processor should bound the time of its
+ * asynchronous work, e.g., with {@link CompletableFuture#orTimeout}, and must itself check whether it failed.</p>
+ *
  * @author bratseth
  */
 public abstract class DocumentProcessor extends ChainedComponent {
@@ -145,6 +154,14 @@ public abstract class DocumentProcessor extends ChainedComponent {
             return new LaterProgress(delay);
         }
 
+        /**
+         * Returned by a processor when it should be called again for the same processing
+         * when the given stage completes, normally or exceptionally.
+         */
+        public static Progress later(CompletionStage<?> completion) {
+            return new LaterProgress(completion.toCompletableFuture());
+        }
+
         public Progress withReason(String reason) {
             return new Progress(this.name, reason);
         }
@@ -173,6 +190,7 @@ public abstract class DocumentProcessor extends ChainedComponent {
     public static final class LaterProgress extends Progress {
 
         private final long delay;
+        private final CompletableFuture<?> completion;
         public static final long DEFAULT_LATER_DELAY = 20;  //ms
 
         private LaterProgress() {
@@ -182,12 +200,24 @@ public abstract class DocumentProcessor extends ChainedComponent {
         private LaterProgress(long delay) {
             super("later");
             this.delay = delay;
+            this.completion = null;
+        }
+
+        private LaterProgress(CompletableFuture<?> completion) {
+            super("later");
+            this.delay = 0;
+            this.completion = completion;
         }
 
         public long getDelay() {
             return delay;
         }
 
+        /** Returns the stage to wait for before calling the processor again, if any, instead of the delay. */
+        public Optional<CompletableFuture<?>> getCompletion() {
+            return Optional.ofNullable(completion);
+        }
+
     }
 
 }
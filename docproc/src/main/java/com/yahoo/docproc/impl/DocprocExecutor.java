@@ -153,7 +153,7 @@ public class DocprocExecutor {
     /**
      * Processes a given Processing through the CallStack of this executor. Note that if a DocumentProcessor
      * returns a LaterProgress for this processing, it will be re-processed (after waiting the specified delay given
-     * by the LaterProgress), until done or failed.
+     * by the LaterProgress, or for its completion), until done or failed.
      *
      * @param processing the Processing to process. The CallStack of the Processing will be set to a clone of the CallStack of this executor, iff. it is currently null.
      * @return a Progress; this is never a LaterProgress.
@@ -170,6 +170,11 @@ public class DocprocExecutor {
                 break;
             }
             DocumentProcessor.LaterProgress later = (DocumentProcessor.LaterProgress) progress;
+            if (later.getCompletion().isPresent()) {
+                // The processor checks the outcome when called again, so only wait for completion here.
+                later.getCompletion().get().handle((result, error) -> null).join();
+                continue;
+            }
             try {
                 Thread.sleep(later.getDelay());
             } catch (InterruptedException e) {
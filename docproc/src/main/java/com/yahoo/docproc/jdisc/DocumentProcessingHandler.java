@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.docproc.jdisc;
 
+import ai.vespa.metrics.ContainerMetrics;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.component.chain.Chain;
 import com.yahoo.component.chain.model.ChainsModel;
@@ -23,9 +24,13 @@ import com.yahoo.jdisc.handler.AbstractRequestHandler;
 import com.yahoo.jdisc.handler.ContentChannel;
 import com.yahoo.jdisc.handler.ResponseHandler;
 import com.yahoo.messagebus.jdisc.MbusRequest;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.metrics.simple.MetricSettings;
 import com.yahoo.processing.execution.chain.ChainRegistry;
 
+import java.util.Optional;
 import java.util.TimerTask;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
@@ -101,7 +106,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                                      DocumentTypeManager documentTypeManager,
                                      DocprocConfig docprocConfig,
                                      ContainerDocumentConfig containerDocConfig,
-                                     Metric metric) {
+                                     Metric metric,
+                                     MetricReceiver metricReceiver) {
         this(new ComponentRegistry<>(),
              documentProcessorComponentRegistry, docFactoryRegistry,
                 new DocumentProcessingHandlerParameters()
@@ -111,6 +117,8 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
                      .setMetric(metric)
                      .setContainerDocumentConfig(containerDocConfig));
         docprocServiceRegistry.freeze();
+        metricReceiver.declareGauge(ContainerMetrics.DOCPROC_LATENCY.baseName(), Optional.empty(),
+                                    new MetricSettings.Builder().histogram(true).build());
     }
 
     @Override
@@ -187,6 +195,11 @@ public class DocumentProcessingHandler extends AbstractRequestHandler {
         laterExecutor.schedule(timerTask, delay, TimeUnit.MILLISECONDS);
     }
 
+    void submit(DocumentProcessingTask task, CompletionStage<?> completion) {
+        log.log(Level.FINE, () -> "Waiting for asynchronous work due to Progress.LATER: " + task);
+        completion.whenComplete((result, error) -> task.submit());
+    }
+
     private static class LaterTimerTask extends TimerTask {
         private final DocumentProcessingTask processingTask;
         private final long delay;
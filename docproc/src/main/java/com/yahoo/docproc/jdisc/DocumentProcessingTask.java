@@ -17,6 +17,7 @@ import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Logger;
@@ -68,7 +69,10 @@ public class DocumentProcessingTask implements Runnable {
 
             if (DocumentProcessor.Progress.LATER.equals(progress) && !processings.isEmpty()) {
                 DocumentProcessor.LaterProgress laterProgress = (DocumentProcessor.LaterProgress) progress;
-                docprocHandler.submit(this, laterProgress.getDelay());
+                if (laterProgress.getCompletion().isPresent())
+                    docprocHandler.submit(this, laterProgress.getCompletion().get());
+                else
+                    docprocHandler.submit(this, laterProgress.getDelay());
             }
         } catch (Error error) {
             try {
@@ -151,6 +155,7 @@ public class DocumentProcessingTask implements Runnable {
             // return the one with the lowest timeout:"
             // As multioperation is removed this can probably be simplified?
             DocumentProcessor.LaterProgress shortestDelay = (DocumentProcessor.LaterProgress) later.get(0).first;
+            List<CompletableFuture<?>> completions = new ArrayList<>();
             for (Tuple2<DocumentProcessor.Progress, Processing> tuple : later) {
                 // re-add the LATER one to processings
                 processings.add(tuple.second);
@@ -158,6 +163,11 @@ public class DocumentProcessingTask implements Runnable {
                 if (((DocumentProcessor.LaterProgress) tuple.first).getDelay() < shortestDelay.getDelay()) {
                     shortestDelay = (DocumentProcessor.LaterProgress) tuple.first;
                 }
+                ((DocumentProcessor.LaterProgress) tuple.first).getCompletion().ifPresent(completions::add);
+            }
+            // If any processings wait for asynchronous work, retry all when that is complete, without holding a thread.
+            if ( ! completions.isEmpty()) {
+                return DocumentProcessor.Progress.later(CompletableFuture.allOf(completions.toArray(CompletableFuture[]::new)));
             }
             return shortestDelay;
         } else {
@@ -0,0 +1,101 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc.jdisc;
+
+import com.yahoo.collections.Pair;
+import com.yahoo.docproc.CallStack;
+import com.yahoo.docproc.DocumentProcessor;
+import com.yahoo.docproc.Processing;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.Reply;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests a processor which waits for asynchronous work, with {@link DocumentProcessor.Progress#later(java.util.concurrent.CompletionStage)}.
+ */
+public class DocumentProcessingHandlerAsyncTestCase extends DocumentProcessingHandlerTestBase {
+
+    private final DocumentType type;
+    private final EnrichingDocumentProcessor processor = new EnrichingDocumentProcessor();
+
+    public DocumentProcessingHandlerAsyncTestCase() {
+        this.type = new DocumentType("yalla");
+        this.type.addField(new Field("blahblah", DataType.STRING));
+    }
+
+    @Test
+    public void testProcessorIsCalledAgainWhenAsynchronousWorkCompletes() throws InterruptedException {
+        Document document = new Document(getType(), "id:ns:yalla::balla");
+        document.setFieldValue("blahblah", new StringFieldValue("This is a test."));
+        assertTrue(sendMessage("foobar", new PutDocumentMessage(new DocumentPut(document))));
+
+        Message msg = remoteServer.awaitMessage(60, TimeUnit.SECONDS);
+        assertNotNull(msg);
+        remoteServer.ackMessage(msg);
+        Reply reply = driver.client().awaitReply(60, TimeUnit.SECONDS);
+        assertNotNull(reply);
+        assertFalse(reply.hasErrors());
+
+        Document outDoc = ((PutDocumentMessage) msg).getDocumentPut().getDocument();
+        assertEquals(new StringFieldValue("enriched"), outDoc.getFieldValue("blahblah"));
+        assertEquals(2, processor.calls.get());
+    }
+
+    @Override
+    public List<Pair<String, CallStack>> getCallStacks() {
+        CallStack stack = new CallStack();
+        stack.addLast(processor);
+
+        ArrayList<Pair<String, CallStack>> stacks = new ArrayList<>(1);
+        stacks.add(new Pair<>("foobar", stack));
+        return stacks;
+    }
+
+    @Override
+    public DocumentType getType() {
+        return type;
+    }
+
+    /** Looks up a new field value asynchronously, and sets it when called again after the lookup completes. */
+    public static class EnrichingDocumentProcessor extends DocumentProcessor {
+
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Progress process(Processing processing) {
+            calls.incrementAndGet();
+            CompletableFuture<String> enrichment = (CompletableFuture<String>) processing.getVariable("enrichment");
+            if (enrichment == null) {
+                enrichment = CompletableFuture.supplyAsync(() -> "enriched",
+                                                           CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+                processing.setVariable("enrichment", enrichment);
+                return Progress.later(enrichment);
+            }
+            for (DocumentOperation op : processing.getDocumentOperations())
+                ((DocumentPut) op).getDocument().setFieldValue("blahblah", new StringFieldValue(enrichment.join()));
+
+            return Progress.DONE;
+        }
+
+    }
+
+}
@@ -53,6 +53,12 @@ public class JsonReader {
         }
     }
 
+    /** Creates a reader which reads from the given parser, e.g., one created by {@link SlimeParser} */
+    public JsonReader(DocumentTypeManager typeManager, JsonParser parser) {
+        this.typeManager = typeManager;
+        this.parser = parser;
+    }
+
     public Optional<DocumentParseInfo> parseDocument() throws IOException {
         DocumentParser documentParser = new DocumentParser(parser);
         return documentParser.parse(Optional.empty());
@@ -181,11 +187,40 @@ public class JsonReader {
             state = END_OF_FEED;
             return null;
         }
+        return createDocumentOperation(documentParseInfo.get()).operation();
+    }
+
+    /**
+     * Returns the next document operation from a stream of operations which are not enclosed in an array,
+     * such as JSONL, or null if we have reached the end.
+     * If this throws due to an invalid operation, the following operations may still be read, unless the stream
+     * itself is malformed, in which case this will return null for all subsequent calls.
+     */
+    public ParsedDocumentOperation nextFromStream() {
+        if (state == END_OF_FEED) return null;
+
+        state = ReaderState.READING;
+        Optional<DocumentParseInfo> documentParseInfo;
+        try {
+            documentParseInfo = new DocumentParser(parser).parseRootObject();
+        } catch (IOException e) {
+            // Jackson is not able to recover from structural parse errors
+            state = END_OF_FEED;
+            throw new IllegalArgumentException(e);
+        }
+        if (documentParseInfo.isEmpty()) {
+            state = END_OF_FEED;
+            return null;
+        }
+        return createDocumentOperation(documentParseInfo.get());
+    }
+
+    private ParsedDocumentOperation createDocumentOperation(DocumentParseInfo documentParseInfo) {
         VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader(typeManager.getIgnoreUndefinedFields());
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get()).operation();
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
+        ParsedDocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
+                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager),
+                documentParseInfo);
+        operation.operation().setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
         return operation;
     }
 
@@ -54,7 +54,7 @@ public class LazyTokenBuffer extends TokenBuffer {
             JsonToken token = parser.nextValue();
             if (token == null)
                 throw new IllegalStateException("no more JSON tokens");
-            return new Token(token, parser.currentName(), parser.getText());
+            return tokenOf(parser);
         }
         catch (IOException e) {
             throw new IllegalArgumentException("failed reading document JSON", e);
@@ -0,0 +1,272 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import com.yahoo.slime.BinaryView;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.ObjectTraverser;
+import com.yahoo.slime.Type;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A parser of document operations in the Slime binary format (see {@link com.yahoo.slime.BinaryFormat}),
+ * which produces the same tokens as the corresponding JSON would, except that Slime data values are
+ * {@link JsonToken#VALUE_EMBEDDED_OBJECT} tokens, with the raw bytes as the embedded object.
+ * Such values may be used for raw fields, and for the cell values of dense tensors, as a little-endian
+ * array of the tensor cell type.
+ * <p>
+ * Tokens are produced directly from a view of the binary data. Numbers keep their binary values, and are only
+ * formatted as text if that is asked for.
+ */
+public class SlimeParser extends ParserMinimalBase {
+
+    private final Deque<Container> containers = new ArrayDeque<>();
+    private JsonReadContext context = JsonReadContext.createRootContext(null);
+    private ObjectCodec codec = null;
+    private Inspector root; // Until its first token is returned
+    private Inspector value; // Of the current token
+    private boolean closed = false;
+
+    private SlimeParser(Inspector root) {
+        this.root = root;
+    }
+
+    /** Returns a parser over the given Slime binary data, or throws IllegalArgumentException if this is malformed */
+    public static SlimeParser createParser(byte[] data) {
+        try {
+            return new SlimeParser(BinaryView.inspect(data));
+        }
+        catch (RuntimeException e) { // Decoding does not fully validate the input, and may fail in various ways.
+            throw new IllegalArgumentException("malformed Slime binary data", e);
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() {
+        return _currToken = advance();
+    }
+
+    private JsonToken advance() {
+        if (closed) return null;
+        if (root != null) {
+            Inspector first = root;
+            root = null;
+            return start(first);
+        }
+        Container container = containers.peek();
+        if (container == null) return null;
+        if (container.names == null) {
+            if (container.next < container.inspector.entries())
+                return start(container.inspector.entry(container.next++));
+        }
+        else if (container.nameReturned) {
+            container.nameReturned = false;
+            return start(container.values.get(container.next++));
+        }
+        else if (container.next < container.names.size()) {
+            container.nameReturned = true;
+            value = null;
+            setName(container.names.get(container.next));
+            return JsonToken.FIELD_NAME;
+        }
+        containers.pop();
+        context = context.clearAndGetParent();
+        value = null;
+        return container.names == null ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+    }
+
+    private JsonToken start(Inspector inspector) {
+        value = inspector;
+        return switch (inspector.type()) {
+            case NIX -> JsonToken.VALUE_NULL;
+            case BOOL -> inspector.asBool() ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE;
+            case LONG -> JsonToken.VALUE_NUMBER_INT;
+            case DOUBLE -> JsonToken.VALUE_NUMBER_FLOAT;
+            case STRING -> JsonToken.VALUE_STRING;
+            case DATA -> JsonToken.VALUE_EMBEDDED_OBJECT;
+            case ARRAY -> {
+                containers.push(new Container(inspector, null, null));
+                context = context.createChildArrayContext(-1, -1);
+                yield JsonToken.START_ARRAY;
+            }
+            case OBJECT -> {
+                List<String> names = new ArrayList<>(inspector.fields());
+                List<Inspector> values = new ArrayList<>(inspector.fields());
+                inspector.traverse((ObjectTraverser) (name, field) -> { names.add(name); values.add(field); });
+                containers.push(new Container(inspector, names, values));
+                context = context.createChildObjectContext(-1, -1);
+                yield JsonToken.START_OBJECT;
+            }
+        };
+    }
+
+    private void setName(String name) {
+        try {
+            context.setCurrentName(name);
+        }
+        catch (JsonProcessingException e) { // Only thrown when detecting duplicates, which this does not.
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Returns the value of the current token, if this is a number, or throws otherwise. */
+    private Inspector number() throws JsonParseException {
+        if (value == null || (value.type() != Type.LONG && value.type() != Type.DOUBLE))
+            throw _constructError("Current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+        return value;
+    }
+
+    @Override
+    protected void _handleEOF() { }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public String getCurrentName() {
+        if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY)
+            return context.getParent().getCurrentName();
+        return context.getCurrentName();
+    }
+
+    @Override
+    public void overrideCurrentName(String name) {
+        setName(name);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        containers.clear();
+        value = null;
+    }
+
+    @Override
+    public boolean isClosed() { return closed; }
+
+    @Override
+    public JsonStreamContext getParsingContext() { return context; }
+
+    @Override
+    public String getText() {
+        if (_currToken == null) return null;
+        return switch (_currToken) {
+            case FIELD_NAME -> context.getCurrentName();
+            case VALUE_STRING -> value.asString();
+            case VALUE_NUMBER_INT -> Long.toString(value.asLong());
+            case VALUE_NUMBER_FLOAT -> Double.toString(value.asDouble());
+            default -> _currToken.asString();
+        };
+    }
+
+    @Override
+    public char[] getTextCharacters() {
+        String text = getText();
+        return text == null ? null : text.toCharArray();
+    }
+
+    @Override
+    public boolean hasTextCharacters() { return false; }
+
+    @Override
+    public int getTextLength() {
+        String text = getText();
+        return text == null ? 0 : text.length();
+    }
+
+    @Override
+    public int getTextOffset() { return 0; }
+
+    @Override
+    public byte[] getBinaryValue(Base64Variant variant) throws JsonParseException {
+        if (_currToken != JsonToken.VALUE_EMBEDDED_OBJECT)
+            throw _constructError("Current token (" + _currToken + ") not binary data");
+        return value.asData();
+    }
+
+    @Override
+    public Object getEmbeddedObject() {
+        return _currToken == JsonToken.VALUE_EMBEDDED_OBJECT ? value.asData() : null;
+    }
+
+    @Override
+    public Number getNumberValue() throws JsonParseException {
+        Inspector number = number();
+        return number.type() == Type.LONG ? (Number) number.asLong() : (Number) number.asDouble();
+    }
+
+    @Override
+    public NumberType getNumberType() throws JsonParseException {
+        return number().type() == Type.LONG ? NumberType.LONG : NumberType.DOUBLE;
+    }
+
+    @Override
+    public int getIntValue() throws JsonParseException { return (int) number().asLong(); }
+
+    @Override
+    public long getLongValue() throws JsonParseException { return number().asLong(); }
+
+    @Override
+    public BigInteger getBigIntegerValue() throws JsonParseException { return BigInteger.valueOf(number().asLong()); }
+
+    @Override
+    public float getFloatValue() throws JsonParseException { return (float) number().asDouble(); }
+
+    @Override
+    public double getDoubleValue() throws JsonParseException { return number().asDouble(); }
+
+    @Override
+    public BigDecimal getDecimalValue() throws JsonParseException {
+        Inspector number = number();
+        return number.type() == Type.LONG ? BigDecimal.valueOf(number.asLong()) : BigDecimal.valueOf(number.asDouble());
+    }
+
+    @Override
+    public ObjectCodec getCodec() { return codec; }
+
+    @Override
+    public void setCodec(ObjectCodec codec) { this.codec = codec; }
+
+    @Override
+    public Version version() { return Version.unknownVersion(); }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public JsonLocation getCurrentLocation() { return JsonLocation.NA; }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public JsonLocation getTokenLocation() { return JsonLocation.NA; }
+
+    /** An array or object being parsed; objects have the names and values of their fields, in order. */
+    private static class Container {
+
+        private final Inspector inspector;
+        private final List<String> names;
+        private final List<Inspector> values;
+        private int next = 0;
+        private boolean nameReturned = false;
+
+        Container(Inspector inspector, List<String> names, List<Inspector> values) {
+            this.inspector = inspector;
+            this.names = names;
+            this.values = values;
+        }
+
+    }
+
+}
@@ -51,7 +51,16 @@ public class TokenBuffer {
 
     /** Returns the current token text without changing position, or null if none */
     public String currentText() {
-        return isEmpty() ? null : tokens.peek().text;
+        return isEmpty() ? null : tokens.peek().text();
+    }
+
+    /**
+     * Returns the current token value without changing position, or null if none.
+     * This is only set for {@link JsonToken#VALUE_EMBEDDED_OBJECT} tokens, e.g., binary data, which have no text,
+     * and for numbers read from a {@link SlimeParser}, which are binary, and only formatted as text on request.
+     */
+    public Object currentValue() {
+        return isEmpty() ? null : tokens.peek().value;
     }
 
     /**
@@ -64,10 +73,6 @@ public class TokenBuffer {
         return () -> iterator.hasNext() ? iterator.next() : null;
     }
 
-    private void add(JsonToken token, String name, String text) {
-        tokens.add(new Token(token, name, text));
-    }
-
     public void bufferObject(JsonParser parser) {
         bufferJsonStruct(parser, JsonToken.START_OBJECT);
     }
@@ -99,10 +104,24 @@ public class TokenBuffer {
     }
 
     int addFromParser(JsonParser tokens) throws IOException {
-        add(tokens.currentToken(), tokens.currentName(), tokens.getText());
+        this.tokens.add(tokenOf(tokens));
         return nestingOffset(tokens.currentToken());
     }
 
+    /**
+     * Returns the current token of the given parser, with the embedded object instead of text for embedded values,
+     * and the number instead of text for numbers from Slime.
+     */
+    static Token tokenOf(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_EMBEDDED_OBJECT)
+            return new Token(token, parser.currentName(), null, parser.getEmbeddedObject());
+        if (token.isNumeric() && parser instanceof SlimeParser)
+            return new Token(token, parser.currentName(), null, parser.getNumberValue());
+
+        return new Token(token, parser.currentName(), parser.getText());
+    }
+
     void updateNesting(JsonToken token) {
         nesting += nestingOffset(token);
     }
@@ -122,16 +141,27 @@ public class TokenBuffer {
         public final JsonToken token;
         public final String name;
         public final String text;
+        public final Object value;
 
         Token(JsonToken token, String name, String text) {
+            this(token, name, text, null);
+        }
+
+        Token(JsonToken token, String name, String text, Object value) {
             this.token = token;
             this.name = name;
             this.text = text;
+            this.value = value;
+        }
+
+        /** Returns the text of this, which is formatted from its value for binary numbers */
+        public String text() {
+            return text == null && value instanceof Number ? value.toString() : text;
         }
 
         @Override
         public String toString() {
-            return "Token(" + token + ", " + name + ", " + text + ")";
+            return "Token(" + token + ", " + name + ", " + (value != null ? value : text) + ")";
         }
 
     }
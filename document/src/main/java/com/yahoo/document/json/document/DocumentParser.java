@@ -37,6 +37,26 @@ public class DocumentParser {
      */
     public Optional<DocumentParseInfo> parse(Optional<DocumentId> documentIdArg) throws IOException {
         indentLevel = 0;
+        return parseItems(documentIdArg);
+    }
+
+    /**
+     * Parses a single document which is a root level object, i.e., not part of an array, and returns it.
+     * Returns empty if we have reached the end of the stream.
+     */
+    public Optional<DocumentParseInfo> parseRootObject() throws IOException {
+        if (parser.nextToken() == null) return Optional.empty();
+        if (parser.currentToken() != JsonToken.START_OBJECT)
+            throw new IllegalArgumentException("Expected start of a document operation object, but got " + parser.currentToken());
+
+        indentLevel = 1;
+        Optional<DocumentParseInfo> documentParseInfo = parseItems(Optional.empty());
+        if (documentParseInfo.isEmpty())
+            throw new IllegalArgumentException("Missing a document operation ('put', 'update' or 'remove')");
+        return documentParseInfo;
+    }
+
+    private Optional<DocumentParseInfo> parseItems(Optional<DocumentId> documentIdArg) throws IOException {
         DocumentParseInfo documentParseInfo = new DocumentParseInfo();
         documentIdArg.ifPresent(documentId -> documentParseInfo.documentId = documentId);
         boolean foundItems = false;
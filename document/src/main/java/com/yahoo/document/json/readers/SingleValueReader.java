@@ -7,7 +7,13 @@ import com.yahoo.document.DocumentId;
 import com.yahoo.document.PositionDataType;
 import com.yahoo.document.ReferenceDataType;
 import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.ByteFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValue;
 import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.FloatFieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.Raw;
 import com.yahoo.document.datatypes.TensorFieldValue;
 import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.update.ValueUpdate;
@@ -48,6 +54,16 @@ public class SingleValueReader {
             TensorReader.fillTensor(buffer, (TensorFieldValue) fieldValue);
             return fieldValue;
         }
+        if (buffer.current() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            if (expectedType.equals(DataType.RAW) && buffer.currentValue() instanceof byte[] data)
+                return new Raw(data);
+
+            throw new IllegalArgumentException("Binary data can only be used for raw and tensor fields, but got " + expectedType.getName());
+        }
+        if (buffer.currentValue() instanceof Number number) {
+            FieldValue value = readNumber(number, expectedType);
+            if (value != null) return value;
+        }
         if (buffer.current().isScalarValue()) {
             return readAtomic(buffer.currentText(), expectedType);
         } else {
@@ -64,14 +80,32 @@ public class SingleValueReader {
                                   ? ValueUpdate.createClear()
                                   : ValueUpdate.createAssign(readSingleValue(buffer, expectedType, ignoreUndefinedFields));
             // double is silly, but it's what is used internally anyway
-            case UPDATE_INCREMENT -> ValueUpdate.createIncrement(Double.valueOf(buffer.currentText()));
-            case UPDATE_DECREMENT -> ValueUpdate.createDecrement(Double.valueOf(buffer.currentText()));
-            case UPDATE_MULTIPLY -> ValueUpdate.createMultiply(Double.valueOf(buffer.currentText()));
-            case UPDATE_DIVIDE -> ValueUpdate.createDivide(Double.valueOf(buffer.currentText()));
+            case UPDATE_INCREMENT -> ValueUpdate.createIncrement(readDouble(buffer));
+            case UPDATE_DECREMENT -> ValueUpdate.createDecrement(readDouble(buffer));
+            case UPDATE_MULTIPLY -> ValueUpdate.createMultiply(readDouble(buffer));
+            case UPDATE_DIVIDE -> ValueUpdate.createDivide(readDouble(buffer));
             default -> throw new IllegalArgumentException("Operation '" + buffer.currentName() + "' not implemented.");
         };
     }
 
+    private static double readDouble(TokenBuffer buffer) {
+        return buffer.currentValue() instanceof Number number ? number.doubleValue() : Double.parseDouble(buffer.currentText());
+    }
+
+    /**
+     * Returns the given binary number as a value of the given type, or null if the type is not numeric,
+     * or the number is not exactly representable in it; the number is then read from its text, as for JSON.
+     */
+    private static FieldValue readNumber(Number number, DataType expectedType) {
+        if (expectedType.equals(DataType.DOUBLE)) return new DoubleFieldValue(number.doubleValue());
+        if (expectedType.equals(DataType.FLOAT)) return new FloatFieldValue(number.floatValue());
+        if ( ! (number instanceof Long value)) return null;
+        if (expectedType.equals(DataType.LONG)) return new LongFieldValue(value);
+        if (expectedType.equals(DataType.INT) && value == value.intValue()) return new IntegerFieldValue(value.intValue());
+        if (expectedType.equals(DataType.BYTE) && value == value.byteValue()) return new ByteFieldValue(value.byteValue());
+        return null;
+    }
+
     public static Matcher matchArithmeticOperation(String expression) {
         return arithmeticExpressionPattern.matcher(expression.trim());
     }
@@ -12,6 +12,8 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorType.Dimension;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.function.Supplier;
 
 import static com.yahoo.document.json.readers.JsonParserHelpers.*;
@@ -49,6 +51,11 @@ public class TensorReader {
             tensorFieldValue.assign(builder.build());
             return;
         }
+        if (buffer.current() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            readTensorValues(buffer, builder);
+            tensorFieldValue.assign(builder.build());
+            return;
+        }
         expectOneOf(buffer.current(), JsonToken.START_OBJECT, JsonToken.START_ARRAY);
         int initNesting = buffer.nesting();
         while (true) {
@@ -144,6 +151,13 @@ public class TensorReader {
             }
             return;
         }
+        if (buffer.current() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            double[] decoded = decodeBinary(buffer, builder.type().valueType());
+            if (decoded.length == 0)
+                throw new IllegalArgumentException("The 'values' data does not contain any values");
+            indexedBuilder.fill(decoded);
+            return;
+        }
         int index = 0;
         int initNesting = buffer.nesting();
         for (buffer.next(); buffer.nesting() >= initNesting; buffer.next()) {
@@ -250,6 +264,9 @@ public class TensorReader {
         if (buffer.current() == JsonToken.VALUE_STRING) {
             values = decodeHexString(buffer.currentText(), type.valueType());
             index = values.length;
+        } else if (buffer.current() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            values = decodeBinary(buffer, type.valueType());
+            index = values.length;
         } else {
             expectArrayStart(buffer.current());
             int initNesting = buffer.nesting();
@@ -265,7 +282,35 @@ public class TensorReader {
         return values;
     }
 
+    /** Decodes the binary data of the current token as a little-endian array of cell values of the given type. */
+    private static double[] decodeBinary(TokenBuffer buffer, TensorType.Value valueType) {
+        if ( ! (buffer.currentValue() instanceof byte[] data))
+            throw new IllegalArgumentException("Expected binary tensor cell values, but got " + buffer.currentValue());
+
+        int cellSize = switch (valueType) {
+            case DOUBLE -> Double.BYTES;
+            case FLOAT -> Float.BYTES;
+            case BFLOAT16 -> Short.BYTES;
+            case INT8 -> Byte.BYTES;
+        };
+        if (data.length % cellSize != 0)
+            throw new IllegalArgumentException("Expected binary cell values of type " + valueType + " to have a length which is a " +
+                                               "multiple of " + cellSize + ", but got " + data.length + " bytes");
+
+        ByteBuffer cells = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        double[] values = new double[data.length / cellSize];
+        switch (valueType) {
+            case DOUBLE -> cells.asDoubleBuffer().get(values);
+            case FLOAT -> { for (int i = 0; i < values.length; i++) values[i] = cells.getFloat(); }
+            case BFLOAT16 -> { for (int i = 0; i < values.length; i++) values[i] = Float.intBitsToFloat(cells.getShort() << 16); }
+            case INT8 -> { for (int i = 0; i < values.length; i++) values[i] = cells.get(); }
+        }
+        return values;
+    }
+
     private static double readDouble(TokenBuffer buffer) {
+        if (buffer.currentValue() instanceof Number number)
+            return number.doubleValue();
         try {
             if (buffer.current() == JsonToken.VALUE_STRING) {
                 return decodeNumberString(buffer.currentText());
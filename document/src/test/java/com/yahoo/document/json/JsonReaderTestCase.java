@@ -48,6 +48,10 @@ import com.yahoo.document.update.TensorModifyUpdate;
 import com.yahoo.document.update.TensorRemoveUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.MappedTensor;
 import com.yahoo.tensor.MixedTensor;
@@ -62,6 +66,8 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
@@ -920,6 +926,106 @@ public class JsonReaderTestCase {
         return Utf8.toString(s.getByteBuffer());
     }
 
+    @Test
+    public void testSlimeBinaryOperations() {
+        Slime slime = new Slime();
+        Cursor fields = slime.setObject().setObject("fields");
+        fields.setData("dense_tensor", littleEndian(Double.BYTES, 6).putDouble(2).putDouble(3).putDouble(4)
+                                                                    .putDouble(5).putDouble(6).putDouble(7).array());
+        fields.setObject("dense_float_tensor").setData("values", littleEndian(Float.BYTES, 3).putFloat(1.5f).putFloat(-2).putFloat(3).array());
+        fields.setData("dense_int8_tensor", new byte[] { 1, -2, 3, -4, 5, -6 });
+        fields.setObject("mixed_bfloat16_tensor").setObject("blocks")
+              .setData("a", littleEndian(Short.BYTES, 3).putShort((short) 0x3f80).putShort((short) 0x4000).putShort((short) 0xc040).array());
+        slime.get().setBool("create", true);
+
+        DocumentPut put = (DocumentPut) new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(slime)))
+                .readSingleDocumentStreaming(DocumentOperationType.PUT, TENSOR_DOC_ID).operation();
+        assertTrue(put.getCreateIfNonExistent());
+        Document doc = put.getDocument();
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[2, 3, 4], [5, 6, 7]]"),
+                     ((TensorFieldValue) doc.getFieldValue("dense_tensor")).getTensor().get());
+        assertEquals(Tensor.from("tensor<float>(y[3]):[1.5, -2, 3]"),
+                     ((TensorFieldValue) doc.getFieldValue("dense_float_tensor")).getTensor().get());
+        assertEquals(Tensor.from("tensor<int8>(x[2],y[3]):[[1, -2, 3], [-4, 5, -6]]"),
+                     ((TensorFieldValue) doc.getFieldValue("dense_int8_tensor")).getTensor().get());
+        assertEquals(Tensor.from("tensor<bfloat16>(x{},y[3]):{a:[1, 2, -3]}"),
+                     ((TensorFieldValue) doc.getFieldValue("mixed_bfloat16_tensor")).getTensor().get());
+
+        Slime feed = new Slime();
+        Cursor operation = feed.setArray().addObject();
+        operation.setString("put", TENSOR_DOC_ID);
+        SlimeUtils.copyObject(slime.get(), operation);
+        assertEquals(put, new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(feed))).next());
+    }
+
+    @Test
+    public void testSlimeParsesAsJson() {
+        assertSlimeParsesAsJson("id:unittest:smoke::doc1",
+                                "{ 'fields': { 'something': 'smoketest', 'int1': 7, 'flag': true, 'tensor1': { 'cells': { 'a': 2.5 } } } }");
+        assertSlimeParsesAsJson("id:unittest:mirrors::whee",
+                                "{ 'fields': { 'skuggsjaa': { 'sandra': 'person', 'cloud': 'another' } } }");
+        assertSlimeParsesAsJson("id:unittest:testset::whee",
+                                "{ 'fields': { 'actualset': { 'nalle': 2, 'tralle': 7 } } }");
+        assertSlimeParsesAsJson("id:unittest:testMapStringToArrayOfInt::whee",
+                                "{ 'fields': { 'actualMapStringToArrayOfInt': { 'bamse': [ 1, 2, 3 ] } } }");
+        assertSlimeParsesAsJson(TENSOR_DOC_ID,
+                                "{ 'fields': { 'dense_tensor': [ [ 2, 3, 4 ], [ 5, 6, 7.5 ] ], " +
+                                "              'mixed_tensor': { 'blocks': { 'a': [ 1, 2.25, -3 ] } }, " +
+                                "              'sparse_tensor': { 'cells': [ { 'address': { 'x': 'a', 'y': 'b' }, 'value': -1e-3 } ] } } }");
+        assertSlimeParsesAsJson("id:unittest:testint::whee",
+                                "{ 'fields': { 'integerfield': 2147483647 } }");
+
+        Slime tooLarge = new Slime();
+        tooLarge.setObject().setObject("fields").setLong("integerfield", 1L << 31);
+        assertEquals("In document 'id:unittest:testint::0': Could not parse field 'integerfield' of type int: " +
+                     "For input string: \"2147483648\"",
+                     Exceptions.toMessageString(assertThrows(IllegalArgumentException.class,
+                                                             () -> new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(tooLarge)))
+                                                                     .readSingleDocumentStreaming(DocumentOperationType.PUT, "id:unittest:testint::0"))));
+    }
+
+    private void assertSlimeParsesAsJson(String id, String json) {
+        String document = json.replace('\'', '"');
+        DocumentOperation fromJson = createReader(document).readSingleDocumentStreaming(DocumentOperationType.PUT, id).operation();
+        DocumentOperation fromSlime = new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(SlimeUtils.jsonToSlime(document))))
+                .readSingleDocumentStreaming(DocumentOperationType.PUT, id).operation();
+        assertEquals(fromJson, fromSlime);
+    }
+
+    @Test
+    public void testSlimeBinaryRaw() {
+        Slime slime = new Slime();
+        slime.setObject().setObject("fields").setData("actualraw", Utf8.toBytes("smoketest"));
+        DocumentPut put = (DocumentPut) new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(slime)))
+                .readSingleDocumentStreaming(DocumentOperationType.PUT, "id:unittest:testraw::whee").operation();
+        assertEquals("smoketest", Utf8.toString(((Raw) put.getDocument().getFieldValue("actualraw")).getByteBuffer()));
+    }
+
+    @Test
+    public void testIllegalSlimeBinaryData() {
+        Slime ints = new Slime();
+        ints.setObject().setObject("fields").setData("integerfield", new byte[4]);
+        assertEquals("In document 'id:unittest:testint::0': Could not parse field 'integerfield' of type int: " +
+                     "Binary data can only be used for raw and tensor fields, but got int",
+                     Exceptions.toMessageString(assertThrows(IllegalArgumentException.class,
+                                                             () -> new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(ints)))
+                                                                     .readSingleDocumentStreaming(DocumentOperationType.PUT, "id:unittest:testint::0"))));
+
+        Slime tensor = new Slime();
+        tensor.setObject().setObject("fields").setData("dense_tensor", new byte[12]);
+        assertEquals("In document 'id:unittest:testtensor::0': Could not parse field 'dense_tensor' of type tensor(x[2],y[3]): " +
+                     "Expected binary cell values of type double to have a length which is a multiple of 8, but got 12 bytes",
+                     Exceptions.toMessageString(assertThrows(IllegalArgumentException.class,
+                                                             () -> new JsonReader(types, SlimeParser.createParser(BinaryFormat.encode(tensor)))
+                                                                     .readSingleDocumentStreaming(DocumentOperationType.PUT, TENSOR_DOC_ID))));
+
+        assertThrows(IllegalArgumentException.class, () -> SlimeParser.createParser(new byte[] { 0, 0x47 }));
+    }
+
+    private static ByteBuffer littleEndian(int cellSize, int cells) {
+        return ByteBuffer.allocate(cellSize * cells).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     @Test
     public void testMapStringToArrayOfInt() throws IOException {
         Document doc = docFromJson("""
@@ -1602,6 +1708,35 @@ public class JsonReaderTestCase {
                            .getMessage().contains("JsonParseException"));
     }
 
+    @Test
+    public void streamOfOperationsTest() {
+        JsonReader r = createReader("""
+                                    {"put": "id:unittest:smoke::0", "fields": {"something": "foo"}}
+                                    {"put": "id:unittest:nonexisting::1", "fields": {"nalle": "bamse"}}
+                                    {"update": "id:unittest:smoke::2", "create": true, "fields": {"something": {"assign": "bar"}}}
+                                    {"remove": "id:unittest:smoke::3", "condition": "smoke.something == 'foo'"}
+                                    {"remove": "id:unittest:smoke::4"
+                                    """);
+        DocumentPut put = (DocumentPut) r.nextFromStream().operation();
+        assertEquals("id:unittest:smoke::0", put.getId().toString());
+        assertEquals("foo", put.getDocument().getFieldValue("something").toString());
+
+        assertEquals("Document type nonexisting does not exist",
+                     assertThrows(IllegalArgumentException.class, r::nextFromStream).getMessage());
+
+        DocumentUpdate update = (DocumentUpdate) r.nextFromStream().operation();
+        assertEquals("id:unittest:smoke::2", update.getId().toString());
+        assertTrue(update.getCreateIfNonExistent());
+
+        DocumentRemove remove = (DocumentRemove) r.nextFromStream().operation();
+        assertEquals("id:unittest:smoke::3", remove.getId().toString());
+        assertEquals("smoke.something == 'foo'", remove.getCondition().getSelection());
+
+        assertThrows(IllegalArgumentException.class, r::nextFromStream); // Truncated stream
+        assertNull(r.nextFromStream());
+        assertNull(createReader("  \n").nextFromStream());
+    }
+
     @Test
     public void idAsAliasForPutTest()  throws IOException{
         JsonReader r = createReader("""
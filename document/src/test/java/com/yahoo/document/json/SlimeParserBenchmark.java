@@ -0,0 +1,90 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentOperation;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.TensorDataType;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.text.Utf8;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares parsing a put with numeric fields and a dense embedding tensor from JSON, from Slime with the same
+ * content, as sent by the feed client, and from Slime with the tensor cells as binary data.
+ */
+public class SlimeParserBenchmark {
+
+    private static final int cells = 768;
+    private static final String id = "id:test:embedded::0";
+
+    private final DocumentTypeManager types = new DocumentTypeManager();
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    private SlimeParserBenchmark() {
+        DocumentType type = new DocumentType("embedded");
+        type.addField(new Field("count", DataType.INT));
+        type.addField(new Field("timestamp", DataType.LONG));
+        type.addField(new Field("score", DataType.DOUBLE));
+        type.addField(new Field("title", DataType.STRING));
+        type.addField(new Field("embedding", new TensorDataType(TensorType.fromSpec("tensor<float>(x[" + cells + "])"))));
+        types.registerDocumentType(type);
+    }
+
+    private void benchmark() {
+        Random random = new Random(42);
+        StringBuilder values = new StringBuilder();
+        ByteBuffer binary = ByteBuffer.allocate(cells * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < cells; i++) {
+            float value = random.nextFloat() * 2 - 1;
+            values.append(i == 0 ? "" : ",").append(value);
+            binary.putFloat(value);
+        }
+        String fields = "\"count\":17,\"timestamp\":1700000000000,\"score\":0.4375,\"title\":\"A title\"";
+        String json = "{\"fields\":{" + fields + ",\"embedding\":{\"values\":[" + values + "]}}}";
+        byte[] jsonBytes = Utf8.toBytes(json);
+        byte[] slimeBytes = BinaryFormat.encode(SlimeUtils.jsonToSlime(json));
+
+        Slime withData = SlimeUtils.jsonToSlime("{\"fields\":{" + fields + "}}");
+        withData.get().field("fields").setObject("embedding").setData("values", binary.array());
+        byte[] slimeDataBytes = BinaryFormat.encode(withData);
+
+        for (int round = 0; round < 3; round++) {
+            run("JSON", jsonBytes.length, () -> read(new JsonReader(types, new ByteArrayInputStream(jsonBytes), jsonFactory)));
+            run("Slime", slimeBytes.length, () -> read(new JsonReader(types, SlimeParser.createParser(slimeBytes))));
+            run("Slime with binary cells", slimeDataBytes.length, () -> read(new JsonReader(types, SlimeParser.createParser(slimeDataBytes))));
+            System.out.println();
+        }
+    }
+
+    private static DocumentOperation read(JsonReader reader) {
+        return reader.readSingleDocumentStreaming(DocumentOperationType.PUT, id).operation();
+    }
+
+    private static void run(String name, int size, Supplier<DocumentOperation> parse) {
+        int runs = 20000;
+        for (int i = 0; i < runs; i++) // Warmup
+            parse.get();
+        long startTime = System.nanoTime();
+        for (int i = 0; i < runs; i++)
+            parse.get();
+        long nanosPerRun = (System.nanoTime() - startTime) / runs;
+        System.out.println(String.format("%-24s %7d bytes, %7d ns per put", name, size, nanosPerRun));
+    }
+
+    public static void main(String[] args) {
+        new SlimeParserBenchmark().benchmark();
+    }
+
+}
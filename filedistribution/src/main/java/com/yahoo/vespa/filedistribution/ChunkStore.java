@@ -0,0 +1,118 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Stores chunks of file references being downloaded, named by their SHA-256, in a directory per file reference,
+ * so downloads can be resumed from the chunks already on disk, and chunks can be served to peers while downloading.
+ * When a compressed file reference has been downloaded, the archive is kept here, so it can be served to peers
+ * with the same content as the source it was downloaded from.
+ */
+public class ChunkStore {
+
+    private static final Logger log = Logger.getLogger(ChunkStore.class.getName());
+
+    /** Name of the directory, in the download directory, where chunks are stored. */
+    public static final String DIRECTORY_NAME = ".chunks";
+
+    private static final String archivePrefix = "archive.";
+
+    private final File directory;
+
+    ChunkStore(File downloadDirectory) {
+        this.directory = new File(downloadDirectory, DIRECTORY_NAME);
+    }
+
+    /** Returns the directory where chunks of the given file reference, in the given download directory, are stored. */
+    public static File directory(File downloadDirectory, String fileReference) {
+        return new File(new File(downloadDirectory, DIRECTORY_NAME), fileReference);
+    }
+
+    private File directory(FileReference reference) {
+        return new File(directory, reference.value());
+    }
+
+    File chunkFile(FileReference reference, byte[] hash) {
+        return new File(directory(reference), FileChunks.hex(hash));
+    }
+
+    /** Returns the chunk with the given hash, if stored and intact. Chunks with wrong content are deleted. */
+    Optional<byte[]> get(FileReference reference, byte[] hash) {
+        File file = chunkFile(reference, hash);
+        try {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (MessageDigest.isEqual(FileChunks.hash(data, data.length), hash)) return Optional.of(data);
+
+            log.log(Level.INFO, "Deleting chunk '" + file + "', which has unexpected content");
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            // Not stored, or unreadable, and must be downloaded again
+        }
+        return Optional.empty();
+    }
+
+    boolean contains(FileReference reference, byte[] hash) {
+        return get(reference, hash).isPresent();
+    }
+
+    /** Stores the given chunk, which must have the given hash. */
+    void put(FileReference reference, byte[] hash, byte[] data) {
+        File file = chunkFile(reference, hash);
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Path temporary = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            Files.write(temporary, data);
+            Files.move(temporary, file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed storing chunk '" + file + "'", e);
+        }
+    }
+
+    /** Returns the file where the downloaded archive of the given file reference is kept. */
+    File archive(FileReference reference, CompressionType compressionType) {
+        return new File(directory(reference), archivePrefix + compressionType.name());
+    }
+
+    /** Returns the downloaded archive of the given file reference, if kept here. See {@link #compressionType(File)}. */
+    Optional<File> archive(FileReference reference) {
+        File[] archives = directory(reference).listFiles((dir, name) -> name.startsWith(archivePrefix));
+        if (archives == null || archives.length == 0) return Optional.empty();
+        return Optional.of(archives[0]);
+    }
+
+    static CompressionType compressionType(File archive) {
+        return CompressionType.valueOf(archive.getName().substring(archivePrefix.length()));
+    }
+
+    /** Deletes the chunks of the given file reference, but keeps its archive, if any. */
+    void deleteChunks(FileReference reference) {
+        File[] chunks = directory(reference).listFiles((dir, name) -> ! name.startsWith(archivePrefix));
+        if (chunks == null) return;
+        for (File chunk : chunks) {
+            if ( ! chunk.delete())
+                log.log(Level.FINE, () -> "Unable to delete " + chunk);
+        }
+    }
+
+    /** Deletes everything stored for the given file reference. */
+    void delete(FileReference reference) {
+        IOUtils.recursiveDeleteDir(directory(reference));
+    }
+
+}
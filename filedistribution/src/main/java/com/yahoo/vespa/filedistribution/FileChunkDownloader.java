@@ -0,0 +1,280 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.ErrorCode;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.StringArray;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Values;
+import com.yahoo.vespa.config.Connection;
+import com.yahoo.vespa.config.JRTConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.yahoo.vespa.filedistribution.FileChunkServer.GET_FILE_CHUNKS_METHOD;
+import static com.yahoo.vespa.filedistribution.FileChunkServer.GET_FILE_CHUNK_METHOD;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Downloads a file reference as chunks, see {@link FileChunkServer}. Chunks are fetched in parallel from peers
+ * which may have them, and from the source which was asked for the file reference, which is used last, to
+ * offload it. Chunks are stored in a {@link ChunkStore} as they arrive, so an interrupted download is resumed
+ * from the chunks already on disk, by this or a later process.
+ */
+class FileChunkDownloader {
+
+    private static final Logger log = Logger.getLogger(FileChunkDownloader.class.getName());
+    private static final int maxChunksInFlight = 8;
+    private static final int maxPeerConnections = 64;
+
+    enum Result { completed, failed, unsupported }
+
+    private final Supervisor supervisor;
+    private final Downloads downloads;
+    private final File downloadDirectory;
+    private final ChunkStore chunkStore;
+    private final Optional<String> peerSpec;
+    private final ExecutorService executor = Executors.newFixedThreadPool(maxChunksInFlight,
+                                                                          new DaemonThreadFactory("filereference chunk downloader"));
+    private final AtomicBoolean shutDown = new AtomicBoolean(false);
+    private final Map<String, JRTConnection> peerConnections = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, JRTConnection> eldest) {
+            if (size() <= maxPeerConnections) return false;
+            eldest.getValue().getTarget().close();
+            return true;
+        }
+    };
+
+    FileChunkDownloader(Supervisor supervisor, Downloads downloads, File downloadDirectory,
+                        ChunkStore chunkStore, Optional<String> peerSpec) {
+        this.supervisor = supervisor;
+        this.downloads = downloads;
+        this.downloadDirectory = downloadDirectory;
+        this.chunkStore = chunkStore;
+        this.peerSpec = peerSpec;
+    }
+
+    /**
+     * Downloads the given file reference, with chunks as listed by the given source, and completes the download.
+     * Returns {@link Result#unsupported} if the source does not serve chunks, in which case nothing is done.
+     */
+    Result download(FileReferenceDownload fileReferenceDownload, Connection source,
+                    Set<CompressionType> acceptedCompressionTypes, Duration rpcTimeout) {
+        FileReference reference = fileReferenceDownload.fileReference();
+        Request request = new Request(GET_FILE_CHUNKS_METHOD);
+        request.parameters().add(new StringValue(reference.value()));
+        request.parameters().add(new Int32Value(fileReferenceDownload.downloadFromOtherSourceIfNotFound() ? 0 : 1));
+        request.parameters().add(new StringArray(acceptedCompressionTypes.stream().map(Enum::name).toArray(String[]::new)));
+        request.parameters().add(new StringValue(peerSpec.orElse("")));
+        source.invokeSync(request, rpcTimeout);
+
+        if (request.isError()) {
+            if (request.errorCode() == ErrorCode.NO_SUCH_METHOD) return Result.unsupported;
+
+            log.log(Level.FINE, () -> "Getting chunks of " + reference + " from " + source.getAddress() + " failed: " +
+                                      request.errorCode() + " (" + request.errorMessage() + ")");
+            return Result.failed;
+        }
+        if ( ! request.checkReturnTypes("issslixxS")) return Result.unsupported;
+
+        Values values = request.returnValues();
+        int errorCode = values.get(0).asInt32();
+        if (errorCode != 0) {
+            log.log(Level.FINE, () -> "Getting chunks of " + reference + " from " + source.getAddress() +
+                                      " failed (" + FileApiErrorCodes.get(errorCode) + ")");
+            return Result.failed;
+        }
+        try {
+            FileChunks chunks = new FileChunks(values.get(1).asString(),
+                                               Type.valueOf(values.get(2).asString()),
+                                               CompressionType.valueOf(values.get(3).asString()),
+                                               values.get(4).asInt64(),
+                                               values.get(5).asInt32(),
+                                               values.get(6).asData(),
+                                               values.get(7).asData());
+            List<Connection> sources = new ArrayList<>();
+            for (String peer : values.get(8).asStringArray())
+                if ( ! peerSpec.map(peer::equals).orElse(false)) sources.add(peerConnection(peer));
+            sources.add(source);
+
+            log.log(Level.FINE, () -> "Downloading " + reference + " with " + chunks + " from " +
+                                      sources.stream().map(Connection::getAddress).toList());
+            if ( ! fetchChunks(reference, chunks, sources, rpcTimeout)) return Result.failed;
+
+            File file = complete(reference, chunks);
+            downloads.completedDownloading(reference, file);
+            return Result.completed;
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Failed downloading " + reference + " from " + source.getAddress() + ": " + e.getMessage());
+            return Result.failed;
+        }
+    }
+
+    /** Fetches the chunks not already stored, in parallel, and returns whether all chunks are now stored */
+    private boolean fetchChunks(FileReference reference, FileChunks chunks, List<Connection> sources, Duration rpcTimeout) {
+        Set<String> seen = new HashSet<>();
+        List<Integer> missing = new ArrayList<>(); // index of the first chunk with each hash not already stored
+        long stored = 0;
+        for (int i = 0; i < chunks.chunkCount(); i++) {
+            byte[] hash = chunks.chunkHash(i);
+            if ( ! seen.add(FileChunks.hex(hash))) continue;
+            if (chunkStore.contains(reference, hash)) stored += chunks.length(i);
+            else missing.add(i);
+        }
+        if (stored > 0) {
+            long resumedBytes = stored;
+            log.log(Level.FINE, () -> "Resuming download of " + reference + ", with " + resumedBytes + " bytes already stored");
+        }
+
+        Queue<Integer> queue = new ConcurrentLinkedQueue<>(missing);
+        AtomicLong received = new AtomicLong(stored);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Set<Connection> failedPeers = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(queue.size(), maxChunksInFlight); i++) {
+            int worker = i;
+            workers.add(CompletableFuture.runAsync(() -> {
+                for (Integer index; ! failed.get() && ! shutDown.get() && (index = queue.poll()) != null; ) {
+                    if ( ! fetchChunk(reference, chunks, index, sources, worker + index, failedPeers, rpcTimeout)) {
+                        failed.set(true);
+                        return;
+                    }
+                    downloads.setDownloadStatus(reference, (double) received.addAndGet(chunks.length(index)) / chunks.size());
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        return ! failed.get() && queue.isEmpty();
+    }
+
+    /** Fetches the given chunk from the first of the sources which has it, trying peers first, starting at the given one */
+    private boolean fetchChunk(FileReference reference, FileChunks chunks, int index, List<Connection> sources,
+                               int start, Set<Connection> failedPeers, Duration rpcTimeout) {
+        int peers = sources.size() - 1;
+        for (int i = 0; i <= peers; i++) {
+            Connection source = i < peers ? sources.get((start + i) % peers) : sources.get(peers);
+            if (failedPeers.contains(source)) continue;
+
+            Request request = new Request(GET_FILE_CHUNK_METHOD);
+            request.parameters().add(new StringValue(reference.value()));
+            request.parameters().add(new StringValue(chunks.compressionType().name()));
+            request.parameters().add(new Int32Value(chunks.chunkSize()));
+            request.parameters().add(new Int32Value(index));
+            request.parameters().add(new DataValue(chunks.chunkHash(index)));
+            source.invokeSync(request, rpcTimeout);
+            if (request.isError() || ! request.checkReturnTypes("ix")) {
+                log.log(Level.FINE, () -> "Getting chunk " + index + " of " + reference + " from " + source.getAddress() +
+                                          " failed: " + request.errorCode() + " (" + request.errorMessage() + ")");
+                if (i < peers) failedPeers.add(source);
+                continue;
+            }
+            if (request.returnValues().get(0).asInt32() != 0) continue; // Source does not have this chunk (yet)
+
+            byte[] data = request.returnValues().get(1).asData();
+            if (data.length != chunks.length(index) || ! MessageDigest.isEqual(FileChunks.hash(data, data.length), chunks.chunkHash(index))) {
+                log.log(Level.INFO, "Chunk " + index + " of " + reference + " from " + source.getAddress() + " has unexpected content");
+                if (i < peers) failedPeers.add(source);
+                continue;
+            }
+            chunkStore.put(reference, chunks.chunkHash(index), data);
+            return true;
+        }
+        log.log(Level.FINE, () -> "No source had chunk " + index + " of " + reference);
+        return false;
+    }
+
+    /** Assembles and verifies the stored chunks, and moves the file reference into place, like {@link FileReceiver} does */
+    private File complete(FileReference reference, FileChunks chunks) throws IOException {
+        File fileReferenceDir = new File(downloadDirectory, reference.value());
+        File inProgressDir = Files.createTempDirectory(downloadDirectory.toPath(), "inprogress").toFile();
+        File decompressedDir = null;
+        try {
+            File file = new File(inProgressDir, chunks.filename());
+            MessageDigest hasher = FileChunks.hasher();
+            try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                for (int i = 0; i < chunks.chunkCount(); i++) {
+                    int index = i;
+                    byte[] data = chunkStore.get(reference, chunks.chunkHash(i))
+                                            .orElseThrow(() -> new IllegalStateException("Chunk " + index + " of " + reference + " is missing"));
+                    hasher.update(data, 0, data.length);
+                    out.write(data);
+                }
+            }
+            byte[] contentHash = hasher.digest();
+            if ( ! MessageDigest.isEqual(contentHash, chunks.contentHash())) {
+                chunkStore.delete(reference);
+                throw new IllegalStateException("SHA-256 of content (" + FileChunks.hex(contentHash) + ") is not equal to SHA-256 of " +
+                                                reference + " (" + FileChunks.hex(chunks.contentHash()) + ")");
+            }
+
+            if (chunks.type() == Type.file) {
+                FileReceiver.moveFileToDestination(inProgressDir, fileReferenceDir);
+                chunkStore.delete(reference);
+            } else {
+                // Keep the archive, to serve it to peers
+                File archive = chunkStore.archive(reference, chunks.compressionType());
+                Files.move(file.toPath(), archive.toPath(), REPLACE_EXISTING);
+                chunkStore.deleteChunks(reference);
+                decompressedDir = Files.createTempDirectory(downloadDirectory.toPath(), "archive").toFile();
+                new FileReferenceCompressor(chunks.type(), chunks.compressionType()).decompress(archive, decompressedDir);
+                FileReceiver.moveFileToDestination(decompressedDir, fileReferenceDir);
+            }
+            return new File(fileReferenceDir, chunks.filename());
+        } finally {
+            FileReceiver.deletePath(inProgressDir);
+            FileReceiver.deletePath(decompressedDir);
+        }
+    }
+
+    private Connection peerConnection(String peer) {
+        synchronized (peerConnections) {
+            return peerConnections.computeIfAbsent(peer, __ -> new JRTConnection(peer, supervisor));
+        }
+    }
+
+    void close() {
+        shutDown.set(true);
+        executor.shutdown();
+        try {
+            if ( ! executor.awaitTermination(30, TimeUnit.SECONDS))
+                log.log(Level.WARNING, "FileChunkDownloader failed to shutdown within 30 seconds");
+        } catch (InterruptedException e) {
+            Thread.interrupted(); // Ignore and continue shutdown.
+        }
+        synchronized (peerConnections) {
+            peerConnections.values().forEach(connection -> connection.getTarget().close());
+            peerConnections.clear();
+        }
+    }
+
+}
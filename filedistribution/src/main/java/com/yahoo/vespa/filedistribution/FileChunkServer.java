@@ -0,0 +1,321 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.config.FileReference;
+import com.yahoo.jrt.DataValue;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.Int64Value;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.MethodHandler;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.StringArray;
+import com.yahoo.jrt.StringValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import static com.yahoo.vespa.filedistribution.FileApiErrorCodes.NOT_FOUND;
+import static com.yahoo.vespa.filedistribution.FileApiErrorCodes.OK;
+import static com.yahoo.vespa.filedistribution.FileApiErrorCodes.TRANSFER_FAILED;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Serves file references as chunks, which downloaders fetch in parallel, from this and from peers.
+ * Config servers serve the file references they have, and config proxies serve the file references they
+ * have downloaded, as well as the chunks of file references they are downloading, to peers.
+ * This keeps track of the peers which have asked for each file reference, and tells later downloaders
+ * about them, so downloads fan out as a tree, instead of all fetching everything from the config servers.
+ * Peers are only remembered if their spec resolves to the address they connected from, and all chunks are
+ * verified against the SHA-256 hashes served by the config servers, so peers can not serve other content.
+ */
+public class FileChunkServer {
+
+    private static final Logger log = Logger.getLogger(FileChunkServer.class.getName());
+
+    public static final String GET_FILE_CHUNKS_METHOD = "filedistribution.getFileChunks";
+    public static final String GET_FILE_CHUNK_METHOD = "filedistribution.getFileChunk";
+
+    private static final int maxCachedChunks = 100;
+    private static final int maxTrackedFileReferences = 1000;
+    private static final int maxTrackedPeers = 32;
+    private static final int maxPeersToReturn = 4;
+    private static final FileChunks noChunks = new FileChunks("", Type.file, CompressionType.gzip, 0, 1, new byte[0],
+                                                                 new byte[FileChunks.hashSize]);
+
+    /** The content of a file reference, as served by this, which must be closed when the file is no longer read */
+    public record Content(String filename, Type type, CompressionType compressionType, File file, Runnable release) implements AutoCloseable {
+
+        public Content(String filename, Type type, CompressionType compressionType, File file) {
+            this(filename, type, compressionType, file, () -> { });
+        }
+
+        @Override
+        public void close() { release.run(); }
+
+    }
+
+    public interface ContentProvider {
+
+        /** Returns the content of the given file reference, if found */
+        Optional<Content> content(FileReference reference, boolean downloadFromOtherSourceIfNotFound,
+                                  Set<CompressionType> acceptedCompressionTypes);
+
+    }
+
+    private final ContentProvider contentProvider;
+    private final Optional<ChunkStore> chunkStore;
+    private final int chunkSize;
+    private final ExecutorService executor = Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
+                                                                          new DaemonThreadFactory("file chunk server"));
+    private final Map<String, CompletableFuture<FileChunks>> cachedChunks = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<FileChunks>> eldest) {
+            return size() > maxCachedChunks;
+        }
+    };
+    private final Map<FileReference, Deque<String>> peers = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<FileReference, Deque<String>> eldest) {
+            return size() > maxTrackedFileReferences;
+        }
+    };
+
+    /** Creates a server for the content given by the provider, e.g., a config server */
+    public FileChunkServer(ContentProvider contentProvider) {
+        this(contentProvider, Optional.empty(), FileChunks.defaultChunkSize);
+    }
+
+    /** Creates a server for file references downloaded, or being downloaded, by the given downloader, e.g., a config proxy */
+    public FileChunkServer(FileDownloader downloader) {
+        this(downloader::servedContent, Optional.of(downloader.chunkStore()), FileChunks.defaultChunkSize);
+    }
+
+    FileChunkServer(ContentProvider contentProvider, Optional<ChunkStore> chunkStore, int chunkSize) {
+        this.contentProvider = contentProvider;
+        this.chunkStore = chunkStore;
+        this.chunkSize = chunkSize;
+    }
+
+    // Capabilities must be set by the caller, as these are served both by config servers and config proxies
+    public static Method getFileChunksMethod(MethodHandler handler) {
+        return new Method(GET_FILE_CHUNKS_METHOD, "siSs", "issslixxS", handler)
+                .methodDesc("get the chunks of a file reference, and peers which may have them")
+                .paramDesc(0, "filereference", "file reference to download")
+                .paramDesc(1, "downloadFromOtherSourceIfNotFound", "0 to download from another source if not found here, 1 otherwise")
+                .paramDesc(2, "compressionTypes", "accepted compression types: gzip, lz4, zstd")
+                .paramDesc(3, "peer", "spec where the caller serves chunks to peers, or empty if it does not; " +
+                                      "ignored unless its host resolves to the address of the caller")
+                .returnDesc(0, "error-code", "0 if found, see FileApiErrorCodes otherwise")
+                .returnDesc(1, "filename", "filename")
+                .returnDesc(2, "type", "'file' or 'compressed'")
+                .returnDesc(3, "compressionType", "compression type: gzip, lz4, zstd")
+                .returnDesc(4, "size", "size of the content in bytes")
+                .returnDesc(5, "chunkSize", "size of each chunk, but the last, in bytes")
+                .returnDesc(6, "chunkHashes", "SHA-256 of each chunk, one after the other")
+                .returnDesc(7, "contentHash", "SHA-256 of the content")
+                .returnDesc(8, "peers", "specs of peers which may serve chunks of this file reference");
+    }
+
+    // Capabilities must be set by the caller, as these are served both by config servers and config proxies
+    public static Method getFileChunkMethod(MethodHandler handler) {
+        return new Method(GET_FILE_CHUNK_METHOD, "ssiix", "ix", handler)
+                .methodDesc("get a chunk of a file reference")
+                .paramDesc(0, "filereference", "file reference to download")
+                .paramDesc(1, "compressionType", "compression type, as returned by " + GET_FILE_CHUNKS_METHOD)
+                .paramDesc(2, "chunkSize", "size of each chunk, as returned by " + GET_FILE_CHUNKS_METHOD)
+                .paramDesc(3, "index", "index of the chunk")
+                .paramDesc(4, "chunkHash", "SHA-256 of the chunk")
+                .returnDesc(0, "error-code", "0 if found, see FileApiErrorCodes otherwise")
+                .returnDesc(1, "data", "the chunk");
+    }
+
+    /** Returns the chunks of the file reference in the given, detached request, asynchronously */
+    public void getFileChunks(Request request) {
+        executor.execute(() -> {
+            FileReference reference = new FileReference(request.parameters().get(0).asString());
+            boolean downloadFromOtherSourceIfNotFound = request.parameters().get(1).asInt32() == 0;
+            Set<CompressionType> acceptedCompressionTypes = Arrays.stream(request.parameters().get(2).asStringArray())
+                                                                  .map(CompressionType::valueOf)
+                                                                  .collect(Collectors.toSet());
+            String peer = verifiedPeer(request, request.parameters().get(3).asString());
+            try {
+                Optional<Content> content = contentProvider.content(reference, downloadFromOtherSourceIfNotFound, acceptedCompressionTypes);
+                if (content.isEmpty()) {
+                    returnFileChunks(request, NOT_FOUND, noChunks, List.of());
+                    return;
+                }
+                FileChunks fileChunks;
+                try (Content served = content.get()) {
+                    fileChunks = chunks(served);
+                }
+                returnFileChunks(request, OK, fileChunks, peers(reference, peer));
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Failed getting chunks of '" + reference.value() + "' for " + request.target() + ": " + e.getMessage());
+                returnFileChunks(request, TRANSFER_FAILED, noChunks, List.of());
+            }
+        });
+    }
+
+    /** Returns the requested chunk of the file reference in the given, detached request, asynchronously */
+    public void getFileChunk(Request request) {
+        executor.execute(() -> {
+            FileReference reference = new FileReference(request.parameters().get(0).asString());
+            CompressionType compressionType = CompressionType.valueOf(request.parameters().get(1).asString());
+            int chunkSize = request.parameters().get(2).asInt32();
+            int index = request.parameters().get(3).asInt32();
+            byte[] hash = request.parameters().get(4).asData();
+            try {
+                Optional<byte[]> chunk = chunk(reference, compressionType, chunkSize, index, hash);
+                request.returnValues().add(new Int32Value(chunk.isPresent() ? OK.code() : NOT_FOUND.code()));
+                request.returnValues().add(new DataValue(chunk.orElse(new byte[0])));
+            } catch (RuntimeException | IOException e) {
+                log.log(Level.WARNING, "Failed getting chunk " + index + " of '" + reference.value() + "' for " + request.target() + ": " + e.getMessage());
+                request.returnValues().add(new Int32Value(TRANSFER_FAILED.code()));
+                request.returnValues().add(new DataValue(new byte[0]));
+            }
+            request.returnRequest();
+        });
+    }
+
+    private static void returnFileChunks(Request request, FileApiErrorCodes error, FileChunks fileChunks, List<String> peers) {
+        request.returnValues()
+               .add(new Int32Value(error.code()))
+               .add(new StringValue(fileChunks.filename()))
+               .add(new StringValue(fileChunks.type().name()))
+               .add(new StringValue(fileChunks.compressionType().name()))
+               .add(new Int64Value(fileChunks.size()))
+               .add(new Int32Value(fileChunks.chunkSize()))
+               .add(new DataValue(fileChunks.chunkHashes()))
+               .add(new DataValue(fileChunks.contentHash()))
+               .add(new StringArray(peers.toArray(String[]::new)));
+        request.returnRequest();
+    }
+
+    /** Returns the chunk, from a complete file reference, or from the chunks of one being downloaded, if present here */
+    private Optional<byte[]> chunk(FileReference reference, CompressionType compressionType, int chunkSize, int index, byte[] hash) throws IOException {
+        if (chunkStore.isPresent()) {
+            Optional<byte[]> chunk = chunkStore.get().get(reference, hash);
+            if (chunk.isPresent()) return chunk;
+        }
+        Optional<Content> content = contentProvider.content(reference, false, Set.of(compressionType));
+        if (content.isEmpty()) return Optional.empty();
+
+        try (Content served = content.get()) {
+            FileChunks fileChunks = chunks(served, chunkSize);
+            if (index < 0 || index >= fileChunks.chunkCount() || ! MessageDigest.isEqual(fileChunks.chunkHash(index), hash))
+                return Optional.empty();
+
+            ByteBuffer chunk = ByteBuffer.allocate(fileChunks.length(index));
+            try (FileChannel channel = FileChannel.open(served.file().toPath(), READ)) {
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk, fileChunks.offset(index) + chunk.position()) < 0)
+                        throw new IOException("Unexpected end of '" + served.file() + "'");
+                }
+            }
+            return MessageDigest.isEqual(FileChunks.hash(chunk.array(), chunk.capacity()), hash) ? Optional.of(chunk.array())
+                                                                                                 : Optional.empty();
+        }
+    }
+
+    private FileChunks chunks(Content content) {
+        return chunks(content, chunkSize);
+    }
+
+    /** Returns the chunks of the given content, computed only once for each file, as long as they are cached */
+    private FileChunks chunks(Content content, int chunkSize) {
+        File file = content.file();
+        String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified() + ":" + chunkSize;
+        CompletableFuture<FileChunks> fileChunks;
+        boolean compute = false;
+        synchronized (cachedChunks) {
+            fileChunks = cachedChunks.get(key);
+            if (fileChunks == null) {
+                cachedChunks.put(key, fileChunks = new CompletableFuture<>());
+                compute = true;
+            }
+        }
+        if (compute) {
+            try {
+                fileChunks.complete(FileChunks.of(content.filename(), content.type(), content.compressionType(), file, chunkSize));
+            } catch (IOException | RuntimeException e) {
+                synchronized (cachedChunks) { cachedChunks.remove(key); }
+                fileChunks.completeExceptionally(e);
+            }
+        }
+        return fileChunks.join();
+    }
+
+    /**
+     * Returns the given peer spec, if its host resolves to the address the request came from, or empty otherwise,
+     * so callers can not make this send other downloaders to hosts of their choosing.
+     */
+    private static String verifiedPeer(Request request, String peer) {
+        if (peer.isEmpty()) return peer;
+
+        Spec spec = new Spec(peer);
+        Spec caller = request.target().peerSpec();
+        if ( ! spec.malformed() && spec.host() != null && caller != null && caller.host() != null) {
+            try {
+                InetAddress callerAddress = InetAddress.getByName(caller.host());
+                for (InetAddress address : InetAddress.getAllByName(spec.host()))
+                    if (address.equals(callerAddress)) return spec.toString();
+            } catch (UnknownHostException e) {
+                // Not a peer we can verify
+            }
+        }
+        log.log(Level.FINE, () -> "Not remembering peer '" + peer + "', which does not resolve to the caller, " + caller);
+        return "";
+    }
+
+    /** Returns some peers which have asked for the given file reference, and remembers the given peer, if any */
+    private List<String> peers(FileReference reference, String peer) {
+        synchronized (peers) {
+            Deque<String> known = peers.computeIfAbsent(reference, __ -> new ArrayDeque<>());
+            List<String> others = new ArrayList<>(maxPeersToReturn);
+            for (String other : known) {
+                if (others.size() == maxPeersToReturn) break;
+                if ( ! other.equals(peer)) others.add(other);
+            }
+            if ( ! peer.isEmpty()) {
+                known.remove(peer);
+                known.addFirst(peer);
+                if (known.size() > maxTrackedPeers) known.removeLast();
+            }
+            return others;
+        }
+    }
+
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if ( ! executor.awaitTermination(10, TimeUnit.SECONDS))
+                log.log(Level.WARNING, "FileChunkServer failed to shutdown within 10 seconds");
+        } catch (InterruptedException e) {
+            Thread.interrupted(); // Ignore and continue shutdown.
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type;
+
+/**
+ * The content of a file reference, as served to downloaders, split into chunks of a fixed size.
+ * Chunks are identified by their SHA-256, so they can be fetched from any source which has them, also
+ * peers which are not trusted with the content, and verified and stored independently of each other.
+ *
+ * @param filename name of the file, or directory, of the file reference
+ * @param type whether the content is the file itself or a compressed archive of a directory
+ * @param compressionType compression used for the archive, if the content is compressed
+ * @param size size of the content in bytes
+ * @param chunkSize size of all chunks, but the last
+ * @param chunkHashes SHA-256 of each chunk, one after the other
+ * @param contentHash SHA-256 of the whole content
+ */
+public record FileChunks(String filename, Type type, CompressionType compressionType, long size,
+                         int chunkSize, byte[] chunkHashes, byte[] contentHash) {
+
+    public static final int defaultChunkSize = 4 * 1024 * 1024;
+    public static final int hashSize = 32;
+
+    public FileChunks {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive, but was " + chunkSize);
+        if (chunkHashes.length != (long) chunkCount(size, chunkSize) * hashSize)
+            throw new IllegalArgumentException("Expected " + chunkCount(size, chunkSize) + " chunks of size " + chunkSize +
+                                               " for " + size + " bytes, but got " + chunkHashes.length / hashSize);
+        if (contentHash.length != hashSize)
+            throw new IllegalArgumentException("Expected a content hash of " + hashSize + " bytes, but got " + contentHash.length);
+    }
+
+    /** Returns the chunks of the given file, which is read in full to compute them. */
+    public static FileChunks of(String filename, Type type, CompressionType compressionType, File file, int chunkSize) throws IOException {
+        MessageDigest contentHasher = hasher();
+        long size = Files.size(file.toPath());
+        int chunkCount = chunkCount(size, chunkSize);
+        byte[] chunkHashes = new byte[chunkCount * hashSize];
+        byte[] chunk = new byte[(int) Math.min(size, chunkSize)];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            for (int i = 0; i < chunkCount; i++) {
+                int length = (int) Math.min(chunkSize, size - (long) i * chunkSize);
+                if (in.readNBytes(chunk, 0, length) != length)
+                    throw new IOException("Unexpected end of '" + file + "' at chunk " + i);
+                System.arraycopy(hash(chunk, length), 0, chunkHashes, i * hashSize, hashSize);
+                contentHasher.update(chunk, 0, length);
+            }
+        }
+        return new FileChunks(filename, type, compressionType, size, chunkSize, chunkHashes, contentHasher.digest());
+    }
+
+    /** Returns the SHA-256 of the given number of bytes of the given data */
+    public static byte[] hash(byte[] data, int length) {
+        MessageDigest hasher = hasher();
+        hasher.update(data, 0, length);
+        return hasher.digest();
+    }
+
+    static MessageDigest hasher() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform supports SHA-256
+        }
+    }
+
+    static String hex(byte[] hash) {
+        return HexFormat.of().formatHex(hash);
+    }
+
+    private static int chunkCount(long size, int chunkSize) {
+        return Math.toIntExact((size + chunkSize - 1) / chunkSize);
+    }
+
+    public int chunkCount() { return chunkHashes.length / hashSize; }
+
+    public byte[] chunkHash(int index) { return Arrays.copyOfRange(chunkHashes, index * hashSize, (index + 1) * hashSize); }
+
+    public long offset(int index) { return (long) index * chunkSize; }
+
+    public int length(int index) { return (int) Math.min(chunkSize, size - offset(index)); }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if ( ! (o instanceof FileChunks other)) return false;
+        return size == other.size && chunkSize == other.chunkSize && Arrays.equals(contentHash, other.contentHash) &&
+               filename.equals(other.filename) && type == other.type && compressionType == other.compressionType &&
+               Arrays.equals(chunkHashes, other.chunkHashes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(contentHash);
+    }
+
+    @Override
+    public String toString() {
+        return filename + " (" + type + ", " + compressionType + "), " + size + " bytes in " + chunkCount() +
+               " chunks of " + chunkSize + " bytes, SHA-256 " + hex(contentHash);
+    }
+
+}
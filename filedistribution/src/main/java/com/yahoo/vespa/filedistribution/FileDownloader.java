@@ -11,6 +11,7 @@ import java.io.File;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -19,6 +20,9 @@ import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type;
+
 /**
  * Handles downloads of files (file references only for now)
  *
@@ -38,6 +42,7 @@ public class FileDownloader implements AutoCloseable {
     private final File downloadDirectory;
     private final Duration timeout;
     private final FileReferenceDownloader fileReferenceDownloader;
+    private final ChunkStore chunkStore;
     private final Downloads downloads = new Downloads();
 
     static {
@@ -54,18 +59,38 @@ public class FileDownloader implements AutoCloseable {
         this(connectionPool, supervisor, downloadDirectory, timeout, backoffInitialTime);
     }
 
+    /**
+     * Creates a downloader which also serves what it downloads to peers, through a {@link FileChunkServer}
+     * listening on the given spec, which is then announced to the sources it downloads from.
+     */
+    public FileDownloader(ConnectionPool connectionPool, Supervisor supervisor, Duration timeout, String peerSpec) {
+        this(connectionPool, supervisor, defaultDownloadDirectory, timeout, backoffInitialTime, Optional.of(peerSpec));
+    }
+
     public FileDownloader(ConnectionPool connectionPool,
                           Supervisor supervisor,
                           File downloadDirectory,
                           Duration timeout,
                           Duration backoffInitialTime) {
+        this(connectionPool, supervisor, downloadDirectory, timeout, backoffInitialTime, Optional.empty());
+    }
+
+    FileDownloader(ConnectionPool connectionPool,
+                   Supervisor supervisor,
+                   File downloadDirectory,
+                   Duration timeout,
+                   Duration backoffInitialTime,
+                   Optional<String> peerSpec) {
         this.connectionPool = connectionPool;
         this.supervisor = supervisor;
         this.downloadDirectory = downloadDirectory;
         this.timeout = timeout;
+        this.chunkStore = new ChunkStore(downloadDirectory);
         // Needed to receive RPC receiveFile* calls from server after starting download of file reference
         new FileReceiver(supervisor, downloads, downloadDirectory);
         this.fileReferenceDownloader = new FileReferenceDownloader(connectionPool,
+                                                                   new FileChunkDownloader(supervisor, downloads, downloadDirectory,
+                                                                                           chunkStore, peerSpec),
                                                                    downloads,
                                                                    timeout,
                                                                    backoffInitialTime,
@@ -115,6 +140,28 @@ public class FileDownloader implements AutoCloseable {
         return downloadDirectory;
     }
 
+    ChunkStore chunkStore() { return chunkStore; }
+
+    /**
+     * Returns the content of the given file reference, as it was downloaded, if it has been: a plain file is served
+     * as it is, while a directory is served as the archive it was downloaded as, which is kept for this purpose.
+     */
+    Optional<FileChunkServer.Content> servedContent(FileReference fileReference,
+                                                    boolean downloadFromOtherSourceIfNotFound,
+                                                    Set<CompressionType> acceptedCompressionTypes) {
+        File[] files = new File(downloadDirectory, fileReference.value()).listFiles();
+        if (files == null || files.length != 1) return Optional.empty();
+
+        File file = files[0];
+        if (file.isFile())
+            return Optional.of(new FileChunkServer.Content(file.getName(), Type.file, CompressionType.gzip, file));
+
+        return chunkStore.archive(fileReference)
+                         .filter(archive -> acceptedCompressionTypes.contains(ChunkStore.compressionType(archive)))
+                         .map(archive -> new FileChunkServer.Content(file.getName(), Type.compressed,
+                                                                     ChunkStore.compressionType(archive), archive));
+    }
+
     private Optional<File> getFileFromFileSystem(FileReference fileReference) {
         return getFileFromFileSystem(fileReference, downloadDirectory);
     }
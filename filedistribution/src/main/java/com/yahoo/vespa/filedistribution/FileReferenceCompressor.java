@@ -6,7 +6,7 @@ import com.yahoo.compress.ZstdOutputStream;
 import net.jpountz.lz4.LZ4BlockInputStream;
 import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.apache.commons.compress.archivers.ArchiveEntry;
-import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 import java.io.File;
@@ -25,7 +25,10 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /**
- * Utility class for compressing and decompressing files used in a file reference
+ * Utility class for compressing and decompressing files used in a file reference.
+ * Archives of the same files are identical, as entries have no timestamps or owners, and directories
+ * are archived in sorted order, so chunks of archives created at different times, or by different
+ * config servers, match.
  *
  * @author hmusum
  */
@@ -53,7 +56,7 @@ public class FileReferenceCompressor {
         try (var paths = Files.find(Path.of(directory.getAbsolutePath()), recurseDepth,
                                     (p, basicFileAttributes) -> basicFileAttributes.isRegularFile()))
         {
-            return compress(directory, paths.map(Path::toFile).toList(), outputFile);
+            return compress(directory, paths.sorted().map(Path::toFile).toList(), outputFile);
         }
     }
 
@@ -96,7 +99,7 @@ public class FileReferenceCompressor {
         }
     }
 
-    private static <T extends ArchiveEntry> void createArchiveFile(ArchiveOutputStream<T> archiveOutputStream, File baseDir, List<File> inputFiles) throws IOException {
+    private static void createArchiveFile(TarArchiveOutputStream archiveOutputStream, File baseDir, List<File> inputFiles) throws IOException {
         inputFiles.forEach(file -> {
             try {
                 writeFileToTar(archiveOutputStream, baseDir, file);
@@ -107,8 +110,16 @@ public class FileReferenceCompressor {
         archiveOutputStream.close();
     }
 
-    private static <T extends ArchiveEntry> void writeFileToTar(ArchiveOutputStream<T> taos, File baseDir, File file) throws IOException {
-        taos.putArchiveEntry(taos.createArchiveEntry(file, baseDir.toPath().relativize(file.toPath()).toString()));
+    private static void writeFileToTar(TarArchiveOutputStream taos, File baseDir, File file) throws IOException {
+        TarArchiveEntry entry = new TarArchiveEntry(baseDir.toPath().relativize(file.toPath()).toString());
+        entry.setSize(file.length());
+        entry.setModTime(0);
+        entry.setMode(TarArchiveEntry.DEFAULT_FILE_MODE);
+        entry.setUserId(0);
+        entry.setGroupId(0);
+        entry.setUserName("");
+        entry.setGroupName("");
+        taos.putArchiveEntry(entry);
         try (FileInputStream inputStream = new FileInputStream(file)) {
             inputStream.transferTo(taos);
         }
@@ -44,6 +44,7 @@ public class FileReferenceDownloader {
             Executors.newFixedThreadPool(Math.max(8, Runtime.getRuntime().availableProcessors()),
                                          new DaemonThreadFactory("filereference downloader"));
     private final ConnectionPool connectionPool;
+    private final FileChunkDownloader chunkDownloader;
     private final Downloads downloads;
     private final Duration downloadTimeout;
     private final Duration backoffInitialTime;
@@ -52,11 +53,13 @@ public class FileReferenceDownloader {
     private final AtomicBoolean shutDown = new AtomicBoolean(false);
 
     FileReferenceDownloader(ConnectionPool connectionPool,
+                            FileChunkDownloader chunkDownloader,
                             Downloads downloads,
                             Duration timeout,
                             Duration backoffInitialTime,
                             File downloadDirectory) {
         this.connectionPool = connectionPool;
+        this.chunkDownloader = chunkDownloader;
         this.downloads = downloads;
         this.downloadTimeout = timeout;
         this.backoffInitialTime = backoffInitialTime;
@@ -145,8 +148,15 @@ public class FileReferenceDownloader {
     }
 
     private boolean startDownloadRpc(FileReferenceDownload fileReferenceDownload, int retryCount, Connection connection) {
-        Request request = createRequest(fileReferenceDownload);
         Duration rpcTimeout = rpcTimeout(retryCount);
+        // Download chunks in parallel, from peers and the source, if supported by the source, or have the source send the file
+        switch (chunkDownloader.download(fileReferenceDownload, connection, defaultAcceptedCompressionTypes, rpcTimeout)) {
+            case completed: return true;
+            case failed: return false;
+            case unsupported: break;
+        }
+
+        Request request = createRequest(fileReferenceDownload);
         connection.invokeSync(request, rpcTimeout);
 
         Level logLevel = (retryCount > 3 ? Level.INFO : Level.FINE);
@@ -200,6 +210,7 @@ public class FileReferenceDownloader {
 
     public void close() {
         shutDown.set(true);
+        chunkDownloader.close();
         downloadExecutor.shutdown();
         try {
             if (!downloadExecutor.awaitTermination(30, TimeUnit.SECONDS))
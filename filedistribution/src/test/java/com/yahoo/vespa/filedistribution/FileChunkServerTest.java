@@ -0,0 +1,213 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.filedistribution;
+
+import com.yahoo.config.FileReference;
+import com.yahoo.io.IOUtils;
+import com.yahoo.jrt.Acceptor;
+import com.yahoo.jrt.Int32Value;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Spec;
+import com.yahoo.jrt.StringArray;
+import com.yahoo.jrt.StringValue;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Target;
+import com.yahoo.jrt.Transport;
+import com.yahoo.vespa.config.Connection;
+import com.yahoo.vespa.config.ConnectionPool;
+import com.yahoo.vespa.config.JRTConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.yahoo.vespa.filedistribution.FileReferenceData.CompressionType.gzip;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.compressed;
+import static com.yahoo.vespa.filedistribution.FileReferenceData.Type.file;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileChunkServerTest {
+
+    private static final int chunkSize = 1024;
+    private static final FileReference reference = new FileReference("ref");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private final AtomicInteger chunksServedBySource = new AtomicInteger();
+    private File sourceFile;
+    private Spec sourceSpec;
+
+    @Before
+    public void setup() throws IOException {
+        sourceFile = temporaryFolder.newFile("model.onnx");
+        byte[] content = new byte[3 * chunkSize + chunkSize / 2];
+        new Random(1).nextBytes(content);
+        Files.write(sourceFile.toPath(), content);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--)
+            resources.get(i).close();
+    }
+
+    @Test
+    public void fileIsDownloadedAsChunks() throws IOException, ListenFailedException {
+        startSource(new FileChunkServer.Content(sourceFile.getName(), file, gzip, sourceFile));
+        FileDownloader downloader = createDownloader(sourceSpec, Optional.empty());
+
+        File downloaded = getFile(downloader);
+        assertArrayEquals(Files.readAllBytes(sourceFile.toPath()), Files.readAllBytes(downloaded.toPath()));
+        assertEquals(4, chunksServedBySource.get());
+        assertFalse("Chunks are deleted when download completes",
+                    ChunkStore.directory(downloader.downloadDirectory(), reference.value()).exists());
+    }
+
+    @Test
+    public void downloadIsResumedFromStoredChunks() throws IOException, ListenFailedException {
+        startSource(new FileChunkServer.Content(sourceFile.getName(), file, gzip, sourceFile));
+        FileDownloader downloader = createDownloader(sourceSpec, Optional.empty());
+        FileChunks chunks = FileChunks.of(sourceFile.getName(), file, gzip, sourceFile, chunkSize);
+        byte[] content = Files.readAllBytes(sourceFile.toPath());
+        for (int i = 0; i < 2; i++)
+            downloader.chunkStore().put(reference, chunks.chunkHash(i), Arrays.copyOfRange(content, i * chunkSize, (i + 1) * chunkSize));
+        // A corrupt chunk is downloaded again
+        Files.write(new File(ChunkStore.directory(downloader.downloadDirectory(), reference.value()),
+                             FileChunks.hex(chunks.chunkHash(2))).toPath(), new byte[chunkSize]);
+
+        File downloaded = getFile(downloader);
+        assertArrayEquals(content, Files.readAllBytes(downloaded.toPath()));
+        assertEquals(2, chunksServedBySource.get());
+    }
+
+    @Test
+    public void downloadedFileReferencesAreServedToPeers() throws IOException, ListenFailedException {
+        File directory = temporaryFolder.newFolder("directory");
+        IOUtils.writeFile(new File(directory, "a"), "a", false);
+        IOUtils.writeFile(new File(new File(directory, "sub"), "b"), "b", false);
+        File archive = new FileReferenceCompressor(compressed, gzip).compress(directory.getParentFile(), List.of(new File(directory, "a"),
+                                                                                                               new File(directory, "sub/b")),
+                                                                             temporaryFolder.newFile("archive"));
+        startSource(new FileChunkServer.Content(directory.getName(), compressed, gzip, archive));
+
+        // The first node downloads from the source, and serves what it has to peers
+        Supervisor firstSupervisor = createSupervisor();
+        Acceptor firstAcceptor = firstSupervisor.listen(new Spec(0));
+        resources.add(() -> firstAcceptor.shutdown().join());
+        Spec firstSpec = new Spec("localhost", firstAcceptor.port());
+        FileDownloader first = createDownloader(firstSupervisor, sourceSpec, Optional.of(firstSpec.toString()));
+        FileChunkServer firstServer = new FileChunkServer(first);
+        resources.add(firstServer::close);
+        firstSupervisor.addMethod(FileChunkServer.getFileChunksMethod(request -> { request.detach(); firstServer.getFileChunks(request); }));
+        firstSupervisor.addMethod(FileChunkServer.getFileChunkMethod(request -> { request.detach(); firstServer.getFileChunk(request); }));
+
+        File downloaded = getFile(first);
+        assertEquals("a", IOUtils.readFile(new File(downloaded, "a")));
+        assertEquals("b", IOUtils.readFile(new File(downloaded, "sub/b")));
+        int servedToFirst = chunksServedBySource.get();
+        assertTrue(servedToFirst > 0);
+
+        // The next node learns about the first from the source, and gets all chunks from it
+        FileDownloader second = createDownloader(sourceSpec, Optional.empty());
+        downloaded = getFile(second);
+        assertEquals("a", IOUtils.readFile(new File(downloaded, "a")));
+        assertEquals("b", IOUtils.readFile(new File(downloaded, "sub/b")));
+        assertEquals(servedToFirst, chunksServedBySource.get());
+
+        // Nodes may also download directly from peers
+        FileDownloader third = createDownloader(firstSpec, Optional.empty());
+        downloaded = getFile(third);
+        assertEquals("b", IOUtils.readFile(new File(downloaded, "sub/b")));
+    }
+
+    @Test
+    public void peersNotResolvingToTheCallerAreNotRemembered() throws IOException, ListenFailedException {
+        startSource(new FileChunkServer.Content(sourceFile.getName(), file, gzip, sourceFile));
+        byte[] content = Files.readAllBytes(sourceFile.toPath());
+
+        // The first node claims to serve peers at an address it does not connect from
+        FileDownloader first = createDownloader(sourceSpec, Optional.of(new Spec("192.0.2.1", 19090).toString()));
+        assertArrayEquals(content, Files.readAllBytes(getFile(first).toPath()));
+        assertEquals(4, chunksServedBySource.get());
+
+        // The next node is not told about it
+        Supervisor supervisor = createSupervisor();
+        resources.add(() -> supervisor.transport().shutdown().join());
+        Target target = supervisor.connect(sourceSpec);
+        resources.add(target::close);
+        Request request = new Request(FileChunkServer.GET_FILE_CHUNKS_METHOD);
+        request.parameters().add(new StringValue(reference.value()));
+        request.parameters().add(new Int32Value(1));
+        request.parameters().add(new StringArray(new String[] { gzip.name() }));
+        request.parameters().add(new StringValue(""));
+        target.invokeSync(request, Duration.ofSeconds(60));
+        assertTrue(request.errorMessage(), request.checkReturnTypes("issslixxS"));
+        assertEquals(0, request.returnValues().get(0).asInt32());
+        assertEquals(0, request.returnValues().get(8).asStringArray().length);
+    }
+
+    private void startSource(FileChunkServer.Content content) throws ListenFailedException {
+        Supervisor supervisor = createSupervisor();
+        resources.add(() -> supervisor.transport().shutdown().join());
+        FileChunkServer server = new FileChunkServer((ref, download, compressionTypes) -> Optional.of(content).filter(__ -> ref.equals(reference)),
+                                                     Optional.empty(), chunkSize);
+        resources.add(server::close);
+        supervisor.addMethod(FileChunkServer.getFileChunksMethod(request -> { request.detach(); server.getFileChunks(request); }));
+        supervisor.addMethod(FileChunkServer.getFileChunkMethod(request -> {
+            chunksServedBySource.incrementAndGet();
+            request.detach();
+            server.getFileChunk(request);
+        }));
+        Acceptor acceptor = supervisor.listen(new Spec(0));
+        resources.add(() -> acceptor.shutdown().join());
+        sourceSpec = new Spec("localhost", acceptor.port());
+    }
+
+    /** Returns a new supervisor, which is shut down by the downloader using it, if any */
+    private static Supervisor createSupervisor() {
+        return new Supervisor(new Transport()).setDropEmptyBuffers(true);
+    }
+
+    private FileDownloader createDownloader(Spec source, Optional<String> peerSpec) throws IOException {
+        return createDownloader(createSupervisor(), source, peerSpec);
+    }
+
+    private FileDownloader createDownloader(Supervisor supervisor, Spec source, Optional<String> peerSpec) throws IOException {
+        FileDownloader downloader = new FileDownloader(new SingleConnectionPool(new JRTConnection(source.toString(), supervisor)),
+                                                       supervisor, temporaryFolder.newFolder(), Duration.ofSeconds(60),
+                                                       Duration.ofMillis(10), peerSpec);
+        resources.add(downloader::close);
+        return downloader;
+    }
+
+    private static File getFile(FileDownloader downloader) {
+        Optional<File> file = downloader.getFile(new FileReferenceDownload(reference, "test"));
+        assertTrue(file.isPresent());
+        return file.get();
+    }
+
+    private record SingleConnectionPool(Connection connection) implements ConnectionPool {
+        @Override public void close() { }
+        @Override public Connection getCurrent() { return connection; }
+        @Override public Connection switchConnection(Connection failing) { return connection; }
+        @Override public int getSize() { return 1; }
+    }
+
+}
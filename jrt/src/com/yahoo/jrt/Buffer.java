@@ -6,6 +6,7 @@ import java.nio.ByteBuffer;
 
 
 class Buffer {
+    private final BufferPool pool;
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -55,18 +56,41 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            free(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool != null) ? pool.acquire(size) : ByteBuffer.allocate(size);
+    }
+
+    private void free(ByteBuffer buffer) {
+        if (pool != null) {
+            pool.release(buffer);
+        }
+    }
+
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /**
+     * Creates a buffer whose storage is obtained from, and returned to,
+     * the given pool. Its capacity may then be larger than requested.
+     *
+     * @param size the initial minimum capacity
+     * @param pool the pool to use, or null to allocate on the heap
+     **/
+    public Buffer(int size, BufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -79,11 +103,16 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
+        if (tmp.capacity() >= buf.capacity()) {
+            free(tmp);
+            return false;
+        }
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        free(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -108,4 +137,16 @@ class Buffer {
         ensureFree(minFree);
         return buf;
     }
+
+    /**
+     * Returns the storage of this buffer to its pool, and leaves it
+     * empty. The buffer may still be used after this.
+     **/
+    public void release() {
+        free(buf);
+        buf = ByteBuffer.allocate(0);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
 }
@@ -0,0 +1,102 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A pool of direct byte buffers, shared by all {@link Transport}s, used
+ * for connection input and output. Direct buffers are written to and
+ * read from sockets without being copied to a temporary direct buffer
+ * first, but are expensive to allocate, so they are reused. Buffers are
+ * handed out in power of two sizes, from {@link #MIN_SIZE} to {@link
+ * #MAX_SIZE}, which covers the input buffers of most large requests;
+ * larger buffers are allocated on the heap, and not pooled. At most
+ * {@link #MAX_RETAINED} bytes are kept in the pool.
+ **/
+class BufferPool {
+
+    static final int MIN_SIZE = 4 * 1024;
+    static final int MAX_SIZE = 16 * 1024 * 1024;
+    static final long MAX_RETAINED = 64L * 1024 * 1024;
+
+    private static final BufferPool shared = new BufferPool();
+
+    private final List<ConcurrentLinkedQueue<ByteBuffer>> free = new ArrayList<>();
+    private final AtomicLong retained = new AtomicLong(0);
+    private final AtomicLong allocated = new AtomicLong(0);
+    private final AtomicLong reused = new AtomicLong(0);
+
+    BufferPool() {
+        for (int i = 0; i <= sizeClass(MAX_SIZE); i++) {
+            free.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    static BufferPool shared() { return shared; }
+
+    private static int sizeClass(int capacity) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(capacity, MIN_SIZE) - 1) - 12;
+    }
+
+    /**
+     * Returns a cleared, big endian buffer with at least the given capacity.
+     *
+     * @param minCapacity the minimum capacity of the buffer
+     * @return a buffer which should be released to this when no longer used
+     **/
+    ByteBuffer acquire(int minCapacity) {
+        if (minCapacity == 0) {
+            return ByteBuffer.allocate(0);
+        }
+        if (minCapacity > MAX_SIZE) {
+            allocated.incrementAndGet();
+            return ByteBuffer.allocate(minCapacity);
+        }
+        int sizeClass = sizeClass(minCapacity);
+        ByteBuffer buffer = free.get(sizeClass).poll();
+        if (buffer != null) {
+            retained.addAndGet(-buffer.capacity());
+            reused.incrementAndGet();
+            return buffer;
+        }
+        allocated.incrementAndGet();
+        return ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #acquire} to this, unless the
+     * pool is full. The buffer must not be used after this.
+     *
+     * @param buffer the buffer to release
+     **/
+    void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if ( ! buffer.isDirect() || capacity < MIN_SIZE || capacity > MAX_SIZE || Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        if (retained.addAndGet(capacity) > MAX_RETAINED) {
+            retained.addAndGet(-capacity);
+            return;
+        }
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        free.get(sizeClass(capacity)).add(buffer);
+    }
+
+    /** Returns the number of buffers allocated by this, rather than reused. */
+    long allocated() { return allocated.get(); }
+
+    /** Returns the number of buffers reused from this pool. */
+    long reused() { return reused.get(); }
+
+    /** Returns the number of bytes currently kept in this pool. */
+    long retained() { return retained.get(); }
+
+}
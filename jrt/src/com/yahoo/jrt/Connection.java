@@ -9,6 +9,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Map;
@@ -34,8 +35,9 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(0); // Start off with empty buffer.
-    private final Buffer output  = new Buffer(0); // Start off with empty buffer.
+    private final Buffer input   = new Buffer(0, BufferPool.shared()); // Start off with empty buffer.
+    private final Buffer output  = new Buffer(0, BufferPool.shared()); // Start off with empty buffer.
+    private final ArrayDeque<ByteBuffer> gathered = new ArrayDeque<>(); // Written after output.
     private final int maxInputSize;
     private final int maxOutputSize;
     private final boolean dropEmptyBuffers;
@@ -44,7 +46,7 @@ class Connection extends Target {
     private final Map<TargetWatcher, TargetWatcher> watchers = new IdentityHashMap<>();
     private int writeWork  = 0;
     private boolean pendingHandshakeWork = false;
-    private final TransportThread parent;
+    private volatile TransportThread parent;
     private final Supervisor owner;
     private final Spec spec;
     private CryptoSocket socket;
@@ -53,6 +55,7 @@ class Connection extends Target {
     private final AtomicLong requestId = new AtomicLong(0);
     private SelectionKey selectionKey;
     private Exception lostReason = null;
+    private long ioEvents = 0;
 
     private void setState(int state) {
         if (state <= this.state) {
@@ -190,6 +193,45 @@ class Connection extends Target {
         return true;
     }
 
+    /** Returns whether this may be moved to another transport thread; only connected connections without handshake work may. */
+    boolean isMovable() {
+        return state == CONNECTED && ! pendingHandshakeWork && selectionKey != null && selectionKey.isValid();
+    }
+
+    SelectionKey selectionKey() {
+        return selectionKey;
+    }
+
+    /**
+     * Hands this connection to the given transport thread. The current transport thread must cancel its
+     * selection key, and forward any later commands for this connection to the new thread.
+     */
+    void moveTo(TransportThread thread) {
+        parent = thread;
+    }
+
+    /** Registers this with the selector of the transport thread it was moved to, with the interest it had before. */
+    boolean register(Selector selector, int interestOps) {
+        try {
+            selectionKey = socket.channel().register(selector, interestOps, this);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Error moving connection", e);
+            setLostReason(e);
+            return false;
+        }
+        return true;
+    }
+
+    /** Counts an IO event on this, in the transport thread. */
+    void countIoEvent() { ioEvents++; }
+
+    /** Returns the number of IO events counted on this since the last call, in the transport thread. */
+    long takeIoEvents() {
+        long events = ioEvents;
+        ioEvents = 0;
+        return events;
+    }
+
     public void enableRead() {
         selectionKey.interestOps(selectionKey.interestOps()
                                  | SelectionKey.OP_READ);
@@ -321,17 +363,27 @@ class Connection extends Target {
             queue.flush(myQueue);
         }
         for (int i = 0; i < WRITE_REDO; i++) {
-            while (output.bytes() < WRITE_SIZE) {
+            while (gathered.isEmpty() && output.bytes() < WRITE_SIZE) {
                 Packet packet = (Packet) myQueue.dequeue();
                 if (packet == null) {
                     break;
                 }
                 PacketInfo info = packet.getPacketInfo();
-                ByteBuffer wb = output.getWritable(info.packetLength());
                 owner.writePacket(info);
-                info.encodePacket(packet, wb);
+                if (info.packetLength() >= GatheringOutput.MIN_GATHER_SIZE && !info.reverseByteOrder()) {
+                    info.encodePacket(packet, new GatheringOutput(output, gathered, info.packetLength()));
+                } else {
+                    ByteBuffer wb = output.getWritable(info.packetLength());
+                    info.encodePacket(packet, wb);
+                }
             }
             ByteBuffer rb = output.getReadable();
+            if (!gathered.isEmpty()) {
+                if (!writeGathered(rb)) {
+                    break;
+                }
+                continue;
+            }
             if (rb.remaining() == 0) {
                 break;
             }
@@ -341,7 +393,7 @@ class Connection extends Target {
             }
         }
         int myWriteWork = 0;
-        if (output.bytes() > 0) {
+        if (output.bytes() > 0 || !gathered.isEmpty()) {
             myWriteWork++;
         }
         if (socket.flush() == CryptoSocket.FlushResult.NEED_WRITE) {
@@ -366,6 +418,27 @@ class Connection extends Target {
         }
     }
 
+    /**
+     * Writes the output buffer followed by the gathered buffers in one
+     * gathering write, and returns whether everything was written.
+     */
+    private boolean writeGathered(ByteBuffer rb) throws IOException {
+        ByteBuffer[] srcs = new ByteBuffer[gathered.size() + 1];
+        srcs[0] = rb;
+        int i = 1;
+        for (ByteBuffer buffer : gathered) {
+            srcs[i++] = buffer;
+        }
+        socket.write(srcs);
+        if (rb.hasRemaining()) {
+            return false;
+        }
+        while (!gathered.isEmpty() && !gathered.peekFirst().hasRemaining()) {
+            gathered.removeFirst();
+        }
+        return gathered.isEmpty();
+    }
+
     public void handleWriteEvent() throws IOException {
         if (state == CONNECTED) {
             write();
@@ -381,6 +454,9 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
+        gathered.clear();
     }
 
     public boolean isClosed() {
@@ -83,6 +83,23 @@ public interface CryptoSocket {
      **/
     public int write(ByteBuffer src) throws IOException;
 
+    /**
+     * Like {@link #write(ByteBuffer)}, but writes from a sequence of
+     * buffers, in order, like a gathering write. The default
+     * implementation writes the buffers one at a time, until one is
+     * not completely written.
+     **/
+    public default long write(ByteBuffer[] srcs) throws IOException {
+        long written = 0;
+        for (ByteBuffer src : srcs) {
+            written += write(src);
+            if (src.hasRemaining()) {
+                break;
+            }
+        }
+        return written;
+    }
+
     public enum FlushResult { DONE, NEED_WRITE }
 
     /**
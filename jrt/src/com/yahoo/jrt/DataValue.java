@@ -6,7 +6,9 @@ import java.nio.ByteBuffer;
 
 
 /**
- * Data value (a sequence of bytes)
+ * Data value (a sequence of bytes). Large values are written to the
+ * network directly from the given array, so it must not be modified
+ * after the value is added to a request or response.
  **/
 public class DataValue extends Value
 {
@@ -41,6 +43,11 @@ public class DataValue extends Value
         dst.putInt(value.length);
         dst.put(value);
     }
+    @Override
+    void encode(GatheringOutput dst) {
+        dst.reserve(4).putInt(value.length);
+        dst.put(value);
+    }
 
     public byte[] asData() { return value; }
 
@@ -0,0 +1,87 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+
+/**
+ * The encoding of a packet as a sequence of buffers, for a gathering
+ * write. Large data values are written from their own arrays, rather
+ * than copied into the output buffer of the connection. Everything
+ * before the first large data value is encoded into the output buffer,
+ * and everything between and after large data values into small heap
+ * buffers.
+ **/
+class GatheringOutput {
+
+    /** Data values at least this large are written from their own arrays. */
+    static final int MIN_GATHER_SIZE = 16 * 1024;
+
+    private static final int SEGMENT_SIZE = 4 * 1024;
+
+    private final Buffer output;
+    private final ArrayDeque<ByteBuffer> segments;
+    private int remaining;
+    private boolean gathered = false;
+    private ByteBuffer segment = null;
+
+    /**
+     * @param output the output buffer of the connection
+     * @param segments where to add buffers which should be written after the output buffer, in order
+     * @param bytes the number of bytes which will be encoded
+     **/
+    GatheringOutput(Buffer output, ArrayDeque<ByteBuffer> segments, int bytes) {
+        this.output = output;
+        this.segments = segments;
+        this.remaining = bytes;
+    }
+
+    /**
+     * Returns a buffer where the given number of bytes should be encoded next.
+     *
+     * @param bytes the number of bytes to encode
+     **/
+    ByteBuffer reserve(int bytes) {
+        remaining -= bytes;
+        if (!gathered) {
+            return output.getWritable(bytes);
+        }
+        if (segment == null || segment.remaining() < bytes) {
+            flushSegment();
+            segment = ByteBuffer.allocate(Math.max(bytes, Math.min(remaining + bytes, SEGMENT_SIZE)));
+        }
+        return segment;
+    }
+
+    /**
+     * Adds the given data next, without copying it if it is large.
+     *
+     * @param data the data to add
+     **/
+    void put(byte[] data) {
+        if (data.length < MIN_GATHER_SIZE) {
+            reserve(data.length).put(data);
+            return;
+        }
+        remaining -= data.length;
+        flushSegment();
+        segments.add(ByteBuffer.wrap(data));
+        gathered = true;
+    }
+
+    /** Completes the encoding, adding the last small buffer, if any. */
+    void finish() {
+        flushSegment();
+    }
+
+    private void flushSegment() {
+        if (segment != null) {
+            segment.flip();
+            segments.add(segment);
+            segment = null;
+        }
+    }
+
+}
@@ -129,6 +129,7 @@ public class MaybeTlsCryptoSocket implements CryptoSocket {
     @Override public int read(ByteBuffer dst) throws IOException { return socket.read(dst); }
     @Override public int drain(ByteBuffer dst) throws IOException { return socket.drain(dst); }
     @Override public int write(ByteBuffer src) throws IOException { return socket.write(src); }
+    @Override public long write(ByteBuffer[] srcs) throws IOException { return socket.write(srcs); }
     @Override public FlushResult flush() throws IOException { return socket.flush(); }
     @Override public void dropEmptyBuffers() { socket.dropEmptyBuffers(); }
     @Override public ConnectionAuthContext connectionAuthContext() { return socket.connectionAuthContext(); }
@@ -44,6 +44,16 @@ abstract class Packet
     public abstract int packetCode();
     public abstract void encode(ByteBuffer dst);
 
+    /**
+     * Encodes the body of this packet for a gathering write. Packets
+     * which may contain large data values override this.
+     *
+     * @param dst where to encode the packet body
+     **/
+    void encode(GatheringOutput dst) {
+        encode(dst.reserve(bytes() - headerLength));
+    }
+
     public PacketInfo getPacketInfo() {
         return new PacketInfo(bytes(), flags, packetCode(), requestId);
     }
@@ -106,4 +106,22 @@ class PacketInfo
             dst.limit(limit);
         }
     }
+
+    /**
+     * Encodes a packet for a gathering write, where large data values
+     * are not copied. Only packets in network byte order may be encoded
+     * like this.
+     **/
+    public void encodePacket(Packet packet, GatheringOutput dst) {
+        if (reverseByteOrder()) {
+            throw new IllegalArgumentException("Gathering writes require network byte order");
+        }
+        ByteBuffer header = dst.reserve(Packet.headerLength);
+        header.putInt(packetLength - 4);
+        header.putShort((short)flags);
+        header.putShort((short)packetCode);
+        header.putInt(requestId);
+        packet.encode(dst);
+        dst.finish();
+    }
 }
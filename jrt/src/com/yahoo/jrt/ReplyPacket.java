@@ -36,6 +36,11 @@ class ReplyPacket extends Packet
         returnValues.encode(dst);
     }
 
+    @Override
+    void encode(GatheringOutput dst) {
+        returnValues.encode(dst);
+    }
+
     public Values returnValues() {
         return returnValues;
     }
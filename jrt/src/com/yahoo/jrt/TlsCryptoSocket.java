@@ -190,12 +190,17 @@ public class TlsCryptoSocket implements CryptoSocket {
 
     @Override
     public int write(ByteBuffer src) throws IOException {
+        return (int) write(new ByteBuffer[] { src });
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
         verifyHandshakeCompleted();
         if (flush() == FlushResult.NEED_WRITE) return 0;
-        int totalBytesWrapped = 0;
+        long totalBytesWrapped = 0;
         int bytesWrapped;
         do {
-            bytesWrapped = applicationDataWrap(src);
+            bytesWrapped = applicationDataWrap(srcs);
             totalBytesWrapped += bytesWrapped;
         } while (bytesWrapped > 0 && wrapBuffer.bytes() < sessionPacketBufferSize);
         return totalBytesWrapped;
@@ -233,8 +238,8 @@ public class TlsCryptoSocket implements CryptoSocket {
         }
     }
 
-    private int applicationDataWrap(ByteBuffer src) throws IOException {
-        SSLEngineResult result = sslEngineWrap(src);
+    private int applicationDataWrap(ByteBuffer[] srcs) throws IOException {
+        SSLEngineResult result = sslEngineWrap(srcs);
         failIfRenegotiationDetected(result);
         switch (result.getStatus()) {
             case OK:
@@ -247,7 +252,11 @@ public class TlsCryptoSocket implements CryptoSocket {
     }
 
     private SSLEngineResult sslEngineWrap(ByteBuffer src) throws IOException {
-        SSLEngineResult result = sslEngine.wrap(src, wrapBuffer.getWritable(sessionPacketBufferSize));
+        return sslEngineWrap(new ByteBuffer[] { src });
+    }
+
+    private SSLEngineResult sslEngineWrap(ByteBuffer[] srcs) throws IOException {
+        SSLEngineResult result = sslEngine.wrap(srcs, wrapBuffer.getWritable(sessionPacketBufferSize));
         failIfCloseSignalDetected(result);
         return result;
     }
@@ -3,6 +3,7 @@ package com.yahoo.jrt;
 
 
 import java.nio.channels.SocketChannel;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -33,6 +34,8 @@ public final class Transport {
     private final TransportMetrics metrics = TransportMetrics.getInstance();
     private final List<TransportThread> threads = new ArrayList<>();
     private final Random rnd = new Random();
+    private volatile boolean rebalancing = false;
+    private volatile long busyPollNanos = 0;
 
     /**
      * Creates a new Transport object with the given fatal error
@@ -79,13 +82,61 @@ public final class Transport {
     // Only for testing
     public Transport() { this("default"); }
 
-    /** Selects and returns a random transport thread. */
+    /**
+     * Sets whether connections should be moved from busy transport threads
+     * to less busy ones, based on measured load. This is off by default.
+     *
+     * @param rebalancing whether to move connections between transport threads
+     * @return this object, to enable chaining
+     */
+    public Transport setRebalancing(boolean rebalancing) {
+        this.rebalancing = rebalancing;
+        return this;
+    }
+
+    /**
+     * Sets for how long transport threads should poll for events without
+     * blocking, before they block in select. This reduces latency, at the
+     * cost of spending CPU on spinning threads. Zero, the default, disables
+     * busy polling.
+     *
+     * @param duration how long to busy poll before blocking
+     * @return this object, to enable chaining
+     */
+    public Transport setBusyPoll(Duration duration) {
+        this.busyPollNanos = duration.toNanos();
+        return this;
+    }
+
+    /**
+     * Selects and returns a random transport thread. With rebalancing,
+     * the less loaded of two random transport threads is returned.
+     */
     public TransportThread selectThread() {
-        return threads.get(rnd.nextInt(threads.size()));
+        TransportThread thread = threads.get(rnd.nextInt(threads.size()));
+        if (rebalancing && threads.size() > 1) {
+            TransportThread other = threads.get(rnd.nextInt(threads.size()));
+            if (other.load() < thread.load()) {
+                thread = other;
+            }
+        }
+        return thread;
+    }
+
+    TransportThread leastLoadedThread() {
+        TransportThread leastLoaded = threads.get(0);
+        for (TransportThread thread : threads) {
+            if (thread.load() < leastLoaded.load()) {
+                leastLoaded = thread;
+            }
+        }
+        return leastLoaded;
     }
 
     boolean getTcpNoDelay() { return tcpNoDelay; }
     int getEventsBeforeWakeup() { return eventsBeforeWakeup; }
+    boolean getRebalancing() { return rebalancing; }
+    long getBusyPollNanos() { return busyPollNanos; }
 
     public String getName() { return name; }
 
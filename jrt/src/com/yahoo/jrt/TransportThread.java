@@ -4,7 +4,9 @@ package com.yahoo.jrt;
 import java.io.IOException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,6 +20,15 @@ public class TransportThread {
     private static final int CLOSING = 2;
     private static final int CLOSED  = 3;
 
+    /** How often load is measured, and connections possibly moved to other threads. */
+    private static final double LOAD_PERIOD = 1.0;
+    /** How much of the previous load measurement is kept in the next. */
+    private static final double LOAD_DECAY = 0.5;
+    /** Connections are moved away from this thread only when its load is at least this high. */
+    private static final double MIN_MOVE_LOAD = 0.5;
+    /** Connections are moved away from this thread only when its load is this much higher than another's. */
+    private static final double MIN_MOVE_IMBALANCE = 0.2;
+
     private class Run implements Runnable {
         public void run() {
             try {
@@ -40,6 +51,13 @@ public class TransportThread {
         public void run() { handleCloseConnection(conn); }
     }
 
+    private class AdoptConnectionCmd implements Runnable {
+        private final Connection conn;
+        private final int interestOps;
+        AdoptConnectionCmd(Connection conn, int interestOps) { this.conn = conn; this.interestOps = interestOps; }
+        public void run() { handleAdoptConnection(conn, interestOps); }
+    }
+
     private class EnableWriteCmd implements Runnable {
         private final Connection conn;
         EnableWriteCmd(Connection conn) { this.conn = conn; }
@@ -74,6 +92,11 @@ public class TransportThread {
     private final Scheduler scheduler;
     private int             state;
     private final Selector  selector;
+    private final Task      loadTask;
+    private long            busyNanos = 0;
+    private long            loadPeriodStart = System.nanoTime();
+    private long            commands = 0;
+    private volatile double load = 0;
 
     private void handleAddConnection(Connection conn) {
         if (conn.isClosed()) {
@@ -87,7 +110,20 @@ public class TransportThread {
         }
     }
 
+    private void handleAdoptConnection(Connection conn, int interestOps) {
+        if (conn.isClosed()) {
+            return;
+        }
+        if (!conn.register(selector, interestOps)) {
+            handleCloseConnection(conn);
+        }
+    }
+
     private void handleCloseConnection(Connection conn) {
+        if (conn.transportThread() != this) { // moved to another thread
+            conn.transportThread().closeConnection(conn);
+            return;
+        }
         if (conn.isClosed()) {
             return;
         }
@@ -98,6 +134,10 @@ public class TransportThread {
     }
 
     private void handleEnableWrite(Connection conn) {
+        if (conn.transportThread() != this) { // moved to another thread
+            conn.transportThread().enableWrite(conn);
+            return;
+        }
         if (conn.isClosed()) {
             return;
         }
@@ -137,7 +177,133 @@ public class TransportThread {
         }
         while (!myQueue.isEmpty()) {
             ((Runnable)myQueue.dequeue()).run();
+            commands++;
+        }
+    }
+
+    private synchronized boolean hasEvents() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Waits for I/O or internal events. If busy polling is enabled, this first
+     * polls for events without blocking, for at most the configured duration.
+     */
+    private void select() throws IOException {
+        long busyPollNanos = parent.getBusyPollNanos();
+        if (busyPollNanos > 0) {
+            long end = System.nanoTime() + busyPollNanos;
+            do {
+                if (selector.selectNow() > 0 || hasEvents()) {
+                    return;
+                }
+                Thread.onSpinWait();
+            } while (System.nanoTime() < end);
+        }
+        selector.select(100);
+    }
+
+    /**
+     * Measures the load of this thread, as the fraction of time spent
+     * outside of select, and moves a connection to the least loaded
+     * thread if rebalancing is enabled and this thread is much busier.
+     */
+    private void updateLoad() {
+        long now = System.nanoTime();
+        double busy = Math.min(1.0, (double) busyNanos / Math.max(1, now - loadPeriodStart));
+        load = LOAD_DECAY * load + (1 - LOAD_DECAY) * busy;
+        busyNanos = 0;
+        loadPeriodStart = now;
+
+        List<Connection> connections = new ArrayList<>();
+        List<Long> events = new ArrayList<>();
+        long totalEvents = 0;
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Connection conn) {
+                connections.add(conn);
+                events.add(conn.takeIoEvents());
+                totalEvents += events.get(events.size() - 1);
+            }
+        }
+        int queueSize;
+        synchronized (this) {
+            queueSize = queue.size();
+        }
+        parent.metrics().updateThreadLoad(this, new TransportMetrics.ThreadLoad(thread.getName(), load, connections.size(),
+                                                                                queueSize, commands));
+        commands = 0;
+        if (parent.getRebalancing() && totalEvents > 0) {
+            rebalance(connections, events, totalEvents);
         }
+        loadTask.schedule(LOAD_PERIOD);
+    }
+
+    /**
+     * Moves the busiest connection which takes at most half of the load difference
+     * between this and the least loaded thread, to the least loaded thread.
+     * The load of each connection is estimated from its share of the I/O events.
+     */
+    private void rebalance(List<Connection> connections, List<Long> events, long totalEvents) {
+        TransportThread target = parent.leastLoadedThread();
+        double imbalance = load - target.load();
+        if (target == this || load < MIN_MOVE_LOAD || imbalance < MIN_MOVE_IMBALANCE) {
+            return;
+        }
+        Connection busiest = null;
+        double busiestLoad = 0;
+        for (int i = 0; i < connections.size(); i++) {
+            double connLoad = load * events.get(i) / totalEvents;
+            if (connLoad > busiestLoad && connLoad <= imbalance / 2 && connections.get(i).isMovable()) {
+                busiest = connections.get(i);
+                busiestLoad = connLoad;
+            }
+        }
+        if (busiest != null) {
+            moveConnectionNow(busiest, target);
+        }
+    }
+
+    /**
+     * Moves a connection handled by this thread to the given thread. The
+     * connection is handed over under the lock of the command queue of the
+     * other thread, after the command which registers it there, so any
+     * command for the connection posted to the other thread runs after it
+     * is registered, and any posted to this thread is forwarded.
+     */
+    private void moveConnectionNow(Connection conn, TransportThread target) {
+        SelectionKey key = conn.selectionKey();
+        if (!target.adoptConnection(conn, key.interestOps())) {
+            return;
+        }
+        key.cancel();
+        parent.metrics().incrementConnectionsMoved();
+    }
+
+    /**
+     * Requests that a connection handled by this thread is moved to the
+     * given thread, if it is movable. Rebalancing does this automatically.
+     *
+     * @param conn the connection to move
+     * @param target the thread to move the connection to
+     */
+    void moveConnection(Connection conn, TransportThread target) {
+        perform(() -> {
+            if (conn.transportThread() == this && conn.isMovable() && target != this) {
+                moveConnectionNow(conn, target);
+            }
+        });
+    }
+
+    private boolean adoptConnection(Connection conn, int interestOps) {
+        synchronized (this) {
+            if (state != OPEN) {
+                return false;
+            }
+            queue.enqueue(new AdoptConnectionCmd(conn, interestOps));
+            conn.moveTo(this);
+        }
+        selector.wakeup();
+        return true;
     }
 
     private boolean handleIOEvents(Connection conn,
@@ -170,12 +336,14 @@ public class TransportThread {
         queue     = new Queue();
         myQueue   = new Queue();
         scheduler = new Scheduler(System.currentTimeMillis());
+        loadTask  = new Task(scheduler, this::updateLoad);
         state     = OPEN;
         try {
             selector = Selector.open();
         } catch (Exception e) {
             throw new Error("Could not open transport selector", e);
         }
+        loadTask.schedule(LOAD_PERIOD);
         thread.setDaemon(true);
         thread.start();
     }
@@ -184,6 +352,11 @@ public class TransportThread {
         return parent;
     }
 
+    /** Returns the measured load of this thread, as the smoothed fraction of time spent handling events. */
+    public double load() {
+        return load;
+    }
+
     /**
      * Proxy method used to dispatch fatal errors to the enclosing
      * Transport.
@@ -312,10 +485,11 @@ public class TransportThread {
 
             // perform I/O selection
             try {
-                selector.select(100);
+                select();
             } catch (IOException e) {
                 log.log(Level.WARNING, "error during select", e);
             }
+            long start = System.nanoTime();
 
             // handle internal events
             handleEvents();
@@ -326,6 +500,7 @@ public class TransportThread {
                 SelectionKey key = keys.next();
                 Connection conn = (Connection) key.attachment();
                 keys.remove();
+                conn.countIoEvent();
                 if (!handleIOEvents(conn, key)) {
                     handleCloseConnection(conn);
                 }
@@ -333,6 +508,7 @@ public class TransportThread {
 
             // check scheduled tasks
             scheduler.checkTasks(System.currentTimeMillis());
+            busyNanos += System.nanoTime() - start;
         }
         synchronized (this) {
             state = CLOSED;
@@ -341,10 +517,14 @@ public class TransportThread {
         Iterator<SelectionKey> keys = selector.keys().iterator();
         while (keys.hasNext()) {
             SelectionKey key = keys.next();
+            if (!key.isValid()) { // closed, or moved to another thread
+                continue;
+            }
             Connection conn = (Connection) key.attachment();
             handleCloseConnection(conn);
         }
         try { selector.close(); } catch (Exception e) {}
+        parent.metrics().removeThreadLoad(this);
         parent.notifyDone(this);
     }
 
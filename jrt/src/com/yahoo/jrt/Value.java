@@ -100,6 +100,16 @@ public abstract class Value
      **/
     abstract void encode(ByteBuffer dst);
 
+    /**
+     * Encode this value for a gathering write. Only data values are
+     * written from their own storage, other values are copied.
+     *
+     * @param dst where to encode this value
+     **/
+    void encode(GatheringOutput dst) {
+        encode(dst.reserve(bytes()));
+    }
+
     /**
      * Decode a value from the given buffer. This method also acts as
      * a factory for value objects
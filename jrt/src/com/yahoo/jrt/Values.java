@@ -110,6 +110,22 @@ public class Values
         }
     }
 
+    /**
+     * Encode this value sequence for a gathering write
+     *
+     * @param dst where to encode this value sequence
+     **/
+    void encode(GatheringOutput dst) {
+        ByteBuffer types = dst.reserve(4 + values.size());
+        types.putInt(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            types.put(get(i).type());
+        }
+        for (int i = 0; i < values.size(); i++) {
+            get(i).encode(dst);
+        }
+    }
+
     /**
      * Decode a value sequence from the given buffer into this object
      *
@@ -0,0 +1,105 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static com.yahoo.jrt.CryptoUtils.createTestTlsContext;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the bytes allocated on the heap, by all threads, per echoed data payload,
+ * to see the effect of pooled buffers and gathering writes.
+ */
+@org.junit.Ignore // Enable for benchmarking
+public class AllocationRateTest {
+
+    private static final Logger log = Logger.getLogger(AllocationRateTest.class.getName());
+
+    private static class Network implements AutoCloseable {
+        private final Supervisor server;
+        private final Supervisor client;
+        private final Acceptor acceptor;
+        private final Target target;
+        public Network(CryptoEngine crypto, boolean dropEmpty) throws ListenFailedException {
+            server = new Supervisor(new Transport("server", crypto, 1));
+            client = new Supervisor(new Transport("client", crypto, 1));
+            server.setDropEmptyBuffers(dropEmpty);
+            client.setDropEmptyBuffers(dropEmpty);
+            server.addMethod(new Method("echo", "x", "x", this::rpc_echo));
+            acceptor = server.listen(new Spec(0));
+            target = client.connect(new Spec("localhost", acceptor.port()));
+        }
+        private void rpc_echo(Request req) {
+            req.returnValues().add(new DataValue(req.parameters().get(0).asData()));
+        }
+        public void echo(byte[] payload) {
+            Request req = new Request("echo");
+            req.parameters().add(new DataValue(payload));
+            target.invokeSync(req, Duration.ofSeconds(60));
+            assertFalse(req.errorMessage(), req.isError());
+            assertArrayEquals(payload, req.returnValues().get(0).asData());
+        }
+        public void close() {
+            target.close();
+            acceptor.shutdown().join();
+            client.transport().shutdown().join();
+            server.transport().shutdown().join();
+        }
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds())).filter(bytes -> bytes > 0).sum();
+    }
+
+    private void measureAllocationRate(String prefix, CryptoEngine crypto, boolean dropEmpty, int payloadSize) throws ListenFailedException {
+        byte[] payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'x');
+        int requests = Math.min(10_000, Math.max(100, 64 * 1024 * 1024 / payloadSize));
+        try (Network network = new Network(crypto, dropEmpty)) {
+            for (int i = 0; i < requests / 10; i++) {
+                network.echo(payload);
+            }
+            long allocatedBefore = allocatedBytes();
+            long buffersBefore = BufferPool.shared().allocated();
+            long reusedBefore = BufferPool.shared().reused();
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                network.echo(payload);
+            }
+            double seconds = (System.nanoTime() - start) * 1e-9;
+            long allocated = allocatedBytes() - allocatedBefore;
+            log.info(prefix + payloadSize + " byte payloads: " + (allocated / requests) + " bytes allocated per request, " +
+                     (long) (allocated / seconds / 1024 / 1024) + " MiB/s, " +
+                     (BufferPool.shared().allocated() - buffersBefore) + " buffers allocated, " +
+                     (BufferPool.shared().reused() - reusedBefore) + " buffers reused");
+            if (dropEmpty) {
+                assertTrue(BufferPool.shared().reused() > reusedBefore);
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void testNullCryptoAllocationRate() throws ListenFailedException {
+        measureAllocationRate("null crypto: ", new NullCryptoEngine(), false, 100);
+        measureAllocationRate("null crypto: ", new NullCryptoEngine(), false, 1024 * 1024);
+    }
+
+    @org.junit.Test
+    public void testNullCryptoWithDropEmptyBuffersAllocationRate() throws ListenFailedException {
+        measureAllocationRate("null crypto, drop empty buffers: ", new NullCryptoEngine(), true, 100);
+        measureAllocationRate("null crypto, drop empty buffers: ", new NullCryptoEngine(), true, 1024 * 1024);
+    }
+
+    @org.junit.Test
+    public void testTlsCryptoAllocationRate() throws ListenFailedException {
+        measureAllocationRate("tls crypto: ", new TlsCryptoEngine(createTestTlsContext()), false, 100);
+        measureAllocationRate("tls crypto: ", new TlsCryptoEngine(createTestTlsContext()), false, 1024 * 1024);
+    }
+
+}
@@ -222,4 +222,49 @@ public class BufferTest {
         }
     }
 
+    @org.junit.Test
+    public void testPooledBuffer() {
+        BufferPool pool = new BufferPool();
+        Buffer buf = new Buffer(0, pool);
+        assertEquals(0, buf.getReadable().capacity());
+
+        ByteBuffer b = buf.getWritable(10);
+        assertTrue(b.isDirect());
+        assertEquals(BufferPool.MIN_SIZE, b.capacity());
+        b.put((byte)10);
+        b = buf.getWritable(BufferPool.MIN_SIZE);
+        assertEquals(2 * BufferPool.MIN_SIZE, b.capacity());
+        assertEquals(0, pool.reused());
+        assertEquals(2, pool.allocated());
+        assertEquals(BufferPool.MIN_SIZE, pool.retained());
+
+        b = buf.getReadable();
+        assertEquals(10, b.get());
+        assertTrue(buf.shrink(0));
+        assertEquals(3 * BufferPool.MIN_SIZE, pool.retained());
+
+        b = buf.getWritable(2 * BufferPool.MIN_SIZE);
+        assertEquals(2 * BufferPool.MIN_SIZE, b.capacity());
+        assertEquals(1, pool.reused());
+        buf.release();
+        assertEquals(0, buf.bytes());
+        assertEquals(3 * BufferPool.MIN_SIZE, pool.retained());
+
+        b = buf.getWritable(4 * 1024 * 1024);
+        assertTrue(b.isDirect());
+        assertEquals(4 * 1024 * 1024, b.capacity());
+        buf.release();
+        assertEquals(3 * BufferPool.MIN_SIZE + 4 * 1024 * 1024, pool.retained());
+        b = buf.getWritable(3 * 1024 * 1024);
+        assertEquals(4 * 1024 * 1024, b.capacity());
+        assertEquals(2, pool.reused());
+        buf.release();
+        assertEquals(3 * BufferPool.MIN_SIZE + 4 * 1024 * 1024, pool.retained());
+
+        b = buf.getWritable(2 * BufferPool.MAX_SIZE);
+        assertFalse(b.isDirect());
+        buf.release();
+        assertEquals(3 * BufferPool.MIN_SIZE + 4 * 1024 * 1024, pool.retained());
+    }
+
 }
@@ -166,4 +166,28 @@ public class EchoTest {
             connAuthCtxAssertion.assertConnectionAuthContext(connAuthCtx);
         }
     }
+
+    @org.junit.Test
+    public void testEchoLargeData() {
+        server.addMethod(new Method("echo_data", "*", "*", req -> {
+            for (int i = 0; i < req.parameters().size(); i++) {
+                req.returnValues().add(req.parameters().get(i));
+            }
+        }));
+        byte[] large = new byte[100_000];
+        byte[] larger = new byte[1_000_000];
+        for (int i = 0; i < larger.length; i++) {
+            larger[i] = (byte) i;
+            if (i < large.length) large[i] = (byte) (i * 7);
+        }
+        Request req = new Request("echo_data");
+        req.parameters().add(new Int32Value(1));
+        req.parameters().add(new DataValue(large));
+        req.parameters().add(new StringValue("between"));
+        req.parameters().add(new DataValue(larger));
+        req.parameters().add(new DataValue(new byte[] { 1, 2, 3 }));
+        target.invokeSync(req, Duration.ofSeconds(60));
+        assertTrue(req.checkReturnTypes("ixsxx"));
+        assertTrue(Test.equals(req.returnValues(), req.parameters()));
+    }
 }
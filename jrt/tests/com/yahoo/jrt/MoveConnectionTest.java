@@ -0,0 +1,115 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+
+import org.junit.After;
+import org.junit.Before;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MoveConnectionTest {
+
+    Supervisor server;
+    Acceptor   acceptor;
+    Supervisor client;
+    Connection target;
+
+    @Before
+    public void setUp() throws ListenFailedException {
+        server   = new Supervisor(new Transport("server", 2));
+        client   = new Supervisor(new Transport("client", 2).setBusyPoll(Duration.ofMillis(1)));
+        acceptor = server.listen(new Spec(0));
+        target   = (Connection) client.connect(new Spec("localhost", acceptor.port()));
+
+        server.addMethod(new Method("inc", "i", "i", this::rpc_inc)
+                         .methodDesc("Increase a value")
+                         .paramDesc(0, "value", "the value to increase")
+                         .returnDesc(0, "value", "the increased value"));
+    }
+
+    @After
+    public void tearDown() {
+        target.close();
+        acceptor.shutdown().join();
+        client.transport().shutdown().join();
+        server.transport().shutdown().join();
+    }
+
+    private void rpc_inc(Request req) {
+        req.returnValues().add(new Int32Value(req.parameters().get(0).asInt32() + 1));
+    }
+
+    private void invokeAndCheck(int value) {
+        Request req = new Request("inc");
+        req.parameters().add(new Int32Value(value));
+        target.invokeSync(req, Duration.ofSeconds(60));
+        assertFalse(req.errorMessage(), req.isError());
+        assertEquals(value + 1, req.returnValues().get(0).asInt32());
+    }
+
+    private TransportThread otherThread(TransportThread thread) {
+        TransportThread other = client.transport().selectThread();
+        while (other == thread) {
+            other = client.transport().selectThread();
+        }
+        return other;
+    }
+
+    @org.junit.Test
+    public void testConnectionIsMovedBetweenTransportThreads() {
+        TransportMetrics.Snapshot before = client.transport().metrics().snapshot();
+        invokeAndCheck(0);
+
+        TransportThread original = target.transportThread();
+        TransportThread other = otherThread(original);
+        original.moveConnection(target, other);
+        original.sync();
+        other.sync();
+        assertSame(other, target.transportThread());
+        assertEquals(1, client.transport().metrics().snapshot().changesSince(before).connectionsMoved());
+
+        for (int i = 1; i < 100; i++) {
+            invokeAndCheck(i);
+        }
+
+        other.moveConnection(target, original);
+        other.sync();
+        original.sync();
+        assertSame(original, target.transportThread());
+        invokeAndCheck(100);
+        assertTrue(target.isValid());
+    }
+
+    @org.junit.Test
+    public void testConnectionIsNotMovedByOtherThread() {
+        invokeAndCheck(0);
+        TransportThread owner = target.transportThread();
+        TransportThread other = otherThread(owner);
+        other.moveConnection(target, owner);
+        other.sync();
+        assertSame(owner, target.transportThread());
+        assertNotSame(other, target.transportThread());
+        invokeAndCheck(1);
+    }
+
+    @org.junit.Test
+    public void testThreadLoadIsMeasured() throws InterruptedException {
+        invokeAndCheck(0);
+        long end = System.currentTimeMillis() + 60_000;
+        while (client.transport().metrics().threadLoads().stream().noneMatch(load -> load.thread().startsWith("client."))) {
+            assertTrue(System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+        for (TransportMetrics.ThreadLoad load : client.transport().metrics().threadLoads()) {
+            assertTrue(load.load() >= 0 && load.load() <= 1);
+            assertTrue(load.connections() >= 0);
+        }
+    }
+
+}
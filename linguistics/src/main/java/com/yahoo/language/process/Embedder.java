@@ -7,6 +7,7 @@ import com.yahoo.language.Language;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -68,6 +69,24 @@ public interface Embedder {
      */
     Tensor embed(String text, Context context, TensorType tensorType);
 
+    /**
+     * Converts a batch of texts into tensors.
+     * Embedders which are able to embed several texts in a single model invocation should override this.
+     * The default implementation embeds each text separately.
+     *
+     * @param texts the texts to embed
+     * @param context the context which may influence an embedder's behavior
+     * @param tensorType the type of the tensors to be returned
+     * @return the tensor embeddings of the texts, in the same order as the texts
+     * @throws IllegalArgumentException if the language or tensor type is not supported by this embedder
+     */
+    default List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+        List<Tensor> embeddings = new ArrayList<>(texts.size());
+        for (String text : texts)
+            embeddings.add(embed(text, context, tensorType));
+        return embeddings;
+    }
+
     /**
      * Runtime that is injectable through {@link Embedder} constructor.
      */
@@ -78,6 +97,31 @@ public interface Embedder {
         void sampleEmbeddingLatency(double millis, Context ctx);
         /** Add a sample embedding length to this */
         void sampleSequenceLength(long length, Context ctx);
+        /** Add a sample of the number of texts embedded in a single model invocation to this */
+        default void sampleBatchSize(long size, Context ctx) { }
+        /** Add a sample of the time an embedding waited to be batched with others to this */
+        default void sampleBatchWaitLatency(double millis, Context ctx) { }
+
+        /**
+         * Returns the embedding of the given text to the given type from a cache shared between requests,
+         * or null if it is not present. The default implementation caches nothing.
+         */
+        default Tensor getCachedEmbedding(String text, TensorType type, Context ctx) { return null; }
+
+        /** Adds the embedding of the given text to the given type to the cache shared between requests, if any */
+        default void putCachedEmbedding(String text, TensorType type, Context ctx, Tensor embedding) { }
+
+        /**
+         * Returns the embedding of the given text to the given type from the cache shared between requests,
+         * or computes and caches it if not present.
+         */
+        default Tensor computeCachedEmbeddingIfAbsent(String text, TensorType type, Context ctx, Supplier<Tensor> embedder) {
+            Tensor cached = getCachedEmbedding(text, type, ctx);
+            if (cached != null) return cached;
+            Tensor embedding = embedder.get();
+            putCachedEmbedding(text, type, ctx, embedding);
+            return embedding;
+        }
 
         static Runtime testInstance() {
             return new Runtime() {
@@ -0,0 +1,238 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.concurrent.SystemTimer;
+import com.yahoo.concurrent.Timer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This is an implementation of the {@link ThrottlePolicy} that limits the number of pending messages a
+ * {@link SourceSession} is allowed to have, the <em>window size</em>, based on the latency of replies.
+ * <p>
+ * Latency is compared to the minimum latency seen recently, which estimates the latency of an unloaded server.
+ * When latency is close to this minimum, messages are not queued at the server, and the window grows; as latency
+ * grows beyond this minimum, which means messages are queued, the window shrinks proportionally to the ratio of the two,
+ * i.e., the <em>delay gradient</em>, plus a queue allowance of the square root of the window size. The window thus
+ * settles where only a short queue builds at the server, which is where throughput peaks, and latency is still low.
+ * Unlike the {@link DynamicThrottlePolicy}, this does not depend on throughput measurements, so it is not thrown off
+ * by throughput varying for other reasons, e.g., when content nodes flush or merge.
+ * </p><p>
+ * The minimum latency is tracked over two consecutive periods, so it may increase again if the server becomes slower.
+ * The window is not increased while the session does not use most of it, as latency then says little about whether
+ * a larger window is useful, and transient errors, typically because the server is overloaded, make it back off.
+ * </p><p>
+ * The window size, latencies and number of each decision are exposed, so users of this may report them as metrics.
+ * </p>
+ */
+public class LatencyThrottlePolicy extends StaticThrottlePolicy {
+
+    /** The reason for the last change to the window size. */
+    public enum Decision { none, increase, decrease, hold, applicationLimited, backOff }
+
+    private static final Logger log = Logger.getLogger(LatencyThrottlePolicy.class.getName());
+
+    private final Timer timer;
+    private double tolerance = 1.5;
+    private double smoothing = 0.2;
+    private double windowSizeBackOff = 0.7;
+    private long minLatencyPeriodMillis = 30_000;
+    private double minWindowSize = 1;
+    private double maxWindowSize = Integer.MAX_VALUE;
+    private volatile double windowSize = 16;
+    private volatile double latency = -1;
+    private volatile long minLatency = Long.MAX_VALUE;
+    private volatile long previousMinLatency = Long.MAX_VALUE;
+    private long minLatencyPeriodStart;
+    private int samples = 0;
+    private int maxPending = 0;
+    private boolean backOff = false;
+    private volatile Decision decision = Decision.none;
+    private final AtomicLongArray decisions = new AtomicLongArray(Decision.values().length);
+
+    /** Constructs a new instance of this policy with the default settings. */
+    public LatencyThrottlePolicy() {
+        this(SystemTimer.INSTANCE);
+    }
+
+    /**
+     * Constructs a new instance of this class using the given timer to measure latency.
+     *
+     * @param timer the timer to use
+     */
+    public LatencyThrottlePolicy(Timer timer) {
+        this.timer = timer;
+        this.minLatencyPeriodStart = timer.milliTime();
+    }
+
+    @Override
+    public boolean canSend(Message message, int pendingCount) {
+        if ( ! super.canSend(message, pendingCount)) {
+            return false;
+        }
+        maxPending = Math.max(maxPending, pendingCount + 1);
+        return pendingCount < (int) windowSize;
+    }
+
+    @Override
+    public void processReply(Reply reply) {
+        super.processReply(reply);
+        for (int i = 0; i < reply.getNumErrors(); i++) {
+            if (ErrorCode.isTransient(reply.getError(i).getCode())) {
+                backOff = true;
+            }
+        }
+        Message message = reply.getMessage();
+        if (message != null && ! reply.hasErrors()) {
+            long sample = Math.max(1, timer.milliTime() - message.getTimeReceived());
+            updateMinLatency(sample);
+            latency = latency < 0 ? sample : latency + (sample - latency) / windowSize;
+        }
+        if (++samples >= windowSize) {
+            resize();
+        }
+    }
+
+    /** Tracks the minimum latency over the current and the previous period, so it may increase again. */
+    private void updateMinLatency(long sample) {
+        long now = timer.milliTime();
+        if (now - minLatencyPeriodStart >= minLatencyPeriodMillis) {
+            minLatencyPeriodStart = now;
+            previousMinLatency = minLatency;
+            minLatency = Long.MAX_VALUE;
+        }
+        minLatency = Math.min(minLatency, sample);
+    }
+
+    /** Resizes the window based on what was observed since the last resize, which was about one window of replies ago. */
+    private void resize() {
+        double oldWindowSize = windowSize;
+        if (backOff) {
+            windowSize *= windowSizeBackOff;
+            decision = Decision.backOff;
+        }
+        else if (latency > 0) {
+            double gradient = Math.max(0.5, Math.min(1, tolerance * getMinLatency() / latency));
+            double target = windowSize * gradient + Math.sqrt(windowSize);
+            if (target > windowSize && maxPending < windowSize / 2) {
+                decision = Decision.applicationLimited;
+            }
+            else {
+                windowSize += smoothing * (target - windowSize);
+                decision = windowSize > oldWindowSize ? Decision.increase : windowSize < oldWindowSize ? Decision.decrease : Decision.hold;
+            }
+        }
+        windowSize = Math.max(minWindowSize, Math.min(maxWindowSize, windowSize));
+        decisions.incrementAndGet(decision.ordinal());
+        log.log(Level.FINE, () -> "windowSize " + windowSize + " latency " + latency + " min latency " + getMinLatency() +
+                                  " max pending " + maxPending + " decision " + decision);
+        samples = 0;
+        maxPending = 0;
+        backOff = false;
+    }
+
+    /**
+     * Sets the ratio between latency and minimum latency which is tolerated before the window shrinks. Capped to [1, ).
+     *
+     * @param tolerance the tolerance to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setTolerance(double tolerance) {
+        this.tolerance = Math.max(1, tolerance);
+        return this;
+    }
+
+    /**
+     * Sets how far the window size moves towards its computed target on each resize. Capped to (0, 1].
+     *
+     * @param smoothing the smoothing to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setSmoothing(double smoothing) {
+        if (smoothing <= 0)
+            throw new IllegalArgumentException("Smoothing must be positive");
+
+        this.smoothing = Math.min(1, smoothing);
+        return this;
+    }
+
+    /**
+     * Sets the factor of window size to back off to when transient errors are observed. Capped to [0, 1].
+     *
+     * @param windowSizeBackOff the back off to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setWindowSizeBackOff(double windowSizeBackOff) {
+        this.windowSizeBackOff = Math.max(0, Math.min(1, windowSizeBackOff));
+        return this;
+    }
+
+    /**
+     * Sets the length of the periods over which the minimum latency is tracked.
+     *
+     * @param millis the period length, in milliseconds
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setMinLatencyPeriod(long millis) {
+        if (millis < 1)
+            throw new IllegalArgumentException("Minimum latency period must be positive");
+
+        this.minLatencyPeriodMillis = millis;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of pending operations allowed at any time.
+     *
+     * @param min the min to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setMinWindowSize(double min) {
+        if (min < 1)
+            throw new IllegalArgumentException("Minimum window size cannot be less than one");
+
+        this.minWindowSize = min;
+        this.windowSize = Math.max(minWindowSize, windowSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pending operations allowed at any time.
+     *
+     * @param max the max to set
+     * @return this, to allow chaining
+     */
+    public LatencyThrottlePolicy setMaxWindowSize(double max) {
+        if (max < 1)
+            throw new IllegalArgumentException("Maximum window size cannot be less than one");
+
+        this.maxWindowSize = max;
+        this.windowSize = Math.min(maxWindowSize, windowSize);
+        return this;
+    }
+
+    public double getMinWindowSize() { return minWindowSize; }
+
+    public double getMaxWindowSize() { return maxWindowSize; }
+
+    /** Returns the current window size. */
+    public double getWindowSize() { return windowSize; }
+
+    /** Returns the smoothed latency of successful replies, in milliseconds, or -1 if none are yet received. */
+    public double getLatency() { return latency; }
+
+    /** Returns the minimum latency seen in the current and previous periods, in milliseconds, or -1 if none are yet received. */
+    public long getMinLatency() {
+        long min = Math.min(minLatency, previousMinLatency);
+        return min == Long.MAX_VALUE ? -1 : min;
+    }
+
+    /** Returns the reason for the last change to the window size. */
+    public Decision getDecision() { return decision; }
+
+    /** Returns the number of times the window was resized with the given decision. */
+    public long getDecisionCount(Decision decision) { return decisions.get(decision.ordinal()); }
+
+}
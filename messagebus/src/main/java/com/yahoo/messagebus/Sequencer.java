@@ -1,10 +1,10 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -12,6 +12,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * linked message handlers. Each message that carries a sequencing id is queued in an internal list of messages for that
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
+ * <p>
+ * The state of each sequence id is only ever modified atomically through the concurrent map holding it, so threads
+ * sending messages with different sequence ids rarely contend for the same lock.
  *
  * @author Simon Thoresen Hult
  */
@@ -19,7 +22,10 @@ public class Sequencer implements MessageHandler, ReplyHandler {
 
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    /** Marks a sequence id with a message in flight, and no queued messages; this is never modified. */
+    private static final Queue<Message> inFlight = new ArrayDeque<>(0);
+
+    private final ConcurrentMap<Long, Queue<Message>> seqMap = new ConcurrentHashMap<>();
     private final Messenger msn;
     private final static ThreadLocal<Boolean> isSending = ThreadLocal.withInitial(() -> Boolean.FALSE);
 
@@ -44,15 +50,13 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
-                        for (Message msg : queue) {
-                            msg.discard();
-                        }
+            for (Long seqId : seqMap.keySet()) {
+                Queue<Message> queue = seqMap.remove(seqId);
+                if (queue != null) {
+                    for (Message msg : queue) {
+                        msg.discard();
                     }
                 }
-                seqMap.clear();
             }
             return true;
         }
@@ -71,19 +75,23 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
-            if (seqMap.containsKey(seqId)) {
-                Queue<Message> queue = seqMap.computeIfAbsent(seqId, k -> new LinkedList<>());
-                if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
-                    msg.getTrace().trace(TraceLevel.COMPONENT,
-                                         "Sequencer queued message with sequence id '" + seqId + "'.");
-                }
-                queue.add(msg);
-                return false;
+        boolean[] queued = { false };
+        seqMap.compute(seqId, (id, queue) -> {
+            if (queue == null) {
+                return inFlight;
             }
-            seqMap.put(seqId, null);
-        }
-        return true;
+            if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
+                msg.getTrace().trace(TraceLevel.COMPONENT,
+                                     "Sequencer queued message with sequence id '" + seqId + "'.");
+            }
+            if (queue == inFlight) {
+                queue = new ArrayDeque<>();
+            }
+            queue.add(msg);
+            queued[0] = true;
+            return queue;
+        });
+        return ! queued[0];
     }
 
     /**
@@ -152,15 +160,15 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     }
 
     private void sendNextInSequence(long seqId) {
-        Message msg = null;
-        synchronized (this) {
-            Queue<Message> queue = seqMap.get(seqId);
-            if (queue == null || queue.isEmpty()) {
-                seqMap.remove(seqId);
-            } else {
-                msg = queue.remove();
+        Message[] next = { null };
+        seqMap.computeIfPresent(seqId, (id, queue) -> {
+            if (queue.isEmpty()) {
+                return null;
             }
-        }
+            next[0] = queue.remove();
+            return queue;
+        });
+        Message msg = next[0];
         if (msg != null) {
             Boolean alreadySending = isSending.get();
             if (alreadySending && (msn != null)) {
@@ -0,0 +1,132 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.concurrent.ManualTimer;
+import com.yahoo.messagebus.LatencyThrottlePolicy.Decision;
+import com.yahoo.messagebus.test.SimpleMessage;
+import com.yahoo.messagebus.test.SimpleReply;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static com.yahoo.messagebus.DynamicThrottlePolicyTest.assertInRange;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link LatencyThrottlePolicy} against a simulated server, with a fixed number of workers,
+ * which each spend a fixed time on each message, and an unbounded queue.
+ */
+public class LatencyThrottlePolicyTest {
+
+    @Test
+    void windowSettlesWhereServerIsSaturatedWithShortQueue() {
+        int workers = 64, workPerMessage = 10, ticks = 100_000;
+        ManualTimer timer = new ManualTimer();
+        // The server is always saturated, so the minimum latency is seen only at startup, and must not be forgotten.
+        LatencyThrottlePolicy policy = new LatencyThrottlePolicy(timer).setMinLatencyPeriod(ticks);
+        MockServer server = new MockServer(workers, workPerMessage, timer, policy);
+
+        double windows = 0;
+        long completedBefore = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            server.tick();
+            while (policy.canSend(null, server.pending())) server.send();
+            if (tick == ticks / 2) completedBefore = server.completed;
+            if (tick >= ticks / 2) windows += policy.getWindowSize();
+            timer.advance(1);
+        }
+
+        // Messages wait one tick in the queue before a worker picks them up, even when workers are idle.
+        assertEquals(workPerMessage + 1, policy.getMinLatency());
+        // The window should be somewhat larger than the number of workers, with a short queue in front of them.
+        assertInRange(workers, windows / (ticks / 2), 2 * workers);
+        // And throughput should be close to what the server can provide.
+        assertInRange(0.95, (server.completed - completedBefore) * workPerMessage / (double) workers / (ticks / 2), 1);
+        assertInRange(workPerMessage + 1, policy.getLatency(), 2 * (workPerMessage + 1));
+    }
+
+    @Test
+    void windowIsNotIncreasedWhenNotUsed() {
+        ManualTimer timer = new ManualTimer();
+        LatencyThrottlePolicy policy = new LatencyThrottlePolicy(timer);
+        MockServer server = new MockServer(64, 10, timer, policy);
+        for (int tick = 0; tick < 10_000; tick++) {
+            server.tick();
+            while (server.pending() < 4 && policy.canSend(null, server.pending())) server.send();
+            timer.advance(1);
+        }
+        assertEquals(16, policy.getWindowSize());
+        assertEquals(Decision.applicationLimited, policy.getDecision());
+    }
+
+    @Test
+    void windowBacksOffOnTransientErrors() {
+        ManualTimer timer = new ManualTimer();
+        LatencyThrottlePolicy policy = new LatencyThrottlePolicy(timer).setMinWindowSize(4);
+        for (int i = 0; i < 16; i++) {
+            Message message = new SimpleMessage("message");
+            policy.processMessage(message);
+            Reply reply = new SimpleReply("busy");
+            reply.setContext(message.getContext());
+            reply.setMessage(message);
+            reply.addError(new Error(ErrorCode.SESSION_BUSY, "busy"));
+            policy.processReply(reply);
+        }
+        assertEquals(16 * 0.7, policy.getWindowSize(), 1e-9);
+        assertEquals(Decision.backOff, policy.getDecision());
+        assertEquals(1, policy.getDecisionCount(Decision.backOff));
+        assertEquals(0, policy.getDecisionCount(Decision.increase));
+        assertEquals(-1, policy.getMinLatency());
+    }
+
+    static class MockServer {
+
+        final Deque<Message> queue = new ArrayDeque<>();
+        final Message[] working;
+        final long[] done;
+        final int workPerMessage;
+        final ManualTimer timer;
+        final ThrottlePolicy policy;
+        long completed = 0;
+        int pending = 0;
+
+        MockServer(int workers, int workPerMessage, ManualTimer timer, ThrottlePolicy policy) {
+            this.working = new Message[workers];
+            this.done = new long[workers];
+            this.workPerMessage = workPerMessage;
+            this.timer = timer;
+            this.policy = policy;
+        }
+
+        void send() {
+            Message message = new SimpleMessage("message");
+            message.setTimeReceived(timer.milliTime());
+            policy.processMessage(message);
+            queue.add(message);
+            ++pending;
+        }
+
+        void tick() {
+            for (int i = 0; i < working.length; i++) {
+                if (working[i] != null && done[i] == timer.milliTime()) {
+                    Reply reply = new SimpleReply("success");
+                    reply.setContext(working[i].getContext());
+                    reply.setMessage(working[i]);
+                    working[i] = null;
+                    --pending;
+                    ++completed;
+                    policy.processReply(reply);
+                }
+                if (working[i] == null && ! queue.isEmpty()) {
+                    working[i] = queue.poll();
+                    done[i] = timer.milliTime() + workPerMessage;
+                }
+            }
+        }
+
+        int pending() { return pending; }
+
+    }
+
+}
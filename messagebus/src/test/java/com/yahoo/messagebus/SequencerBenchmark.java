@@ -0,0 +1,100 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.messagebus.test.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link Sequencer} when many threads send sequenced messages concurrently,
+ * with replies arriving immediately, as from a fast network layer. Fewer sequence ids means more messages
+ * are queued behind others with the same id.
+ *
+ * Run with main(), which writes the results as JSON to target/sequencer-benchmark.json;
+ * compare with results from an earlier revision to see the effect of changes to the sequencer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class SequencerBenchmark {
+
+    @Param({ "16", "1024", "1000000" })
+    public int sequenceIds;
+
+    private final ReplyHandler done = reply -> { };
+
+    private Messenger messenger;
+    private Sequencer sequencer;
+
+    @Setup
+    public void setup() {
+        messenger = new Messenger();
+        messenger.start();
+        sequencer = new Sequencer(message -> {
+            Reply reply = new EmptyReply();
+            reply.swapState(message);
+            reply.setMessage(message);
+            reply.popHandler().handleReply(reply);
+        }, messenger);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sequencer.destroy();
+        messenger.destroy();
+    }
+
+    @Benchmark
+    public void sendSequenced() {
+        Message message = new SequencedMessage(ThreadLocalRandom.current().nextInt(sequenceIds));
+        message.pushHandler(done);
+        sequencer.handleMessage(message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SequencerBenchmark.class.getSimpleName())
+                                       .resultFormat(ResultFormatType.JSON)
+                                       .result("target/sequencer-benchmark.json")
+                                       .build()).run();
+    }
+
+    private static class SequencedMessage extends SimpleMessage {
+
+        private final long seqId;
+
+        SequencedMessage(long seqId) {
+            super("foo");
+            this.seqId = seqId;
+        }
+
+        @Override
+        public boolean hasSequenceId() { return true; }
+
+        @Override
+        public long getSequenceId() { return seqId; }
+
+    }
+
+}
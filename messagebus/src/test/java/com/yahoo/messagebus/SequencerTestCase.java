@@ -4,12 +4,19 @@ package com.yahoo.messagebus;
 import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -156,6 +163,55 @@ public class SequencerTestCase {
         messenger.destroy();
     }
 
+    @Test
+    void testConcurrentSending() throws InterruptedException {
+        int threads = 64, messages = 1000, ids = 16;
+        ExecutorService replier = Executors.newFixedThreadPool(8);
+        Map<Long, Boolean> inFlight = new ConcurrentHashMap<>();
+        Map<Long, List<MyMessage>> sentById = new ConcurrentHashMap<>();
+        Queue<String> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(threads * messages);
+        Sequencer sequencer = new Sequencer(message -> {
+            if (inFlight.put(message.getSequenceId(), true) != null)
+                errors.add("Several messages in flight with sequence id " + message.getSequenceId());
+            sentById.computeIfAbsent(message.getSequenceId(), __ -> Collections.synchronizedList(new ArrayList<>()))
+                    .add((MyMessage) message);
+            replier.execute(() -> {
+                Reply reply = new EmptyReply();
+                reply.swapState(message);
+                reply.setMessage(message);
+                inFlight.remove(message.getSequenceId());
+                reply.popHandler().handleReply(reply);
+            });
+        });
+
+        Thread[] senders = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int sender = i;
+            senders[i] = new Thread(() -> {
+                for (int j = 0; j < messages; j++) {
+                    MyMessage message = new MyMessage(true, (sender + j) % ids, sender, j);
+                    message.pushHandler(reply -> latch.countDown());
+                    sequencer.handleMessage(message);
+                }
+            });
+            senders[i].start();
+        }
+        for (Thread sender : senders) sender.join();
+        assertTrue(latch.await(30, TimeUnit.SECONDS), "All messages should obtain a reply within 30s");
+        replier.shutdown();
+
+        assertEquals(List.of(), List.copyOf(errors));
+        for (List<MyMessage> sent : sentById.values()) {
+            int[] last = new int[threads];
+            Arrays.fill(last, -1);
+            for (MyMessage message : sent) {
+                assertTrue(last[message.sender] < message.index, "Messages with the same sequence id are sent in order");
+                last[message.sender] = message.index;
+            }
+        }
+    }
+
     private static class TestQueue extends LinkedList<Routable> implements ReplyHandler {
 
         void checkReply(boolean hasSeqId, long seqId) {
@@ -216,11 +272,19 @@ public class SequencerTestCase {
 
         final boolean hasSeqId;
         final long seqId;
+        final int sender;
+        final int index;
 
         MyMessage(boolean hasSeqId, long seqId) {
+            this(hasSeqId, seqId, 0, 0);
+        }
+
+        MyMessage(boolean hasSeqId, long seqId, int sender, int index) {
             super("foo");
             this.hasSeqId = hasSeqId;
             this.seqId = seqId;
+            this.sender = sender;
+            this.index = index;
         }
 
         @Override
@@ -102,6 +102,10 @@ public enum ContainerMetrics implements VespaMetrics {
     HTTPAPI_FAILED_UNKNOWN("httpapi_failed_unknown", Unit.OPERATION, "Document operations failed by unknown cause"),
     HTTPAPI_FAILED_TIMEOUT("httpapi_failed_timeout", Unit.OPERATION, "Document operations failed by timeout"),
     HTTPAPI_FAILED_INSUFFICIENT_STORAGE("httpapi_failed_insufficient_storage", Unit.OPERATION, "Document operations failed by insufficient storage"),
+    HTTPAPI_THROTTLE_WINDOW("httpapi_throttle_window", Unit.OPERATION, "Window size of the latency throttle policy of document operations"),
+    HTTPAPI_THROTTLE_MIN_LATENCY("httpapi_throttle_min_latency", Unit.MILLISECOND, "Recent minimum latency of document operations, as seen by the latency throttle policy"),
+    HTTPAPI_THROTTLE_LATENCY("httpapi_throttle_latency", Unit.MILLISECOND, "Smoothed latency of document operations, as seen by the latency throttle policy"),
+    HTTPAPI_THROTTLE_DECISIONS("httpapi_throttle_decisions", Unit.OPERATION, "Window size decisions of the latency throttle policy, by decision"),
 
     MEM_HEAP_TOTAL("mem.heap.total", Unit.BYTE, "Total available heap memory"),
     MEM_HEAP_FREE("mem.heap.free", Unit.BYTE, "Free heap memory"),
@@ -121,6 +125,18 @@ public enum ContainerMetrics implements VespaMetrics {
     // SearchChain metrics
     PEAK_QPS("peak_qps", Unit.QUERY_PER_SECOND, "The highest number of qps for a second for this metrics snapshot"),
     SEARCH_CONNECTIONS("search_connections", Unit.CONNECTION, "Number of search connections"),
+    DISPATCH_GROUP_SCORE("dispatch.group.score", Unit.MILLISECOND, "The expected latency of a query to a group of content nodes, used to select groups for queries"),
+    DISPATCH_GROUP_LATENCY_QUANTILE("dispatch.group.latency_quantile", Unit.MILLISECOND, "The configured high quantile of recent query latencies to a group of content nodes"),
+    DISPATCH_HEDGED_QUERIES("dispatch.hedged_queries", Unit.QUERY, "Number of queries also sent to a second group because the first group was slow to answer"),
+    DISPATCH_HEDGED_QUERIES_WON("dispatch.hedged_queries_won", Unit.QUERY, "Number of hedged queries where the second group answered first"),
+    DISPATCH_GROUP_SLOW_NODES("dispatch.group.slow_nodes", Unit.NODE, "Number of nodes in a group of content nodes which are currently much slower than the other nodes in the cluster"),
+    DISPATCH_COALESCABLE_QUERIES("dispatch.coalescable_queries", Unit.QUERY, "Number of queries which could share their request to the content nodes with identical concurrent queries"),
+    DISPATCH_COALESCED_QUERIES("dispatch.coalesced_queries", Unit.QUERY, "Number of queries answered by the request to the content nodes of an identical concurrent query"),
+    SEARCH_RESULT_CACHE_HITS("search.result_cache.hits", Unit.QUERY, "Number of queries answered by a result cached from an earlier, equal query"),
+    SEARCH_RESULT_CACHE_MISSES("search.result_cache.misses", Unit.QUERY, "Number of cacheable queries whose result was not found in the result cache"),
+    SEARCH_RESULT_CACHE_EVICTIONS("search.result_cache.evictions", Unit.QUERY, "Number of results evicted from the result cache to make room for others"),
+    SEARCH_RESULT_CACHE_INVALIDATIONS("search.result_cache.invalidations", Unit.OPERATION, "Number of times the result cache was cleared because the state of a content cluster changed"),
+    SEARCH_RESULT_CACHE_SIZE("search.result_cache.size", Unit.BYTE, "Estimated memory used by the results in the result cache"),
     FEED_OPERATIONS("feed.operations", Unit.OPERATION, "Number of document feed operations"),
     FEED_LATENCY("feed.latency", Unit.MILLISECOND, "Feed latency"),
     FEED_HTTP_REQUESTS("feed.http-requests", Unit.OPERATION, "Feed HTTP requests"),
@@ -138,6 +154,7 @@ public enum ContainerMetrics implements VespaMetrics {
     JDISC_RENDER_LATENCY("jdisc.render.latency", Unit.NANOSECOND, "The time used by the container to render responses"),
     QUERY_ITEM_COUNT("query_item_count", Unit.ITEM, "The number of query items (terms, phrases, etc)"),
     DOCPROC_PROC_TIME("docproc.proctime", Unit.MILLISECOND, "Time spent processing document"),
+    DOCPROC_LATENCY("docproc.latency", Unit.MILLISECOND, "Time from a document processor is first called for a processing until it is done with it, including time waiting for asynchronous work"),
     DOCPROC_DOCUMENTS("docproc.documents", Unit.DOCUMENT, "Number of processed documents"),
     
     TOTAL_HITS_PER_QUERY("totalhits_per_query", Unit.HIT_PER_QUERY, "The total number of documents found to match queries"),
@@ -175,6 +192,9 @@ public enum ContainerMetrics implements VespaMetrics {
     JRT_TRANSPORT_CLIENT_TLS_CONNECTIONS_ESTABLISHED("jrt.transport.client.tls-connections-established", Unit.CONNECTION, "TLS client connections established"),
     JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.server.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted server connections established"),
     JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED("jrt.transport.client.unencrypted-connections-established", Unit.CONNECTION, "Unencrypted client connections established"),
+    JRT_TRANSPORT_CONNECTIONS_MOVED("jrt.transport.connections-moved", Unit.CONNECTION, "Connections moved from busy to less busy transport threads"),
+    JRT_TRANSPORT_THREAD_LOAD("jrt.transport.thread.load", Unit.FRACTION, "Fraction of time transport threads spend handling events, rather than waiting for them, sampled per thread"),
+    JRT_TRANSPORT_THREAD_QUEUE_SIZE("jrt.transport.thread.queue-size", Unit.ITEM, "Commands waiting for transport threads, sampled per thread"),
 
     MAX_QUERY_LATENCY("max_query_latency", Unit.MILLISECOND, "Deprecated. Use query_latency.max instead"), // TODO: Remove in Vespa 9
     MEAN_QUERY_LATENCY("mean_query_latency", Unit.MILLISECOND, "Deprecated. Use the expression (query_latency.sum / query_latency.count) instead"),// TODO: Remove in Vespa 9
@@ -207,7 +227,13 @@ public enum ContainerMetrics implements VespaMetrics {
     SERVER_STARTED_MILLIS("serverStartedMillis", Unit.MILLISECOND, "Time since the service was started"),
 
     EMBEDDER_LATENCY("embedder.latency", Unit.MILLISECOND, "Time spent creating an embedding"),
-    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer");
+    EMBEDDER_SEQUENCE_LENGTH("embedder.sequence_length", Unit.BYTE, "Size of sequence produced by tokenizer"),
+    EMBEDDER_BATCH_SIZE("embedder.batch_size", Unit.ITEM, "Number of texts embedded in a single model evaluation"),
+    EMBEDDER_BATCH_WAIT("embedder.batch_wait", Unit.MILLISECOND, "Time an embedding waited to be batched with concurrent embeddings"),
+    EMBEDDER_CACHE_HITS("embedder.cache.hits", Unit.OPERATION, "Number of embeddings found in the cache shared between requests"),
+    EMBEDDER_CACHE_MISSES("embedder.cache.misses", Unit.OPERATION, "Number of embeddings not found in the cache shared between requests"),
+    EMBEDDER_CACHE_EVICTIONS("embedder.cache.evictions", Unit.OPERATION, "Number of embeddings evicted from the cache shared between requests"),
+    EMBEDDER_CACHE_SIZE("embedder.cache.size", Unit.BYTE, "Estimated memory used by the embeddings cached across requests");
 
     private final String name;
     private final Unit unit;
@@ -90,6 +90,9 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CLIENT_TLS_CONNECTIONS_ESTABLISHED.baseName());
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_SERVER_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
         addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CLIENT_UNENCRYPTED_CONNECTIONS_ESTABLISHED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_CONNECTIONS_MOVED.baseName());
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_THREAD_LOAD, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.JRT_TRANSPORT_THREAD_QUEUE_SIZE, EnumSet.of(max, sum, count));
 
         // C++ TLS metrics
         addMetric(metrics, StorageMetrics.VDS_SERVER_NETWORK_TLS_HANDSHAKES_FAILED.count());
@@ -157,6 +160,10 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.HTTPAPI_NOT_FOUND.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_FAILED_UNKNOWN.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_FAILED_INSUFFICIENT_STORAGE.rate());
+        addMetric(metrics, ContainerMetrics.HTTPAPI_THROTTLE_WINDOW, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_THROTTLE_MIN_LATENCY, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_THROTTLE_LATENCY, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.HTTPAPI_THROTTLE_DECISIONS.rate());
         addMetric(metrics, ContainerMetrics.HTTPAPI_FAILED_TIMEOUT.rate());
 
         addMetric(metrics, ContainerMetrics.MEM_HEAP_TOTAL.average());
@@ -214,6 +221,12 @@ public class Vespa9VespaMetricSet {
         // Embedders
         addMetric(metrics, ContainerMetrics.EMBEDDER_LATENCY, EnumSet.of(max, sum, count));
         addMetric(metrics, ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_SIZE, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_BATCH_WAIT, EnumSet.of(max, sum, count));
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_HITS.rate());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_MISSES.rate());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.rate());
+        addMetric(metrics, ContainerMetrics.EMBEDDER_CACHE_SIZE, EnumSet.of(max));
 
         return metrics;
     }
@@ -256,6 +269,7 @@ public class Vespa9VespaMetricSet {
         metrics.add(new Metric("documents_processed.rate"));
 
         addMetric(metrics, ContainerMetrics.DOCPROC_PROC_TIME, EnumSet.of(sum, count, max));
+        addMetric(metrics, ContainerMetrics.DOCPROC_LATENCY, EnumSet.of(sum, count, max, ninety_five_percentile, ninety_nine_percentile));
         addMetric(metrics, ContainerMetrics.DOCPROC_DOCUMENTS, EnumSet.of(sum, count, max, min));
 
         return metrics;
@@ -277,6 +291,18 @@ public class Vespa9VespaMetricSet {
         addMetric(metrics, ContainerMetrics.QUERY_HIT_OFFSET, EnumSet.of(sum, count, max));
         addMetric(metrics, ContainerMetrics.DOCUMENTS_COVERED.count());
         addMetric(metrics, ContainerMetrics.DOCUMENTS_TOTAL.count());
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SCORE, EnumSet.of(max));
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_LATENCY_QUANTILE, EnumSet.of(max));
+        addMetric(metrics, ContainerMetrics.DISPATCH_GROUP_SLOW_NODES, EnumSet.of(max));
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGED_QUERIES.rate());
+        addMetric(metrics, ContainerMetrics.DISPATCH_HEDGED_QUERIES_WON.rate());
+        addMetric(metrics, ContainerMetrics.DISPATCH_COALESCABLE_QUERIES.rate());
+        addMetric(metrics, ContainerMetrics.DISPATCH_COALESCED_QUERIES.rate());
+        addMetric(metrics, ContainerMetrics.SEARCH_RESULT_CACHE_HITS.rate());
+        addMetric(metrics, ContainerMetrics.SEARCH_RESULT_CACHE_MISSES.rate());
+        addMetric(metrics, ContainerMetrics.SEARCH_RESULT_CACHE_EVICTIONS.rate());
+        addMetric(metrics, ContainerMetrics.SEARCH_RESULT_CACHE_INVALIDATIONS.rate());
+        addMetric(metrics, ContainerMetrics.SEARCH_RESULT_CACHE_SIZE, EnumSet.of(max));
         addMetric(metrics, ContainerMetrics.DOCUMENTS_TARGET_TOTAL.count());
         addMetric(metrics, ContainerMetrics.JDISC_RENDER_LATENCY, EnumSet.of(min, max, count, sum));
         addMetric(metrics, ContainerMetrics.QUERY_ITEM_COUNT, EnumSet.of(max, sum, count));
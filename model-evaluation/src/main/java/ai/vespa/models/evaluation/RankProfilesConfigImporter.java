@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -211,6 +212,7 @@ public class RankProfilesConfigImporter {
             options.setInterOpThreads(onnxModelConfig.stateless_interop_threads());
             options.setIntraOpThreads(onnxModelConfig.stateless_intraop_threads());
             options.setGpuDevice(onnxModelConfig.gpu_device(), onnxModelConfig.gpu_device_required());
+            options.setBatching(onnxModelConfig.batching_max_size(), Duration.ofMillis(onnxModelConfig.batching_max_delay_ms()));
             var m =  new OnnxModel(name, file, options, onnx);
             for (var spec : onnxModelConfig.input()) {
                 m.addInputMapping(spec.name(), spec.source());
@@ -13,6 +13,7 @@ import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -61,6 +62,7 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
         options.setExecutionMode(config.onnxExecutionMode().toString());
         options.setThreads(config.onnxInterOpThreads(), config.onnxIntraOpThreads());
         if (config.onnxGpuDevice() >= 0) options.setGpuDevice(config.onnxGpuDevice());
+        options.setBatching(config.onnxBatchingMaxSize(), Duration.ofMillis(config.onnxBatchingMaxDelayMillis()));
 
         tokenizer = new WordPieceEmbedder.Builder(config.tokenizerVocab().toString()).build();
         this.evaluator = onnx.evaluatorOf(config.transformerModel().toString(), options);
@@ -99,16 +101,20 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
 
     @Override
     public Tensor embed(String text, Context context, TensorType type) {
-        var start = System.nanoTime();
         if (type.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': should only have one dimension.");
         }
         if (!type.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + type + "': dimension should be indexed.");
         }
+        return runtime.computeCachedEmbeddingIfAbsent(text, type, context, () -> evaluate(text, context, type));
+    }
+
+    private Tensor evaluate(String text, Context context, TensorType type) {
+        var start = System.nanoTime();
         List<Integer> tokens = embedWithSeparatorTokens(text, context, maxTokens);
         runtime.sampleSequenceLength(tokens.size(), context);
-        var embedding = embedTokens(tokens, type);
+        var embedding = embedTokens(tokens, type, EmbedderRuntime.batchingListener(runtime, context));
         runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
         return embedding;
     }
@@ -118,6 +124,10 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
     private List<Integer> tokenize(String text, Context ctx) { return tokenizer.embed(text, ctx); }
 
     Tensor embedTokens(List<Integer> tokens, TensorType type) {
+        return embedTokens(tokens, type, OnnxEvaluator.BatchingListener.ignore);
+    }
+
+    private Tensor embedTokens(List<Integer> tokens, TensorType type, OnnxEvaluator.BatchingListener batchingListener) {
         Tensor inputSequence = createTensorRepresentation(tokens, "d1");
         Tensor attentionMask = createAttentionMask(inputSequence);
         Tensor tokenTypeIds = createTokenTypeIds(inputSequence);
@@ -132,7 +142,7 @@ public class BertBaseEmbedder extends AbstractComponent implements Embedder {
             inputs = Map.of(inputIdsName, inputSequence.expand("d0"),
                                  attentionMaskName, attentionMask.expand("d0"));
         }
-        Map<String, Tensor> outputs = evaluator.evaluate(inputs);
+        Map<String, Tensor> outputs = evaluator.evaluate(inputs, batchingListener);
 
         Tensor tokenEmbeddings = outputs.get(outputName);
 
@@ -20,6 +20,7 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
@@ -106,6 +107,7 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
             onnxOpts.setGpuDevice(config.transformerGpuDevice());
         onnxOpts.setExecutionMode(config.transformerExecutionMode().toString());
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
+        onnxOpts.setBatching(config.transformerBatchingMaxSize(), Duration.ofMillis(config.transformerBatchingMaxDelayMillis()));
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
     }
@@ -136,12 +138,15 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid colbert embedder tensor target destination. " +
                                                "Wanted a mixed 2-d mapped-indexed tensor, got " + tensorType);
         }
-        if (context.getDestination().startsWith("query")) {
-            return embedQuery(text, context, tensorType);
-        } else {
-            return embedDocument(text, context, tensorType);
-        }
+        return runtime.computeCachedEmbeddingIfAbsent(text, tensorType, context, () -> {
+            if (context.getDestination().startsWith("query")) {
+                return embedQuery(text, context, tensorType);
+            } else {
+                return embedDocument(text, context, tensorType);
+            }
+        });
     }
+
     @Override
     public void deconstruct() {
         evaluator.close();
@@ -216,7 +221,7 @@ public class ColBertEmbedder extends AbstractComponent implements Embedder {
         var inputs = Map.of(inputIdsName,
                             inputIdsTensor.expand("d0"),
                             attentionMaskName, attentionMaskTensor.expand("d0"));
-        Map<String, Tensor> outputs = evaluator.evaluate(inputs);
+        Map<String, Tensor> outputs = evaluator.evaluate(inputs, EmbedderRuntime.batchingListener(runtime, context));
         runtime.sampleEmbeddingLatency((System.nanoTime() - start) / 1_000_000d, context);
         return new EmbeddingResult(input.inputIds.size(), outputs);
     }
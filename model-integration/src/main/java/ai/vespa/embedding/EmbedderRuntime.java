@@ -3,13 +3,19 @@
 package ai.vespa.embedding;
 
 import ai.vespa.metrics.ContainerMetrics;
+import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.language.Language;
 import com.yahoo.language.process.Embedder;
+import com.yahoo.metrics.simple.Counter;
 import com.yahoo.metrics.simple.Gauge;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.metrics.simple.Point;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -20,12 +26,36 @@ public class EmbedderRuntime implements Embedder.Runtime {
 
     private final Gauge embedLatency;
     private final Gauge sequenceLength;
+    private final Gauge batchSize;
+    private final Gauge batchWait;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter cacheEvictions;
+    private final Gauge cacheSize;
     private final Map<MetricDimensions, Point> metricPointCache = new ConcurrentHashMap<>();
 
+    /** The embeddings cached across requests, or null if caching is disabled */
+    private final EmbeddingCache cache;
+
     @Inject
-    public EmbedderRuntime(MetricReceiver metrics) {
+    public EmbedderRuntime(MetricReceiver metrics, EmbedderRuntimeConfig config) {
+        this(metrics, config, Clock.systemUTC());
+    }
+
+    EmbedderRuntime(MetricReceiver metrics, EmbedderRuntimeConfig config, Clock clock) {
         embedLatency = metrics.declareGauge(ContainerMetrics.EMBEDDER_LATENCY.baseName());
         sequenceLength = metrics.declareGauge(ContainerMetrics.EMBEDDER_SEQUENCE_LENGTH.baseName());
+        batchSize = metrics.declareGauge(ContainerMetrics.EMBEDDER_BATCH_SIZE.baseName());
+        batchWait = metrics.declareGauge(ContainerMetrics.EMBEDDER_BATCH_WAIT.baseName());
+        cacheHits = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_HITS.baseName());
+        cacheMisses = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_MISSES.baseName());
+        cacheEvictions = metrics.declareCounter(ContainerMetrics.EMBEDDER_CACHE_EVICTIONS.baseName());
+        cacheSize = metrics.declareGauge(ContainerMetrics.EMBEDDER_CACHE_SIZE.baseName());
+        cache = config.cache().maxSize() > 0
+                ? new EmbeddingCache(config.cache().maxSize(),
+                                     Duration.ofMillis((long) (config.cache().timeToLive() * 1000)),
+                                     clock)
+                : null;
     }
 
     @Override
@@ -38,6 +68,45 @@ public class EmbedderRuntime implements Embedder.Runtime {
         sequenceLength.sample(length, metricPoint(ctx));
     }
 
+    @Override
+    public void sampleBatchSize(long size, Embedder.Context ctx) {
+        batchSize.sample(size, metricPoint(ctx));
+    }
+
+    @Override
+    public void sampleBatchWaitLatency(double millis, Embedder.Context ctx) {
+        batchWait.sample(millis, metricPoint(ctx));
+    }
+
+    /** Returns a listener which samples the batching of model evaluations for an embedding in the given context to the given runtime */
+    public static OnnxEvaluator.BatchingListener batchingListener(Embedder.Runtime runtime, Embedder.Context context) {
+        return (batchSize, waitTime) -> {
+            runtime.sampleBatchSize(batchSize, context);
+            runtime.sampleBatchWaitLatency(waitTime.toNanos() / 1_000_000d, context);
+        };
+    }
+
+    @Override
+    public Tensor getCachedEmbedding(String text, TensorType type, Embedder.Context ctx) {
+        if (cache == null) return null;
+        Tensor embedding = cache.get(cacheKey(text, type, ctx));
+        (embedding != null ? cacheHits : cacheMisses).add(metricPoint(ctx));
+        return embedding;
+    }
+
+    @Override
+    public void putCachedEmbedding(String text, TensorType type, Embedder.Context ctx, Tensor embedding) {
+        if (cache == null) return;
+        int evicted = cache.put(cacheKey(text, type, ctx), embedding);
+        if (evicted > 0)
+            cacheEvictions.add(evicted, metricPoint(ctx));
+        cacheSize.sample(cache.sizeInBytes());
+    }
+
+    private static EmbeddingCache.Key cacheKey(String text, TensorType type, Embedder.Context ctx) {
+        return new EmbeddingCache.Key(ctx.getEmbedderId(), text, type, ctx.getLanguage(), ctx.getDestination());
+    }
+
     private Point metricPoint(Embedder.Context ctx) {
         var dimensions = new MetricDimensions(ctx.getEmbedderId(), ctx.getLanguage(), ctx.getDestination());
         return metricPointCache.computeIfAbsent(
@@ -0,0 +1,101 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of embeddings shared between requests. The cache is bounded by the estimated memory used by its
+ * keys and tensors, and evicts the least recently used embeddings first. Embeddings older than the time to live
+ * are never returned.
+ *
+ * This is thread safe.
+ */
+class EmbeddingCache {
+
+    /** Estimated overhead of an entry, in addition to the text and tensor cells */
+    private static final long entryOverheadBytes = 256;
+
+    /** Estimated overhead per cell of a tensor which is not dense */
+    private static final long mappedCellOverheadBytes = 64;
+
+    private final long maxSizeInBytes;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    /** The cached entries in access order. Guarded by this. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeInBytes = 0;
+
+    EmbeddingCache(long maxSizeInBytes, Duration timeToLive, Clock clock) {
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    /** Returns the cached embedding for the given key, or null if it is not present or has expired */
+    synchronized Tensor get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expires().isAfter(clock.instant())) return entry.embedding();
+        remove(key, entry);
+        return null;
+    }
+
+    /**
+     * Adds the given embedding to this, evicting least recently used embeddings to make room for it.
+     *
+     * @return the number of embeddings evicted
+     */
+    synchronized int put(Key key, Tensor embedding) {
+        long size = sizeOf(key, embedding);
+        if (size > maxSizeInBytes) return 0;
+
+        Entry previous = entries.put(key, new Entry(embedding, size, clock.instant().plus(timeToLive)));
+        if (previous != null)
+            sizeInBytes -= previous.sizeInBytes();
+        sizeInBytes += size;
+
+        int evicted = 0;
+        for (Iterator<Map.Entry<Key, Entry>> i = entries.entrySet().iterator(); sizeInBytes > maxSizeInBytes && i.hasNext(); ) {
+            Map.Entry<Key, Entry> eldest = i.next();
+            if (eldest.getKey().equals(key)) continue;
+            sizeInBytes -= eldest.getValue().sizeInBytes();
+            i.remove();
+            evicted++;
+        }
+        return evicted;
+    }
+
+    /** Returns the estimated memory used by the entries in this */
+    synchronized long sizeInBytes() { return sizeInBytes; }
+
+    synchronized int entryCount() { return entries.size(); }
+
+    private void remove(Key key, Entry entry) {
+        entries.remove(key);
+        sizeInBytes -= entry.sizeInBytes();
+    }
+
+    static long sizeOf(Key key, Tensor embedding) {
+        long cellBytes = embedding.type().valueType() == TensorType.Value.DOUBLE ? 8 : 4;
+        if ( ! (embedding instanceof IndexedTensor))
+            cellBytes += mappedCellOverheadBytes;
+        return entryOverheadBytes + 2L * key.text().length() + embedding.size() * cellBytes;
+    }
+
+    /** The embedding of a text is determined by the embedder, the target type, and the language and destination */
+    record Key(String embedderId, String text, TensorType type, Language language, String destination) { }
+
+    private record Entry(Tensor embedding, long sizeInBytes, Instant expires) { }
+
+}
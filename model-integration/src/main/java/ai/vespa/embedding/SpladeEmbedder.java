@@ -17,6 +17,7 @@ import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.functions.Reduce;
 
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -75,6 +76,7 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
             onnxOpts.setGpuDevice(config.transformerGpuDevice());
         onnxOpts.setExecutionMode(config.transformerExecutionMode().toString());
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
+        onnxOpts.setBatching(config.transformerBatchingMaxSize(), Duration.ofMillis(config.transformerBatchingMaxDelayMillis()));
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
     }
@@ -115,6 +117,10 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
             throw new IllegalArgumentException("Invalid splade embedder tensor destination. " +
                                                "Wanted a mapped 1-d tensor, got " + tensorType);
         }
+        return runtime.computeCachedEmbeddingIfAbsent(text, tensorType, context, () -> evaluate(text, context, tensorType));
+    }
+
+    private Tensor evaluate(String text, Context context, TensorType tensorType) {
         var start = System.nanoTime();
 
         var encoding = tokenizer.encode(text, context.getLanguage());
@@ -127,7 +133,7 @@ public class SpladeEmbedder extends AbstractComponent implements Embedder {
         Map<String, Tensor> inputs = Map.of(inputIdsName, inputSequence.expand("d0"),
                 attentionMaskName, attentionMask.expand("d0"),
                 tokenTypeIdsName, tokenTypeIds.expand("d0"));
-        IndexedTensor output = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        IndexedTensor output = (IndexedTensor) evaluator.evaluate(inputs, EmbedderRuntime.batchingListener(runtime, context)).get(outputName);
         Tensor spladeTensor = useCustomReduce
                 ? sparsifyCustomReduce(output, tensorType)
                 : sparsifyReduce(output, tensorType);
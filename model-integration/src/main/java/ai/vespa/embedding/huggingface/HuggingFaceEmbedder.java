@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.embedding.huggingface;
 
+import ai.vespa.embedding.EmbedderRuntime;
 import ai.vespa.embedding.PoolingStrategy;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluator;
 import ai.vespa.modelintegration.evaluator.OnnxEvaluatorOptions;
@@ -9,6 +10,7 @@ import com.yahoo.api.annotations.Beta;
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.embedding.huggingface.HuggingFaceEmbedderConfig;
+import com.yahoo.language.huggingface.Encoding;
 import com.yahoo.language.huggingface.HuggingFaceTokenizer;
 import com.yahoo.language.process.Embedder;
 import com.yahoo.tensor.IndexedTensor;
@@ -17,9 +19,14 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import static com.yahoo.language.huggingface.ModelInfo.TruncationStrategy.LONGEST_FIRST;
@@ -74,6 +81,7 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
             onnxOpts.setGpuDevice(config.transformerGpuDevice());
         onnxOpts.setExecutionMode(config.transformerExecutionMode().toString());
         onnxOpts.setThreads(config.transformerInterOpThreads(), config.transformerIntraOpThreads());
+        onnxOpts.setBatching(config.transformerBatchingMaxSize(), Duration.ofMillis(config.transformerBatchingMaxDelayMillis()));
         evaluator = onnx.evaluatorOf(config.transformerModel().toString(), onnxOpts);
         validateModel();
     }
@@ -113,13 +121,45 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
     @SuppressWarnings("unchecked")
     @Override
     public Tensor embed(String text, Context context, TensorType tensorType) {
+        validateTensorType(tensorType);
+        return runtime.computeCachedEmbeddingIfAbsent(text, tensorType, context,
+                                                      () -> toEmbedding(lookupOrEvaluate(context, prependInstruction(text, context)), tensorType));
+    }
+
+    /** Embeds all the given texts which are not already cached in a single model evaluation */
+    @Override
+    public List<Tensor> embed(List<String> texts, Context context, TensorType tensorType) {
+        validateTensorType(tensorType);
+        List<Tensor> embeddings = new ArrayList<>(texts.size());
+        List<String> uncached = new ArrayList<>();
+        for (String text : texts) {
+            Tensor cached = runtime.getCachedEmbedding(text, tensorType, context);
+            embeddings.add(cached);
+            if (cached == null)
+                uncached.add(text);
+        }
+        if (uncached.isEmpty()) return embeddings;
+
+        var results = lookupOrEvaluate(context, uncached.stream().map(text -> prependInstruction(text, context)).toList());
+        for (int i = 0, next = 0; i < embeddings.size(); i++) {
+            if (embeddings.get(i) != null) continue;
+            Tensor embedding = toEmbedding(results.get(next++), tensorType);
+            runtime.putCachedEmbedding(texts.get(i), tensorType, context, embedding);
+            embeddings.set(i, embedding);
+        }
+        return embeddings;
+    }
+
+    private static void validateTensorType(TensorType tensorType) {
         if (tensorType.dimensions().size() != 1) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': should only have one dimension.");
         }
         if (!tensorType.dimensions().get(0).isIndexed()) {
             throw new IllegalArgumentException("Error in embedding to type '" + tensorType + "': dimension should be indexed.");
         }
-        var embeddingResult = lookupOrEvaluate(context, prependInstruction(text, context));
+    }
+
+    private Tensor toEmbedding(HFEmbeddingResult embeddingResult, TensorType tensorType) {
         IndexedTensor tokenEmbeddings = embeddingResult.output;
         if (tensorType.valueType() == TensorType.Value.INT8) {
             return binaryQuantization(embeddingResult, tensorType);
@@ -163,6 +203,76 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return context.computeCachedValueIfAbsent(key, () -> evaluate(context, text));
     }
 
+    private List<HFEmbeddingResult> lookupOrEvaluate(Context context, List<String> texts) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (context.getCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), text)) == null)
+                missing.add(text);
+        }
+        if ( ! missing.isEmpty()) {
+            List<String> toEvaluate = List.copyOf(missing);
+            List<HFEmbeddingResult> evaluated = toEvaluate.size() == 1 ? List.of(evaluate(context, toEvaluate.get(0)))
+                                                                       : evaluate(context, toEvaluate);
+            for (int i = 0; i < toEvaluate.size(); i++)
+                context.putCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), toEvaluate.get(i)), evaluated.get(i));
+        }
+        List<HFEmbeddingResult> results = new ArrayList<>(texts.size());
+        for (String text : texts)
+            results.add((HFEmbeddingResult) context.getCachedValue(new HFEmbedderCacheKey(context.getEmbedderId(), text)));
+        return results;
+    }
+
+    /** Evaluates the model once for all the given texts, padded to the length of the longest one */
+    private List<HFEmbeddingResult> evaluate(Context context, List<String> texts) {
+        var start = System.nanoTime();
+        var encodings = texts.stream().map(text -> tokenizer.encode(text, context.getLanguage())).toList();
+        int maxLength = 0;
+        boolean hasTokenTypeIds = false;
+        for (var encoding : encodings) {
+            runtime.sampleSequenceLength(encoding.ids().size(), context);
+            maxLength = Math.max(maxLength, encoding.ids().size());
+            hasTokenTypeIds |= ! encoding.typeIds().isEmpty();
+        }
+        Map<String, Tensor> inputs = new HashMap<>();
+        inputs.put(inputIdsName, createBatchTensorRepresentation(encodings.stream().map(Encoding::ids).toList(), maxLength));
+        inputs.put(attentionMaskName, createBatchTensorRepresentation(encodings.stream().map(Encoding::attentionMask).toList(), maxLength));
+        if ( ! tokenTypeIdsName.isEmpty() && hasTokenTypeIds)
+            inputs.put(tokenTypeIdsName, createBatchTensorRepresentation(encodings.stream().map(Encoding::typeIds).toList(), maxLength));
+        runtime.sampleBatchSize(texts.size(), context);
+        IndexedTensor batchEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        if (batchEmbeddings.shape().length != 3) {
+            throw new IllegalArgumentException("" +
+                    "Expected 3 output dimensions for output name '" +
+                    outputName + "': [batch, sequence, embedding], got " + batchEmbeddings.shape().length);
+        }
+        List<HFEmbeddingResult> results = new ArrayList<>(texts.size());
+        for (int i = 0; i < encodings.size(); i++) {
+            var encoding = encodings.get(i);
+            results.add(new HFEmbeddingResult(sliceBatch(batchEmbeddings, i, encoding.ids().size()),
+                                              createTensorRepresentation(encoding.attentionMask(), "d1"),
+                                              context.getEmbedderId()));
+        }
+        runtime.sampleEmbeddingLatency((System.nanoTime() - start)/1_000_000d, context);
+        return results;
+    }
+
+    /** Returns the token embeddings of a single entry in a batch, without the padding, as a batch of size 1 */
+    private static IndexedTensor sliceBatch(IndexedTensor batch, int index, int sequenceLength) {
+        var dimensions = batch.type().dimensions();
+        int dimensionality = (int) batch.shape()[2];
+        TensorType type = new TensorType.Builder(batch.type().valueType())
+                .indexed(dimensions.get(0).name(), 1)
+                .indexed(dimensions.get(1).name(), sequenceLength)
+                .indexed(dimensions.get(2).name(), dimensionality)
+                .build();
+        float[] values = new float[sequenceLength * dimensionality];
+        for (int token = 0; token < sequenceLength; token++) {
+            for (int d = 0; d < dimensionality; d++)
+                values[token * dimensionality + d] = batch.getFloat(index, token, d);
+        }
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
     private HuggingFaceEmbedder.HFEmbeddingResult evaluate(Context context, String text) {
         var start = System.nanoTime();
         var encoding = tokenizer.encode(text, context.getLanguage());
@@ -180,7 +290,7 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
                     attentionMaskName, attentionMask.expand("d0"),
                     tokenTypeIdsName, tokenTypeIds.expand("d0"));
         }
-        IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs).get(outputName);
+        IndexedTensor tokenEmbeddings = (IndexedTensor) evaluator.evaluate(inputs, EmbedderRuntime.batchingListener(runtime, context)).get(outputName);
         long[] resultShape = tokenEmbeddings.shape();
         //shape batch, sequence, embedding dimensionality
         if (resultShape.length != 3) {
@@ -246,6 +356,17 @@ public class HuggingFaceEmbedder extends AbstractComponent implements Embedder {
         return builder.build();
     }
 
+    private static IndexedTensor createBatchTensorRepresentation(List<List<Long>> inputs, int length) {
+        TensorType type = new TensorType.Builder(TensorType.Value.FLOAT).indexed("d0", inputs.size()).indexed("d1", length).build();
+        float[] values = new float[inputs.size() * length]; // Padded with zeroes
+        for (int i = 0; i < inputs.size(); i++) {
+            List<Long> input = inputs.get(i);
+            for (int j = 0; j < input.size(); j++)
+                values[i * length + j] = input.get(j);
+        }
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
     protected record HFEmbeddingResult(IndexedTensor output, Tensor attentionMask, String embedderId) {}
     protected record HFEmbedderCacheKey(String embedderId, Object embeddedValue) { }
 }
@@ -0,0 +1,281 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Merges evaluations submitted concurrently from different threads into a single batched evaluation.
+ *
+ * An evaluation can be batched if all its inputs are dense tensors with a leading batch dimension of size 1.
+ * The inputs of a batch are concatenated along the batch dimension, and the remaining dimensions are zero padded
+ * to the largest size in the batch. Each output is sliced back along the batch dimension, and an output dimension
+ * having the padded size of the input dimension at the same position is truncated to the size of that dimension
+ * in the original input.
+ * This fits models which keep the input sequence length in their outputs, such as transformer encoders.
+ *
+ * No threads are owned by this: The first thread to submit an evaluation waits up to the max delay
+ * for other evaluations to join, and then evaluates the batch on behalf of all of them.
+ */
+class OnnxBatcher {
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final Function<Map<String, Tensor>, Map<String, Tensor>> evaluation;
+
+    private final Object monitor = new Object();
+
+    /** The batch currently accepting evaluations, or null if none. Guarded by monitor. */
+    private Batch pending = null;
+
+    OnnxBatcher(int maxBatchSize, Duration maxDelay, Function<Map<String, Tensor>, Map<String, Tensor>> evaluation) {
+        if (maxBatchSize < 2) throw new IllegalArgumentException("Max batch size must be at least 2, got " + maxBatchSize);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.evaluation = evaluation;
+    }
+
+    Map<String, Tensor> evaluate(Map<String, Tensor> inputs, OnnxEvaluator.BatchingListener listener) {
+        if ( ! isBatchable(inputs)) {
+            listener.sampleBatch(1, Duration.ZERO);
+            return evaluation.apply(inputs);
+        }
+
+        Request request = new Request(inputs, System.nanoTime());
+        Batch batch = null;
+        boolean leader = false;
+        synchronized (monitor) {
+            if (pending == null) {
+                batch = pending = new Batch(request);
+                leader = true;
+                awaitBatch(batch, request.submittedNanos + maxDelayNanos);
+            }
+            else if (pending.accepts(request)) {
+                batch = pending;
+                batch.requests.add(request);
+                if (batch.requests.size() >= maxBatchSize) {
+                    pending = null;
+                    monitor.notifyAll();
+                }
+            }
+        }
+
+        if (batch == null) { // Not compatible with the batch being collected: Evaluate alone
+            listener.sampleBatch(1, Duration.ZERO);
+            return evaluation.apply(inputs);
+        }
+        if (leader)
+            batch.evaluate();
+
+        try {
+            Map<String, Tensor> result = request.result.join();
+            listener.sampleBatch(batch.requests.size(), Duration.ofNanos(batch.startedNanos - request.submittedNanos));
+            return result;
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+            throw e;
+        }
+    }
+
+    /** Waits until the given batch is full or the deadline is reached, and closes it for new requests */
+    private void awaitBatch(Batch batch, long deadlineNanos) {
+        try {
+            while (pending == batch) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) break;
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if (pending == batch)
+                pending = null;
+        }
+    }
+
+    private static boolean isBatchable(Map<String, Tensor> inputs) {
+        if (inputs.isEmpty()) return false;
+        for (Tensor input : inputs.values()) {
+            if ( ! (input instanceof IndexedTensor indexed)) return false;
+            if ( ! input.type().hasOnlyIndexedBoundDimensions()) return false;
+            long[] shape = indexed.shape();
+            if (shape.length == 0 || shape[0] != 1) return false;
+        }
+        return true;
+    }
+
+    private record Request(Map<String, Tensor> inputs, long submittedNanos, CompletableFuture<Map<String, Tensor>> result) {
+
+        Request(Map<String, Tensor> inputs, long submittedNanos) {
+            this(inputs, submittedNanos, new CompletableFuture<>());
+        }
+
+    }
+
+    /** A dimension which is padded from the given size to the padded size in a batch */
+    private record Truncation(long paddedSize, long size) { }
+
+    private class Batch {
+
+        private final List<Request> requests = new ArrayList<>();
+        private long startedNanos;
+
+        Batch(Request first) {
+            requests.add(first);
+        }
+
+        /** Returns whether the given request has the same inputs, with the same dimensions, as this batch */
+        boolean accepts(Request request) {
+            Map<String, Tensor> first = requests.get(0).inputs;
+            if ( ! first.keySet().equals(request.inputs.keySet())) return false;
+            for (var input : request.inputs.entrySet()) {
+                TensorType firstType = first.get(input.getKey()).type();
+                TensorType type = input.getValue().type();
+                if (firstType.valueType() != type.valueType()) return false;
+                if ( ! firstType.dimensionNames().equals(type.dimensionNames())) return false;
+            }
+            return true;
+        }
+
+        /** Evaluates this batch and completes all its requests. Must be called outside the monitor. */
+        void evaluate() {
+            startedNanos = System.nanoTime();
+            try {
+                if (requests.size() == 1) {
+                    Request request = requests.get(0);
+                    request.result.complete(evaluation.apply(request.inputs));
+                    return;
+                }
+                Map<String, long[]> paddedShapes = paddedShapes();
+                Map<String, Tensor> batchInputs = new HashMap<>();
+                for (var shape : paddedShapes.entrySet())
+                    batchInputs.put(shape.getKey(), concatenate(shape.getKey(), shape.getValue()));
+                Map<String, Tensor> batchOutputs = evaluation.apply(batchInputs);
+                for (int i = 0; i < requests.size(); i++) {
+                    Map<Integer, Truncation> truncations = truncations(requests.get(i), paddedShapes);
+                    Map<String, Tensor> outputs = new HashMap<>();
+                    for (var output : batchOutputs.entrySet())
+                        outputs.put(output.getKey(), slice((IndexedTensor) output.getValue(), i, requests.size(), truncations));
+                    requests.get(i).result.complete(outputs);
+                }
+            }
+            catch (RuntimeException e) {
+                requests.forEach(request -> request.result.completeExceptionally(e));
+            }
+        }
+
+        /** Returns the shape of each batched input: The batch size, followed by the max size of each other dimension */
+        private Map<String, long[]> paddedShapes() {
+            Map<String, long[]> shapes = new HashMap<>();
+            for (Request request : requests) {
+                for (var input : request.inputs.entrySet()) {
+                    long[] shape = ((IndexedTensor) input.getValue()).shape();
+                    long[] padded = shapes.computeIfAbsent(input.getKey(), __ -> new long[shape.length]);
+                    padded[0] = requests.size();
+                    for (int d = 1; d < shape.length; d++)
+                        padded[d] = Math.max(padded[d], shape[d]);
+                }
+            }
+            return shapes;
+        }
+
+        private Tensor concatenate(String name, long[] paddedShape) {
+            TensorType type = typeOf(requests.get(0).inputs.get(name).type(), paddedShape);
+            double[] values = new double[(int) product(paddedShape, 0)];
+            long rowSize = product(paddedShape, 1);
+            for (int i = 0; i < requests.size(); i++) {
+                IndexedTensor input = (IndexedTensor) requests.get(i).inputs.get(name);
+                long[] shape = input.shape();
+                long[] indexes = new long[shape.length];
+                for (long source = 0; source < input.size(); source++) {
+                    toIndexes(source, shape, indexes);
+                    values[(int) (i * rowSize + toValueIndex(indexes, paddedShape, 1))] = input.get(source);
+                }
+            }
+            return IndexedTensor.Builder.of(type, values).build();
+        }
+
+        /** Returns the dimensions which are padded in the inputs of this request, by dimension index */
+        private Map<Integer, Truncation> truncations(Request request, Map<String, long[]> paddedShapes) {
+            Map<Integer, Truncation> truncations = new HashMap<>();
+            for (var input : request.inputs.entrySet()) {
+                long[] shape = ((IndexedTensor) input.getValue()).shape();
+                long[] padded = paddedShapes.get(input.getKey());
+                for (int d = 1; d < shape.length; d++) {
+                    if (shape[d] < padded[d])
+                        truncations.putIfAbsent(d, new Truncation(padded[d], shape[d]));
+                }
+            }
+            return truncations;
+        }
+
+    }
+
+    private static Tensor slice(IndexedTensor output, int batchIndex, int batchSize, Map<Integer, Truncation> truncations) {
+        long[] batchShape = output.shape();
+        if (batchShape.length == 0 || batchShape[0] != batchSize)
+            throw new IllegalArgumentException("Expected output with a leading batch dimension of size " + batchSize +
+                                               ", got " + output.type());
+        long[] shape = new long[batchShape.length];
+        shape[0] = 1;
+        for (int d = 1; d < batchShape.length; d++) {
+            Truncation truncation = truncations.get(d);
+            shape[d] = truncation != null && truncation.paddedSize() == batchShape[d] ? truncation.size() : batchShape[d];
+        }
+        TensorType type = typeOf(output.type(), shape);
+        double[] values = new double[(int) product(shape, 0)];
+        long rowOffset = batchIndex * product(batchShape, 1);
+        long[] indexes = new long[shape.length];
+        for (int target = 0; target < values.length; target++) {
+            toIndexes(target, shape, indexes);
+            values[target] = output.get(rowOffset + toValueIndex(indexes, batchShape, 1));
+        }
+        return IndexedTensor.Builder.of(type, values).build();
+    }
+
+    private static TensorType typeOf(TensorType type, long[] shape) {
+        TensorType.Builder builder = new TensorType.Builder(type.valueType());
+        for (int d = 0; d < shape.length; d++)
+            builder.indexed(type.dimensions().get(d).name(), shape[d]);
+        return builder.build();
+    }
+
+    private static long product(long[] shape, int fromDimension) {
+        long product = 1;
+        for (int d = fromDimension; d < shape.length; d++)
+            product *= shape[d];
+        return product;
+    }
+
+    /** Decomposes a value index in standard value order into one index per dimension */
+    private static void toIndexes(long valueIndex, long[] shape, long[] indexes) {
+        for (int d = shape.length - 1; d >= 0; d--) {
+            indexes[d] = valueIndex % shape[d];
+            valueIndex /= shape[d];
+        }
+    }
+
+    /** Returns the value index of the given indexes in standard value order, ignoring dimensions before the given one */
+    private static long toValueIndex(long[] indexes, long[] shape, int fromDimension) {
+        long valueIndex = 0;
+        for (int d = fromDimension; d < shape.length; d++)
+            valueIndex = valueIndex * shape[d] + indexes[d];
+        return valueIndex;
+    }
+
+}
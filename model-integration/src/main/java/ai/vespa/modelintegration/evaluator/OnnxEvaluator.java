@@ -12,6 +12,7 @@ import ai.vespa.modelintegration.evaluator.OnnxRuntime.ReferencedOrtSession;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -31,16 +32,35 @@ public class OnnxEvaluator implements AutoCloseable {
     private static final Logger LOG = Logger.getLogger(OnnxEvaluator.class.getName());
 
     private final ReferencedOrtSession session;
+    private final OnnxBatcher batcher;
 
     OnnxEvaluator(String modelPath, OnnxEvaluatorOptions options, OnnxRuntime runtime) {
         session = createSession(ModelPathOrData.of(modelPath), runtime, options, true);
+        batcher = createBatcher(options);
     }
 
     OnnxEvaluator(byte[] data, OnnxEvaluatorOptions options, OnnxRuntime runtime) {
         session = createSession(ModelPathOrData.of(data), runtime, options, true);
+        batcher = createBatcher(options);
+    }
+
+    /** Receives the size of the batch and the time spent waiting for it to fill, for evaluations which are micro-batched */
+    public interface BatchingListener {
+
+        BatchingListener ignore = (batchSize, waitTime) -> { };
+
+        void sampleBatch(int batchSize, Duration waitTime);
+
     }
 
     public Tensor evaluate(Map<String, Tensor> inputs, String output) {
+        if (batcher != null) {
+            try {
+                return evaluate(inputs).get(TensorConverter.asValidName(mapToInternalName(output)));
+            } catch (OrtException e) {
+                throw new RuntimeException("ONNX Runtime exception", e);
+            }
+        }
         Map<String, OnnxTensor> onnxInputs = null;
         try {
             output = mapToInternalName(output);
@@ -58,6 +78,21 @@ public class OnnxEvaluator implements AutoCloseable {
     }
 
     public Map<String, Tensor> evaluate(Map<String, Tensor> inputs) {
+        return evaluate(inputs, BatchingListener.ignore);
+    }
+
+    /**
+     * Evaluates the model with the given inputs and returns all outputs.
+     * If micro-batching is enabled in the options of this, the evaluation may be merged with concurrent
+     * evaluations from other threads, and the given listener is notified about the batch it became part of.
+     */
+    public Map<String, Tensor> evaluate(Map<String, Tensor> inputs, BatchingListener listener) {
+        if (batcher != null)
+            return batcher.evaluate(inputs, listener);
+        return evaluateAll(inputs);
+    }
+
+    private Map<String, Tensor> evaluateAll(Map<String, Tensor> inputs) {
         Map<String, OnnxTensor> onnxInputs = null;
         try {
             onnxInputs = TensorConverter.toOnnxTensors(inputs, OnnxRuntime.ortEnvironment(), session.instance());
@@ -134,6 +169,11 @@ public class OnnxEvaluator implements AutoCloseable {
         }
     }
 
+    private OnnxBatcher createBatcher(OnnxEvaluatorOptions options) {
+        if (options == null || ! options.batchingEnabled()) return null;
+        return new OnnxBatcher(options.batchingMaxSize(), options.batchingMaxDelay(), this::evaluateAll);
+    }
+
     private static ReferencedOrtSession createSession(ModelPathOrData model, OnnxRuntime runtime,
                                                       OnnxEvaluatorOptions options, boolean tryCuda) {
         if (options == null) {
@@ -5,6 +5,7 @@ package ai.vespa.modelintegration.evaluator;
 import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import static ai.onnxruntime.OrtSession.SessionOptions.ExecutionMode.PARALLEL;
@@ -23,6 +24,8 @@ public class OnnxEvaluatorOptions {
     private int intraOpThreads;
     private int gpuDeviceNumber;
     private boolean gpuDeviceRequired;
+    private int batchingMaxSize;
+    private Duration batchingMaxDelay;
 
     public OnnxEvaluatorOptions() {
         // Defaults:
@@ -33,6 +36,8 @@ public class OnnxEvaluatorOptions {
         intraOpThreads = quarterVcpu;
         gpuDeviceNumber = -1;
         gpuDeviceRequired = false;
+        batchingMaxSize = 1;
+        batchingMaxDelay = Duration.ZERO;
     }
 
     public OrtSession.SessionOptions getOptions(boolean loadCuda) throws OrtException {
@@ -99,6 +104,22 @@ public class OnnxEvaluatorOptions {
 
     public int gpuDeviceNumber() { return gpuDeviceNumber; }
 
+    /**
+     * Enables micro-batching of concurrent evaluations: Evaluations submitted from different threads
+     * are merged into a single padded batch of at most maxSize entries, waiting at most maxDelay
+     * for the batch to fill up. A max size of 1 or less disables batching.
+     */
+    public void setBatching(int maxSize, Duration maxDelay) {
+        batchingMaxSize = Math.max(1, maxSize);
+        batchingMaxDelay = maxDelay.isNegative() ? Duration.ZERO : maxDelay;
+    }
+
+    public boolean batchingEnabled() { return batchingMaxSize > 1; }
+
+    public int batchingMaxSize() { return batchingMaxSize; }
+
+    public Duration batchingMaxDelay() { return batchingMaxDelay; }
+
     public OnnxEvaluatorOptions copy() {
         var copy = new OnnxEvaluatorOptions();
         copy.gpuDeviceNumber = gpuDeviceNumber;
@@ -107,6 +128,8 @@ public class OnnxEvaluatorOptions {
         copy.interOpThreads = interOpThreads;
         copy.intraOpThreads = intraOpThreads;
         copy.optimizationLevel = optimizationLevel;
+        copy.batchingMaxSize = batchingMaxSize;
+        copy.batchingMaxDelay = batchingMaxDelay;
         return copy;
     }
 
@@ -117,11 +140,13 @@ public class OnnxEvaluatorOptions {
         OnnxEvaluatorOptions that = (OnnxEvaluatorOptions) o;
         return interOpThreads == that.interOpThreads && intraOpThreads == that.intraOpThreads
                 && gpuDeviceNumber == that.gpuDeviceNumber && gpuDeviceRequired == that.gpuDeviceRequired
-                && optimizationLevel == that.optimizationLevel && executionMode == that.executionMode;
+                && optimizationLevel == that.optimizationLevel && executionMode == that.executionMode
+                && batchingMaxSize == that.batchingMaxSize && batchingMaxDelay.equals(that.batchingMaxDelay);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(optimizationLevel, executionMode, interOpThreads, intraOpThreads, gpuDeviceNumber, gpuDeviceRequired);
+        return Objects.hash(optimizationLevel, executionMode, interOpThreads, intraOpThreads, gpuDeviceNumber, gpuDeviceRequired,
+                            batchingMaxSize, batchingMaxDelay);
     }
 }
@@ -0,0 +1,73 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.embedding;
+
+import com.yahoo.language.Language;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EmbeddingCacheTest {
+
+    private static final TensorType type = TensorType.fromSpec("tensor<float>(x[4])");
+    private static final Tensor embedding = Tensor.from("tensor<float>(x[4]):[1, 2, 3, 4]");
+
+    @Test
+    public void testLeastRecentlyUsedEmbeddingsAreEvicted() {
+        var key1 = key("one");
+        var key2 = key("two");
+        var key3 = key("three");
+        long entrySize = EmbeddingCache.sizeOf(key1, embedding);
+        var cache = new EmbeddingCache(2 * entrySize + EmbeddingCache.sizeOf(key3, embedding) - 1,
+                                       Duration.ofHours(1), new ManualClock());
+
+        assertEquals(0, cache.put(key1, embedding));
+        assertEquals(0, cache.put(key2, embedding));
+        assertEquals(embedding, cache.get(key1)); // key2 is now least recently used
+        assertEquals(1, cache.put(key3, embedding));
+
+        assertEquals(embedding, cache.get(key1));
+        assertNull(cache.get(key2));
+        assertEquals(embedding, cache.get(key3));
+        assertEquals(2, cache.entryCount());
+        assertEquals(entrySize + EmbeddingCache.sizeOf(key3, embedding), cache.sizeInBytes());
+    }
+
+    @Test
+    public void testExpiredEmbeddingsAreNotReturned() {
+        var clock = new ManualClock();
+        var cache = new EmbeddingCache(1 << 20, Duration.ofMinutes(10), clock);
+        cache.put(key("one"), embedding);
+        clock.advance(Duration.ofMinutes(9));
+        assertEquals(embedding, cache.get(key("one")));
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(cache.get(key("one")));
+        assertEquals(0, cache.sizeInBytes());
+    }
+
+    @Test
+    public void testKeyIncludesTypeAndDestination() {
+        var cache = new EmbeddingCache(1 << 20, Duration.ofHours(1), new ManualClock());
+        cache.put(key("one"), embedding);
+        assertNull(cache.get(new EmbeddingCache.Key("e5", "one", TensorType.fromSpec("tensor<float>(x[8])"), Language.ENGLISH, "query(q)")));
+        assertNull(cache.get(new EmbeddingCache.Key("e5", "one", type, Language.ENGLISH, "doc.embedding")));
+        assertEquals(embedding, cache.get(key("one")));
+    }
+
+    @Test
+    public void testEmbeddingsLargerThanTheCacheAreNotAdded() {
+        var cache = new EmbeddingCache(10, Duration.ofHours(1), new ManualClock());
+        assertEquals(0, cache.put(key("one"), embedding));
+        assertNull(cache.get(key("one")));
+    }
+
+    private static EmbeddingCache.Key key(String text) {
+        return new EmbeddingCache.Key("e5", text, type, Language.ENGLISH, "query(q)");
+    }
+
+}
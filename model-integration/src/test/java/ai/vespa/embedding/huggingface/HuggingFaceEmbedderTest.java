@@ -12,6 +12,8 @@ import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.TensorAddress;
 import org.junit.Test;
 
+import java.util.List;
+
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assume.assumeTrue;
@@ -113,6 +115,19 @@ public class HuggingFaceEmbedderTest {
         assertEquals(-0.666, float16Result.sum().asDouble(),1e-3);
     }
 
+    @Test
+    public void testBatchEmbedding() {
+        var type = TensorType.fromSpec("tensor<float>(x[8])");
+        var inputs = List.of("This is a test", "This is a somewhat longer test string to embed", "This is a test");
+        var batchResult = embedder.embed(inputs, new Embedder.Context("schema.indexing"), type);
+        assertEquals(inputs.size(), batchResult.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            Tensor single = embedder.embed(inputs.get(i), new Embedder.Context("schema.indexing"), type);
+            for (int d = 0; d < 8; d++)
+                assertEquals(single.get(TensorAddress.of(d)), batchResult.get(i).get(TensorAddress.of(d)), 1e-4);
+        }
+    }
+
     @Test
     public void testEmbedderWithNormalization() {
         String input = "This is a test";
@@ -0,0 +1,75 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+
+package ai.vespa.modelintegration.evaluator;
+
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class OnnxBatcherTest {
+
+    @Test
+    public void testConcurrentEvaluationsAreBatchedAndUnpadded() throws Exception {
+        List<Map<String, Tensor>> evaluated = new CopyOnWriteArrayList<>();
+        var batcher = new OnnxBatcher(3, Duration.ofMinutes(1), inputs -> {
+            evaluated.add(inputs);
+            return Map.of("output", inputs.get("input"));
+        });
+
+        List<String> inputs = List.of("tensor<float>(d0[1],d1[1]):[1]",
+                                      "tensor<float>(d0[1],d1[2]):[2,3]",
+                                      "tensor<float>(d0[1],d1[3]):[4,5,6]");
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(inputs.size());
+        try {
+            List<Future<Map<String, Tensor>>> results = new ArrayList<>();
+            for (String input : inputs)
+                results.add(executor.submit(() -> batcher.evaluate(Map.of("input", Tensor.from(input)),
+                                                                   (batchSize, waitTime) -> batchSizes.add(batchSize))));
+            for (int i = 0; i < inputs.size(); i++)
+                assertEquals(Tensor.from(inputs.get(i)), results.get(i).get().get("output"));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, evaluated.size());
+        assertEquals("tensor<float>(d0[3],d1[3])", evaluated.get(0).get("input").type().toString());
+        assertEquals(List.of(3, 3, 3), batchSizes);
+    }
+
+    @Test
+    public void testSingleEvaluationIsNotPadded() {
+        var batcher = new OnnxBatcher(8, Duration.ZERO, inputs -> Map.of("output", inputs.get("input")));
+        var input = Tensor.from("tensor<float>(d0[1],d1[2]):[1,2]");
+        assertEquals(input, batcher.evaluate(Map.of("input", input), OnnxEvaluator.BatchingListener.ignore).get("output"));
+    }
+
+    @Test
+    public void testInputsWithoutBatchDimensionAreEvaluatedDirectly() {
+        var batcher = new OnnxBatcher(8, Duration.ofMinutes(1), inputs -> Map.of("output", inputs.get("input")));
+        var input = Tensor.from("tensor<float>(d0[2],d1[2]):[[1,2],[3,4]]");
+        assertEquals(input, batcher.evaluate(Map.of("input", input), OnnxEvaluator.BatchingListener.ignore).get("output"));
+    }
+
+    @Test
+    public void testFailuresArePropagated() {
+        var batcher = new OnnxBatcher(2, Duration.ZERO, inputs -> { throw new IllegalArgumentException("bad input"); });
+        var input = Tensor.from("tensor<float>(d0[1],d1[2]):[1,2]");
+        var e = assertThrows(IllegalArgumentException.class,
+                             () -> batcher.evaluate(Map.of("input", input), OnnxEvaluator.BatchingListener.ignore));
+        assertEquals("bad input", e.getMessage());
+    }
+
+}
@@ -63,6 +63,28 @@ public interface FeedClientBuilder {
      */
     FeedClientBuilder setMaxStreamPerConnection(int max);
 
+    /**
+     * Sets the maximum number of operations to send together, in a single request to the bulk feed API.
+     *
+     * This reduces the per-operation overhead of HTTP, and allows much higher throughput per connection.
+     * Operations with a route or a trace level are always sent alone. This is off ({@code 1}) by default,
+     * as the bulk feed API requires a recent Vespa version.
+     */
+    FeedClientBuilder setMaxOperationsPerRequest(int max);
+
+    /**
+     * Sets the maximum total size of the bodies of operations which are queued or inflight in this client.
+     * When this is reached, new operations block until earlier ones complete, as when the maximum number
+     * of inflight operations is reached. An operation larger than this is still sent, alone. Unbounded by default.
+     */
+    FeedClientBuilder setMaxBufferedBytes(long max);
+
+    /**
+     * Turns on keeping the bodies of queued and inflight operations in pooled, direct buffers, rather than on the heap.
+     * This reduces heap usage and garbage collection when many large operations are inflight; off by default.
+     */
+    FeedClientBuilder setOffHeapBuffering(boolean enabled);
+
     /** Sets a duration after which this client will recycle active connections. This is off ({@code Duration.ZERO}) by default. */
     FeedClientBuilder setConnectionTimeToLive(Duration ttl);
 
@@ -147,10 +169,30 @@ public interface FeedClientBuilder {
     /** Specify HTTP(S) proxy for all endpoints */
     FeedClientBuilder setProxy(URI uri);
 
-    /** What compression to use for request bodies; default {@code auto}. */
+    /**
+     * What compression to use for request bodies; default {@code auto}, which is gzip for large bodies.
+     * Zstd uses less CPU than gzip, but requires a recent Vespa version.
+     */
     FeedClientBuilder setCompression(Compression compression);
 
-    enum Compression { auto, none, gzip }
+    enum Compression { auto, none, gzip, zstd }
+
+    /**
+     * Turns on sending put and update operations in the Slime binary format, which is cheaper than JSON for the
+     * server to parse, instead of as JSON; off by default, as this requires a recent Vespa version.
+     * Operations which are sent in bulk, see {@link #setMaxOperationsPerRequest(int)}, are always sent as JSON.
+     */
+    FeedClientBuilder setSlimeEncoding(boolean enabled);
+
+    /**
+     * How to adjust the number of inflight operations; default {@code throughput}, which samples throughput for
+     * different numbers of inflight operations. {@code latency} instead compares the latency of responses to the
+     * minimum latency seen recently, to keep queues at the server short, which gives less variation in throughput
+     * when the cost of operations on the server varies.
+     */
+    FeedClientBuilder setThrottling(Throttling throttling);
+
+    enum Throttling { throughput, latency }
 
     /** Constructs instance of {@link FeedClient} from builder configuration */
     FeedClient build();
@@ -64,6 +64,19 @@ public class JsonFeeder implements Closeable {
          */
         default void onNextResult(Result result, FeedException error) { }
 
+        /**
+         * Invoked after each operation has either completed successfully or failed, with the byte range of the operation
+         * in the input stream. The ranges of all operations in a stream are adjacent, in input order; the first starts at 0,
+         * and each ends just after the operation, so a range also covers any separators before its operation.
+         * The default implementation ignores the range, and delegates to {@link #onNextResult(Result, FeedException)}.
+         *
+         * @param result Non-null if operation completed successfully
+         * @param error Non-null if operation failed
+         * @param start offset of the first byte in the input after the previous operation
+         * @param end offset of the first byte in the input after this operation
+         */
+        default void onNextResult(Result result, FeedException error, long start, long end) { onNextResult(result, error); }
+
         /**
          * Invoked if an unrecoverable error occurred during feed processing,
          * after which no other {@link ResultCallback} methods are invoked.
@@ -147,7 +160,12 @@ public class JsonFeeder implements Closeable {
         return feedMany(jsonStream, new ResultCallback() { });
     }
 
-    CompletableFuture<Void> feedMany(InputStream jsonStream, int size, ResultCallback resultCallback) {
+    /**
+     * Same as {@link #feedMany(InputStream, ResultCallback)}, but with the given initial size, in bytes, of the buffer of
+     * input not yet dispatched, which grows as needed to hold the largest operation. This is 64 MiB by default, and
+     * should be smaller when feeding many streams at once.
+     */
+    public CompletableFuture<Void> feedMany(InputStream jsonStream, int size, ResultCallback resultCallback) {
         if (closed) throw new IllegalStateException("Already closed");
         CompletableFuture<Void> overallResult = new CompletableFuture<>();
         CompletableFuture<Result> result;
@@ -155,11 +173,12 @@ public class JsonFeeder implements Closeable {
         AtomicBoolean finalCallbackInvoked = new AtomicBoolean();
         try (RingBufferStream buffer = new RingBufferStream(jsonStream, size)) {
             while ((result = buffer.next()) != null) {
+                long start = buffer.operationStart(), end = buffer.operationEnd();
                 localInflightOperations.incrementAndGet();
                 globalInflightOperations.incrementAndGet();
                 result.whenCompleteAsync((r, t) -> {
                     if (!finalCallbackInvoked.get()) {
-                        invokeCallback(resultCallback, c -> c.onNextResult(r, (FeedException) t));
+                        invokeCallback(resultCallback, c -> c.onNextResult(r, (FeedException) t, start, end));
                     }
                     if (localInflightOperations.decrementAndGet() == 0 && finalCallbackInvoked.compareAndSet(false, true)) {
                         invokeCallback(resultCallback, ResultCallback::onComplete);
@@ -293,6 +312,10 @@ public class JsonFeeder implements Closeable {
            return parserAndExecutor.next();
         }
 
+        long operationStart() { return parserAndExecutor.operationStart; }
+
+        long operationEnd() { return parserAndExecutor.operationEnd; }
+
         private void expand() {
             int newSize = size * 2;
             if (newSize <= size)
@@ -407,6 +430,8 @@ public class JsonFeeder implements Closeable {
         private final JsonParser parser;
         private final boolean multipleOperations;
         private boolean arrayPrefixParsed;
+        private long operationStart = 0; // Input offset just after the previous operation.
+        private long operationEnd = 0; // Input offset just after the last parsed operation.
 
         protected OperationParserAndExecutor(JsonParser parser, boolean multipleOperations) {
             this.parser = parser;
@@ -422,6 +447,7 @@ public class JsonFeeder implements Closeable {
         }
 
         CompletableFuture<Result> next() throws IOException {
+            operationStart = operationEnd;
             JsonToken token = parser.nextToken();
             if (multipleOperations && ! arrayPrefixParsed && token == JsonToken.START_ARRAY) {
                 arrayPrefixParsed = true;
@@ -460,6 +486,7 @@ public class JsonFeeder implements Closeable {
                         break;
 
                     case END_OBJECT:
+                        operationEnd = parser.currentTokenLocation().getByteOffset() + 1;
                         break loop;
 
                     default:
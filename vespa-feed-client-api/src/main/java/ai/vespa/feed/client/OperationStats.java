@@ -23,10 +23,29 @@ public class OperationStats {
     private final long maxLatencyMillis;
     private final long bytesSent;
     private final long bytesReceived;
+    private final long bufferedBytes;
+    private final double throttlerMinLatencyMillis;
+    private final double throttlerLatencyMillis;
+    private final String throttlerDecision;
 
     public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
                           long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
                           long maxLatencyMillis, long bytesSent, long bytesReceived) {
+        this(duration, requests, responsesByCode, exceptions, inflight, targetInFlight, averageLatencyMillis,
+             minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, 0);
+    }
+
+    public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
+                          long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
+                          long maxLatencyMillis, long bytesSent, long bytesReceived, long bufferedBytes) {
+        this(duration, requests, responsesByCode, exceptions, inflight, targetInFlight, averageLatencyMillis,
+             minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, bufferedBytes, -1, -1, "none");
+    }
+
+    public OperationStats(double duration, long requests, Map<Integer, Long> responsesByCode, long exceptions,
+                          long inflight, long targetInFlight, long averageLatencyMillis, long minLatencyMillis,
+                          long maxLatencyMillis, long bytesSent, long bytesReceived, long bufferedBytes,
+                          double throttlerMinLatencyMillis, double throttlerLatencyMillis, String throttlerDecision) {
         this.duration = duration;
         this.requests = requests;
         this.responsesByCode = responsesByCode;
@@ -38,10 +57,14 @@ public class OperationStats {
         this.maxLatencyMillis = maxLatencyMillis;
         this.bytesSent = bytesSent;
         this.bytesReceived = bytesReceived;
+        this.bufferedBytes = bufferedBytes;
+        this.throttlerMinLatencyMillis = throttlerMinLatencyMillis;
+        this.throttlerLatencyMillis = throttlerLatencyMillis;
+        this.throttlerDecision = Objects.requireNonNull(throttlerDecision);
     }
 
     /** Returns the difference between this and the initial.
-     *  Min and max latency, inflight and targetInflight are not modified.
+     *  Min and max latency, inflight, targetInflight, bufferedBytes and the throttler state are not modified.
      */
     public OperationStats since(OperationStats initial) {
         return new OperationStats(duration - initial.duration,
@@ -58,7 +81,11 @@ public class OperationStats {
                                   minLatencyMillis,
                                   maxLatencyMillis,
                                   bytesSent - initial.bytesSent,
-                                  bytesReceived - initial.bytesReceived);
+                                  bytesReceived - initial.bytesReceived,
+                                  bufferedBytes,
+                                  throttlerMinLatencyMillis,
+                                  throttlerLatencyMillis,
+                                  throttlerDecision);
     }
 
     /** Number of HTTP requests attempted. */
@@ -116,17 +143,37 @@ public class OperationStats {
         return bytesReceived;
     }
 
+    /** Number of bytes in the bodies of operations which are queued or inflight in the client. */
+    public long bufferedBytes() {
+        return bufferedBytes;
+    }
+
+    /** Minimum latency the latency based throttler measures against, or -1 if unknown or not throttling by latency. */
+    public double throttlerMinLatencyMillis() {
+        return throttlerMinLatencyMillis;
+    }
+
+    /** Smoothed latency seen by the latency based throttler, or -1 if unknown or not throttling by latency. */
+    public double throttlerLatencyMillis() {
+        return throttlerLatencyMillis;
+    }
+
+    /** The reason for the last change to the target inflight by the latency based throttler, or "none". */
+    public String throttlerDecision() {
+        return throttlerDecision;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         OperationStats that = (OperationStats) o;
-        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && responsesByCode.equals(that.responsesByCode);
+        return requests == that.requests && inflight == that.inflight && exceptions == that.exceptions && averageLatencyMillis == that.averageLatencyMillis && minLatencyMillis == that.minLatencyMillis && maxLatencyMillis == that.maxLatencyMillis && bytesSent == that.bytesSent && bytesReceived == that.bytesReceived && bufferedBytes == that.bufferedBytes && throttlerMinLatencyMillis == that.throttlerMinLatencyMillis && throttlerLatencyMillis == that.throttlerLatencyMillis && throttlerDecision.equals(that.throttlerDecision) && responsesByCode.equals(that.responsesByCode);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived);
+        return Objects.hash(requests, responsesByCode, inflight, exceptions, averageLatencyMillis, minLatencyMillis, maxLatencyMillis, bytesSent, bytesReceived, bufferedBytes, throttlerMinLatencyMillis, throttlerLatencyMillis, throttlerDecision);
     }
 
     @Override
@@ -145,6 +192,10 @@ public class OperationStats {
                ", maxLatencyMillis=" + maxLatencyMillis +
                ", bytesSent=" + bytesSent +
                ", bytesReceived=" + bytesReceived +
+               ", bufferedBytes=" + bufferedBytes +
+               ", throttlerMinLatencyMillis=" + throttlerMinLatencyMillis +
+               ", throttlerLatencyMillis=" + throttlerLatencyMillis +
+               ", throttlerDecision=" + throttlerDecision +
                '}';
     }
 
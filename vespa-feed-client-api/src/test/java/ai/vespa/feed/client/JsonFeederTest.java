@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -149,6 +150,28 @@ class JsonFeederTest {
         }
     }
 
+    @Test
+    public void operationRangesCoverTheInput() throws IOException, ExecutionException, InterruptedException {
+        MockClient client = new MockClient();
+        try (JsonFeeder feeder = JsonFeeder.builder(client).build()) {
+            String json = "[\n" +
+                          "  { \"put\": \"id:ns:type::abc1\", \"fields\": { \"lul\": \"lal\" } },\n" +
+                          "  { \"remove\": \"id:ns:type::abc2\" }\n" +
+                          "]\n";
+            Map<Long, Long> ranges = new ConcurrentSkipListMap<>();
+            feeder.feedMany(new ByteArrayInputStream(json.getBytes(UTF_8)),
+                            new JsonFeeder.ResultCallback() {
+                                @Override
+                                public void onNextResult(Result result, FeedException error, long start, long end) {
+                                    ranges.put(start, end);
+                                }
+                            })
+                  .get();
+            long first = json.indexOf("},") + 1, second = json.lastIndexOf('}') + 1;
+            assertEquals(Map.of(0L, first, first, second), ranges);
+        }
+    }
+
     @Test
     public void singleJsonOperationIsDispatchedToFeedClient() throws IOException, ExecutionException, InterruptedException {
         MockClient client = new MockClient();
@@ -2,6 +2,7 @@
 package ai.vespa.feed.client.impl;
 
 import ai.vespa.feed.client.FeedClientBuilder.Compression;
+import ai.vespa.feed.client.FeedClientBuilder.Throttling;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -16,15 +17,20 @@ import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.OptionalInt;
+import java.util.stream.Stream;
 
 import static ai.vespa.feed.client.FeedClientBuilder.Compression.auto;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Parses command line arguments
@@ -61,7 +67,12 @@ class CliArguments {
     private static final String DOOM_OPTION = "max-failure-seconds";
     private static final String PROXY_OPTION = "proxy";
     private static final String COMPRESSION = "compression";
+    private static final String THROTTLING = "throttling";
     private static final String LOG_CONFIG_OPTION = "log-config";
+    private static final String JOURNAL_OPTION = "journal";
+    private static final String RESUME_OPTION = "resume";
+    private static final String THREADS_OPTION = "threads";
+    private static final String ORDERED_OPTION = "ordered";
 
     private final CommandLine arguments;
 
@@ -98,6 +109,15 @@ class CliArguments {
                     throw new CliArgumentsException(String.format("Option '%s' can only be specified together with '%s'", TEST_PAYLOAD_SIZE_OPTION, SPEED_TEST_OPTION));
                 }
             }
+            if (args.hasOption(JOURNAL_OPTION) && ! args.hasOption(FILE_OPTION)) {
+                throw new CliArgumentsException(String.format("Option '%s' can only be specified together with '%s'", JOURNAL_OPTION, FILE_OPTION));
+            }
+            if (args.hasOption(THREADS_OPTION) && ! args.hasOption(FILE_OPTION)) {
+                throw new CliArgumentsException(String.format("Option '%s' can only be specified together with '%s'", THREADS_OPTION, FILE_OPTION));
+            }
+            if (args.hasOption(RESUME_OPTION) && ! args.hasOption(JOURNAL_OPTION)) {
+                throw new CliArgumentsException(String.format("Option '%s' can only be specified together with '%s'", RESUME_OPTION, JOURNAL_OPTION));
+            }
             if (args.hasOption(CERTIFICATE_OPTION) != args.hasOption(PRIVATE_KEY_OPTION)) {
                 throw new CliArgumentsException(
                         String.format("Both '%s' and '%s' must be specified together", CERTIFICATE_OPTION, PRIVATE_KEY_OPTION));
@@ -136,6 +156,22 @@ class CliArguments {
         return fileValue(FILE_OPTION);
     }
 
+    List<Path> inputFiles() {
+        String[] values = arguments.getOptionValues(FILE_OPTION);
+        if (values == null) return List.of();
+        return Stream.of(values).map(Paths::get).collect(toList());
+    }
+
+    OptionalInt threads() throws CliArgumentsException { return intValue(THREADS_OPTION); }
+
+    boolean ordered() { return has(ORDERED_OPTION); }
+
+    /** Whether input is read from several files, or by several threads, rather than as a single stream. */
+    boolean parallelInput() throws CliArgumentsException {
+        List<Path> files = inputFiles();
+        return threads().orElse(1) > 1 || files.size() > 1 || files.size() == 1 && Files.isDirectory(files.get(0));
+    }
+
     Map<String, String> headers() throws CliArgumentsException {
         String[] rawArguments = arguments.getOptionValues(HEADER_OPTION);
         if (rawArguments == null) return Map.of();
@@ -194,6 +230,15 @@ class CliArguments {
         }
     }
 
+    Throttling throttling() throws CliArgumentsException {
+        try {
+            return stringValue(THROTTLING).map(Throttling::valueOf).orElse(Throttling.throughput);
+        }
+        catch (IllegalArgumentException e) {
+            throw new CliArgumentsException("Invalid " + THROTTLING + " argument: " + e.getMessage(), e);
+        }
+    }
+
     OptionalInt testPayloadSize() throws CliArgumentsException { return intValue(TEST_PAYLOAD_SIZE_OPTION); }
 
     Optional<URI> proxy() throws CliArgumentsException {
@@ -208,6 +253,16 @@ class CliArguments {
 
     Optional<Path> logConfigFile() throws CliArgumentsException { return fileValue(LOG_CONFIG_OPTION); }
 
+    Optional<Path> journalFile() throws CliArgumentsException {
+        Optional<Path> journal = fileValue(JOURNAL_OPTION);
+        if (journal.isPresent() && parallelInput())
+            throw new CliArgumentsException(String.format("Option '%s' can only be used with a single input file, and a single thread", JOURNAL_OPTION));
+
+        return journal;
+    }
+
+    boolean resume() { return has(RESUME_OPTION); }
+
     private OptionalInt intValue(String option) throws CliArgumentsException {
         try {
             Number number = (Number) arguments.getParsedOptionValue(option);
@@ -266,7 +321,7 @@ class CliArguments {
                 .addOption(Option.builder()
                         .longOpt(FILE_OPTION)
                         .type(File.class)
-                        .desc("Path to feed file in JSON format")
+                        .desc("Path to feed file in JSON or JSONL format, or to a directory of such files; may be repeated")
                         .hasArg()
                         .build())
                 .addOption(Option.builder()
@@ -373,10 +428,18 @@ class CliArguments {
                 .addOption(Option.builder()
                         .longOpt(COMPRESSION)
                         .desc("Forced compression mode for feed requests; the default is to compress large requests. " +
-                              "Valid arguments are: 'auto' (default), 'none', 'gzip'")
+                              "Valid arguments are: 'auto' (default), 'none', 'gzip', 'zstd'")
                         .hasArg()
                         .type(Compression.class)
                         .build())
+                .addOption(Option.builder()
+                        .longOpt(THROTTLING)
+                        .desc("How to adjust the number of inflight operations; 'throughput' (default) samples throughput, " +
+                              "while 'latency' keeps response latency close to the lowest seen. " +
+                              "Valid arguments are: 'throughput' (default), 'latency'")
+                        .hasArg()
+                        .type(Throttling.class)
+                        .build())
                 .addOption(Option.builder()
                         .longOpt(LOG_CONFIG_OPTION)
                         .desc("Specify a path to a Java Util Logging properties file. " +
@@ -384,6 +447,26 @@ class CliArguments {
                                       "VESPA_HOME/conf/vespa-feed-client/logging.properties")
                         .hasArg()
                         .type(File.class)
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(JOURNAL_OPTION)
+                        .desc("Path to a journal file, where progress through the input file is recorded, for use with --" + RESUME_OPTION + "; requires --" + FILE_OPTION)
+                        .hasArg()
+                        .type(File.class)
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(RESUME_OPTION)
+                        .desc("Resume feeding from where the feed recorded in the journal was interrupted, instead of starting a new journal")
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(THREADS_OPTION)
+                        .desc("Number of threads which parse the input files, where JSONL files are split at line boundaries; default is 1")
+                        .hasArg()
+                        .type(Number.class)
+                        .build())
+                .addOption(Option.builder()
+                        .longOpt(ORDERED_OPTION)
+                        .desc("Keep operations on the same document in input order, also when the input is parsed by several threads")
                         .build());
     }
 
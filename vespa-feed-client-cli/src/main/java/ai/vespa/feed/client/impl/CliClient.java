@@ -23,6 +23,7 @@ import java.io.PrintStream;
 import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Enumeration;
@@ -89,14 +90,20 @@ public class CliClient {
                 systemOut.println(Vespa.VERSION);
                 return 0;
             }
-            try (InputStream in = createFeedInputStream(cliArgs);
+            boolean parallel = cliArgs.parallelInput();
+            try (FeedJournal journal = createFeedJournal(cliArgs);
+                 InputStream in = parallel ? null : journal != null ? journal.openRemainingInput() : createFeedInputStream(cliArgs);
                  FeedClient feedClient = createFeedClient(cliArgs);
-                 JsonFeeder feeder = createJsonFeeder(feedClient, cliArgs)) {
+                 ParallelFeeder parallelFeeder = parallel ? new ParallelFeeder(feedClient, cliArgs.threads().orElse(1), cliArgs.ordered()) : null;
+                 JsonFeeder feeder = createJsonFeeder(parallel ? parallelFeeder.client() : feedClient, cliArgs)) {
                 CountDownLatch latch = new CountDownLatch(1);
                 AtomicReference<FeedException> fatal = new AtomicReference<>();
                 AtomicLong successes = new AtomicLong();
                 AtomicLong failures = new AtomicLong();
                 long startNanos = System.nanoTime();
+                if (journal != null && journal.resumeOffset() > 0 && cliArgs.showProgress())
+                    systemError.println("Resuming feed at byte offset " + journal.resumeOffset());
+
                 if (cliArgs.showProgress()) {
                     Thread progressPrinter = new Thread(() -> {
                         try {
@@ -112,9 +119,15 @@ public class CliClient {
                     progressPrinter.start();
                 }
 
-                feeder.feedMany(in, new ResultCallback() {
+                ResultCallback callback = new ResultCallback() {
                     @Override
-                    public void onNextResult(Result result, FeedException error) { handleResult(result, error, successes, failures, cliArgs); }
+                    public void onNextResult(Result result, FeedException error, long start, long end) {
+                        handleResult(result, error, successes, failures, cliArgs);
+                        if (journal == null) return;
+                        // Only successful results, including unmet conditions, are final; failed operations are fed again on resume
+                        if (error == null) journal.acknowledged(start, end);
+                        else journal.failed(start);
+                    }
 
                     @Override
                     public void onError(FeedException error) {
@@ -124,7 +137,9 @@ public class CliClient {
 
                     @Override
                     public void onComplete() { latch.countDown(); }
-                });
+                };
+                if (parallel) parallelFeeder.feedMany(feeder, cliArgs.inputFiles(), callback);
+                else feeder.feedMany(in, callback);
                 latch.await();
 
                 printBenchmarkResult(System.nanoTime() - startNanos, successes.get(), failures.get(), feedClient.stats(), cliArgs.benchmarkModeEnabled() ? systemOut : systemError);
@@ -173,12 +188,20 @@ public class CliClient {
         builder.setDryrun(cliArgs.dryrunEnabled());
         builder.setSpeedTest(cliArgs.speedTest());
         builder.setCompression(cliArgs.compression());
+        builder.setThrottling(cliArgs.throttling());
         cliArgs.doomSeconds().ifPresent(doom -> builder.setCircuitBreaker(new GracePeriodCircuitBreaker(Duration.ofSeconds(10),
                                                                                                         Duration.ofSeconds(doom))));
         cliArgs.proxy().ifPresent(builder::setProxy);
         return builder.build();
     }
 
+    private static FeedJournal createFeedJournal(CliArguments cliArgs) throws CliArguments.CliArgumentsException, IOException {
+        Path journal = cliArgs.journalFile().orElse(null);
+        if (journal == null) return null;
+        Path input = cliArgs.inputFile().get();
+        return cliArgs.resume() ? FeedJournal.resume(journal, input) : FeedJournal.create(journal, input);
+    }
+
     private static JsonFeeder createJsonFeeder(FeedClient feedClient, CliArguments cliArgs) throws CliArguments.CliArgumentsException, IOException {
         JsonFeeder.Builder builder = JsonFeeder.builder(feedClient);
         cliArgs.timeout().ifPresent(builder::withTimeout);
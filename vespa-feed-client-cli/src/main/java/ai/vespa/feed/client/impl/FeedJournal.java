@@ -0,0 +1,235 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only journal of how far into an input file all feed operations have been acknowledged, which lets
+ * an interrupted feed be resumed from there, instead of from the start.
+ * <p>
+ * The journal file has a header with the size of the input file, followed by a series of 8-byte watermarks, where
+ * the last is the input offset before which all operations are known to be acknowledged. Operations complete out
+ * of order, so acknowledged byte ranges are collected in memory until they are adjacent to the watermark, and the
+ * watermark is then appended and synced to disk periodically, never per operation. Only operations with a result,
+ * successful or with a condition not met, are acknowledged; an operation which fails, also transiently in Vespa,
+ * stops the watermark from advancing past it, for the rest of the feed, so it is fed again on resume.
+ * <p>
+ * When resuming a JSON array feed, the remaining input is prefixed with a new opening bracket, in place of the separator
+ * after the last acknowledged operation, and offsets reported for the remaining input are translated back accordingly.
+ */
+class FeedJournal implements AutoCloseable {
+
+    static final Duration syncInterval = Duration.ofSeconds(1);
+
+    private static final long magic = 0x5646_4a4f_5552_4e31L; // "VFJOURN1"
+    private static final int headerSize = 16;
+
+    private final Path input;
+    private final long resumeOffset;
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "feed-journal-syncer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object monitor = new Object();
+    private final Map<Long, Long> acknowledged = new TreeMap<>(); // Ranges beyond the watermark, by start offset.
+    private long watermark;
+    private long barrier = Long.MAX_VALUE; // Start of the first operation which failed without acknowledgement.
+    private long synced;
+    private long shift = 0; // Difference between offsets in the input file and in the remaining input stream.
+
+    private FeedJournal(Path input, FileChannel channel, long watermark) {
+        this.input = input;
+        this.resumeOffset = watermark;
+        this.channel = channel;
+        this.watermark = watermark;
+        this.synced = watermark;
+        syncer.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /** Creates a new journal for the given input file, replacing any existing journal at the given path. */
+    static FeedJournal create(Path journal, Path input) throws IOException {
+        FileChannel channel = FileChannel.open(journal, CREATE, TRUNCATE_EXISTING, WRITE);
+        try {
+            channel.write(ByteBuffer.allocate(headerSize).putLong(magic).putLong(Files.size(input)).flip());
+            channel.force(true);
+            return new FeedJournal(input, channel, 0);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Opens an existing journal for the given input file, to resume feeding from where it was left off. */
+    static FeedJournal resume(Path journal, Path input) throws IOException {
+        FileChannel channel = FileChannel.open(journal, READ, WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            while (header.hasRemaining() && channel.read(header) >= 0) { }
+            if (header.hasRemaining() || header.getLong(0) != magic)
+                throw new IOException("File at '" + journal + "' is not a feed journal");
+
+            long inputSize = Files.size(input);
+            if (header.getLong(Long.BYTES) != inputSize)
+                throw new IOException("Feed journal at '" + journal + "' was written for an input of " + header.getLong(Long.BYTES) +
+                                      " bytes, but '" + input + "' has " + inputSize + " bytes");
+
+            // The last complete record is the current watermark; a partial record, from an interrupted write, is dropped.
+            long end = headerSize + (channel.size() - headerSize) / Long.BYTES * Long.BYTES;
+            long watermark = 0;
+            if (end > headerSize) {
+                ByteBuffer record = ByteBuffer.allocate(Long.BYTES);
+                while (record.hasRemaining() && channel.read(record, end - Long.BYTES + record.position()) >= 0) { }
+                watermark = record.getLong(0);
+                if (watermark < 0 || watermark > inputSize)
+                    throw new IOException("Feed journal at '" + journal + "' has invalid watermark " + watermark);
+            }
+            channel.truncate(end);
+            channel.position(end);
+            return new FeedJournal(input, channel, watermark);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Returns the offset in the input file before which all operations were acknowledged when this was opened. */
+    long resumeOffset() {
+        return resumeOffset;
+    }
+
+    /** Returns the offset in the input file before which all operations are acknowledged. */
+    long watermark() {
+        synchronized (monitor) {
+            return watermark;
+        }
+    }
+
+    /** Opens the part of the input file which remains to be fed, as a stream which may be fed on its own. */
+    InputStream openRemainingInput() throws IOException {
+        if (resumeOffset == 0) return Files.newInputStream(input);
+
+        InputStream in = Channels.newInputStream(FileChannel.open(input, READ).position(resumeOffset));
+
+        try {
+            boolean array;
+            try (InputStream head = new BufferedInputStream(Files.newInputStream(input))) {
+                int next;
+                while ((next = head.read()) != -1 && Character.isWhitespace(next)) { }
+                array = next == '[';
+            }
+            if ( ! array) {
+                shift = resumeOffset;
+                return in;
+            }
+
+            // Replace whitespace and the separator after the last acknowledged operation with a new array start.
+            InputStream buffered = new BufferedInputStream(in);
+            long position = resumeOffset;
+            while (true) {
+                buffered.mark(1);
+                int next = buffered.read();
+                if (next == -1 || next != ',' && ! Character.isWhitespace(next)) {
+                    buffered.reset();
+                    break;
+                }
+                position++;
+                if (next == ',') break;
+            }
+            shift = position - 1;
+            return new SequenceInputStream(new ByteArrayInputStream(new byte[]{ '[' }), buffered);
+        }
+        catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /** Records that the operation in the given byte range of the remaining input stream was acknowledged. */
+    void acknowledged(long start, long end) {
+        synchronized (monitor) {
+            start = offsetOf(start);
+            if (start >= barrier) return;
+
+            acknowledged.put(start, offsetOf(end));
+            Long next;
+            while ((next = acknowledged.remove(watermark)) != null)
+                watermark = next;
+        }
+    }
+
+    /** Records that the operation starting at the given offset of the remaining input stream failed without acknowledgement. */
+    void failed(long start) {
+        synchronized (monitor) {
+            barrier = Math.min(barrier, offsetOf(start));
+            acknowledged.keySet().removeIf(offset -> offset >= barrier);
+        }
+    }
+
+    private long offsetOf(long streamOffset) {
+        return streamOffset == 0 ? resumeOffset : streamOffset + shift;
+    }
+
+    /** Appends the current watermark to the journal file, and syncs it to disk, if it has advanced. */
+    void sync() {
+        long current = watermark();
+        synchronized (channel) {
+            if (current <= synced) return;
+            try {
+                ByteBuffer record = ByteBuffer.allocate(Long.BYTES).putLong(current).flip();
+                while (record.hasRemaining()) channel.write(record);
+                channel.force(false);
+                synced = current;
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Failed writing feed journal", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncer.shutdown();
+        try {
+            if ( ! syncer.awaitTermination(10, TimeUnit.SECONDS))
+                throw new IOException("Timed out waiting for feed journal to sync");
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            sync();
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        finally {
+            channel.close();
+        }
+    }
+
+}
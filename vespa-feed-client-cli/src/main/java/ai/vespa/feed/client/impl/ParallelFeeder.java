@@ -0,0 +1,351 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.DocumentId;
+import ai.vespa.feed.client.FeedClient;
+import ai.vespa.feed.client.FeedException;
+import ai.vespa.feed.client.JsonFeeder;
+import ai.vespa.feed.client.JsonFeeder.ResultCallback;
+import ai.vespa.feed.client.OperationParameters;
+import ai.vespa.feed.client.OperationStats;
+import ai.vespa.feed.client.Result;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feeds a set of input files using several threads, which each parse a part of the input, and all feed through
+ * the same {@link JsonFeeder}, and thus the same {@link FeedClient}. JSONL files are split into parts at line
+ * boundaries, while files with a JSON array of operations, which can't be split this cheaply, are single parts.
+ * Directories are expanded to the files they contain.
+ * <p>
+ * Parsing in parallel means operations are no longer dispatched in input order. The feed client keeps operations
+ * on the same document in the order they are dispatched, so if that should also be input order, operations from
+ * each part are held back until all earlier parts are dispatched, with a bound on how much may be held back;
+ * the first part which is not yet completely dispatched is never held back, so the feed always progresses.
+ * To take part in this, the {@link JsonFeeder} must be built with the {@link #client()} of this.
+ */
+class ParallelFeeder implements AutoCloseable {
+
+    static final long partSize = 1 << 26;
+    static final int partBufferSize = 1 << 20; // Initial buffer size per part; the JsonFeeder grows it for larger operations.
+    static final long maxHeldBackBytes = Math.min(1 << 28, Runtime.getRuntime().maxMemory() / 8);
+
+    private final FeedClient client = new OrderingClient();
+    private final FeedClient delegate;
+    private final int threads;
+    private final boolean ordered;
+    private final long maxPartSize;
+    private final ExecutorService parsers;
+    private final ThreadLocal<Part> current = new ThreadLocal<>();
+    private final Object monitor = new Object();
+    private List<Part> parts = List.of();
+    private int head = 0; // Index of the first part which is not yet completely dispatched.
+    private long heldBackBytes = 0;
+    private boolean draining = false; // Whether some thread is dispatching held back operations, which must go before any others.
+
+    ParallelFeeder(FeedClient delegate, int threads, boolean ordered) {
+        this(delegate, threads, ordered, partSize);
+    }
+
+    ParallelFeeder(FeedClient delegate, int threads, boolean ordered, long maxPartSize) {
+        if (threads < 1) throw new IllegalArgumentException("Number of threads must be at least 1, but was " + threads);
+        this.delegate = requireNonNull(delegate);
+        this.threads = threads;
+        this.ordered = ordered;
+        this.maxPartSize = maxPartSize;
+        AtomicInteger count = new AtomicInteger();
+        this.parsers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "feed-parser-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** The client which the {@link JsonFeeder} used with this must be built with. */
+    FeedClient client() {
+        return client;
+    }
+
+    /**
+     * Feeds the given files, or all files in the given directories, with the given feeder, and returns when all input is parsed.
+     * The result callback is used as in {@link JsonFeeder#feedMany(InputStream, ResultCallback)}, except that byte ranges are
+     * offsets into the file each operation was read from; and the returned future completes when all operations have completed.
+     */
+    CompletableFuture<Void> feedMany(JsonFeeder feeder, List<Path> inputs, ResultCallback callback) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        AtomicReference<FeedException> fatal = new AtomicReference<>();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        try {
+            List<Part> parts = partsOf(inputs, maxPartSize);
+            synchronized (monitor) {
+                this.parts = parts;
+                this.head = 0;
+                this.heldBackBytes = 0;
+            }
+            AtomicInteger next = new AtomicInteger();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                workers.add(parsers.submit(() -> {
+                    for (int index; (index = next.getAndIncrement()) < parts.size(); ) {
+                        Part part = parts.get(index);
+                        if (fatal.get() != null) {
+                            dispatched(part); // Skipped, but later parts must not be held back by it.
+                            continue;
+                        }
+                        CompletableFuture<Void> partResult = feed(feeder, part, callback, fatal);
+                        synchronized (results) { results.add(partResult); }
+                    }
+                }));
+            for (Future<?> worker : workers) worker.get();
+        }
+        catch (IOException | UncheckedIOException | ExecutionException e) {
+            fatal.compareAndSet(null, new FeedException(e.getCause() != null ? e.getCause() : e));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fatal.compareAndSet(null, new FeedException(e));
+        }
+        CompletableFuture<?>[] all;
+        synchronized (results) { all = results.toArray(CompletableFuture[]::new); }
+        CompletableFuture.allOf(all).whenComplete((__, ___) -> {
+            if (fatal.get() != null) {
+                callback.onError(fatal.get());
+                result.completeExceptionally(fatal.get());
+            }
+            else {
+                callback.onComplete();
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /** Parses and dispatches all operations of the given part, and returns a future which completes when they have all completed. */
+    private CompletableFuture<Void> feed(JsonFeeder feeder, Part part, ResultCallback callback, AtomicReference<FeedException> fatal) {
+        current.set(part);
+        try {
+            return feeder.feedMany(part.open(), partBufferSize, new ResultCallback() {
+                @Override
+                public void onNextResult(Result result, FeedException error, long start, long end) {
+                    callback.onNextResult(result, error, part.start + start, part.start + end);
+                }
+                @Override
+                public void onError(FeedException error) { fatal.compareAndSet(null, error); }
+            }).exceptionally(__ -> null);
+        }
+        catch (IOException e) {
+            fatal.compareAndSet(null, new FeedException(e));
+            return CompletableFuture.completedFuture(null);
+        }
+        finally {
+            current.remove();
+            dispatched(part);
+        }
+    }
+
+    /**
+     * Marks the given part as completely dispatched, and dispatches held back operations of parts which are now first.
+     * Held back operations are dispatched outside the monitor, as dispatch may block, e.g., when throttled, and until
+     * they are all dispatched, operations of the first part are also held back, to keep them in order.
+     */
+    private void dispatched(Part part) {
+        synchronized (monitor) {
+            part.dispatched = true;
+            if (draining) return; // The thread which is draining will move past this part as well.
+            draining = true;
+        }
+        while (true) {
+            List<Runnable> heldBack;
+            synchronized (monitor) {
+                while (head < parts.size() && parts.get(head).dispatched && parts.get(head).heldBack.isEmpty())
+                    head++;
+
+                if (head == parts.size() || parts.get(head).heldBack.isEmpty()) {
+                    draining = false;
+                    monitor.notifyAll();
+                    return;
+                }
+                Part first = parts.get(head);
+                heldBack = new ArrayList<>(first.heldBack);
+                first.heldBack.clear();
+                heldBackBytes -= first.heldBackBytes;
+                first.heldBackBytes = 0;
+                monitor.notifyAll();
+            }
+            heldBack.forEach(Runnable::run);
+        }
+    }
+
+    private CompletableFuture<Result> dispatch(DocumentId documentId, long size, Supplier<CompletableFuture<Result>> operation) {
+        Part part = current.get();
+        if (ordered && part != null) synchronized (monitor) {
+            try {
+                while (part.index != head && heldBackBytes >= maxHeldBackBytes)
+                    monitor.wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(new FeedException(documentId, e));
+            }
+            if (part.index != head || draining) {
+                CompletableFuture<Result> result = new CompletableFuture<>();
+                part.heldBack.add(() -> {
+                    try {
+                        operation.get().whenComplete((value, thrown) -> {
+                            if (thrown != null) result.completeExceptionally(thrown);
+                            else result.complete(value);
+                        });
+                    }
+                    catch (RuntimeException e) {
+                        result.completeExceptionally(new FeedException(documentId, e));
+                    }
+                });
+                part.heldBackBytes += size;
+                heldBackBytes += size;
+                return result;
+            }
+        }
+        return operation.get();
+    }
+
+    @Override
+    public void close() {
+        parsers.shutdownNow();
+    }
+
+    /** Returns the parts of the given inputs, in input order, where each part of a JSONL file is at most about the given size. */
+    static List<Part> partsOf(List<Path> inputs, long maxPartSize) throws IOException {
+        List<Part> parts = new ArrayList<>();
+        for (Path input : inputs) {
+            List<Path> files;
+            if (Files.isDirectory(input)) try (Stream<Path> entries = Files.list(input)) {
+                files = entries.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            else files = List.of(input);
+
+            for (Path file : files) try (FileChannel channel = FileChannel.open(file, READ)) {
+                long size = channel.size();
+                if (isJsonArray(channel)) {
+                    parts.add(new Part(parts.size(), file, 0, size));
+                    continue;
+                }
+                for (long start = 0, end; start < size; start = end) {
+                    end = start + maxPartSize >= size ? size : nextLineStart(channel, start + maxPartSize - 1);
+                    parts.add(new Part(parts.size(), file, start, end));
+                }
+            }
+        }
+        return parts;
+    }
+
+    private static boolean isJsonArray(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 10);
+        for (long position = 0, read; (read = channel.read(buffer.clear(), position)) > 0; position += read)
+            for (int i = 0; i < read; i++)
+                if ( ! Character.isWhitespace(buffer.get(i))) return buffer.get(i) == '[';
+
+        return false;
+    }
+
+    /** Returns the offset just after the first line break at or after the given offset, or the size of the file if there is none. */
+    private static long nextLineStart(FileChannel channel, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+        for (int read; (read = channel.read(buffer.clear(), offset)) > 0; offset += read)
+            for (int i = 0; i < read; i++)
+                if (buffer.get(i) == '\n') return offset + i + 1;
+
+        return channel.size();
+    }
+
+    static class Part {
+
+        final int index;
+        final Path file;
+        final long start;
+        final long end;
+        private final List<Runnable> heldBack = new ArrayList<>();
+        private long heldBackBytes = 0;
+        private boolean dispatched = false;
+
+        Part(int index, Path file, long start, long end) {
+            this.index = index;
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        InputStream open() throws IOException {
+            FileChannel channel = FileChannel.open(file, READ);
+            return new InputStream() {
+                private long position = start;
+                @Override public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+                }
+                @Override public int read(byte[] b, int off, int len) throws IOException {
+                    if (position >= end) return -1;
+                    int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+                    if (read > 0) position += read;
+                    return read;
+                }
+                @Override public void close() throws IOException { channel.close(); }
+            };
+        }
+
+        @Override
+        public String toString() {
+            return file + "[" + start + ", " + end + ")";
+        }
+
+    }
+
+    private class OrderingClient implements FeedClient {
+
+        @Override
+        public CompletableFuture<Result> put(DocumentId documentId, String documentJson, OperationParameters params) {
+            return dispatch(documentId, documentJson.length(), () -> delegate.put(documentId, documentJson, params));
+        }
+
+        @Override
+        public CompletableFuture<Result> update(DocumentId documentId, String updateJson, OperationParameters params) {
+            return dispatch(documentId, updateJson.length(), () -> delegate.update(documentId, updateJson, params));
+        }
+
+        @Override
+        public CompletableFuture<Result> remove(DocumentId documentId, OperationParameters params) {
+            return dispatch(documentId, 0, () -> delegate.remove(documentId, params));
+        }
+
+        @Override
+        public OperationStats stats() { return delegate.stats(); }
+
+        @Override
+        public CircuitBreaker.State circuitBreakerState() { return delegate.circuitBreakerState(); }
+
+        @Override
+        public void close(boolean graceful) { delegate.close(graceful); }
+
+    }
+
+}
@@ -97,7 +97,21 @@ class CliArgumentsTest {
                                   () -> CliArguments.fromRawArgs(new String[] {"--endpoint", "https://endpoint", "--speed-test", "--test-payload-size", "123", "--file", "file"}))
                              .getMessage());
 
+        assertEquals("Option 'journal' can only be specified together with 'file'",
+                     assertThrows(CliArgumentsException.class,
+                                  () -> CliArguments.fromRawArgs(new String[] {"--endpoint", "https://endpoint", "--stdin", "--journal", "journal"}))
+                             .getMessage());
+
+        assertEquals("Option 'resume' can only be specified together with 'journal'",
+                     assertThrows(CliArgumentsException.class,
+                                  () -> CliArguments.fromRawArgs(new String[] {"--endpoint", "https://endpoint", "--file", "file", "--resume"}))
+                             .getMessage());
+
         CliArguments.fromRawArgs(new String[] {"--endpoint", "foo", "--speed-test"});
+
+        CliArguments args = CliArguments.fromRawArgs(new String[] {"--endpoint", "foo", "--file", "file", "--journal", "journal", "--resume"});
+        assertEquals(Paths.get("journal"), args.journalFile().get());
+        assertTrue(args.resume());
     }
 
     @Test
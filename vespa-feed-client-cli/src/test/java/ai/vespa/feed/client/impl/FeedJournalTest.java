@@ -0,0 +1,102 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FeedJournalTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testJsonlFeedIsResumedAtWatermark() throws IOException {
+        String feed = "{\"put\":\"id:ns:type::1\",\"fields\":{}}\n" +   // 0 - 36
+                      "{\"put\":\"id:ns:type::2\",\"fields\":{}}\n" +   // 36 - 72
+                      "{\"put\":\"id:ns:type::3\",\"fields\":{}}\n";    // 72 - 108
+        Path input = Files.writeString(tmp.resolve("feed.jsonl"), feed);
+        Path journalFile = tmp.resolve("journal");
+
+        try (FeedJournal journal = FeedJournal.create(journalFile, input)) {
+            assertEquals(feed, read(journal.openRemainingInput()));
+            journal.acknowledged(36, 72);
+            assertEquals(0, journal.watermark());
+            journal.acknowledged(0, 36);
+            assertEquals(72, journal.watermark());
+            journal.sync();
+            journal.failed(72);
+            journal.acknowledged(72, 108);
+            assertEquals(72, journal.watermark());
+        }
+        assertEquals(16 + 8, Files.size(journalFile));
+
+        try (FeedJournal journal = FeedJournal.resume(journalFile, input)) {
+            assertEquals(72, journal.resumeOffset());
+            assertEquals(feed.substring(72), read(journal.openRemainingInput()));
+            journal.acknowledged(0, 36); // Offsets in the remaining input.
+            assertEquals(108, journal.watermark());
+        }
+        assertEquals(16 + 16, Files.size(journalFile));
+
+        Files.write(journalFile, new byte[]{ 1, 2, 3 }, StandardOpenOption.APPEND); // A partial write is ignored.
+        try (FeedJournal journal = FeedJournal.resume(journalFile, input)) {
+            assertEquals(108, journal.resumeOffset());
+            assertEquals("", read(journal.openRemainingInput()));
+        }
+        assertEquals(16 + 16, Files.size(journalFile));
+    }
+
+    @Test
+    void testArrayFeedIsResumedAsArray() throws IOException {
+        String feed = "[\n" +
+                      "  {\"put\":\"id:ns:type::1\",\"fields\":{}},\n" +
+                      "  {\"put\":\"id:ns:type::2\",\"fields\":{}}\n" +
+                      "]\n";
+        long first = feed.indexOf("},") + 1, second = feed.lastIndexOf('}') + 1;
+        Path input = Files.writeString(tmp.resolve("feed.json"), feed);
+        Path journalFile = tmp.resolve("journal");
+
+        try (FeedJournal journal = FeedJournal.create(journalFile, input)) {
+            journal.acknowledged(0, first);
+        }
+        try (FeedJournal journal = FeedJournal.resume(journalFile, input)) {
+            assertEquals(first, journal.resumeOffset());
+            String remaining = read(journal.openRemainingInput());
+            assertEquals("[\n  {\"put\":\"id:ns:type::2\",\"fields\":{}}\n]\n", remaining);
+            journal.acknowledged(0, remaining.lastIndexOf('}') + 1);
+            assertEquals(second, journal.watermark());
+        }
+        try (FeedJournal journal = FeedJournal.resume(journalFile, input)) {
+            assertEquals("[]\n", read(journal.openRemainingInput()));
+        }
+    }
+
+    @Test
+    void testJournalMustMatchInput() throws IOException {
+        Path input = Files.writeString(tmp.resolve("feed.jsonl"), "{}");
+        Path journalFile = tmp.resolve("journal");
+        FeedJournal.create(journalFile, input).close();
+        Files.writeString(input, "{}\n");
+        assertEquals("Feed journal at '" + journalFile + "' was written for an input of 2 bytes, but '" + input + "' has 3 bytes",
+                     assertThrows(IOException.class, () -> FeedJournal.resume(journalFile, input)).getMessage());
+        assertEquals("File at '" + input + "' is not a feed journal",
+                     assertThrows(IOException.class, () -> FeedJournal.resume(input, input)).getMessage());
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), UTF_8);
+        }
+    }
+
+}
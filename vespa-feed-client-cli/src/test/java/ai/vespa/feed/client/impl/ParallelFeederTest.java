@@ -0,0 +1,138 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.DocumentId;
+import ai.vespa.feed.client.FeedClient;
+import ai.vespa.feed.client.FeedException;
+import ai.vespa.feed.client.JsonFeeder;
+import ai.vespa.feed.client.JsonFeeder.ResultCallback;
+import ai.vespa.feed.client.OperationParameters;
+import ai.vespa.feed.client.OperationStats;
+import ai.vespa.feed.client.Result;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelFeederTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void testParts() throws IOException {
+        Path jsonl = Files.writeString(tmp.resolve("b.jsonl"), feed(0, 3));
+        Path dir = Files.createDirectories(tmp.resolve("dir"));
+        Path array = Files.writeString(dir.resolve("a.json"), "  [" + feed(3, 5).replace("}\n{", "},\n{") + "]");
+        Path more = Files.writeString(dir.resolve("c.jsonl"), feed(5, 6));
+
+        assertEquals(List.of(jsonl + "[0, 72)", jsonl + "[72, 108)", array + "[0, 77)", more + "[0, 36)"),
+                     ParallelFeeder.partsOf(List.of(jsonl, dir), 50).stream().map(Object::toString).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testOrderedFeed() throws IOException {
+        Path first = Files.writeString(tmp.resolve("first.jsonl"), feed(0, 20));
+        Path second = Files.writeString(tmp.resolve("second.jsonl"), feed(20, 40));
+        MockClient client = new MockClient();
+        Map<String, String> ranges = new ConcurrentHashMap<>();
+        AtomicReference<FeedException> error = new AtomicReference<>();
+        try (ParallelFeeder parallel = new ParallelFeeder(client, 4, true, 1);
+             JsonFeeder feeder = JsonFeeder.builder(parallel.client()).build()) {
+            parallel.feedMany(feeder, List.of(first, second), new ResultCallback() {
+                @Override
+                public void onNextResult(Result result, FeedException thrown, long start, long end) {
+                    ranges.put(result.documentId().userSpecific(), start + "-" + end);
+                }
+                @Override
+                public void onError(FeedException thrown) { error.set(thrown); }
+            }).join();
+        }
+        // Each line is a separate part, and the first is slow to dispatch, but the order of operations is kept.
+        assertEquals(IntStream.range(0, 40).mapToObj(Integer::toString).collect(Collectors.toList()), client.dispatched);
+        assertEquals(40, ranges.size());
+        assertEquals("180-215", ranges.get("5"));
+        assertEquals("185-221", ranges.get("25"));
+        assertEquals(null, error.get());
+    }
+
+    @Test
+    void testUnorderedFeedWithError() throws IOException {
+        Path input = Files.writeString(tmp.resolve("feed.jsonl"), feed(0, 10) + "{\"put\":\"id:ns:type::10\",\"fields\":[]}\n" + feed(11, 20));
+        MockClient client = new MockClient();
+        AtomicReference<FeedException> error = new AtomicReference<>();
+        try (ParallelFeeder parallel = new ParallelFeeder(client, 3, false, 100);
+             JsonFeeder feeder = JsonFeeder.builder(parallel.client()).build()) {
+            CompletionException thrown = assertThrows(CompletionException.class,
+                                                      () -> parallel.feedMany(feeder, List.of(input), new ResultCallback() {
+                                                          @Override
+                                                          public void onError(FeedException thrown) { error.set(thrown); }
+                                                      }).join());
+            assertInstanceOf(FeedException.class, thrown.getCause());
+            assertEquals(thrown.getCause(), error.get());
+        }
+    }
+
+    private static String feed(int from, int to) {
+        return IntStream.range(from, to)
+                        .mapToObj(i -> "{\"put\":\"id:ns:type::" + i + "\",\"fields\":{}}\n")
+                        .collect(Collectors.joining());
+    }
+
+    private static class MockClient implements FeedClient {
+
+        final List<String> dispatched = new ArrayList<>();
+
+        @Override
+        public CompletableFuture<Result> put(DocumentId documentId, String documentJson, OperationParameters params) {
+            if (documentId.userSpecific().equals("0")) {
+                try { Thread.sleep(100); }
+                catch (InterruptedException e) { throw new AssertionError(e); }
+            }
+            synchronized (dispatched) { dispatched.add(documentId.userSpecific()); }
+            return CompletableFuture.completedFuture(new Result() {
+                @Override public Type type() { return Type.success; }
+                @Override public DocumentId documentId() { return documentId; }
+                @Override public Optional<String> resultMessage() { return Optional.empty(); }
+                @Override public Optional<String> traceMessage() { return Optional.empty(); }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Result> update(DocumentId documentId, String updateJson, OperationParameters params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<Result> remove(DocumentId documentId, OperationParameters params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public OperationStats stats() { return null; }
+
+        @Override
+        public CircuitBreaker.State circuitBreakerState() { return null; }
+
+        @Override
+        public void close(boolean graceful) { }
+
+    }
+
+}
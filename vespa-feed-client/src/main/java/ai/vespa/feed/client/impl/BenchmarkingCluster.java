@@ -14,6 +14,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 import static java.util.Objects.requireNonNull;
 
@@ -29,6 +30,7 @@ public class BenchmarkingCluster implements Cluster {
     private final AtomicLong timeOfFirstDispatch = new AtomicLong(0);
     private final AtomicLong requests = new AtomicLong();
     private final Throttler throttler;
+    private final LongSupplier bufferedBytes;
     private long results = 0;
     private long responses = 0;
     private final long[] responsesByCode = new long[600];
@@ -40,8 +42,13 @@ public class BenchmarkingCluster implements Cluster {
     private long bytesReceived = 0;
 
     public BenchmarkingCluster(Cluster delegate, Throttler throttler) {
+        this(delegate, throttler, () -> 0);
+    }
+
+    public BenchmarkingCluster(Cluster delegate, Throttler throttler, LongSupplier bufferedBytes) {
         this.delegate = requireNonNull(delegate);
         this.throttler = throttler;
+        this.bufferedBytes = requireNonNull(bufferedBytes);
     }
 
     @Override
@@ -59,7 +66,7 @@ public class BenchmarkingCluster implements Cluster {
                                          totalLatencyMillis += latency;
                                          minLatencyMillis = Math.min(minLatencyMillis, latency);
                                          maxLatencyMillis = Math.max(maxLatencyMillis, latency);
-                                         bytesSent += request.body() == null ? 0 : request.body().length;
+                                         bytesSent += request.bodySize();
                                          bytesReceived += response.body() == null ? 0 : response.body().length;
                                      }
                                      else
@@ -92,13 +99,24 @@ public class BenchmarkingCluster implements Cluster {
             if (responsesByCode[code] > 0)
                 responses.put(code, responsesByCode[code]);
 
+        double throttlerMinLatencyMillis = -1, throttlerLatencyMillis = -1;
+        String throttlerDecision = "none";
+        if (throttler instanceof LatencyThrottler latencyThrottler) {
+            long minLatencyNanos = latencyThrottler.minLatencyNanos();
+            double latencyNanos = latencyThrottler.latencyNanos();
+            throttlerMinLatencyMillis = minLatencyNanos < 0 ? -1 : minLatencyNanos * 1e-6;
+            throttlerLatencyMillis = latencyNanos < 0 ? -1 : latencyNanos * 1e-6;
+            throttlerDecision = latencyThrottler.decision().name();
+        }
+
         double duration = (System.nanoTime() - timeOfFirstDispatch.get()) * 1e-9;
         return new OperationStats(duration, requests, responses, exceptions,
                                   requests - results, throttler.targetInflight(),
                                   this.responses == 0 ? -1 : totalLatencyMillis / this.responses,
                                   this.responses == 0 ? -1 : minLatencyMillis,
                                   this.responses == 0 ? -1 : maxLatencyMillis,
-                                  bytesSent, bytesReceived);
+                                  bytesSent, bytesReceived, bufferedBytes.getAsLong(),
+                                  throttlerMinLatencyMillis, throttlerLatencyMillis, throttlerDecision);
     }
 
     @Override
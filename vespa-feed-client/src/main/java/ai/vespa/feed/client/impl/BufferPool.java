@@ -0,0 +1,84 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers, used to keep the bodies of queued and inflight requests off the heap.
+ * Buffers are pooled in power-of-two size classes, from 1kB to 1MB; larger buffers are allocated when
+ * needed, and not pooled. Released buffers are kept for reuse up to a total capacity, and dropped beyond that.
+ * <p>
+ * This class is thread-safe.
+ */
+class BufferPool {
+
+    static final int minSizeBits = 10;
+    static final int maxSizeBits = 20;
+
+    private final List<Queue<ByteBuffer>> free = new ArrayList<>();
+    private final AtomicLong freeBytes = new AtomicLong();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final long maxFreeBytes;
+
+    BufferPool(long maxFreeBytes) {
+        for (int bits = minSizeBits; bits <= maxSizeBits; bits++)
+            free.add(new ConcurrentLinkedQueue<>());
+        this.maxFreeBytes = maxFreeBytes;
+    }
+
+    /** Returns a buffer from this pool, with a copy of the given data between position and limit. */
+    ByteBuffer copyOf(byte[] data) {
+        return copyOf(ByteBuffer.wrap(data));
+    }
+
+    /** Returns a buffer from this pool, with a copy of the remaining given data between position and limit. */
+    ByteBuffer copyOf(ByteBuffer data) {
+        return allocate(data.remaining()).put(data.duplicate()).flip();
+    }
+
+    /** Returns the given buffer, which was obtained from this pool, and must not be used after this, to the pool. */
+    void release(ByteBuffer buffer) {
+        usedBytes.addAndGet(-buffer.capacity());
+        int sizeClass = sizeClassOf(buffer.capacity());
+        if (sizeClass < free.size() && freeBytes.addAndGet(buffer.capacity()) <= maxFreeBytes)
+            free.get(sizeClass).offer(buffer);
+        else if (sizeClass < free.size())
+            freeBytes.addAndGet(-buffer.capacity());
+    }
+
+    /** Returns the total capacity of the buffers from this pool which are currently in use. */
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /** Returns the total capacity of the buffers kept in this pool for reuse. */
+    long freeBytes() {
+        return freeBytes.get();
+    }
+
+    private ByteBuffer allocate(int size) {
+        int sizeClass = sizeClassOf(size);
+        ByteBuffer buffer = null;
+        if (sizeClass < free.size()) {
+            buffer = free.get(sizeClass).poll();
+            if (buffer != null) freeBytes.addAndGet(-buffer.capacity());
+            else buffer = ByteBuffer.allocateDirect(1 << (minSizeBits + sizeClass));
+        }
+        else buffer = ByteBuffer.allocateDirect(size);
+
+        usedBytes.addAndGet(buffer.capacity());
+        return buffer.clear();
+    }
+
+    /** Returns the index of the smallest size class which fits the given size; this is at least the number of classes if none do. */
+    static int sizeClassOf(int size) {
+        if (size <= 1 << minSizeBits) return 0;
+        return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1) - minSizeBits;
+    }
+
+}
@@ -0,0 +1,210 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Collects requests which may be sent in bulk, and dispatches these together, as a single request to
+ * the bulk feed API of the delegate cluster. Each request is then completed with its own result from the
+ * JSONL response, which is matched to the request by its index in the bulk.
+ * Other requests are dispatched directly to the delegate.
+ * <p>
+ * A bulk is dispatched when it is full, or when its first request has waited for the linger time.
+ *
+ * @see HttpRequest#bulkOperation()
+ */
+class BulkCluster implements Cluster {
+
+    static final String path = "/document/v1/bulk";
+    static final Duration linger = Duration.ofMillis(10);
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final Cluster delegate;
+    private final int maxOperations;
+    private final LongSupplier nanoClock;
+    private final ScheduledExecutorService lingerer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "feed-client-bulk-lingerer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Object monitor = new Object();
+    private Bulk current = null;
+
+    BulkCluster(Cluster delegate, int maxOperations, LongSupplier nanoClock) {
+        if (maxOperations < 2) throw new IllegalArgumentException("Max operations per bulk must be at least 2, but was " + maxOperations);
+        this.delegate = requireNonNull(delegate);
+        this.maxOperations = maxOperations;
+        this.nanoClock = requireNonNull(nanoClock);
+    }
+
+    @Override
+    public void dispatch(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+        if ( ! request.hasBulkOperation()) {
+            delegate.dispatch(request, vessel);
+            return;
+        }
+
+        Bulk full = null;
+        synchronized (monitor) {
+            if (current == null) {
+                Bulk bulk = new Bulk();
+                try {
+                    lingerer.schedule(() -> flush(bulk), linger.toNanos(), NANOSECONDS);
+                }
+                catch (RejectedExecutionException e) { // This is closed.
+                    vessel.completeExceptionally(e);
+                    return;
+                }
+                current = bulk;
+            }
+            current.add(request, vessel);
+            if (current.requests.size() >= maxOperations) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) send(full);
+    }
+
+    private void flush(Bulk bulk) {
+        synchronized (monitor) {
+            if (current != bulk) return; // Already full, and sent.
+            current = null;
+        }
+        send(bulk);
+    }
+
+    private void send(Bulk bulk) {
+        CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+        try {
+            delegate.dispatch(bulk.request(), vessel);
+        }
+        catch (RuntimeException e) {
+            vessel.completeExceptionally(e);
+        }
+        vessel.whenComplete(bulk::complete);
+    }
+
+    @Override
+    public void close() {
+        lingerer.shutdown();
+        delegate.close();
+    }
+
+    private class Bulk {
+
+        private final List<HttpRequest> requests = new ArrayList<>();
+        private final List<CompletableFuture<HttpResponse>> vessels = new ArrayList<>();
+
+        void add(HttpRequest request, CompletableFuture<HttpResponse> vessel) {
+            requests.add(request);
+            vessels.add(vessel);
+        }
+
+        /** Returns a request with each operation in this on a separate line, and the latest timeout of these. */
+        HttpRequest request() {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            Duration timeLeft = Duration.ZERO;
+            for (HttpRequest request : requests) {
+                write(body, request.bulkOperationBuffer());
+                body.write('\n');
+                if (request.timeLeft().compareTo(timeLeft) > 0) timeLeft = request.timeLeft();
+            }
+            Map<String, Supplier<String>> headers = requests.get(0).headers();
+            return new HttpRequest("POST", path, "", headers, body.toByteArray(), timeLeft, nanoClock);
+        }
+
+        /** Writes the given operation, which may be off heap, to the given body, without copying it to the heap first. */
+        private void write(ByteArrayOutputStream body, ByteBuffer operation) {
+            try {
+                Channels.newChannel(body).write(operation);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e); // Never thrown by a byte array output stream.
+            }
+        }
+
+        /** Completes each request in this with its result in the given bulk response, or the given failure. */
+        void complete(HttpResponse response, Throwable thrown) {
+            if (thrown != null) {
+                vessels.forEach(vessel -> vessel.completeExceptionally(thrown));
+                return;
+            }
+            if (response.code() != 200) { // The whole bulk was rejected, e.g., due to overload.
+                vessels.forEach(vessel -> vessel.complete(response));
+                return;
+            }
+            try {
+                byte[] body = response.body();
+                int start = 0;
+                for (int end = 0; end <= body.length; end++) {
+                    if (end < body.length && body[end] != '\n') continue;
+                    if (end > start) {
+                        byte[] line = Arrays.copyOfRange(body, start, end);
+                        int index = indexOf(line);
+                        if (index < 0 || index >= vessels.size())
+                            throw new IOException("Unexpected operation index " + index + " in bulk response");
+
+                        vessels.get(index).complete(HttpResponse.of(statusOf(line), line));
+                    }
+                    start = end + 1;
+                }
+                for (CompletableFuture<HttpResponse> vessel : vessels)
+                    vessel.completeExceptionally(new IOException("No result for operation in bulk response"));
+            }
+            catch (IOException | RuntimeException e) {
+                vessels.forEach(vessel -> vessel.completeExceptionally(e));
+            }
+        }
+
+    }
+
+    private static int indexOf(byte[] line) throws IOException {
+        return readIntField(line, "index");
+    }
+
+    private static int statusOf(byte[] line) throws IOException {
+        return readIntField(line, "status");
+    }
+
+    private static int readIntField(byte[] line, String field) throws IOException {
+        try (JsonParser parser = factory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Expected '" + JsonToken.START_OBJECT + "', but found '" + parser.currentToken() + "' in bulk response");
+
+            String name;
+            while ((name = parser.nextFieldName()) != null) {
+                if (parser.nextToken() == JsonToken.VALUE_NUMBER_INT && name.equals(field))
+                    return parser.getIntValue();
+
+                parser.skipChildren();
+            }
+            throw new IOException("Missing '" + field + "' in bulk response");
+        }
+    }
+
+}
@@ -42,6 +42,9 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
     HostnameVerifier proxyHostnameVerifier;
     int connectionsPerEndpoint = 8;
     int maxStreamsPerConnection = 128;
+    int maxOperationsPerRequest = 1;
+    long maxBufferedBytes = Long.MAX_VALUE;
+    boolean offHeapBuffering = false;
     FeedClient.RetryStrategy retryStrategy = defaultRetryStrategy;
     FeedClient.CircuitBreaker circuitBreaker = new GracePeriodCircuitBreaker(Duration.ofSeconds(10));
     Path certificateFile;
@@ -56,6 +59,8 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
     boolean dryrun = false;
     boolean speedTest = false;
     Compression compression = auto;
+    boolean slimeEncoding = false;
+    Throttling throttling = Throttling.throughput;
     URI proxy;
     Duration connectionTtl = Duration.ZERO;
     LongSupplier nanoClock = System::nanoTime;
@@ -92,6 +97,26 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
         return this;
     }
 
+    @Override
+    public FeedClientBuilderImpl setMaxOperationsPerRequest(int max) {
+        if (max < 1) throw new IllegalArgumentException("Max operations per request must be at least 1, but was " + max);
+        this.maxOperationsPerRequest = max;
+        return this;
+    }
+
+    @Override
+    public FeedClientBuilderImpl setMaxBufferedBytes(long max) {
+        if (max < 1) throw new IllegalArgumentException("Max buffered bytes must be at least 1, but was " + max);
+        this.maxBufferedBytes = max;
+        return this;
+    }
+
+    @Override
+    public FeedClientBuilderImpl setOffHeapBuffering(boolean enabled) {
+        this.offHeapBuffering = enabled;
+        return this;
+    }
+
     @Override
     public FeedClientBuilder setConnectionTimeToLive(Duration ttl) {
         if (ttl.isNegative()) throw new IllegalArgumentException("Connection TTL cannot be negative, but was " + ttl);
@@ -252,6 +277,18 @@ public class FeedClientBuilderImpl implements FeedClientBuilder {
         return this;
     }
 
+    @Override
+    public FeedClientBuilderImpl setSlimeEncoding(boolean enabled) {
+        this.slimeEncoding = enabled;
+        return this;
+    }
+
+    @Override
+    public FeedClientBuilderImpl setThrottling(Throttling throttling) {
+        this.throttling = requireNonNull(throttling);
+        return this;
+    }
+
     FeedClientBuilderImpl setNanoClock(LongSupplier nanoClock) {
         this.nanoClock = requireNonNull(nanoClock);
         return this;
@@ -15,6 +15,7 @@ import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -55,11 +56,13 @@ class HttpFeedClient implements FeedClient {
     private final RequestStrategy requestStrategy;
     private final AtomicBoolean closed = new AtomicBoolean();
     private final boolean speedTest;
+    private final boolean bulk;
+    private final boolean slime;
     private final LongSupplier nanoClock;
 
     HttpFeedClient(FeedClientBuilderImpl builder) throws IOException {
         this(builder,
-             builder.dryrun ? () -> new DryrunCluster() : () -> new JettyCluster(builder));
+             builder.dryrun ? () -> new DryrunCluster() : () -> bulkIfEnabled(builder, new JettyCluster(builder)));
     }
 
     HttpFeedClient(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
@@ -70,6 +73,8 @@ class HttpFeedClient implements FeedClient {
         this.requestHeaders = new HashMap<>(builder.requestHeaders);
         this.requestStrategy = requestStrategy;
         this.speedTest = builder.speedTest;
+        this.bulk = builder.maxOperationsPerRequest > 1;
+        this.slime = builder.slimeEncoding;
         this.nanoClock = builder.nanoClock;
         verifyConnection(builder, clusterFactory);
     }
@@ -112,11 +117,15 @@ class HttpFeedClient implements FeedClient {
         if (closed.get())
             throw new IllegalStateException("Client is closed");
 
+        byte[] body = operationJson == null ? null : operationJson.getBytes(UTF_8); // TODO: make it bytes all the way?
+        byte[] slimeBody = slime ? getSlimeBody(body) : null;
         HttpRequest request = new HttpRequest(method,
                                               getPath(documentId),
                                               getQuery(params, speedTest),
                                               requestHeaders,
-                                              operationJson == null ? null : operationJson.getBytes(UTF_8), // TODO: make it bytes all the way?
+                                              slimeBody == null ? body : slimeBody,
+                                              slimeBody == null ? HttpRequest.jsonContentType : HttpRequest.slimeContentType,
+                                              bulk ? getBulkOperation(method, documentId, operationJson, params, speedTest) : null,
                                               params.timeout().orElse(maxTimeout),
                                               nanoClock);
 
@@ -322,6 +331,62 @@ class HttpFeedClient implements FeedClient {
         return query.toString();
     }
 
+    /** Returns the given JSON body in the Slime binary format, or null if there is none, or it is not valid JSON. */
+    static byte[] getSlimeBody(byte[] json) {
+        if (json == null) return null;
+        try {
+            return SlimeEncoder.encode(json);
+        }
+        catch (IOException | IllegalArgumentException e) {
+            return null; // Let the server respond to the invalid JSON.
+        }
+    }
+
+    private static Cluster bulkIfEnabled(FeedClientBuilderImpl builder, Cluster cluster) {
+        return builder.maxOperationsPerRequest > 1 ? new BulkCluster(cluster, builder.maxOperationsPerRequest, builder.nanoClock) : cluster;
+    }
+
+    /**
+     * Returns the given operation in the format of the bulk feed API, i.e., as in a JSONL feed file,
+     * or null if it may not be sent in bulk, because it has parameters the bulk feed API doesn't support.
+     */
+    static byte[] getBulkOperation(String method, DocumentId documentId, String operationJson, OperationParameters params, boolean speedTest) {
+        if (speedTest || params.route().isPresent() || params.tracelevel().isPresent())
+            return null;
+
+        int start = operationJson == null ? 0 : operationJson.indexOf('{') + 1;
+        if (start == 0 && operationJson != null) return null; // Not an object, so let the server respond to it alone.
+
+        StringBuilder operation = new StringBuilder("{");
+        appendString(operation, operationOf(method));
+        operation.append(':');
+        appendString(operation, documentId.toString());
+        params.testAndSetCondition().ifPresent(condition -> appendString(operation.append(",\"condition\":"), condition));
+        if (params.createIfNonExistent() && operationJson != null) operation.append(",\"create\":true");
+
+        // Splice in the contents of the document or update object, e.g., "fields".
+        String contents = operationJson == null ? "}" : operationJson.substring(start).strip();
+        if (contents.isEmpty()) return null;
+        if (contents.charAt(0) != '}') operation.append(',');
+        operation.append(contents);
+        return operation.toString().getBytes(UTF_8);
+    }
+
+    private static String operationOf(String method) {
+        switch (method) {
+            case "POST": return "put";
+            case "PUT": return "update";
+            case "DELETE": return "remove";
+            default: throw new IllegalArgumentException("Unexpected method '" + method + "'");
+        }
+    }
+
+    private static void appendString(StringBuilder builder, String value) {
+        builder.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, builder);
+        builder.append('"');
+    }
+
     /** Factory for creating a new {@link Cluster} to dispatch operations to. Used for resetting the active cluster. */
     interface ClusterFactory {
 
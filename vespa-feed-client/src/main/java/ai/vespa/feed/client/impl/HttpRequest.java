@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package ai.vespa.feed.client.impl;
 
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Map;
 import java.util.function.LongSupplier;
@@ -8,26 +9,83 @@ import java.util.function.Supplier;
 
 class HttpRequest {
 
+    static final String jsonContentType = "application/json";
+    static final String slimeContentType = "application/x-slime";
+
     private final String method;
     private final String path;
     private final String query;
     private final Map<String, Supplier<String>> headers;
-    private final byte[] body;
+    private final ByteBuffer body;
+    private final String contentType;
+    private final ByteBuffer bulkOperation;
     private final Duration timeout;
     private final long deadlineNanos;
     private final LongSupplier nanoClock;
 
     public HttpRequest(String method, String path, String query, Map<String, Supplier<String>> headers, byte[] body, Duration timeout, LongSupplier nanoClock) {
+        this(method, path, query, headers, body, null, timeout, nanoClock);
+    }
+
+    public HttpRequest(String method, String path, String query, Map<String, Supplier<String>> headers, byte[] body,
+                       byte[] bulkOperation, Duration timeout, LongSupplier nanoClock) {
+        this(method, path, query, headers, body, jsonContentType, bulkOperation, timeout, nanoClock);
+    }
+
+    public HttpRequest(String method, String path, String query, Map<String, Supplier<String>> headers, byte[] body,
+                       String contentType, byte[] bulkOperation, Duration timeout, LongSupplier nanoClock) {
         this.method = method;
         this.path = path;
         this.query = query;
         this.headers = headers;
-        this.body = body;
+        this.body = body == null ? null : ByteBuffer.wrap(body);
+        this.contentType = contentType;
+        this.bulkOperation = bulkOperation == null ? null : ByteBuffer.wrap(bulkOperation);
         this.deadlineNanos = nanoClock.getAsLong() + timeout.toNanos();
         this.timeout = timeout;
         this.nanoClock = nanoClock;
     }
 
+    private HttpRequest(HttpRequest request, ByteBuffer body, ByteBuffer bulkOperation) {
+        this.method = request.method;
+        this.path = request.path;
+        this.query = request.query;
+        this.headers = request.headers;
+        this.body = body;
+        this.contentType = request.contentType;
+        this.bulkOperation = bulkOperation;
+        this.deadlineNanos = request.deadlineNanos;
+        this.timeout = request.timeout;
+        this.nanoClock = request.nanoClock;
+    }
+
+    /** Returns a copy of this, where the body and bulk operation are moved to buffers from the given pool. */
+    HttpRequest withBuffersFrom(BufferPool pool) {
+        return new HttpRequest(this,
+                               body == null ? null : pool.copyOf(body),
+                               bulkOperation == null ? null : pool.copyOf(bulkOperation));
+    }
+
+    /** Returns the buffers of this, which must be obtained by {@link #withBuffersFrom}, to the given pool. */
+    void releaseBuffersTo(BufferPool pool) {
+        if (body != null) pool.release(body);
+        if (bulkOperation != null) pool.release(bulkOperation);
+    }
+
+    /** Returns the total size of the body and bulk operation of this. */
+    long bufferedBytes() {
+        return (body == null ? 0 : body.remaining()) + (bulkOperation == null ? 0 : bulkOperation.remaining());
+    }
+
+    /** Returns the content of the given buffer, which is a copy unless it wraps an array. */
+    private static byte[] bytesOf(ByteBuffer buffer) {
+        if (buffer == null) return null;
+        if (buffer.hasArray()) return buffer.array();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes); // Don't move the position of the shared buffer.
+        return bytes;
+    }
+
     public String method() {
         return method;
     }
@@ -40,8 +98,39 @@ class HttpRequest {
         return headers;
     }
 
+    /** Returns the body of this, which is a heap copy if this is buffered off heap. */
     public byte[] body() {
-        return body;
+        return bytesOf(body);
+    }
+
+    /** Returns a view of the body of this, which is not copied, even if this is buffered off heap. */
+    public ByteBuffer bodyBuffer() {
+        return body == null ? null : body.duplicate();
+    }
+
+    /** Returns the size of the body of this. */
+    public int bodySize() {
+        return body == null ? 0 : body.remaining();
+    }
+
+    /** Returns the content type of the body of this. */
+    public String contentType() {
+        return contentType;
+    }
+
+    /** Returns this as an operation in the bulk feed format, or null if this may not be sent in bulk. */
+    public byte[] bulkOperation() {
+        return bytesOf(bulkOperation);
+    }
+
+    /** Returns a view of this as an operation in the bulk feed format, which is not copied, or null if this may not be sent in bulk. */
+    public ByteBuffer bulkOperationBuffer() {
+        return bulkOperation == null ? null : bulkOperation.duplicate();
+    }
+
+    /** Returns whether this may be sent in bulk. */
+    public boolean hasBulkOperation() {
+        return bulkOperation != null;
     }
 
     public Duration timeLeft() {
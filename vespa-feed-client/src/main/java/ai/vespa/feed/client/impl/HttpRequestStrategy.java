@@ -5,6 +5,7 @@ import ai.vespa.feed.client.DocumentId;
 import ai.vespa.feed.client.FeedClient;
 import ai.vespa.feed.client.FeedClient.CircuitBreaker;
 import ai.vespa.feed.client.FeedClient.RetryStrategy;
+import ai.vespa.feed.client.FeedClientBuilder.Throttling;
 import ai.vespa.feed.client.FeedException;
 import ai.vespa.feed.client.HttpResponse;
 import ai.vespa.feed.client.OperationStats;
@@ -28,6 +29,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -51,6 +53,8 @@ import static java.util.logging.Level.WARNING;
  * This class has all control flow for throttling and dispatching HTTP requests to an injected
  * HTTP {@link Cluster}, including error handling and retries through a {@link RetryStrategy},
  * a {@link CircuitBreaker} mechanism, and a {@link Throttler} for optimal load.
+ * The total size of the bodies of queued and inflight operations may also be bounded, and these bodies
+ * may be kept off the heap, in pooled direct buffers, until the operations complete.
  *
  * Dispatch to the provided {@link Cluster} is done by a single dispatch thread. If dispatch ever throws,
  * or the circuit breaker ever opens completely, the dispatch thread stops and all execution shuts down.
@@ -62,6 +66,7 @@ import static java.util.logging.Level.WARNING;
 class HttpRequestStrategy implements RequestStrategy {
 
     private static final Logger log = Logger.getLogger(HttpRequestStrategy.class.getName());
+    private static final long maxPooledBytes = 64 << 20;
 
     private final Cluster cluster;
     private final Map<DocumentId, RetriableFuture<HttpResponse>> inflightById = new ConcurrentHashMap<>();
@@ -72,6 +77,10 @@ class HttpRequestStrategy implements RequestStrategy {
     private final AtomicLong inflight = new AtomicLong(0);
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final AtomicLong delayedCount = new AtomicLong(0);
+    private final Object bufferMonitor = new Object();
+    private final AtomicLong bufferedBytes = new AtomicLong(0); // Modified under bufferMonitor.
+    private final long maxBufferedBytes;
+    private final BufferPool pool; // Null unless bodies are kept off heap.
     private final ExecutorService resultExecutor = Executors.newSingleThreadExecutor(runnable -> {
         Thread thread = new Thread(runnable, "feed-client-result-executor");
         thread.setDaemon(true);
@@ -82,11 +91,13 @@ class HttpRequestStrategy implements RequestStrategy {
     private final AtomicBoolean reset = new AtomicBoolean(false);
 
     HttpRequestStrategy(FeedClientBuilderImpl builder, ClusterFactory clusterFactory) throws IOException {
-        this.throttler = new DynamicThrottler(builder);
+        this.throttler = builder.throttling == Throttling.latency ? new LatencyThrottler(builder) : new DynamicThrottler(builder);
         this.resettableCluster = new ResettableCluster(clusterFactory);
-        this.cluster = builder.benchmark ? new BenchmarkingCluster(resettableCluster, throttler) : resettableCluster;
+        this.cluster = builder.benchmark ? new BenchmarkingCluster(resettableCluster, throttler, bufferedBytes::get) : resettableCluster;
         this.strategy = builder.retryStrategy;
         this.breaker = builder.circuitBreaker;
+        this.maxBufferedBytes = builder.maxBufferedBytes;
+        this.pool = builder.offHeapBuffering ? new BufferPool(Math.min(builder.maxBufferedBytes, maxPooledBytes)) : null;
 
         Thread dispatcher = new Thread(this::dispatch, "feed-client-dispatcher");
         dispatcher.setDaemon(true);
@@ -221,6 +232,27 @@ class HttpRequestStrategy implements RequestStrategy {
         inflight.decrementAndGet();
     }
 
+    /**
+     * Waits until the given number of bytes can be buffered, or until nothing else is, if this exceeds the limit,
+     * or until this is destroyed.
+     */
+    private void acquireBytes(long size) throws InterruptedException {
+        synchronized (bufferMonitor) {
+            while (bufferedBytes.get() > 0 && bufferedBytes.get() + size > maxBufferedBytes && ! destroyed.get())
+                bufferMonitor.wait();
+
+            bufferedBytes.addAndGet(size);
+        }
+    }
+
+    private void releaseBytes(HttpRequest request, long size) {
+        if (pool != null) request.releaseBuffersTo(pool);
+        synchronized (bufferMonitor) {
+            bufferedBytes.addAndGet(-size);
+            bufferMonitor.notifyAll();
+        }
+    }
+
     public void await() {
         try {
             while (inflight.get() > 0) Thread.sleep(10);
@@ -232,6 +264,35 @@ class HttpRequestStrategy implements RequestStrategy {
     }
 
 
+    /**
+     * A request with buffered content, which is used by its operation, until this completes, and by each attempt at
+     * dispatching it, until the result of the attempt is handled. The request, and its buffers, may only be released
+     * when none of these use it anymore, as an aborted operation may still have attempts in flight.
+     */
+    private class Buffered {
+
+        private final HttpRequest request;
+        private final long size;
+        private final AtomicInteger users = new AtomicInteger(1);
+
+        private Buffered(HttpRequest request, long size) {
+            this.request = request;
+            this.size = size;
+        }
+
+        /** Returns a vessel for a new attempt at dispatching the request, which uses it until released. */
+        CompletableFuture<HttpResponse> attempt() {
+            users.incrementAndGet();
+            return new CompletableFuture<>();
+        }
+
+        void release() {
+            if (users.decrementAndGet() == 0)
+                releaseBytes(request, size);
+        }
+
+    }
+
     /** A completable future which stores a temporary failure result to return upon abortion. */
     private static class RetriableFuture<T> extends CompletableFuture<T> {
 
@@ -263,14 +324,25 @@ class HttpRequestStrategy implements RequestStrategy {
 
     }
     @Override
-    public CompletableFuture<HttpResponse> enqueue(DocumentId documentId, HttpRequest request) {
+    public CompletableFuture<HttpResponse> enqueue(DocumentId documentId, HttpRequest unbuffered) {
         RetriableFuture<HttpResponse> result = new RetriableFuture<>(); // Carries the aggregate result of the operation, including retries.
         if (destroyed.get()) {
             result.complete();
             return result;
         }
 
-        CompletableFuture<HttpResponse> vessel = new CompletableFuture<>(); // Holds the computation of a single dispatch to the HTTP client.
+        long size = unbuffered.bufferedBytes();
+        try {
+            acquireBytes(size);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new FeedException(documentId, e));
+        }
+        Buffered buffered = new Buffered(pool == null ? unbuffered : unbuffered.withBuffersFrom(pool), size);
+        HttpRequest request = buffered.request;
+
+        CompletableFuture<HttpResponse> vessel = buffered.attempt(); // Holds the computation of a single dispatch to the HTTP client.
         RetriableFuture<HttpResponse> previous = inflightById.put(documentId, result);
         if (previous == null) {
             acquireSlot();
@@ -282,12 +354,14 @@ class HttpRequestStrategy implements RequestStrategy {
             previous.whenComplete((__, ___) -> offer(request, vessel));
         }
 
-        handleAttempt(vessel, request, result, 1);
+        handleAttempt(vessel, buffered, result, 1);
 
         return result.handle((response, error) -> {
             if (inflightById.compute(documentId, (__, current) -> current == result ? null : current) == null)
                 releaseSlot();
 
+            buffered.release();
+
             if (error != null) {
                 if (error instanceof FeedException) throw (FeedException) error;
                 throw new FeedException(documentId, error);
@@ -297,19 +371,24 @@ class HttpRequestStrategy implements RequestStrategy {
     }
 
     /** Handles the result of one attempt at the given operation, retrying if necessary. */
-    private void handleAttempt(CompletableFuture<HttpResponse> vessel, HttpRequest request,
+    private void handleAttempt(CompletableFuture<HttpResponse> vessel, Buffered buffered,
                                RetriableFuture<HttpResponse> result, int attempt) {
+        HttpRequest request = buffered.request;
         vessel.whenCompleteAsync((response, thrown) -> {
                                      result.set(response, thrown);
                                      // Retry the operation if it failed with a transient error ...
                                      if (thrown != null ? retry(request, thrown, attempt)
                                                         : retry(request, response, attempt)) {
-                                         CompletableFuture<HttpResponse> retry = new CompletableFuture<>();
+                                         CompletableFuture<HttpResponse> retry = buffered.attempt();
                                          offer(request, retry);
-                                         handleAttempt(retry, request, result, attempt + (breaker.state() == HALF_OPEN ? 0 : 1));
+                                         handleAttempt(retry, buffered, result, attempt + (breaker.state() == HALF_OPEN ? 0 : 1));
+                                         buffered.release(); // This attempt is done with the request, which the retry now holds.
                                      }
                                      // ... or accept the outcome and mark the operation as complete.
-                                     else result.complete();
+                                     else {
+                                         buffered.release(); // This attempt is done with the request.
+                                         result.complete();
+                                     }
                                  },
                                  resultExecutor);
     }
@@ -318,6 +397,9 @@ class HttpRequestStrategy implements RequestStrategy {
     public void destroy() {
         if (destroyed.compareAndSet(false, true)) {
             inflightById.values().forEach(RetriableFuture::complete);
+            synchronized (bufferMonitor) {
+                bufferMonitor.notifyAll(); // Don't keep anyone waiting for buffer space which may never be released.
+            }
             cluster.close();
             resultExecutor.shutdown();
             try {
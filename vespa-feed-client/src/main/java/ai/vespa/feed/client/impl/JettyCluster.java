@@ -4,6 +4,7 @@ package ai.vespa.feed.client.impl;
 
 import ai.vespa.feed.client.FeedClientBuilder.Compression;
 import ai.vespa.feed.client.HttpResponse;
+import io.airlift.compress.zstd.ZstdCompressor;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.HttpProxy;
 import org.eclipse.jetty.client.MultiplexConnectionPool;
@@ -16,6 +17,7 @@ import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.dynamic.HttpClientTransportDynamic;
 import org.eclipse.jetty.client.http.HttpClientConnectionFactory;
 import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.client.util.ByteBufferRequestContent;
 import org.eclipse.jetty.client.util.BytesRequestContent;
 import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpHeader;
@@ -40,7 +42,10 @@ import java.io.UncheckedIOException;
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -55,8 +60,8 @@ import java.util.zip.GZIPOutputStream;
 
 import static ai.vespa.feed.client.FeedClientBuilder.Compression.auto;
 import static ai.vespa.feed.client.FeedClientBuilder.Compression.gzip;
+import static ai.vespa.feed.client.FeedClientBuilder.Compression.zstd;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static org.eclipse.jetty.http.MimeTypes.Type.APPLICATION_JSON;
 
 /**
  * Client implementation based on Jetty HTTP Client
@@ -96,20 +101,21 @@ class JettyCluster implements Cluster {
                         .headers(hs -> req.headers().forEach((k, v) -> hs.add(k, v.get())))
                         .idleTimeout(IDLE_TIMEOUT.toMillis(), MILLISECONDS)
                         .timeout(reqTimeoutMillis, MILLISECONDS);
-                if (req.body() != null) {
-                    boolean shouldCompress = compression == gzip || compression == auto && req.body().length > 512;
-                    byte[] bytes;
-                    if (shouldCompress) {
+                ByteBuffer body = req.bodyBuffer(); // Not copied, when buffered off heap; must not be used after the vessel completes.
+                if (body != null) {
+                    if (compression == zstd) {
+                        jettyReq.body(new BytesRequestContent(req.contentType(), zstdCompressed(body)));
+                        jettyReq.headers(hs -> hs.add(HttpHeader.CONTENT_ENCODING, "zstd"));
+                    } else if (compression == gzip || compression == auto && body.remaining() > 512) {
                         ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 10);
                         try (GZIPOutputStream zip = new GZIPOutputStream(buffer)) {
-                            zip.write(req.body());
+                            Channels.newChannel(zip).write(body);
                         } catch (IOException e) { throw new UncheckedIOException(e); }
-                        bytes = buffer.toByteArray();
+                        jettyReq.body(new BytesRequestContent(req.contentType(), buffer.toByteArray()));
                         jettyReq.headers(hs -> hs.add(HttpHeader.CONTENT_ENCODING, "gzip"));
                     } else {
-                        bytes = req.body();
+                        jettyReq.body(new ByteBufferRequestContent(req.contentType(), body));
                     }
-                    jettyReq.body(new BytesRequestContent(APPLICATION_JSON.asString(), bytes));
                 }
                 log.log(Level.FINER, () ->
                         String.format("Dispatching request %s (%s)", req, System.identityHashCode(vessel)));
@@ -231,6 +237,13 @@ class JettyCluster implements Cluster {
         }
     }
 
+    private static byte[] zstdCompressed(ByteBuffer data) {
+        ZstdCompressor compressor = new ZstdCompressor();
+        ByteBuffer buffer = ByteBuffer.allocate(compressor.maxCompressedLength(data.remaining()));
+        compressor.compress(data, buffer);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
     private static Endpoint findLeastBusyEndpoint(List<Endpoint> endpoints) {
         Endpoint leastBusy = endpoints.get(0);
         int minInflight = leastBusy.inflight.get();
@@ -0,0 +1,148 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+import static java.util.logging.Level.FINE;
+
+/**
+ * Adjusts the target inflight by comparing the latency of responses to the minimum latency seen recently.
+ * While latency stays close to the minimum, requests are not queued at the server, and the target grows;
+ * as latency grows beyond the minimum, the target shrinks by the ratio of the two, plus an allowance of the
+ * square root of the target, so it settles where only a short queue builds at the server. This does not depend
+ * on throughput measurements, which vary for reasons other than load, e.g., when content nodes flush or merge.
+ */
+public class LatencyThrottler extends StaticThrottler {
+
+    /** The reason for the last change to the target inflight. */
+    enum Decision { none, increase, decrease, applicationLimited, backOff }
+
+    private static final Logger log = Logger.getLogger(LatencyThrottler.class.getName());
+
+    static final double tolerance = 1.5;
+    static final double smoothing = 0.2;
+    static final double backOff = 0.7;
+    static final long minLatencyPeriodNanos = 30_000_000_000L;
+
+    private final LongSupplier nanoClock;
+    private final Object monitor = new Object();
+    private volatile long window;
+    private double windowSize;
+    private double latencyNanos = -1;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private long previousMinLatencyNanos = Long.MAX_VALUE;
+    private long minLatencyPeriodStart;
+    private long samples = 0;
+    private long maxObservedInflight = 0;
+    private boolean throttled = false;
+    private Decision decision = Decision.none;
+
+    public LatencyThrottler(FeedClientBuilderImpl builder) {
+        super(builder);
+        this.nanoClock = builder.nanoClock;
+        this.windowSize = minInflight;
+        this.window = minInflight;
+        this.minLatencyPeriodStart = nanoClock.getAsLong();
+    }
+
+    @Override
+    public void sent(long inflight, CompletableFuture<HttpResponse> vessel) {
+        long startNanos = nanoClock.getAsLong();
+        synchronized (monitor) {
+            maxObservedInflight = max(maxObservedInflight, inflight);
+        }
+        vessel.whenComplete((response, thrown) -> {
+            if (thrown == null && isSuccess(response)) sample(nanoClock.getAsLong() - startNanos);
+        });
+    }
+
+    /** Whether the given response is a successful one, as errors are often fast, and say nothing of the time to do the work. */
+    static boolean isSuccess(HttpResponse response) {
+        return response.code() / 100 == 2 || response.code() == 404 || response.code() == 412;
+    }
+
+    @Override
+    public void throttled(long inflight) {
+        super.throttled(inflight);
+        synchronized (monitor) {
+            throttled = true;
+        }
+    }
+
+    @Override
+    public long targetInflight() {
+        return min(super.targetInflight(), window);
+    }
+
+    private void sample(long nanos) {
+        synchronized (monitor) {
+            long now = nanoClock.getAsLong();
+            if (now - minLatencyPeriodStart >= minLatencyPeriodNanos) {
+                minLatencyPeriodStart = now;
+                previousMinLatencyNanos = minLatencyNanos;
+                minLatencyNanos = Long.MAX_VALUE;
+            }
+            nanos = max(1, nanos);
+            minLatencyNanos = min(minLatencyNanos, nanos);
+            latencyNanos = latencyNanos < 0 ? nanos : latencyNanos + (nanos - latencyNanos) / windowSize;
+            if (++samples >= windowSize) resize();
+        }
+    }
+
+    /** Resizes the window based on what was observed since the last resize, which was about one window of responses ago. */
+    private void resize() {
+        double oldWindowSize = windowSize;
+        if (throttled) {
+            windowSize *= backOff;
+            decision = Decision.backOff;
+        }
+        else {
+            double gradient = max(0.5, min(1, tolerance * minLatencyNanos() / latencyNanos));
+            double target = windowSize * gradient + sqrt(windowSize);
+            if (target > windowSize && maxObservedInflight < windowSize / 2) {
+                decision = Decision.applicationLimited;
+            }
+            else {
+                windowSize += smoothing * (target - windowSize);
+                decision = windowSize < oldWindowSize ? Decision.decrease : Decision.increase;
+            }
+        }
+        windowSize = max(minInflight, min(maxInflight, windowSize));
+        window = (long) windowSize;
+        log.log(FINE, () -> "target inflight " + window + ", latency " + latencyNanos + "ns, min latency " +
+                            minLatencyNanos() + "ns, decision " + decision);
+        samples = 0;
+        maxObservedInflight = 0;
+        throttled = false;
+    }
+
+    /** The minimum latency seen in the current and previous periods, in nanoseconds, or -1 if none are yet seen. */
+    long minLatencyNanos() {
+        synchronized (monitor) {
+            long min = min(minLatencyNanos, previousMinLatencyNanos);
+            return min == Long.MAX_VALUE ? -1 : min;
+        }
+    }
+
+    /** The smoothed latency of successful responses, in nanoseconds, or -1 if none are yet seen. */
+    double latencyNanos() {
+        synchronized (monitor) {
+            return latencyNanos;
+        }
+    }
+
+    /** The reason for the last change to the target inflight. */
+    Decision decision() {
+        synchronized (monitor) {
+            return decision;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonFactoryBuilder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Converts JSON to the Slime binary format, which is cheaper for the server to parse than JSON.
+ * This must be kept in sync with com.yahoo.slime.BinaryEncoder in vespajlib.
+ * <p>
+ * The binary format is a table of all field names, followed by the root value. Each value starts with a byte
+ * with the type in the lowest 3 bits, and type specific meta data, e.g., a size, in the others.
+ */
+class SlimeEncoder {
+
+    private static final JsonFactory factory = new JsonFactoryBuilder()
+            .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(Integer.MAX_VALUE).build())
+            .build();
+
+    private static final int NIX = 0;
+    private static final int BOOL = 1;
+    private static final int LONG = 2;
+    private static final int DOUBLE = 3;
+    private static final int STRING = 4;
+    private static final int ARRAY = 6;
+    private static final int OBJECT = 7;
+
+    private final Map<String, Integer> symbols = new LinkedHashMap<>();
+
+    private SlimeEncoder() { }
+
+    /** Returns the given JSON, which must contain a single value, in the Slime binary format. */
+    static byte[] encode(byte[] json) throws IOException {
+        SlimeEncoder encoder = new SlimeEncoder();
+        ByteArrayOutputStream value = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = factory.createParser(json)) {
+            parser.nextToken();
+            encoder.encodeValue(parser, value);
+            if (parser.nextToken() != null)
+                throw new IllegalArgumentException("Expected end of input, but got " + parser.currentToken());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(value.size() + 16 * encoder.symbols.size());
+        writeCompressedInt(encoder.symbols.size(), out);
+        for (String name : encoder.symbols.keySet()) {
+            byte[] bytes = name.getBytes(UTF_8);
+            writeCompressedInt(bytes.length, out);
+            out.writeBytes(bytes);
+        }
+        value.writeTo(out);
+        return out.toByteArray();
+    }
+
+    private void encodeValue(JsonParser parser, ByteArrayOutputStream out) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) throw new IllegalArgumentException("Unexpected end of input");
+        switch (token) {
+            case VALUE_NULL:
+                out.write(NIX);
+                break;
+            case VALUE_TRUE:
+                out.write(typeAndMeta(BOOL, 1));
+                break;
+            case VALUE_FALSE:
+                out.write(typeAndMeta(BOOL, 0));
+                break;
+            case VALUE_NUMBER_INT:
+                if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) writeDouble(parser.getDoubleValue(), out);
+                else writeLong(parser.getLongValue(), out);
+                break;
+            case VALUE_NUMBER_FLOAT:
+                writeDouble(parser.getDoubleValue(), out);
+                break;
+            case VALUE_STRING: {
+                byte[] bytes = parser.getText().getBytes(UTF_8);
+                writeTypeAndSize(STRING, bytes.length, out);
+                out.writeBytes(bytes);
+                break;
+            }
+            case START_ARRAY: {
+                ByteArrayOutputStream entries = new ByteArrayOutputStream();
+                int size = 0;
+                for (parser.nextToken(); parser.currentToken() != JsonToken.END_ARRAY; parser.nextToken(), size++)
+                    encodeValue(parser, entries);
+                writeTypeAndSize(ARRAY, size, out);
+                entries.writeTo(out);
+                break;
+            }
+            case START_OBJECT: {
+                ByteArrayOutputStream fields = new ByteArrayOutputStream();
+                int size = 0;
+                for (String name; (name = parser.nextFieldName()) != null; size++) {
+                    writeCompressedInt(symbols.computeIfAbsent(name, __ -> symbols.size()), fields);
+                    parser.nextToken();
+                    encodeValue(parser, fields);
+                }
+                writeTypeAndSize(OBJECT, size, out);
+                fields.writeTo(out);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unexpected JSON token " + token);
+        }
+    }
+
+    private static int typeAndMeta(int type, int meta) {
+        return (meta << 3) | type;
+    }
+
+    private static void writeCompressedInt(int value, ByteArrayOutputStream out) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeTypeAndSize(int type, int size, ByteArrayOutputStream out) {
+        if (size <= 30) {
+            out.write(typeAndMeta(type, size + 1));
+        }
+        else {
+            out.write(typeAndMeta(type, 0));
+            writeCompressedInt(size, out);
+        }
+    }
+
+    /** Writes the zigzag encoded value as little-endian bytes, omitting the trailing zero bytes. */
+    private static void writeLong(long value, ByteArrayOutputStream out) {
+        long bits = (value << 1) ^ (value >> 63);
+        int size = (64 - Long.numberOfLeadingZeros(bits) + 7) / 8;
+        out.write(typeAndMeta(LONG, size));
+        for (int i = 0; i < size; i++, bits >>>= 8)
+            out.write((int) bits & 0xff);
+    }
+
+    /** Writes the raw bits of the value as big-endian bytes, omitting the trailing zero bytes. */
+    private static void writeDouble(double value, ByteArrayOutputStream out) {
+        long bits = Double.doubleToRawLongBits(value);
+        int size = (64 - Long.numberOfTrailingZeros(bits) + 7) / 8;
+        out.write(typeAndMeta(DOUBLE, size));
+        for (int i = 0; i < size; i++, bits <<= 8)
+            out.write((int) (bits >>> 56));
+    }
+
+}
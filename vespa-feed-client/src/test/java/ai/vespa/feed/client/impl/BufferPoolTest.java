@@ -0,0 +1,62 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BufferPoolTest {
+
+    @Test
+    void testSizeClasses() {
+        assertEquals(0, BufferPool.sizeClassOf(0));
+        assertEquals(0, BufferPool.sizeClassOf(1024));
+        assertEquals(1, BufferPool.sizeClassOf(1025));
+        assertEquals(1, BufferPool.sizeClassOf(2048));
+        assertEquals(10, BufferPool.sizeClassOf(1 << 20));
+        assertEquals(11, BufferPool.sizeClassOf((1 << 20) + 1));
+    }
+
+    @Test
+    void testBuffersAreReused() {
+        BufferPool pool = new BufferPool(4096);
+        ByteBuffer first = pool.copyOf(new byte[]{ 1, 2, 3 });
+        assertTrue(first.isDirect());
+        assertEquals(3, first.remaining());
+        assertEquals(2, first.get(1));
+        assertEquals(1024, pool.usedBytes());
+
+        pool.release(first);
+        assertEquals(0, pool.usedBytes());
+        assertEquals(1024, pool.freeBytes());
+
+        ByteBuffer second = pool.copyOf(new byte[]{ 4, 5 });
+        assertSame(first, second);
+        assertEquals(2, second.remaining());
+        assertEquals(5, second.get(1));
+        assertEquals(1024, pool.usedBytes());
+        assertEquals(0, pool.freeBytes());
+    }
+
+    @Test
+    void testFreeBytesAreBounded() {
+        BufferPool pool = new BufferPool(3000);
+        ByteBuffer small = pool.copyOf(new byte[1000]);
+        ByteBuffer medium = pool.copyOf(new byte[2000]);
+        ByteBuffer huge = pool.copyOf(new byte[(1 << 20) + 1]);
+        assertEquals(1024 + 2048 + (1 << 20) + 1, pool.usedBytes());
+
+        pool.release(huge);
+        assertEquals(0, pool.freeBytes());
+        pool.release(medium);
+        assertEquals(2048, pool.freeBytes());
+        pool.release(small); // Would exceed the limit.
+        assertEquals(2048, pool.freeBytes());
+        assertEquals(0, pool.usedBytes());
+    }
+
+}
@@ -0,0 +1,94 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BulkClusterTest {
+
+    final List<HttpRequest> requests = new ArrayList<>();
+    final List<CompletableFuture<HttpResponse>> vessels = new ArrayList<>();
+    final Cluster delegate = (request, vessel) -> {
+        synchronized (requests) {
+            requests.add(request);
+            vessels.add(vessel);
+            requests.notifyAll();
+        }
+    };
+
+    static HttpRequest request(String operation, Duration timeout) {
+        return new HttpRequest("POST", "/document/v1/ns/type/docid/0", "", Map.of(), null,
+                               operation == null ? null : operation.getBytes(UTF_8), timeout, () -> 0);
+    }
+
+    @Test
+    void testBulking() throws ExecutionException, InterruptedException, TimeoutException {
+        try (Cluster cluster = new BulkCluster(delegate, 3, () -> 0)) {
+            // Requests which can not be bulked are dispatched directly.
+            HttpRequest single = request(null, Duration.ofSeconds(1));
+            CompletableFuture<HttpResponse> singleVessel = new CompletableFuture<>();
+            cluster.dispatch(single, singleVessel);
+            assertSame(single, requests.get(0));
+            assertSame(singleVessel, vessels.get(0));
+
+            // A full bulk is dispatched immediately.
+            List<CompletableFuture<HttpResponse>> bulkVessels = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                bulkVessels.add(new CompletableFuture<>());
+                cluster.dispatch(request("{\"remove\":\"id:ns:type::" + i + "\"}", Duration.ofSeconds(i + 1)), bulkVessels.get(i));
+            }
+            assertEquals(2, requests.size());
+            HttpRequest bulk = requests.get(1);
+            assertEquals("POST", bulk.method());
+            assertEquals("/document/v1/bulk?timeout=3000ms", bulk.pathAndQuery());
+            assertEquals("""
+                         {"remove":"id:ns:type::0"}
+                         {"remove":"id:ns:type::1"}
+                         {"remove":"id:ns:type::2"}
+                         """,
+                         new String(bulk.body(), UTF_8));
+
+            // Results are matched to operations by index, and operations without results fail.
+            vessels.get(1).complete(HttpResponse.of(200, """
+                                                         {"index":2,"id":"id:ns:type::2","status":412,"message":"no dice"}
+                                                         {"index":0,"id":"id:ns:type::0","status":200}
+                                                         """.getBytes(UTF_8)));
+            assertEquals(200, bulkVessels.get(0).get().code());
+            assertEquals("{\"index\":0,\"id\":\"id:ns:type::0\",\"status\":200}", new String(bulkVessels.get(0).get().body(), UTF_8));
+            assertEquals(412, bulkVessels.get(2).get().code());
+            assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, () -> bulkVessels.get(1).get()).getCause());
+
+            // A partial bulk is dispatched after lingering, and a failed bulk fails all its operations.
+            CompletableFuture<HttpResponse> first = new CompletableFuture<>(), second = new CompletableFuture<>();
+            cluster.dispatch(request("{\"remove\":\"id:ns:type::3\"}", Duration.ofSeconds(1)), first);
+            cluster.dispatch(request("{\"remove\":\"id:ns:type::4\"}", Duration.ofSeconds(1)), second);
+            synchronized (requests) {
+                while (requests.size() < 3) requests.wait();
+            }
+            assertEquals(2, new String(requests.get(2).body(), UTF_8).lines().count());
+            assertFalse(first.isDone());
+            HttpResponse overload = HttpResponse.of(429, "{\"message\":\"overload\"}".getBytes(UTF_8));
+            vessels.get(2).complete(overload);
+            assertSame(overload, first.get(1, TimeUnit.SECONDS));
+            assertSame(overload, second.get(1, TimeUnit.SECONDS));
+        }
+    }
+
+}
@@ -22,6 +22,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -261,4 +262,33 @@ class HttpFeedClientTest {
                            null);
     }
 
+    @Test
+    void testBulkOperations() {
+        DocumentId id = DocumentId.of("ns", "type", "0");
+        assertEquals("{\"put\":\"id:ns:type::0\",\"fields\":{\"a\":\"b\"}}",
+                     new String(HttpFeedClient.getBulkOperation("POST", id, " { \"fields\":{\"a\":\"b\"}}", OperationParameters.empty(), false), UTF_8));
+        assertEquals("{\"update\":\"id:ns:type::0\",\"condition\":\"type.a==\\\"b\\\"\",\"create\":true,\"fields\":{}}",
+                     new String(HttpFeedClient.getBulkOperation("PUT", id, "{\"fields\":{}}",
+                                                                OperationParameters.empty().createIfNonExistent(true).testAndSetCondition("type.a==\"b\""),
+                                                                false),
+                                UTF_8));
+        assertEquals("{\"remove\":\"id:ns:type::0\"}",
+                     new String(HttpFeedClient.getBulkOperation("DELETE", id, null, OperationParameters.empty().createIfNonExistent(true), false), UTF_8));
+        assertEquals("{\"put\":\"id:ns:type::0\"}",
+                     new String(HttpFeedClient.getBulkOperation("POST", id, "{}", OperationParameters.empty(), false), UTF_8));
+
+        assertNull(HttpFeedClient.getBulkOperation("POST", id, "json", OperationParameters.empty(), false));
+        assertNull(HttpFeedClient.getBulkOperation("POST", id, "{}", OperationParameters.empty(), true));
+        assertNull(HttpFeedClient.getBulkOperation("POST", id, "{}", OperationParameters.empty().route("route"), false));
+        assertNull(HttpFeedClient.getBulkOperation("POST", id, "{}", OperationParameters.empty().tracelevel(1), false));
+    }
+
+    @Test
+    void testSlimeBody() {
+        assertArrayEquals(new byte[] { 1, 6, 'f', 'i', 'e', 'l', 'd', 's', 0x17, 0, 0x0f },
+                          HttpFeedClient.getSlimeBody("{\"fields\":{}}".getBytes(UTF_8)));
+        assertNull(HttpFeedClient.getSlimeBody("json".getBytes(UTF_8)));
+        assertNull(HttpFeedClient.getSlimeBody(null));
+    }
+
 }
@@ -15,11 +15,14 @@ import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -36,6 +39,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -259,6 +263,44 @@ class HttpRequestStrategyTest {
         assertTrue(clusters.get(1).closed.get());
     }
 
+    @Test
+    void testBufferedBytes() throws Exception {
+        MockCluster cluster = new MockCluster();
+        BlockingQueue<CompletableFuture<HttpResponse>> vessels = new LinkedBlockingQueue<>();
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        cluster.expect((request, vessel) -> {
+            if (request.body() != null) bodies.add(new String(request.body(), UTF_8));
+            vessels.add(vessel);
+        });
+        HttpRequestStrategy strategy = new HttpRequestStrategy(new FeedClientBuilderImpl(List.of(URI.create("https://dummy.com:123")))
+                                                                       .setMaxBufferedBytes(10)
+                                                                       .setOffHeapBuffering(true),
+                                                               () -> cluster);
+
+        // The first operation is sent, but the second must wait for it to complete, to stay within the buffer limit.
+        CompletableFuture<HttpResponse> first = strategy.enqueue(DocumentId.of("ns", "type", "1"),
+                                                                 new HttpRequest("POST", "/", "", null, "first!".getBytes(UTF_8), Duration.ofSeconds(10), () -> 0));
+        CompletableFuture<HttpResponse> firstVessel = vessels.take();
+        assertEquals(6, strategy.stats().bufferedBytes());
+
+        CompletableFuture<CompletableFuture<HttpResponse>> second = CompletableFuture.supplyAsync(
+                () -> strategy.enqueue(DocumentId.of("ns", "type", "2"),
+                                       new HttpRequest("POST", "/", "", null, "second".getBytes(UTF_8), Duration.ofSeconds(10), () -> 0)));
+        assertNull(vessels.poll(100, TimeUnit.MILLISECONDS));
+        assertFalse(second.isDone());
+
+        HttpResponse success = HttpResponse.of(200, null);
+        strategy.enqueue(DocumentId.of("ns", "type", "1"), new HttpRequest("DELETE", "/", "", null, null, Duration.ofSeconds(10), () -> 0));
+        firstVessel.complete(success); // Completes the first operation, and lets the second, and the remove, through.
+        assertEquals(success, first.get());
+        vessels.take().complete(success);
+        vessels.take().complete(success);
+        assertEquals(success, second.get().get());
+        assertEquals(List.of("first!", "second"), bodies);
+        assertEquals(0, strategy.stats().bufferedBytes());
+        strategy.destroy();
+    }
+
     @Test
     void testShutdown() throws IOException {
         MockCluster cluster = new MockCluster();
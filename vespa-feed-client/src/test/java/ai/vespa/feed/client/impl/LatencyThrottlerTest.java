@@ -0,0 +1,99 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import ai.vespa.feed.client.HttpResponse;
+import ai.vespa.feed.client.OperationStats;
+import ai.vespa.feed.client.impl.LatencyThrottler.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyThrottlerTest {
+
+    @Test
+    void testThrottler() {
+        AtomicLong nanos = new AtomicLong();
+        LatencyThrottler throttler = new LatencyThrottler(new FeedClientBuilderImpl(List.of(URI.create("http://localhost:8080")))
+                                                                  .setNanoClock(nanos::get));
+        assertEquals(16, throttler.targetInflight());
+        assertEquals(Decision.none, throttler.decision());
+
+        // Responses come back as fast as the server can provide them, so the target increases.
+        feed(throttler, nanos, 1000, 10_000_000);
+        assertEquals(10_000_000, throttler.minLatencyNanos());
+        assertEquals(50, throttler.targetInflight());
+        assertEquals(Decision.increase, throttler.decision());
+
+        // Fast error responses are not latency samples.
+        for (int code : new int[]{ 429, 500, 503 }) {
+            CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+            throttler.sent(throttler.targetInflight(), vessel);
+            nanos.addAndGet(1_000_000);
+            vessel.complete(HttpResponse.of(code, null));
+        }
+        assertEquals(10_000_000, throttler.minLatencyNanos());
+        assertEquals(50, throttler.targetInflight());
+
+        // Latency doubles, which means requests are queued at the server, so the target decreases.
+        feed(throttler, nanos, 100, 20_000_000);
+        assertEquals(10_000_000, throttler.minLatencyNanos());
+        assertEquals(51, throttler.targetInflight());
+        assertEquals(Decision.decrease, throttler.decision());
+
+        // The server signals it is overloaded, so the target backs off.
+        throttler.throttled(1000);
+        feed(throttler, nanos, 51, 20_000_000);
+        assertEquals(35, throttler.targetInflight());
+        assertEquals(Decision.backOff, throttler.decision());
+    }
+
+    @Test
+    void testApplicationLimited() {
+        AtomicLong nanos = new AtomicLong();
+        LatencyThrottler throttler = new LatencyThrottler(new FeedClientBuilderImpl(List.of(URI.create("http://localhost:8080")))
+                                                                  .setNanoClock(nanos::get));
+        for (int i = 0; i < 1000; i++) {
+            CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+            throttler.sent(1, vessel);
+            nanos.addAndGet(10_000_000);
+            vessel.complete(HttpResponse.of(200, null));
+        }
+        assertEquals(16, throttler.targetInflight());
+        assertEquals(Decision.applicationLimited, throttler.decision());
+    }
+
+    @Test
+    void testStats() {
+        AtomicLong nanos = new AtomicLong();
+        LatencyThrottler throttler = new LatencyThrottler(new FeedClientBuilderImpl(List.of(URI.create("http://localhost:8080")))
+                                                                  .setNanoClock(nanos::get));
+        BenchmarkingCluster cluster = new BenchmarkingCluster((request, vessel) -> { }, throttler);
+        OperationStats stats = cluster.stats();
+        assertEquals(-1, stats.throttlerMinLatencyMillis());
+        assertEquals(-1, stats.throttlerLatencyMillis());
+        assertEquals("none", stats.throttlerDecision());
+
+        feed(throttler, nanos, 1000, 10_000_000);
+        stats = cluster.stats();
+        assertEquals(10, stats.throttlerMinLatencyMillis(), 1e-9);
+        assertEquals(10, stats.throttlerLatencyMillis(), 1e-9);
+        assertEquals("increase", stats.throttlerDecision());
+        cluster.close();
+    }
+
+    /** Sends the given number of requests, each with the current target inflight, and with the given latency. */
+    private static void feed(LatencyThrottler throttler, AtomicLong nanos, int requests, long latencyNanos) {
+        for (int i = 0; i < requests; i++) {
+            CompletableFuture<HttpResponse> vessel = new CompletableFuture<>();
+            throttler.sent(throttler.targetInflight(), vessel);
+            nanos.addAndGet(latencyNanos);
+            vessel.complete(HttpResponse.of(200, null));
+        }
+    }
+
+}
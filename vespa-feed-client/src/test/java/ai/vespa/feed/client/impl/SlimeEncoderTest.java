@@ -0,0 +1,46 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.feed.client.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SlimeEncoderTest {
+
+    @Test
+    void testEncoding() throws IOException {
+        assertArrayEquals(new byte[] { 2, 1, 'a', 1, 'b',         // Symbol table: [ "a", "b" ]
+                                       0x1f,                      // Object with 2 fields
+                                       0, 0x0a, 0x02,             // "a": long 1, zigzag encoded in 1 byte
+                                       1, 0x2e,                   // "b": array with 4 entries
+                                       0x09,                      // true
+                                       0x00,                      // null
+                                       0x14, 'x',                 // "x"
+                                       0x13, 0x3f, (byte) 0xe0 }, // double 0.5, in 2 big-endian bytes
+                          SlimeEncoder.encode("{\"a\":1,\"b\":[true,null,\"x\",0.5]}".getBytes(UTF_8)));
+
+        assertArrayEquals(new byte[] { 1, 1, 'a',                 // Symbol table: [ "a" ]
+                                       0x2e,                      // Array with 4 entries
+                                       0x0a, 0x01,                // long -1
+                                       0x02,                      // long 0
+                                       0x03,                      // double 0
+                                       0x17, 0, 0x0a, 0x02 },     // Object with 1 field, "a": long 1
+                          SlimeEncoder.encode("[-1,0,0.0,{\"a\":1}]".getBytes(UTF_8)));
+
+        String text = "x".repeat(40);
+        byte[] encoded = SlimeEncoder.encode(("\"" + text + "\"").getBytes(UTF_8));
+        assertEquals(43, encoded.length);
+        assertArrayEquals(new byte[] { 0, 0x04, 40 }, Arrays.copyOf(encoded, 3)); // No symbols, string with size in next byte
+        assertEquals(text, new String(encoded, 3, 40, UTF_8));
+
+        assertThrows(IOException.class, () -> SlimeEncoder.encode("{\"a\":".getBytes(UTF_8)));
+        assertThrows(IllegalArgumentException.class, () -> SlimeEncoder.encode("{} {}".getBytes(UTF_8)));
+    }
+
+}
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.core.JsonFactoryBuilder;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.StreamReadConstraints;
 import com.yahoo.cloud.config.ClusterListConfig;
+import com.yahoo.compress.ZstdInputStream;
 import com.yahoo.component.annotation.Inject;
 import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.concurrent.SystemTimer;
@@ -14,6 +15,7 @@ import com.yahoo.container.core.documentapi.VespaDocumentAccess;
 import com.yahoo.container.jdisc.ContentChannelOutputStream;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
@@ -28,6 +30,7 @@ import com.yahoo.document.json.DocumentOperationType;
 import com.yahoo.document.json.JsonReader;
 import com.yahoo.document.json.JsonWriter;
 import com.yahoo.document.json.ParsedDocumentOperation;
+import com.yahoo.document.json.SlimeParser;
 import com.yahoo.document.restapi.DocumentOperationExecutorConfig;
 import com.yahoo.document.select.parser.ParseException;
 import com.yahoo.documentapi.AckToken;
@@ -63,6 +66,7 @@ import com.yahoo.jdisc.handler.UnsafeContentInputStream;
 import com.yahoo.jdisc.http.HttpRequest;
 import com.yahoo.jdisc.http.HttpRequest.Method;
 import com.yahoo.messagebus.DynamicThrottlePolicy;
+import com.yahoo.messagebus.LatencyThrottlePolicy;
 import com.yahoo.messagebus.Message;
 import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.Trace;
@@ -81,13 +85,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -95,13 +102,19 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -122,6 +135,7 @@ import static com.yahoo.jdisc.http.HttpRequest.Method.POST;
 import static com.yahoo.jdisc.http.HttpRequest.Method.PUT;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.logging.Level.FINE;
 import static java.util.logging.Level.WARNING;
 import static java.util.stream.Collectors.joining;
@@ -137,6 +151,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private static final Duration defaultTimeout = Duration.ofSeconds(180); // Match document API default timeout.
     private static final Duration handlerTimeout = Duration.ofMillis(100); // Extra time to allow for handler, JDisc and jetty to complete.
+    private static final int maxBulkFeeds = 64; // Each bulk feed holds a thread blocked on reading its request content.
+    private static final int maxPreallocatedContentBytes = 1 << 24;
 
     private static final Logger log = Logger.getLogger(DocumentV1ApiHandler.class.getName());
     private static final Parser<Integer> integerParser = Integer::parseInt;
@@ -160,6 +176,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(Integer.MAX_VALUE).build())
             .build();
 
+    /** Content type of document operations in the Slime binary format, with raw data for raw fields and dense tensor cells. */
+    static final String SLIME_CONTENT_TYPE = "application/x-slime";
+
     private static final String CREATE = "create";
     private static final String CONDITION = "condition";
     private static final String ROUTE = "route";
@@ -189,16 +208,22 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private final DocumentOperationParser parser;
     private final long maxThrottled;
     private final long maxThrottledAgeNS;
+    private final long resendDelayMS;
     private final DocumentAccess access;
     private final AsyncSession asyncSession;
+    private final Optional<LatencyThrottlePolicy> latencyThrottlePolicy;
+    private final Map<LatencyThrottlePolicy.Decision, Long> reportedDecisions = new EnumMap<>(LatencyThrottlePolicy.Decision.class);
     private final Map<String, StorageCluster> clusters;
     private final Deque<Operation> operations;
     private final Deque<BooleanSupplier> visitOperations = new ConcurrentLinkedDeque<>();
+    private final Deque<BooleanSupplier> bulkOperations = new ConcurrentLinkedDeque<>();
     private final AtomicLong enqueued = new AtomicLong();
     private final AtomicLong outstanding = new AtomicLong();
     private final Map<VisitorControlHandler, VisitorSession> visits = new ConcurrentHashMap<>();
     private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-"));
     private final ScheduledExecutorService visitDispatcher = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("document-api-handler-visit-"));
+    private final ExecutorService bulkFeeder = new ThreadPoolExecutor(0, maxBulkFeeds, 60, SECONDS, new SynchronousQueue<>(),
+                                                                      new DaemonThreadFactory("document-api-handler-bulk-"));
     private final Map<String, Map<Method, Handler>> handlers = defineApi();
 
     @Inject
@@ -224,14 +249,21 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         this.maxThrottled = executorConfig.maxThrottled();
         this.maxThrottledAgeNS = (long) (executorConfig.maxThrottledAge() * 1_000_000_000.0);
         this.access = access;
-        this.asyncSession = access.createAsyncSession(new AsyncParameters());
+        this.latencyThrottlePolicy = executorConfig.throttlePolicy() == DocumentOperationExecutorConfig.ThrottlePolicy.LATENCY
+                                     ? Optional.of(new LatencyThrottlePolicy())
+                                     : Optional.empty();
+        AsyncParameters asyncParameters = new AsyncParameters();
+        latencyThrottlePolicy.ifPresent(asyncParameters::setThrottlePolicy);
+        this.asyncSession = access.createAsyncSession(asyncParameters);
         this.clusters = parseClusters(clusterListConfig, bucketSpacesConfig);
         this.operations = new ConcurrentLinkedDeque<>();
-        long resendDelayMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(executorConfig.resendDelayMillis())).toMillis();
+        this.resendDelayMS = SystemTimer.adjustTimeoutByDetectedHz(Duration.ofMillis(executorConfig.resendDelayMillis())).toMillis();
 
         // TODO: Here it would be better to have dedicated threads with different wait depending on blocked or empty.
         this.dispatcher.scheduleWithFixedDelay(this::dispatchEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
         this.visitDispatcher.scheduleWithFixedDelay(this::dispatchVisitEnqueued, resendDelayMS, resendDelayMS, MILLISECONDS);
+        if (latencyThrottlePolicy.isPresent())
+            this.dispatcher.scheduleWithFixedDelay(this::reportThrottleMetrics, 1, 1, SECONDS);
     }
 
     // ------------------------------------------------ Requests -------------------------------------------------
@@ -291,7 +323,8 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         // Shut down both dispatchers, so only we empty the queues of outstanding operations, and can be sure they're empty.
         dispatcher.shutdown();
         visitDispatcher.shutdown();
-        while ( ! (operations.isEmpty() && visitOperations.isEmpty()) && clock.instant().isBefore(doom)) {
+        bulkFeeder.shutdown();
+        while ( ! (operations.isEmpty() && visitOperations.isEmpty() && bulkOperations.isEmpty()) && clock.instant().isBefore(doom)) {
             dispatchEnqueued();
             dispatchVisitEnqueued();
         }
@@ -302,6 +335,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         if ( ! visitOperations.isEmpty())
             log.log(WARNING, "Failed to empty visitor operations queue before shutdown timeout — " + operations.size() + " operations left");
 
+        if ( ! bulkOperations.isEmpty())
+            log.log(WARNING, "Failed to empty bulk feed operations queue before shutdown timeout — " + bulkOperations.size() + " operations left");
+
         try {
             while (outstanding.get() > 0 && clock.instant().isBefore(doom))
                 Thread.sleep(Math.max(1, Duration.between(clock.instant(), doom).toMillis()));
@@ -311,6 +347,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
             if ( ! visitDispatcher.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
                 visitDispatcher.shutdownNow();
+
+            if ( ! bulkFeeder.awaitTermination(Duration.between(clock.instant(), doom).toMillis(), MILLISECONDS))
+                bulkFeeder.shutdownNow();
         }
         catch (InterruptedException e) {
             log.log(WARNING, "Interrupted waiting for /document/v1 executor to shut down");
@@ -336,6 +375,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                             POST, this::postDocuments,
                             DELETE, this::deleteDocuments));
 
+        handlers.put("/document/v1/bulk",
+                     Map.of(POST, this::postBulk));
+
         handlers.put("/document/v1/{namespace}/{documentType}/docid/",
                      Map.of(GET, this::getDocuments,
                             POST, this::postDocuments,
@@ -405,14 +447,14 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
     private ContentChannel putDocuments(HttpRequest request, DocumentPath path, ResponseHandler handler) {
         disallow(request, DRY_RUN);
-        return new ForwardingContentChannel(in -> {
+        return new ForwardingContentChannel(request, in -> {
             enqueueAndDispatch(request, handler, () -> {
                 StorageCluster cluster = resolveCluster(Optional.of(requireProperty(request, CLUSTER)), clusters);
                 VisitorParameters parameters = parseParameters(request, path);
                 parameters.setFieldSet(DocIdOnly.NAME);
                 String type = path.documentType().orElseThrow(() -> new IllegalStateException("Document type must be specified for mass updates"));
                 IdIdString dummyId = new IdIdString("dummy", type, "", "");
-                ParsedDocumentOperation update = parser.parseUpdate(in, dummyId.toString());
+                ParsedDocumentOperation update = parser.parseUpdate(request, in, dummyId.toString());
                 update.operation().setCondition(new TestAndSetCondition(requireProperty(request, SELECTION)));
                 return () -> {
                     visitAndUpdate(request, parameters, update.fullyApplied(), handler, (DocumentUpdate)update.operation(), cluster.name());
@@ -468,9 +510,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return ignoredContent;
         }
 
-        return new ForwardingContentChannel(in -> {
+        return new ForwardingContentChannel(request, in -> {
             enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parsePut(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parsePut(request, in, path.id().toString());
                 DocumentPut put = (DocumentPut)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(put::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(put::setCreateIfNonExistent);
@@ -493,9 +535,9 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             return ignoredContent;
         }
 
-        return new ForwardingContentChannel(in -> {
+        return new ForwardingContentChannel(request, in -> {
             enqueueAndDispatch(request, handler, () -> {
-                ParsedDocumentOperation parsed = parser.parseUpdate(in, path.id().toString());
+                ParsedDocumentOperation parsed = parser.parseUpdate(request, in, path.id().toString());
                 DocumentUpdate update = (DocumentUpdate)parsed.operation();
                 getProperty(request, CONDITION).map(TestAndSetCondition::new).ifPresent(update::setCondition);
                 getProperty(request, CREATE, booleanParser).ifPresent(update::setCreateIfNonExistent);
@@ -532,6 +574,26 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return ignoredContent;
     }
 
+    private ContentChannel postBulk(HttpRequest request, DocumentPath path, ResponseHandler handler) {
+        BulkFeed feed = new BulkFeed(request);
+        ReadableContentChannel in = new ReadableContentChannel();
+        try {
+            bulkFeeder.execute(() -> feed.feed(handler, contentOf(request, new UnsafeContentInputStream(in))));
+        }
+        catch (RejectedExecutionException e) {
+            overload(request, "Rejecting execution due to overload: " + maxBulkFeeds + " bulk feeds already in progress", handler);
+            return ignoredContent;
+        }
+        return new ContentChannel() {
+            @Override public void write(ByteBuffer buf, CompletionHandler handler) { in.write(buf, handler); }
+            @Override public void close(CompletionHandler handler) { in.close(handler); }
+            @Override public void onError(Throwable error) {
+                log.log(FINE, error, () -> "ContentChannel.onError(): " + error.getMessage());
+                in.failed(error); // Unblocks the feeding thread, which then sees the end of the stream.
+            }
+        };
+    }
+
     private DocumentOperationParameters parametersFromRequest(HttpRequest request, String... names) {
         DocumentOperationParameters parameters = getProperty(request, TRACELEVEL, integerParser).map(parameters()::withTraceLevel)
                                                                                                 .orElse(parameters());
@@ -551,10 +613,11 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return parameters;
     }
 
-    /** Dispatches enqueued requests until one is blocked. */
+    /** Dispatches enqueued requests until one is blocked, and then enqueued bulk feed operations likewise. */
     void dispatchEnqueued() {
         try {
             while (dispatchFirst());
+            while (dispatchFirstBulk());
         }
         catch (Exception e) {
             log.log(WARNING, "Uncaught exception in /document/v1 dispatch thread", e);
@@ -575,6 +638,19 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         return false;
     }
 
+    /** Attempts to dispatch the first enqueued bulk feed operation, and returns whether this was successful. */
+    private boolean dispatchFirstBulk() {
+        BooleanSupplier operation = bulkOperations.poll();
+        if (operation == null)
+            return false;
+
+        if (operation.getAsBoolean())
+            return true;
+
+        bulkOperations.push(operation);
+        return false;
+    }
+
     /** Dispatches enqueued requests until one is blocked. */
     private void dispatchVisitEnqueued() {
         try {
@@ -744,18 +820,18 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
 
         synchronized void writeTrace(Trace trace) throws IOException {
             if (trace != null && ! trace.getRoot().isEmpty()) {
-                writeTrace(trace.getRoot());
+                writeTrace(json, trace.getRoot());
             }
         }
 
-        private void writeTrace(TraceNode node) throws IOException {
+        private static void writeTrace(JsonGenerator json, TraceNode node) throws IOException {
             if (node.hasNote())
                 json.writeStringField("message", node.getNote());
             if ( ! node.isLeaf()) {
                 json.writeArrayFieldStart(node.isStrict() ? "trace" : "fork");
                 for (int i = 0; i < node.getNumChildren(); i++) {
                     json.writeStartObject();
-                    writeTrace(node.getChild(i));
+                    writeTrace(json, node.getChild(i));
                     json.writeEndObject();
                 }
                 json.writeEndArray();
@@ -1015,14 +1091,182 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         private DispatchException(Throwable cause) { super(cause); }
     }
 
-    /** Readable content channel which forwards data to a reader when closed. */
+    /**
+     * A stream of document operations in a single request, which are dispatched as soon as they are parsed,
+     * and whose results are written as lines of JSON in the order the operations complete. Each result has
+     * the index of the operation in the stream, its document ID, if known, and the status code and message
+     * the operation would have had as a single request. The timeout of the request applies to each operation,
+     * from when it is read. Operations which can not be dispatched because the document API is throttled are
+     * left to the dispatcher thread, and reading of the request content is paused until they are dispatched.
+     */
+    private class BulkFeed {
+
+        private final DocumentOperationParameters parameters;
+        private final Duration timeout;
+        private final boolean dryRun;
+        private final AtomicLong pending = new AtomicLong(1); // Operations awaiting results, plus one until all are read.
+        private ContentChannel out;
+
+        BulkFeed(HttpRequest request) {
+            this.parameters = parametersFromRequest(request, ROUTE);
+            this.timeout = Duration.ofMillis(getProperty(request, TIMEOUT, timeoutMillisParser).orElse(defaultTimeout.toMillis()));
+            this.dryRun = getProperty(request, DRY_RUN, booleanParser).orElse(false);
+        }
+
+        /** Reads, dispatches and writes the results of all operations in the given input. */
+        void feed(ResponseHandler handler, InputStream in) {
+            Response response = new Response(Response.Status.OK);
+            response.headers().add("Content-Type", List.of("application/jsonl; charset=UTF-8"));
+            out = handler.handleResponse(response);
+            try (in) {
+                JsonReader reader = parser.streamReader(in);
+                for (long index = 0; ; index++) {
+                    ParsedDocumentOperation parsed;
+                    try {
+                        parsed = reader.nextFromStream();
+                    }
+                    catch (IllegalArgumentException e) {
+                        incrementMetricParseError();
+                        writeResult(index, null, Response.Status.BAD_REQUEST, Exceptions.toMessageString(e), null);
+                        continue; // The reader returns null if it can not continue.
+                    }
+                    if (parsed == null)
+                        break;
+
+                    dispatch(index, parsed.operation());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.log(FINE, "Interrupted while waiting to dispatch bulk feed operation");
+            }
+            catch (Exception e) {
+                log.log(FINE, "Failed reading bulk feed", e);
+            }
+            finally {
+                completed();
+            }
+        }
+
+        /** Dispatches the given operation, or enqueues it and waits until it is dispatched, if throttled. */
+        private void dispatch(long index, DocumentOperation operation) throws InterruptedException, ExecutionException {
+            DocumentId id = operation.getId();
+            if (dryRun) {
+                writeResult(index, id, Response.Status.OK, null, null);
+                return;
+            }
+
+            long startNanos = System.nanoTime();
+            Instant deadline = clock.instant().plus(timeout).minus(handlerTimeout);
+            DocumentOperationParameters parameters = this.parameters.withDeadline(deadline).withResponseHandler(response -> {
+                outstanding.decrementAndGet();
+                double latency = (System.nanoTime() - startNanos) / 1e+9d;
+                if (operation instanceof DocumentPut put)
+                    updatePutMetrics(response.outcome(), latency, put.getCreateIfNonExistent());
+                else if (operation instanceof DocumentUpdate update)
+                    updateUpdateMetrics(response.outcome(), latency, update.getCreateIfNonExistent());
+                else
+                    updateRemoveMetrics(response.outcome(), latency);
+
+                if (response.isSuccess())
+                    writeResult(index, id, Response.Status.OK, null, response.getTrace());
+                else
+                    writeResult(index, id, failureStatusOf(response), response.getTextMessage(), response.getTrace());
+                completed();
+            });
+
+            Supplier<Result> documentOperation;
+            if (operation instanceof DocumentPut put)
+                documentOperation = () -> asyncSession.put(put, parameters);
+            else if (operation instanceof DocumentUpdate update)
+                documentOperation = () -> asyncSession.update(update, parameters);
+            else if (operation instanceof DocumentRemove remove)
+                documentOperation = () -> asyncSession.remove(remove, parameters);
+            else
+                throw new IllegalStateException("Unexpected document operation " + operation);
+
+            // Returns whether the operation is done with dispatch, i.e., was dispatched, failed, or timed out.
+            BooleanSupplier attempt = () -> {
+                try {
+                    if (dispatchOperation(documentOperation))
+                        return true;
+                    if (clock.instant().isBefore(deadline))
+                        return false;
+                    writeResult(index, id, Response.Status.TOO_MANY_REQUESTS,
+                                "Rejecting execution due to overload: timed out waiting to dispatch operation", null);
+                }
+                catch (RuntimeException e) { // Also when run by the dispatcher thread, which must not wait for this.
+                    writeResult(index, id, Response.Status.INTERNAL_SERVER_ERROR, Exceptions.toMessageString(e), null);
+                }
+                completed();
+                return true;
+            };
+
+            pending.incrementAndGet();
+            if (attempt.getAsBoolean())
+                return;
+
+            CompletableFuture<Void> dispatched = new CompletableFuture<>();
+            bulkOperations.offer(() -> {
+                if ( ! attempt.getAsBoolean())
+                    return false;
+
+                dispatched.complete(null);
+                return true;
+            });
+            dispatched.get();
+        }
+
+        private void writeResult(long index, DocumentId id, int status, String message, Trace trace) {
+            try {
+                ByteArrayOutputStream line = new ByteArrayOutputStream();
+                try (JsonGenerator json = jsonFactory.createGenerator(line)) {
+                    json.writeStartObject();
+                    json.writeNumberField("index", index);
+                    if (id != null)
+                        json.writeStringField("id", id.toString());
+                    json.writeNumberField("status", status);
+                    if (message != null)
+                        json.writeStringField("message", message);
+                    if (trace != null && ! trace.getRoot().isEmpty())
+                        JsonResponse.writeTrace(json, trace.getRoot());
+                    json.writeEndObject();
+                }
+                line.write('\n');
+                synchronized (this) {
+                    out.write(ByteBuffer.wrap(line.toByteArray()), logException);
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                log.log(FINE, "Failed writing bulk feed result", e);
+            }
+        }
+
+        private void completed() {
+            if (pending.decrementAndGet() == 0) {
+                synchronized (this) {
+                    out.close(logException);
+                }
+            }
+        }
+
+    }
+
+    /** Returns the content of the given request, decompressed if it is Zstd encoded. Gzip is inflated by the HTTP server. */
+    static InputStream contentOf(HttpRequest request, InputStream content) {
+        return "zstd".equalsIgnoreCase(request.headers().getFirst("Content-Encoding")) ? new ZstdInputStream(content) : content;
+    }
+
+    /** Readable content channel which forwards the content of a request to a reader when closed. */
     static class ForwardingContentChannel implements ContentChannel {
 
         private final ReadableContentChannel delegate = new ReadableContentChannel();
+        private final HttpRequest request;
         private final Consumer<InputStream> reader;
         private volatile boolean errorReported = false;
 
-        public ForwardingContentChannel(Consumer<InputStream> reader) {
+        public ForwardingContentChannel(HttpRequest request, Consumer<InputStream> reader) {
+            this.request = request;
             this.reader = reader;
         }
 
@@ -1044,7 +1288,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             try {
                 delegate.close(logException);
                 if (!errorReported) {
-                    reader.accept(new UnsafeContentInputStream(delegate));
+                    reader.accept(contentOf(request, new UnsafeContentInputStream(delegate)));
                 }
                 handler.completed();
             }
@@ -1069,17 +1313,63 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
             this.manager = new DocumentTypeManager(config);
         }
 
-        ParsedDocumentOperation parsePut(InputStream inputStream, String docId) {
-            return parse(inputStream, docId, DocumentOperationType.PUT);
+        ParsedDocumentOperation parsePut(HttpRequest request, InputStream inputStream, String docId) {
+            return parse(request, inputStream, docId, DocumentOperationType.PUT);
+        }
+
+        ParsedDocumentOperation parseUpdate(HttpRequest request, InputStream inputStream, String docId)  {
+            return parse(request, inputStream, docId, DocumentOperationType.UPDATE);
         }
 
-        ParsedDocumentOperation parseUpdate(InputStream inputStream, String docId)  {
-            return parse(inputStream, docId, DocumentOperationType.UPDATE);
+        /** Returns a reader of the stream of document operations in the given input. */
+        JsonReader streamReader(InputStream inputStream) {
+            return new JsonReader(manager, inputStream, jsonFactory);
         }
 
-        private ParsedDocumentOperation parse(InputStream inputStream, String docId, DocumentOperationType operation) {
+        /** Returns a reader of the given request content, which is Slime binary if the request says so, and JSON otherwise. */
+        private JsonReader readerOf(HttpRequest request, InputStream inputStream) {
+            if ( ! SLIME_CONTENT_TYPE.equalsIgnoreCase(request.headers().getFirst("Content-Type")))
+                return new JsonReader(manager, inputStream, jsonFactory);
+
             try {
-                return new JsonReader(manager, inputStream, jsonFactory).readSingleDocumentStreaming(operation, docId);
+                return new JsonReader(manager, SlimeParser.createParser(readAll(request, inputStream)));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads all the given content, which Slime needs in a single array. When the content is not encoded, and
+         * not too large, this is read directly into an array of its declared length, rather than into chunks which
+         * are then concatenated. The limit avoids allocating much for content which is declared, but never sent.
+         */
+        private byte[] readAll(HttpRequest request, InputStream inputStream) throws IOException {
+            String length = request.headers().getFirst("Content-Length");
+            if (   length == null
+                || request.headers().getFirst("Content-Encoding") != null
+                || Long.parseLong(length) > maxPreallocatedContentBytes)
+                return inputStream.readAllBytes();
+
+            byte[] data = new byte[Integer.parseInt(length)];
+            int read = inputStream.readNBytes(data, 0, data.length);
+            if (read < data.length)
+                return Arrays.copyOf(data, read);
+
+            int next = inputStream.read();
+            if (next == -1)
+                return data;
+
+            ByteArrayOutputStream longer = new ByteArrayOutputStream(2 * data.length); // Longer than declared; read the rest.
+            longer.write(data);
+            longer.write(next);
+            inputStream.transferTo(longer);
+            return longer.toByteArray();
+        }
+
+        private ParsedDocumentOperation parse(HttpRequest request, InputStream inputStream, String docId, DocumentOperationType operation) {
+            try {
+                return readerOf(request, inputStream).readSingleDocumentStreaming(operation, docId);
             } catch (IllegalArgumentException e) {
                 incrementMetricParseError();
                 throw e;
@@ -1103,20 +1393,7 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
                 callback.onSuccess((response instanceof DocumentResponse) ? ((DocumentResponse) response).getDocument() : null, jsonResponse);
             else {
                 jsonResponse.writeMessage(response.getTextMessage());
-                switch (response.outcome()) {
-                    case NOT_FOUND -> jsonResponse.commit(Response.Status.NOT_FOUND);
-                    case CONDITION_FAILED -> jsonResponse.commit(Response.Status.PRECONDITION_FAILED);
-                    case INSUFFICIENT_STORAGE -> jsonResponse.commit(Response.Status.INSUFFICIENT_STORAGE);
-                    case TIMEOUT -> jsonResponse.commit(Response.Status.GATEWAY_TIMEOUT);
-                    case ERROR -> {
-                        log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                    default -> {
-                        log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
-                        jsonResponse.commit(Status.INTERNAL_SERVER_ERROR);
-                    }
-                }
+                jsonResponse.commit(failureStatusOf(response));
             }
         }
         catch (Exception e) {
@@ -1124,6 +1401,24 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
         }
     }
 
+    /** Returns the HTTP status code to use for the given unsuccessful document API response. */
+    private static int failureStatusOf(com.yahoo.documentapi.Response response) {
+        return switch (response.outcome()) {
+            case NOT_FOUND -> Response.Status.NOT_FOUND;
+            case CONDITION_FAILED -> Response.Status.PRECONDITION_FAILED;
+            case INSUFFICIENT_STORAGE -> Response.Status.INSUFFICIENT_STORAGE;
+            case TIMEOUT -> Response.Status.GATEWAY_TIMEOUT;
+            case ERROR -> {
+                log.log(FINE, () -> "Exception performing document operation: " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+            default -> {
+                log.log(WARNING, "Unexpected document API operation outcome '" + response.outcome() + "' " + response.getTextMessage());
+                yield Status.INTERNAL_SERVER_ERROR;
+            }
+        };
+    }
+
     private static void handleFeedOperation(DocumentPath path,
                                             boolean fullyApplied,
                                             ResponseHandler handler,
@@ -1184,6 +1479,22 @@ public final class DocumentV1ApiHandler extends AbstractRequestHandler {
     private void incrementMetricFailedTimeout() { incrementMetric(MetricNames.FAILED_TIMEOUT); }
     private void incrementMetricFailedInsufficientStorage() { incrementMetric(MetricNames.FAILED_INSUFFICIENT_STORAGE); }
     private void incrementMetric(String n) { metric.add(n, 1, null); }
+
+    /** Reports the window, latencies and decisions since last report of the latency throttle policy, if used. */
+    void reportThrottleMetrics() {
+        latencyThrottlePolicy.ifPresent(policy -> {
+            setMetric(MetricNames.THROTTLE_WINDOW, policy.getWindowSize());
+            if (policy.getMinLatency() > 0) setMetric(MetricNames.THROTTLE_MIN_LATENCY, policy.getMinLatency());
+            if (policy.getLatency() > 0) setMetric(MetricNames.THROTTLE_LATENCY, policy.getLatency());
+            for (LatencyThrottlePolicy.Decision decision : LatencyThrottlePolicy.Decision.values()) {
+                long count = policy.getDecisionCount(decision);
+                long previous = Objects.requireNonNullElse(reportedDecisions.put(decision, count), 0L);
+                if (count > previous)
+                    metric.add(MetricNames.THROTTLE_DECISIONS, count - previous, metric.createContext(Map.of("decision", decision.name())));
+            }
+        });
+    }
+
     private void setMetric(String n, Number v) { metric.set(n, v, null); }
 
     // ------------------------------------------------- Visits ------------------------------------------------
@@ -26,6 +26,10 @@ public final class MetricNames {
     public static final String FAILED_UNKNOWN = ContainerMetrics.HTTPAPI_FAILED_UNKNOWN.baseName();
     public static final String FAILED_TIMEOUT = ContainerMetrics.HTTPAPI_FAILED_TIMEOUT.baseName();
     public static final String FAILED_INSUFFICIENT_STORAGE = ContainerMetrics.HTTPAPI_FAILED_INSUFFICIENT_STORAGE.baseName();
+    public static final String THROTTLE_WINDOW = ContainerMetrics.HTTPAPI_THROTTLE_WINDOW.baseName();
+    public static final String THROTTLE_MIN_LATENCY = ContainerMetrics.HTTPAPI_THROTTLE_MIN_LATENCY.baseName();
+    public static final String THROTTLE_LATENCY = ContainerMetrics.HTTPAPI_THROTTLE_LATENCY.baseName();
+    public static final String THROTTLE_DECISIONS = ContainerMetrics.HTTPAPI_THROTTLE_DECISIONS.baseName();
 
     private MetricNames() { }
 
@@ -2,6 +2,7 @@
 package com.yahoo.document.restapi.resource;
 
 import com.yahoo.cloud.config.ClusterListConfig;
+import com.yahoo.compress.ZstdOutputStream;
 import com.yahoo.container.jdisc.RequestHandlerTestDriver;
 import com.yahoo.document.BucketId;
 import com.yahoo.document.Document;
@@ -44,19 +45,31 @@ import com.yahoo.documentapi.VisitorResponse;
 import com.yahoo.documentapi.VisitorSession;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.RemoveDocumentMessage;
+import com.yahoo.jdisc.Request;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.http.HttpRequest;
 import com.yahoo.jdisc.test.MockMetric;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.LatencyThrottlePolicy;
+import com.yahoo.messagebus.Reply;
 import com.yahoo.messagebus.StaticThrottlePolicy;
 import com.yahoo.messagebus.Trace;
 import com.yahoo.messagebus.TraceNode;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.schema.derived.Deriver;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Inspector;
 import com.yahoo.slime.JsonFormat;
+import com.yahoo.slime.Slime;
 import com.yahoo.slime.SlimeUtils;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.test.ManualClock;
 import com.yahoo.vdslib.VisitorStatistics;
 import com.yahoo.vespa.config.content.AllClustersBucketSpacesConfig;
+import com.yahoo.vespa.http.server.MetricNames;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -64,7 +77,11 @@ import org.junit.Test;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +95,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -263,6 +281,7 @@ public class DocumentV1ApiTest {
                          "pathId": "/document/v1/not-found",
                          "message": "Nothing at '/document/v1/not-found'. Available paths are:
                        /document/v1/
+                       /document/v1/bulk
                        /document/v1/{namespace}/{documentType}/docid/
                        /document/v1/{namespace}/{documentType}/group/{group}/
                        /document/v1/{namespace}/{documentType}/number/{number}/
@@ -1083,6 +1102,171 @@ public class DocumentV1ApiTest {
         assertEquals(200, response.getStatus());
     }
 
+    @Test
+    public void bulk_feed_dispatches_each_operation_and_streams_results() {
+        var driver = new RequestHandlerTestDriver(handler);
+        List<Object> dispatched = new ArrayList<>();
+        access.session.expect((operation, parameters) -> {
+            dispatched.add(operation);
+            assertEquals(parameters().withRoute("route"), parameters);
+            if (operation instanceof DocumentRemove)
+                parameters.responseHandler().get().handleResponse(new Response(0, "no dice", Response.Outcome.CONDITION_FAILED));
+            else
+                parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/bulk?route=route", POST,
+                """
+                {"put": "id:space:music::one", "fields": {"artist": "Tom Waits"}}
+                {"update": "id:space:music::two", "create": true, "fields": {"artist": {"assign": "Lisa Ekdahl"}}}
+                {"put": "id:space:house::three", "fields": {}}
+                {"remove": "id:space:music::four", "condition": "false"}
+                """);
+        assertEquals("""
+                     {"index":0,"id":"id:space:music::one","status":200}
+                     {"index":1,"id":"id:space:music::two","status":200}
+                     {"index":2,"status":400,"message":"Document type house does not exist"}
+                     {"index":3,"id":"id:space:music::four","status":412,"message":"no dice"}
+                     """,
+                     response.readAll());
+        assertEquals(200, response.getStatus());
+        assertEquals(3, dispatched.size());
+        assertEquals("Tom Waits", ((DocumentPut) dispatched.get(0)).getDocument().getFieldValue("artist").toString());
+        assertTrue(((DocumentUpdate) dispatched.get(1)).getCreateIfNonExistent());
+        assertEquals(new TestAndSetCondition("false"), ((DocumentRemove) dispatched.get(2)).getCondition());
+
+        // Malformed content ends the feed
+        access.session.expect((__, ___) -> { throw new AssertionError("Not supposed to happen"); });
+        response = driver.sendRequest("http://localhost/document/v1/bulk?dryRun=true", POST,
+                """
+                {"put": "id:space:music::one", "fields": {"artist": "Tom Waits"}}
+                {"put": "id:space:music::two", "fields": {
+                """);
+        Inspector first = SlimeUtils.jsonToSlime(response.readAll().split("\n")[0]).get();
+        assertEquals(200, first.field("status").asLong());
+        assertEquals(200, response.getStatus());
+        driver.close();
+    }
+
+    @Test
+    public void throttled_bulk_feed_operations_are_dispatched_when_possible() {
+        var driver = new RequestHandlerTestDriver(handler);
+        AtomicInteger attempts = new AtomicInteger();
+        access.session.expect((operation, parameters) -> {
+            if (attempts.incrementAndGet() % 3 != 0)
+                return new Result(Result.ResultType.TRANSIENT_ERROR, Result.toError(Result.ResultType.TRANSIENT_ERROR));
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        var response = driver.sendRequest("http://localhost/document/v1/bulk", POST,
+                """
+                {"put": "id:space:music::one", "fields": {}}
+                {"remove": "id:space:music::two"}
+                """);
+        while (attempts.get() < 6)
+            handler.dispatchEnqueued();
+        assertEquals("""
+                     {"index":0,"id":"id:space:music::one","status":200}
+                     {"index":1,"id":"id:space:music::two","status":200}
+                     """,
+                     response.readAll());
+        assertEquals(6, attempts.get());
+        driver.close();
+    }
+
+    @Test
+    public void zstd_compressed_content_is_decompressed() throws IOException {
+        var driver = new RequestHandlerTestDriver(handler);
+        List<Object> dispatched = new ArrayList<>();
+        access.session.expect((operation, parameters) -> {
+            dispatched.add(operation);
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        var response = sendZstdCompressed(driver, "http://localhost/document/v1/space/music/docid/one",
+                                          "{\"fields\": {\"artist\": \"Tom Waits\"}}");
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1/space/music/docid/one",
+                         "id": "id:space:music::one"
+                       }""",
+                       response.readAll());
+        assertEquals(200, response.getStatus());
+
+        response = sendZstdCompressed(driver, "http://localhost/document/v1/bulk",
+                                      """
+                                      {"put": "id:space:music::two", "fields": {"artist": "Lisa Ekdahl"}}
+                                      {"remove": "id:space:music::three"}
+                                      """);
+        assertEquals("""
+                     {"index":0,"id":"id:space:music::two","status":200}
+                     {"index":1,"id":"id:space:music::three","status":200}
+                     """,
+                     response.readAll());
+        assertEquals(3, dispatched.size());
+        assertEquals("Tom Waits", ((DocumentPut) dispatched.get(0)).getDocument().getFieldValue("artist").toString());
+        assertEquals("Lisa Ekdahl", ((DocumentPut) dispatched.get(1)).getDocument().getFieldValue("artist").toString());
+        driver.close();
+    }
+
+    @Test
+    public void slime_content_is_parsed() throws IOException {
+        var driver = new RequestHandlerTestDriver(handler);
+        List<Object> dispatched = new ArrayList<>();
+        access.session.expect((operation, parameters) -> {
+            dispatched.add(operation);
+            parameters.responseHandler().get().handleResponse(new Response(0, null, Response.Outcome.SUCCESS));
+            return new Result();
+        });
+        Slime slime = new Slime();
+        Cursor fields = slime.setObject().setObject("fields");
+        fields.setString("artist", "Tom Waits");
+        fields.setData("embedding", ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN).putDouble(1).putDouble(2).putDouble(3).array());
+        var response = send(driver, "http://localhost/document/v1/space/music/docid/one",
+                            Map.of("Content-Type", DocumentV1ApiHandler.SLIME_CONTENT_TYPE), BinaryFormat.encode(slime));
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1/space/music/docid/one",
+                         "id": "id:space:music::one"
+                       }""",
+                       response.readAll());
+        assertEquals(200, response.getStatus());
+        Document document = ((DocumentPut) dispatched.get(0)).getDocument();
+        assertEquals("Tom Waits", document.getFieldValue("artist").toString());
+        assertEquals(Tensor.from("tensor(x[3]):[1, 2, 3]"), ((TensorFieldValue) document.getFieldValue("embedding")).getTensor().get());
+
+        response = send(driver, "http://localhost/document/v1/space/music/docid/one",
+                        Map.of("Content-Type", DocumentV1ApiHandler.SLIME_CONTENT_TYPE), "{\"fields\": {}}".getBytes(UTF_8));
+        assertSameJson("""
+                       {
+                         "pathId": "/document/v1/space/music/docid/one",
+                         "message": "malformed Slime binary data: IndexOutOfBoundsException"
+                       }""",
+                       response.readAll());
+        assertEquals(400, response.getStatus());
+        driver.close();
+    }
+
+    private static RequestHandlerTestDriver.MockResponseHandler sendZstdCompressed(RequestHandlerTestDriver driver, String uri, String body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (ZstdOutputStream out = new ZstdOutputStream(compressed, 32)) { // Several frames.
+            out.write(body.getBytes(UTF_8));
+        }
+        return send(driver, uri, Map.of("Content-Encoding", "zstd"), compressed.toByteArray());
+    }
+
+    private static RequestHandlerTestDriver.MockResponseHandler send(RequestHandlerTestDriver driver, String uri,
+                                                                     Map<String, String> headers, byte[] body) {
+        var response = new RequestHandlerTestDriver.MockResponseHandler();
+        Request request = HttpRequest.newServerRequest(driver.jDiscDriver(), URI.create(uri), POST);
+        headers.forEach(request.headers()::put);
+        ContentChannel content = request.connect(response);
+        content.write(ByteBuffer.wrap(body), null);
+        content.close(null);
+        request.release();
+        return response;
+    }
+
     private void doTestVisitRequestWithParams(String httpReqParams, Consumer<VisitorParameters> paramChecker) {
         try (var driver = new RequestHandlerTestDriver(handler)) {
             access.expect(parameters -> {
@@ -1116,6 +1300,33 @@ public class DocumentV1ApiTest {
         });
     }
 
+    @Test
+    public void testLatencyThrottlePolicyMetrics() {
+        assertFalse(access.asyncParameters.getThrottlePolicy() instanceof LatencyThrottlePolicy);
+        handler.destroy();
+        handler = new DocumentV1ApiHandler(clock, Duration.ofMillis(1), metric, metrics, access, docConfig,
+                                           new DocumentOperationExecutorConfig.Builder(executorConfig).throttlePolicy(DocumentOperationExecutorConfig.ThrottlePolicy.LATENCY).build(),
+                                           clusterConfig, bucketConfig);
+        LatencyThrottlePolicy policy = (LatencyThrottlePolicy) access.asyncParameters.getThrottlePolicy();
+        handler.reportThrottleMetrics();
+        assertEquals(Map.of(Map.of(), 16.0), metric.metrics().get(MetricNames.THROTTLE_WINDOW));
+        assertNull(metric.metrics().get(MetricNames.THROTTLE_LATENCY));
+        assertNull(metric.metrics().get(MetricNames.THROTTLE_DECISIONS));
+
+        for (int i = 0; i < 16; i++) {
+            RemoveDocumentMessage message = new RemoveDocumentMessage(doc1.getId());
+            policy.processMessage(message);
+            Reply reply = new EmptyReply();
+            reply.setContext(message.getContext());
+            reply.addError(new Error(ErrorCode.SESSION_BUSY, "busy"));
+            policy.processReply(reply);
+        }
+        handler.reportThrottleMetrics();
+        handler.reportThrottleMetrics();
+        assertEquals(Map.of(Map.of(), 16 * 0.7), metric.metrics().get(MetricNames.THROTTLE_WINDOW));
+        assertEquals(Map.of(Map.of("decision", "backOff"), 1.0), metric.metrics().get(MetricNames.THROTTLE_DECISIONS));
+    }
+
     @Test
     public void testThroughput() throws InterruptedException {
         DocumentOperationExecutorConfig executorConfig = new DocumentOperationExecutorConfig.Builder().build();
@@ -1194,6 +1405,7 @@ public class DocumentV1ApiTest {
         private final Set<AckToken> outstanding = new CopyOnWriteArraySet<>();
         private final MockAsyncSession session = new MockAsyncSession();
         private Trace visitorTrace;
+        private AsyncParameters asyncParameters;
 
         MockDocumentAccess(DocumentmanagerConfig config) {
             super(new DocumentAccessParams().setDocumentmanagerConfig(config));
@@ -1206,6 +1418,7 @@ public class DocumentV1ApiTest {
 
         @Override
         public AsyncSession createAsyncSession(AsyncParameters parameters) {
+            asyncParameters = parameters;
             return session;
         }
 
@@ -0,0 +1,40 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import io.airlift.compress.MalformedInputException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a stream of one or more Zstd frames, such as written by {@link ZstdOutputStream},
+ * without knowing the decompressed size up front. Malformed input causes an {@link IOException}.
+ */
+public class ZstdInputStream extends FilterInputStream {
+
+    public ZstdInputStream(InputStream in) {
+        super(new io.airlift.compress.zstd.ZstdInputStream(in));
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return super.read();
+        }
+        catch (MalformedInputException e) {
+            throw new IOException("Malformed Zstd input", e);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            return super.read(b, off, len);
+        }
+        catch (MalformedInputException e) {
+            throw new IOException("Malformed Zstd input", e);
+        }
+    }
+
+}
@@ -0,0 +1,201 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.impl.Convert;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Tensor operations on dense tensors which work directly on value indexes in the standard value order,
+ * without creating addresses, cells or boxed values, and writing the result into a single primitive array.
+ */
+class DenseKernels {
+
+    private DenseKernels() {}
+
+    /** Joins two dense tensors having the same dimensions and the same dimension sizes */
+    static Tensor join(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        int size = a.sizeAsInt();
+        if (joinedType.valueType() == TensorType.Value.DOUBLE) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+                values[i] = combinator.applyAsDouble(a.get(i), b.get(i));
+            return IndexedTensor.Builder.of(joinedType, a.dimensionSizes(), values).build();
+        }
+        else {
+            float[] values = new float[size];
+            for (int i = 0; i < size; i++)
+                values[i] = (float)combinator.applyAsDouble(a.get(i), b.get(i));
+            return IndexedTensor.Builder.of(joinedType, a.dimensionSizes(), values).build();
+        }
+    }
+
+    /** Joins two dense vectors in the same dimension, over the cells present in both */
+    static Tensor joinVectors(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        int size = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        DimensionSizes sizes = new DimensionSizes.Builder(1).set(0, size).build();
+        if (joinedType.valueType() == TensorType.Value.DOUBLE) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+                values[i] = combinator.applyAsDouble(a.get(i), b.get(i));
+            return IndexedTensor.Builder.of(joinedType, sizes, values).build();
+        }
+        else {
+            float[] values = new float[size];
+            for (int i = 0; i < size; i++)
+                values[i] = (float)combinator.applyAsDouble(a.get(i), b.get(i));
+            return IndexedTensor.Builder.of(joinedType, sizes, values).build();
+        }
+    }
+
+    /**
+     * Returns whether the given subspace consists of the innermost dimensions of the given superspace,
+     * with the same sizes, such that each consecutive block of the superspace values matches the subspace values.
+     */
+    static boolean isInnerSubspace(IndexedTensor subspace, IndexedTensor superspace) {
+        int offset = superspace.type().rank() - subspace.type().rank();
+        if (offset < 0) return false;
+        for (int i = 0; i < subspace.type().rank(); i++) {
+            if ( ! subspace.type().dimensions().get(i).name().equals(superspace.type().dimensions().get(offset + i).name()))
+                return false;
+            if (subspace.dimensionSizes().size(i) != superspace.dimensionSizes().size(offset + i))
+                return false;
+        }
+        return true;
+    }
+
+    /** Joins a subspace consisting of the inner dimensions of a superspace into each block of the superspace */
+    static Tensor joinInnerSubspace(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType,
+                                    boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
+        int size = superspace.sizeAsInt();
+        int blockSize = subspace.sizeAsInt();
+        boolean doubleOutput = joinedType.valueType() == TensorType.Value.DOUBLE;
+        double[] doubleValues = doubleOutput ? new double[size] : null;
+        float[] floatValues = doubleOutput ? null : new float[size];
+        for (int blockStart = 0; blockStart < size; blockStart += blockSize) {
+            for (int i = 0; i < blockSize; i++) {
+                double superValue = superspace.get(blockStart + i);
+                double subValue = subspace.get(i);
+                double value = reversedArgumentOrder ? combinator.applyAsDouble(superValue, subValue)
+                                                     : combinator.applyAsDouble(subValue, superValue);
+                if (doubleOutput)
+                    doubleValues[blockStart + i] = value;
+                else
+                    floatValues[blockStart + i] = (float)value;
+            }
+        }
+        return doubleOutput ? IndexedTensor.Builder.of(joinedType, superspace.dimensionSizes(), doubleValues).build()
+                            : IndexedTensor.Builder.of(joinedType, superspace.dimensionSizes(), floatValues).build();
+    }
+
+    /** Applies the given function to each value of a dense tensor */
+    static Tensor map(IndexedTensor argument, TensorType mappedType, DoubleUnaryOperator mapper) {
+        int size = argument.sizeAsInt();
+        if (mappedType.valueType() == TensorType.Value.DOUBLE) {
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+                values[i] = mapper.applyAsDouble(argument.get(i));
+            return IndexedTensor.Builder.of(mappedType, argument.dimensionSizes(), values).build();
+        }
+        else {
+            float[] values = new float[size];
+            for (int i = 0; i < size; i++)
+                values[i] = (float)mapper.applyAsDouble(argument.get(i));
+            return IndexedTensor.Builder.of(mappedType, argument.dimensionSizes(), values).build();
+        }
+    }
+
+    /** Returns whether the given aggregator can be computed by {@link #aggregate} */
+    static boolean canAggregate(Reduce.Aggregator aggregator) {
+        return aggregator != Reduce.Aggregator.median;
+    }
+
+    /** Returns whether the given dimension indexes are exactly the innermost dimensions of the given type */
+    static boolean areInnermost(int[] dimensionIndexes, TensorType type) {
+        boolean[] included = new boolean[type.rank()];
+        for (int index : dimensionIndexes)
+            included[index] = true;
+        for (int i = type.rank() - dimensionIndexes.length; i < type.rank(); i++)
+            if ( ! included[i]) return false;
+        return true;
+    }
+
+    /**
+     * Reduces the innermost dimensions of a dense tensor, where the given number of innermost dimensions
+     * are the ones to reduce.
+     */
+    static Tensor reduceInner(IndexedTensor argument, TensorType reducedType, int reducedDimensionCount,
+                              Reduce.Aggregator aggregator) {
+        DimensionSizes argumentSizes = argument.dimensionSizes();
+        int keptDimensions = argumentSizes.dimensions() - reducedDimensionCount;
+        DimensionSizes.Builder reducedSizes = new DimensionSizes.Builder(keptDimensions);
+        for (int i = 0; i < keptDimensions; i++)
+            reducedSizes.set(i, argumentSizes.size(i));
+        int blockSize = 1;
+        for (int i = keptDimensions; i < argumentSizes.dimensions(); i++)
+            blockSize *= Convert.safe2Int(argumentSizes.size(i));
+
+        DimensionSizes sizes = reducedSizes.build();
+        int size = Convert.safe2Int(sizes.totalSize());
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++)
+            values[i] = aggregate(argument, (long)i * blockSize, blockSize, aggregator);
+        return IndexedTensor.Builder.of(reducedType, sizes, values).build();
+    }
+
+    /** Aggregates the given number of consecutive values of a dense tensor, starting at the given value index */
+    static double aggregate(IndexedTensor argument, long start, int length, Reduce.Aggregator aggregator) {
+        long end = start + length;
+        switch (aggregator) {
+            case avg: return sum(argument, start, end) / length;
+            case count: return length;
+            case sum: return sum(argument, start, end);
+            case max: {
+                double max = Double.NEGATIVE_INFINITY;
+                for (long i = start; i < end; i++) {
+                    double value = argument.get(i);
+                    if (value > max)
+                        max = value;
+                }
+                return max;
+            }
+            case min: {
+                double min = Double.POSITIVE_INFINITY;
+                for (long i = start; i < end; i++) {
+                    double value = argument.get(i);
+                    if (value < min)
+                        min = value;
+                }
+                return min;
+            }
+            case prod: {
+                double prod = 1.0;
+                for (long i = start; i < end; i++)
+                    prod *= argument.get(i);
+                return prod;
+            }
+            default: throw new IllegalArgumentException("Aggregator " + aggregator + " is not supported by dense kernels");
+        }
+    }
+
+    private static double sum(IndexedTensor argument, long start, long end) {
+        double sum = 0.0;
+        for (long i = start; i < end; i++)
+            sum += argument.get(i);
+        return sum;
+    }
+
+    /** Returns the dot product of the given number of consecutive values of two dense tensors */
+    static double dot(IndexedTensor a, long aStart, IndexedTensor b, long bStart, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++)
+            sum += a.get(aStart + i) * b.get(bStart + i);
+        return sum;
+    }
+
+}
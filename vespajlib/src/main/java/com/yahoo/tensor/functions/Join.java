@@ -117,17 +117,14 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
     }
 
     private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
-        int joinedRank = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
-        for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
-        return builder.build();
+        return DenseKernels.joinVectors(a, b, type, combinator);
     }
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
     private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        if (a instanceof IndexedTensor indexedA && b instanceof IndexedTensor indexedB
+            && indexedA.dimensionSizes().equals(indexedB.dimensionSizes()))
+            return DenseKernels.join(indexedA, indexedB, joinedType, combinator);
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -152,6 +149,9 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         if (subspace.isEmpty() || superspace.isEmpty()) // special case empty here to avoid doing it when finding sizes
             return Tensor.Builder.of(joinedType, new DimensionSizes.Builder(joinedType.dimensions().size()).build()).build();
 
+        if (DenseKernels.isInnerSubspace(subspace, superspace))
+            return DenseKernels.joinInnerSubspace(subspace, superspace, joinedType, reversedArgumentOrder, combinator);
+
         DimensionSizes joinedSizes = joinedSize(joinedType, subspace, superspace);
 
         IndexedTensor.Builder builder = (IndexedTensor.Builder)Tensor.Builder.of(joinedType, joinedSizes);
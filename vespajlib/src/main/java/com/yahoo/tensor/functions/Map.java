@@ -1,6 +1,7 @@
 // Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
@@ -61,6 +62,8 @@ public class Map<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYPE
     @Override
     public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
         Tensor input = argument().evaluate(context);
+        if (input instanceof IndexedTensor indexed)
+            return DenseKernels.map(indexed, outputType(input.type()), mapper);
         Tensor.Builder builder = Tensor.Builder.of(outputType(input.type()));
         for (Iterator<Tensor.Cell> i = input.cellIterator(); i.hasNext(); ) {
             java.util.Map.Entry<TensorAddress, Double> cell = i.next();
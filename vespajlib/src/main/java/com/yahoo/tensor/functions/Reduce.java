@@ -124,6 +124,10 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
                 return Tensor.from(0.0);
             else if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
                 return reduceIndexedVector((IndexedTensor) argument, aggregator);
+            else if (argument instanceof IndexedTensor indexedTensor && DenseKernels.canAggregate(aggregator))
+                return Tensor.Builder.of(TensorType.empty)
+                             .cell(DenseKernels.aggregate(indexedTensor, 0, indexedTensor.sizeAsInt(), aggregator))
+                             .build();
             else
                 return reduceAllGeneral(argument, aggregator);
         }
@@ -131,7 +135,10 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         TensorType reducedType = outputType(argument.type(), dimensions);
         int[] indexesToReduce = createIndexesToReduce(argument.type(), dimensions);
         int[] indexesToKeep = createIndexesToKeep(argument.type(), indexesToReduce);
-        if (argument instanceof IndexedTensor indexedTensor && reducedType.hasOnlyIndexedBoundDimensions()) {
+        if (argument instanceof IndexedTensor indexedTensor && DenseKernels.canAggregate(aggregator)
+            && DenseKernels.areInnermost(indexesToReduce, argument.type())) {
+            return DenseKernels.reduceInner(indexedTensor, reducedType, indexesToReduce.length, aggregator);
+        } else if (argument instanceof IndexedTensor indexedTensor && reducedType.hasOnlyIndexedBoundDimensions()) {
             return reduceIndexedTensor(indexedTensor, reducedType, indexesToKeep, indexesToReduce, aggregator);
         } else {
             return reduceGeneral(argument, reducedType, indexesToKeep, aggregator);
@@ -232,8 +239,10 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     private static Tensor reduceIndexedVector(IndexedTensor argument, Aggregator aggregator) {
-        ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
         int dimensionSize = Convert.safe2Int(argument.dimensionSizes().size(0));
+        if (DenseKernels.canAggregate(aggregator))
+            return Tensor.Builder.of(TensorType.empty).cell(DenseKernels.aggregate(argument, 0, dimensionSize, aggregator)).build();
+        ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
         for (int i = 0; i < dimensionSize ; i++)
             valueAggregator.aggregate(argument.get(i));
         return Tensor.Builder.of(TensorType.empty).cell(valueAggregator.aggregatedValue()).build();
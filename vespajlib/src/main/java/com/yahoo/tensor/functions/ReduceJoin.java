@@ -120,7 +120,7 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
      * Evaluates the reduce-join. Special handling for common cases where the
      * reduce dimension is the innermost dimension in both tensors.
      */
-    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
+    Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
         TensorType reducedType = Reduce.outputType(joinedType, dimensions);
 
         if (reduceDimensionIsInnermost(a, b)) {
@@ -146,6 +146,10 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         }
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        if (isDotProduct()) {
+            builder.cellByDirectIndex(0, DenseKernels.dot(a, 0, b, 0, (int)commonSize));
+            return builder.build();
+        }
 
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ic = 0; ic < commonSize; ++ic) {
@@ -165,6 +169,12 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
 
+        if (isDotProduct()) {
+            int commonSize = (int)Math.min(sizesA.size(0), sizesB.size(1));
+            for (int ib = 0; ib < sizesB.size(0); ++ib)
+                builder.cellByDirectIndex(ib, DenseKernels.dot(a, 0, b, ib * sizesB.size(1), commonSize));
+            return builder.build();
+        }
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ib = 0; ib < sizesB.size(0); ++ib) {
             agg.reset();
@@ -191,6 +201,16 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
+        if (isDotProduct()) {
+            int commonSize = (int)Math.min(sizesA.size(1), sizesB.size(1));
+            for (int ia = 0; ia < sizesA.size(0); ++ia) {
+                for (int ib = 0; ib < sizesB.size(0); ++ib) {
+                    double product = DenseKernels.dot(a, ia * sizesA.size(1), b, ib * sizesB.size(1), commonSize);
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB, product);
+                }
+            }
+            return builder.build();
+        }
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ia = 0; ia < sizesA.size(0); ++ia) {
             for (int ib = 0; ib < sizesB.size(0); ++ib) {
@@ -206,6 +226,11 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         return builder.build();
     }
 
+    /** Returns whether this is a sum of products, which can be computed as dot products of dense vectors */
+    private boolean isDotProduct() {
+        return aggregator == Reduce.Aggregator.sum && combinator instanceof ScalarFunctions.Multiply;
+    }
+
     private Tensor evaluateGeneral(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         TensorType onlyInA = Reduce.outputType(a.type(), dimensions);
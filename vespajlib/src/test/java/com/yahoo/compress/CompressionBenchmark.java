@@ -0,0 +1,111 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compares gzip and zstd for compressing and decompressing feed-like JSON, by throughput and CPU time per MB.
+ * Run with: numDocuments (default 10000) and numIterations (default 50).
+ */
+public class CompressionBenchmark {
+
+    interface Codec {
+        OutputStream compressing(OutputStream out) throws IOException;
+        InputStream decompressing(InputStream in) throws IOException;
+    }
+
+    static final Codec gzip = new Codec() {
+        @Override public OutputStream compressing(OutputStream out) throws IOException { return new GZIPOutputStream(out, 1 << 13); }
+        @Override public InputStream decompressing(InputStream in) throws IOException { return new GZIPInputStream(in, 1 << 13); }
+        @Override public String toString() { return "gzip"; }
+    };
+
+    static final Codec zstd = new Codec() {
+        @Override public OutputStream compressing(OutputStream out) { return new ZstdOutputStream(out, 1 << 16); }
+        @Override public InputStream decompressing(InputStream in) { return new ZstdInputStream(in); }
+        @Override public String toString() { return "zstd"; }
+    };
+
+    private static byte[] createFeed(int numDocuments) {
+        Random random = new Random(42);
+        String[] words = new String[1000];
+        for (int i = 0; i < words.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = 2 + random.nextInt(8); j > 0; j--) word.append((char) ('a' + random.nextInt(26)));
+            words[i] = word.toString();
+        }
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < numDocuments; i++) {
+            feed.append("{\"put\":\"id:ns:music::").append(i).append("\",\"fields\":{\"title\":\"");
+            for (int j = 0; j < 5; j++) feed.append(j == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+            feed.append("\",\"body\":\"");
+            for (int j = 0; j < 100; j++) feed.append(j == 0 ? "" : " ").append(words[random.nextInt(words.length)]);
+            feed.append("\",\"year\":").append(1900 + random.nextInt(125))
+                .append(",\"popularity\":").append(random.nextDouble()).append("}}\n");
+        }
+        return feed.toString().getBytes(UTF_8);
+    }
+
+    private static byte[] compress(Codec codec, byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4);
+        try (OutputStream out = codec.compressing(buffer)) {
+            out.write(data);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static long decompress(Codec codec, byte[] data) {
+        try (InputStream in = codec.decompressing(new ByteArrayInputStream(data))) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void benchmark(Codec codec, byte[] feed, int numIterations) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        double megabytes = (double) feed.length * numIterations / (1 << 20);
+
+        long startNanos = System.nanoTime(), startCpuNanos = threads.getCurrentThreadCpuTime();
+        byte[] compressed = null;
+        for (int i = 0; i < numIterations; i++) compressed = compress(codec, feed);
+        long compressNanos = System.nanoTime() - startNanos, compressCpuNanos = threads.getCurrentThreadCpuTime() - startCpuNanos;
+
+        startNanos = System.nanoTime();
+        startCpuNanos = threads.getCurrentThreadCpuTime();
+        long decompressed = 0;
+        for (int i = 0; i < numIterations; i++) decompressed += decompress(codec, compressed);
+        long decompressNanos = System.nanoTime() - startNanos, decompressCpuNanos = threads.getCurrentThreadCpuTime() - startCpuNanos;
+        if (decompressed != (long) feed.length * numIterations) throw new IllegalStateException("Lost data");
+
+        System.out.printf("%s: ratio %.2f, compress %.1f MB/s, %.2f ms CPU/MB, decompress %.1f MB/s, %.2f ms CPU/MB%n",
+                          codec, (double) feed.length / compressed.length,
+                          megabytes * 1e9 / compressNanos, compressCpuNanos * 1e-6 / megabytes,
+                          megabytes * 1e9 / decompressNanos, decompressCpuNanos * 1e-6 / megabytes);
+    }
+
+    public static void main(String[] args) {
+        byte[] feed = createFeed(args.length > 0 ? Integer.parseInt(args[0]) : 10000);
+        int numIterations = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        System.out.printf("Feed of %.1f MB%n", feed.length / (double) (1 << 20));
+        for (Codec codec : new Codec[]{ gzip, zstd }) benchmark(codec, feed, Math.max(1, numIterations / 10)); // Warmup.
+        for (Codec codec : new Codec[]{ gzip, zstd }) benchmark(codec, feed, numIterations);
+    }
+
+}
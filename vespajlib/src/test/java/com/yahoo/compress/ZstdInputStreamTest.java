@@ -0,0 +1,45 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZstdInputStreamTest {
+
+    @Test
+    void input_stream_decompresses_all_frames() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog ").append(i).append('\n');
+        }
+        byte[] inputData = builder.toString().getBytes(UTF_8);
+        ByteArrayOutputStream arrayOut = new ByteArrayOutputStream();
+        try (ZstdOutputStream zstdOut = new ZstdOutputStream(arrayOut, 100)) { // Many frames.
+            zstdOut.write(inputData);
+        }
+        try (InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream(arrayOut.toByteArray()))) {
+            assertArrayEquals(inputData, zstdIn.readAllBytes());
+        }
+
+        byte[] singleFrame = new ZstdCompressor().compress(inputData, 0, inputData.length);
+        try (InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream(singleFrame))) {
+            assertArrayEquals(inputData, zstdIn.readAllBytes());
+        }
+    }
+
+    @Test
+    void malformed_input_is_an_io_exception() throws IOException {
+        try (InputStream zstdIn = new ZstdInputStream(new ByteArrayInputStream(new byte[]{ 1, 2, 3, 4, 5, 6, 7, 8 }))) {
+            assertThrows(IOException.class, zstdIn::readAllBytes);
+        }
+    }
+
+}
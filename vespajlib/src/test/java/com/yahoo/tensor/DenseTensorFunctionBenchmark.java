@@ -0,0 +1,120 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.VariableTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Map;
+import com.yahoo.tensor.functions.Matmul;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares tensor functions on dense tensors, which use the dense fast paths,
+ * with the same functions on tensors holding the same cells in mapped dimensions, which use the generic paths.
+ *
+ * Run with main(), which writes the results as JSON to target/dense-tensor-function-benchmark.json
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DenseTensorFunctionBenchmark {
+
+    @Param({ "indexed", "mapped" })
+    public String dimensionType;
+
+    @Param({ "float", "double" })
+    public String cellType;
+
+    private final MapEvaluationContext<Name> context = new MapEvaluationContext<>();
+
+    private TensorFunction<Name> join, subspaceJoin, reduce, map, matmul;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        context.put("matrix1", tensor(random, 64, 256));
+        context.put("matrix2", tensor(random, 64, 256));
+        context.put("vector", tensor(random, 0, 256));
+
+        var matrix1 = new VariableTensor<Name>("matrix1");
+        var matrix2 = new VariableTensor<Name>("matrix2");
+        var vector = new VariableTensor<Name>("vector");
+        join = new Join<>(matrix1, matrix2, ScalarFunctions.add());
+        subspaceJoin = new Join<>(matrix1, vector, ScalarFunctions.multiply());
+        reduce = new Reduce<>(matrix1, Reduce.Aggregator.sum, "y");
+        map = new Map<>(matrix1, ScalarFunctions.exp());
+        matmul = new Matmul<>(matrix1, vector, "y");
+    }
+
+    /** Returns a tensor with dimensions x and y, or only y if xSize is 0 */
+    private Tensor tensor(Random random, int xSize, int ySize) {
+        var typeBuilder = new TensorType.Builder(cellType.equals("float") ? TensorType.Value.FLOAT : TensorType.Value.DOUBLE);
+        if (xSize > 0)
+            addDimension(typeBuilder, "x", xSize);
+        addDimension(typeBuilder, "y", ySize);
+        Tensor.Builder builder = Tensor.Builder.of(typeBuilder.build());
+        for (int x = 0; x < Math.max(1, xSize); x++) {
+            for (int y = 0; y < ySize; y++) {
+                var cell = builder.cell();
+                if (xSize > 0)
+                    cell = cell.label("x", x);
+                cell.label("y", y).value(random.nextDouble());
+            }
+        }
+        return builder.build();
+    }
+
+    private void addDimension(TensorType.Builder builder, String name, int size) {
+        if (dimensionType.equals("indexed"))
+            builder.indexed(name, size);
+        else
+            builder.mapped(name);
+    }
+
+    @Benchmark
+    public Tensor join() { return join.evaluate(context); }
+
+    @Benchmark
+    public Tensor subspaceJoin() { return subspaceJoin.evaluate(context); }
+
+    @Benchmark
+    public Tensor reduceInnerDimension() { return reduce.evaluate(context); }
+
+    @Benchmark
+    public Tensor map() { return map.evaluate(context); }
+
+    @Benchmark
+    public Tensor matmul() { return matmul.evaluate(context); }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DenseTensorFunctionBenchmark.class.getSimpleName())
+                                       .resultFormat(ResultFormatType.JSON)
+                                       .result("target/dense-tensor-function-benchmark.json")
+                                       .build()).run();
+    }
+
+}
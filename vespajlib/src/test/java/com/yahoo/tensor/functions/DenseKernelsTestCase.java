@@ -0,0 +1,84 @@
+// Copyright Vespa.ai. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the tensor functions which have dense fast paths, with dense arguments
+ */
+public class DenseKernelsTestCase {
+
+    @Test
+    public void testJoinSameDimensions() {
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[11, 22], [33, 44]]"),
+                     Tensor.from("tensor(x[2],y[2]):[[1, 2], [3, 4]]").add(Tensor.from("tensor(x[2],y[2]):[[10, 20], [30, 40]]")));
+        assertEquals(Tensor.from("tensor<float>(x[2],y[2]):[[11, 22], [33, 44]]"),
+                     Tensor.from("tensor<float>(x[2],y[2]):[[1, 2], [3, 4]]").add(Tensor.from("tensor<float>(x[2],y[2]):[[10, 20], [30, 40]]")));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[11, 22], [33, 44]]"),
+                     Tensor.from("tensor<float>(x[2],y[2]):[[1, 2], [3, 4]]").add(Tensor.from("tensor(x[2],y[2]):[[10, 20], [30, 40]]")));
+    }
+
+    @Test
+    public void testJoinVectors() {
+        assertEquals(Tensor.from("tensor(x[3]):[3, 8, 15]"),
+                     Tensor.from("tensor(x[3]):[1, 2, 3]").multiply(Tensor.from("tensor(x[3]):[3, 4, 5]")));
+        assertEquals(Tensor.from("tensor<float>(x[3]):[3, 8, 15]"),
+                     Tensor.from("tensor<float>(x[3]):[1, 2, 3]").multiply(Tensor.from("tensor<float>(x[3]):[3, 4, 5]")));
+    }
+
+    @Test
+    public void testJoinInnerSubspace() {
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor vector = Tensor.from("tensor(y[3]):[10, 20, 30]");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[-9, -18, -27], [-6, -15, -24]]"), matrix.subtract(vector));
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[9, 18, 27], [6, 15, 24]]"), vector.subtract(matrix));
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[2, 3, 4], [5, 6, 7]]"), matrix.add(Tensor.from(1.0)));
+    }
+
+    @Test
+    public void testJoinOuterSubspace() {
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor vector = Tensor.from("tensor(x[2]):[10, 20]");
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[11, 12, 13], [24, 25, 26]]"), matrix.add(vector));
+    }
+
+    @Test
+    public void testMap() {
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[2, 4], [6, 8]]"),
+                     Tensor.from("tensor(x[2],y[2]):[[1, 2], [3, 4]]").map(v -> v * 2));
+        assertEquals(Tensor.from("tensor<float>(x[2]):[-1, -2]"),
+                     Tensor.from("tensor<bfloat16>(x[2]):[1, 2]").map(v -> -v));
+    }
+
+    @Test
+    public void testReduceInnerDimensions() {
+        Tensor tensor = Tensor.from("tensor(x[2],y[2],z[3]):[[[1, 2, 3], [4, 5, 6]], [[7, 8, 9], [10, 11, 12]]]");
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[6, 15], [24, 33]]"), tensor.sum("z"));
+        assertEquals(Tensor.from("tensor(x[2]):[21, 57]"), tensor.sum(List.of("y", "z")));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[3, 6], [9, 12]]"), tensor.max("z"));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[1, 4], [7, 10]]"), tensor.min("z"));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[2, 5], [8, 11]]"), tensor.avg("z"));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[6, 120], [504, 1320]]"), tensor.reduce(Reduce.Aggregator.prod, "z"));
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[3, 3], [3, 3]]"), tensor.reduce(Reduce.Aggregator.count, "z"));
+        assertEquals(Tensor.from("tensor(y[2],z[3]):[[8, 10, 12], [14, 16, 18]]"), tensor.sum("x")); // not innermost
+        assertEquals(78.0, tensor.sum().asDouble(), 0.0);
+        assertEquals(12.0, tensor.max().asDouble(), 0.0);
+    }
+
+    @Test
+    public void testMatmul() {
+        Tensor matrix = Tensor.from("tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor vector = Tensor.from("tensor(y[3]):[1, 10, 100]");
+        assertEquals(Tensor.from("tensor(x[2]):[321, 654]"), matrix.matmul(vector, "y"));
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[321, 123], [654, 456]]"),
+                     matrix.matmul(Tensor.from("tensor(y[3],z[2]):[[1, 100], [10, 10], [100, 1]]"), "y"));
+        assertEquals(Tensor.from("tensor(x[2]):[321, 654]"),
+                     matrix.matmul(Tensor.from("tensor(y{}):{1:10, 0:1, 2:100}"), "y"));
+    }
+
+}